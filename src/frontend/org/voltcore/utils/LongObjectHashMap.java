@@ -0,0 +1,225 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltcore.utils;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from primitive long keys to objects. Used on hot
+ * paths keyed by transaction ids or handles where a HashMap would box every
+ * key and allocate an entry per mapping.
+ *
+ * Linear probing with backward shift deletion, so there are no tombstones.
+ * Null values are not allowed, a null return always means "no mapping".
+ * Not thread safe.
+ */
+public class LongObjectHashMap<V> {
+    private static final float LOAD_FACTOR = 0.5f;
+
+    public interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    public interface EntryPredicate<V> {
+        boolean test(long key, V value);
+    }
+
+    private long[] m_keys;
+    private V[] m_values;
+    private int m_mask;
+    private int m_size;
+    private int m_resizeThreshold;
+
+    public LongObjectHashMap() {
+        this(16);
+    }
+
+    public LongObjectHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        m_keys = new long[capacity];
+        m_values = (V[]) new Object[capacity];
+        m_mask = capacity - 1;
+        m_resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & m_mask;
+    }
+
+    private int indexOf(long key) {
+        for (int i = slot(key); m_values[i] != null; i = (i + 1) & m_mask) {
+            if (m_keys[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public V get(long key) {
+        final int index = indexOf(key);
+        return index < 0 ? null : m_values[index];
+    }
+
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * @return the previous value mapped to key or null
+     */
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported");
+        }
+        int i = slot(key);
+        for (; m_values[i] != null; i = (i + 1) & m_mask) {
+            if (m_keys[i] == key) {
+                final V previous = m_values[i];
+                m_values[i] = value;
+                return previous;
+            }
+        }
+        m_keys[i] = key;
+        m_values[i] = value;
+        if (++m_size > m_resizeThreshold) {
+            rehash(m_keys.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * @return the value that was mapped to key or null
+     */
+    public V remove(long key) {
+        final int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        final V previous = m_values[index];
+        removeAt(index);
+        return previous;
+    }
+
+    private void removeAt(int index) {
+        --m_size;
+        // Shift back any following entries whose probe sequence passes through the hole
+        int hole = index;
+        int i = (hole + 1) & m_mask;
+        while (m_values[i] != null) {
+            final int home = slot(m_keys[i]);
+            // Move the entry if its home slot is not in the cyclic range (hole, i]
+            if (((i - home) & m_mask) >= ((i - hole) & m_mask)) {
+                m_keys[hole] = m_keys[i];
+                m_values[hole] = m_values[i];
+                hole = i;
+            }
+            i = (i + 1) & m_mask;
+        }
+        m_values[hole] = null;
+    }
+
+    private void rehash(int capacity) {
+        final long[] keys = m_keys;
+        final V[] values = m_values;
+        allocate(capacity);
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != null) {
+                int j = slot(keys[i]);
+                while (m_values[j] != null) {
+                    j = (j + 1) & m_mask;
+                }
+                m_keys[j] = keys[i];
+                m_values[j] = values[i];
+            }
+        }
+    }
+
+    public int size() {
+        return m_size;
+    }
+
+    public boolean isEmpty() {
+        return m_size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(m_values, null);
+        m_size = 0;
+    }
+
+    /**
+     * @return a copy of all the keys in no particular order
+     */
+    public long[] keys() {
+        final long[] keys = new long[m_size];
+        for (int i = 0, k = 0; i < m_values.length; i++) {
+            if (m_values[i] != null) {
+                keys[k++] = m_keys[i];
+            }
+        }
+        return keys;
+    }
+
+    public void forEach(EntryConsumer<? super V> consumer) {
+        for (int i = 0; i < m_values.length; i++) {
+            if (m_values[i] != null) {
+                consumer.accept(m_keys[i], m_values[i]);
+            }
+        }
+    }
+
+    /**
+     * Remove all the entries matching predicate.
+     * @return number of entries removed
+     */
+    public int removeIf(EntryPredicate<? super V> predicate) {
+        // Removal shifts entries around so collect the keys first
+        long[] matches = null;
+        int count = 0;
+        for (int i = 0; i < m_values.length; i++) {
+            if (m_values[i] != null && predicate.test(m_keys[i], m_values[i])) {
+                if (matches == null) {
+                    matches = new long[m_size];
+                }
+                matches[count++] = m_keys[i];
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            remove(matches[i]);
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(key).append('=').append(value);
+        });
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,277 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltcore.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Multi-producer single-consumer queue backed by a linked list of fixed size
+ * arrays. Producers claim a slot with a single getAndIncrement and publish the
+ * element with an ordered store, so offering never allocates except when a new
+ * chunk is needed (once every {@link #CHUNK_SIZE} elements). The queue is never
+ * full; offer always succeeds.
+ *
+ * Only one thread may call {@link #poll()}, {@link #drain(Object[], int)},
+ * {@link #take()} or {@link #takeBatch(Object[], int)}. {@link #size()},
+ * {@link #isEmpty()} and {@link #peek()} may be called from any thread but the
+ * answer is only a snapshot.
+ *
+ * The blocking take spins for a configurable number of nanoseconds, then yields
+ * a few times and finally parks until a producer unparks it.
+ */
+public class MpscChunkedQueue<T> {
+    static final int CHUNK_SIZE = 1024;
+
+    private static final int YIELD_ITERATIONS = 16;
+
+    private static final class Chunk<T> {
+        final long m_base;
+        final AtomicReferenceArray<T> m_slots = new AtomicReferenceArray<>(CHUNK_SIZE);
+        final AtomicReference<Chunk<T>> m_next = new AtomicReference<>();
+
+        Chunk(long base) {
+            m_base = base;
+        }
+    }
+
+    private final long m_spinNanos;
+
+    // Producer side
+    private final AtomicLong m_producerIndex = new AtomicLong();
+    private final AtomicReference<Chunk<T>> m_producerChunk;
+
+    // Consumer side, only written by the consumer thread
+    private final AtomicLong m_consumerIndex = new AtomicLong();
+    private volatile Chunk<T> m_consumerChunk;
+    private volatile Thread m_consumerThread;
+    private volatile boolean m_consumerWaiting = false;
+
+    public MpscChunkedQueue() {
+        this(CoreUtils.QUEUE_SPIN_MICROSECONDS);
+    }
+
+    /**
+     * @param spinNanos how long a blocking take busy polls before yielding and parking
+     */
+    public MpscChunkedQueue(long spinNanos) {
+        m_spinNanos = spinNanos;
+        Chunk<T> first = new Chunk<>(0);
+        m_producerChunk = new AtomicReference<>(first);
+        m_consumerChunk = first;
+    }
+
+    public boolean offer(T element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        // The chunk must be read before claiming the index so that it can't be
+        // ahead of the claimed slot
+        Chunk<T> chunk = m_producerChunk.get();
+        final long index = m_producerIndex.getAndIncrement();
+        while (index >= chunk.m_base + CHUNK_SIZE) {
+            Chunk<T> next = chunk.m_next.get();
+            if (next == null) {
+                Chunk<T> created = new Chunk<>(chunk.m_base + CHUNK_SIZE);
+                next = chunk.m_next.compareAndSet(null, created) ? created : chunk.m_next.get();
+            }
+            chunk = next;
+        }
+        Chunk<T> current = m_producerChunk.get();
+        if (current.m_base < chunk.m_base) {
+            // Only ever moves forward, if the CAS fails someone else moved it further
+            m_producerChunk.compareAndSet(current, chunk);
+        }
+        chunk.m_slots.lazySet((int) (index - chunk.m_base), element);
+
+        if (m_consumerWaiting) {
+            m_consumerWaiting = false;
+            LockSupport.unpark(m_consumerThread);
+        }
+        return true;
+    }
+
+    /**
+     * Move the consumer to the chunk holding index if it just stepped past the
+     * end of the current one.
+     */
+    private Chunk<T> consumerChunkFor(long index) {
+        Chunk<T> chunk = m_consumerChunk;
+        if (index == chunk.m_base + CHUNK_SIZE) {
+            Chunk<T> next;
+            // A producer claimed the slot but may not have linked the chunk yet
+            while ((next = chunk.m_next.get()) == null) {
+                Thread.yield();
+            }
+            m_consumerChunk = next;
+            chunk = next;
+        }
+        return chunk;
+    }
+
+    private static <T> T awaitSlot(Chunk<T> chunk, int offset) {
+        T element;
+        // A producer claimed the slot but has not published to it yet
+        while ((element = chunk.m_slots.get(offset)) == null) {
+            Thread.yield();
+        }
+        return element;
+    }
+
+    /**
+     * Non-blocking poll, consumer thread only.
+     */
+    public T poll() {
+        final long index = m_consumerIndex.get();
+        if (index >= m_producerIndex.get()) {
+            return null;
+        }
+        final Chunk<T> chunk = consumerChunkFor(index);
+        final int offset = (int) (index - chunk.m_base);
+        final T element = awaitSlot(chunk, offset);
+        chunk.m_slots.lazySet(offset, null);
+        m_consumerIndex.lazySet(index + 1);
+        return element;
+    }
+
+    /**
+     * Remove up to max available elements into batch starting at index 0 without blocking.
+     * Consumer thread only.
+     * @return number of elements drained
+     */
+    public int drain(T[] batch, int max) {
+        final long start = m_consumerIndex.get();
+        final int count = (int) Math.min(Math.min(max, batch.length), m_producerIndex.get() - start);
+        if (count <= 0) {
+            return 0;
+        }
+        long index = start;
+        for (int i = 0; i < count; i++, index++) {
+            final Chunk<T> chunk = consumerChunkFor(index);
+            final int offset = (int) (index - chunk.m_base);
+            batch[i] = awaitSlot(chunk, offset);
+            chunk.m_slots.lazySet(offset, null);
+        }
+        m_consumerIndex.lazySet(index);
+        return count;
+    }
+
+    /**
+     * Look at the next element without removing it. Safe from any thread, but
+     * from a thread other than the consumer the element may already have been
+     * removed by the time it is returned.
+     */
+    public T peek() {
+        final long index = m_consumerIndex.get();
+        if (index >= m_producerIndex.get()) {
+            return null;
+        }
+        Chunk<T> chunk = m_consumerChunk;
+        if (index < chunk.m_base) {
+            return null;
+        }
+        if (index >= chunk.m_base + CHUNK_SIZE) {
+            chunk = chunk.m_next.get();
+            // Either not linked yet or the consumer moved on while we were looking
+            if (chunk == null || index >= chunk.m_base + CHUNK_SIZE) {
+                return null;
+            }
+        }
+        return chunk.m_slots.get((int) (index - chunk.m_base));
+    }
+
+    /**
+     * Block until an element is available and return it. Consumer thread only.
+     */
+    public T take() throws InterruptedException {
+        T element = poll();
+        if (element == null) {
+            awaitElements();
+            element = poll();
+        }
+        return element;
+    }
+
+    /**
+     * Block until at least one element is available and then drain up to max
+     * elements into batch. Consumer thread only.
+     * @return number of elements drained, always at least one
+     */
+    public int takeBatch(T[] batch, int max) throws InterruptedException {
+        int count = drain(batch, max);
+        if (count == 0) {
+            awaitElements();
+            count = drain(batch, max);
+        }
+        return count;
+    }
+
+    /**
+     * Wait until the queue is not empty: busy spin, then yield, then park.
+     */
+    public void awaitElements() throws InterruptedException {
+        if (m_spinNanos > 0) {
+            final long start = System.nanoTime();
+            while (isEmptyForConsumer()) {
+                if (System.nanoTime() - start > m_spinNanos) {
+                    break;
+                }
+            }
+        }
+        for (int i = 0; i < YIELD_ITERATIONS && isEmptyForConsumer(); i++) {
+            Thread.yield();
+        }
+        if (!isEmptyForConsumer()) {
+            return;
+        }
+        m_consumerThread = Thread.currentThread();
+        try {
+            while (true) {
+                // Publish the intention to park before re-checking so a producer
+                // either sees the flag or the consumer sees its element
+                m_consumerWaiting = true;
+                if (!isEmptyForConsumer()) {
+                    return;
+                }
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            m_consumerWaiting = false;
+        }
+    }
+
+    private boolean isEmptyForConsumer() {
+        return m_consumerIndex.get() >= m_producerIndex.get();
+    }
+
+    public int size() {
+        // Read the consumer first so the difference can't go negative
+        final long consumer = m_consumerIndex.get();
+        final long producer = m_producerIndex.get();
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, producer - consumer));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
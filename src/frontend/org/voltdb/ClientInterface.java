@@ -94,6 +94,7 @@ import org.voltdb.iv2.Iv2Trace;
 import org.voltdb.iv2.MigratePartitionLeaderInfo;
 import org.voltdb.iv2.MpInitiator;
 import org.voltdb.messaging.FastDeserializer;
+import org.voltdb.messaging.InitiateResponseBatchMessage;
 import org.voltdb.messaging.InitiateResponseMessage;
 import org.voltdb.messaging.Iv2EndOfLogMessage;
 import org.voltdb.messaging.Iv2InitiateTaskMessage;
@@ -1216,6 +1217,12 @@ public class ClientInterface implements SnapshotDaemon.DaemonInitiator {
                         Iv2Trace.logFinishTransaction(response, m_mailbox.getHSId());
                     }
                 }
+                else if (message instanceof InitiateResponseBatchMessage) {
+                    // Responses an SPI completed together, in transaction order
+                    for (InitiateResponseMessage response : ((InitiateResponseBatchMessage)message).getResponses()) {
+                        deliver(response);
+                    }
+                }
                 else if (message instanceof BinaryPayloadMessage) {
                     handlePartitionFailOver((BinaryPayloadMessage)message);
                 }
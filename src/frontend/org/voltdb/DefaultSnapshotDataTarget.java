@@ -47,6 +47,7 @@ import org.voltcore.utils.DBBPool.BBContainer;
 import org.voltdb.messaging.FastSerializer;
 import org.voltdb.sysprocs.saverestore.SnapshotUtil;
 import org.voltdb.utils.CompressionService;
+import org.voltdb.utils.DiskWriteScheduler;
 import org.voltdb.utils.PosixAdvise;
 
 import com.google_voltpatches.common.util.concurrent.Callables;
@@ -55,7 +56,6 @@ import com.google_voltpatches.common.util.concurrent.ListenableFuture;
 import com.google_voltpatches.common.util.concurrent.ListeningExecutorService;
 import com.google_voltpatches.common.util.concurrent.ListeningScheduledExecutorService;
 import com.google_voltpatches.common.util.concurrent.MoreExecutors;
-import com.google_voltpatches.common.util.concurrent.UnsynchronizedRateLimiter;
 
 
 public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
@@ -111,32 +111,15 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
 
     public static final int SNAPSHOT_SYNC_FREQUENCY = Integer.getInteger("SNAPSHOT_SYNC_FREQUENCY", 500);
     public static final int SNAPSHOT_FADVISE_BYTES = Integer.getInteger("SNAPSHOT_FADVISE_BYTES", 1024 * 1024 * 2);
-    public static final int SNAPSHOT_RATELIMIT_MEGABYTES;
-    public static final boolean USE_SNAPSHOT_RATELIMIT;
-
-    static {
-        int limit = Integer.getInteger("SNAPSHOT_RATELIMIT_MEGABYTES", Integer.MAX_VALUE);
-        if (limit < 1) {
-            SNAP_LOG.warn("Invalid snapshot rate limit " + limit + ", no limit will be applied");
-            SNAPSHOT_RATELIMIT_MEGABYTES = Integer.MAX_VALUE;
-        } else {
-            SNAPSHOT_RATELIMIT_MEGABYTES = limit;
-        }
-        if (SNAPSHOT_RATELIMIT_MEGABYTES < Integer.MAX_VALUE) {
-            USE_SNAPSHOT_RATELIMIT = true;
-            SNAP_LOG.info("Rate limiting snapshots to " + SNAPSHOT_RATELIMIT_MEGABYTES + " megabytes/second");
-        } else {
-            USE_SNAPSHOT_RATELIMIT = false;
-        }
-    }
-
-    public static final UnsynchronizedRateLimiter SNAPSHOT_RATELIMITER =
-            UnsynchronizedRateLimiter.create(SNAPSHOT_RATELIMIT_MEGABYTES * 1024.0 * 1024.0, 1, TimeUnit.SECONDS);
+    public static final int SNAPSHOT_RATELIMIT_MEGABYTES = DiskWriteScheduler.DEFAULT_RATE_MEGABYTES;
+    public static final boolean USE_SNAPSHOT_RATELIMIT = SNAPSHOT_RATELIMIT_MEGABYTES < DiskWriteScheduler.UNLIMITED;
 
+    /*
+     * Snapshot data is a background writer in the disk write scheduler, it is paced to
+     * the configured rate and yields to export overflow and large query block writes.
+     */
     public static void enforceSnapshotRateLimit(int permits) {
-        if (USE_SNAPSHOT_RATELIMIT) {
-            SNAPSHOT_RATELIMITER.acquire(permits);
-        }
+        DiskWriteScheduler.instance().acquire(DiskWriteScheduler.Writer.SNAPSHOT, permits);
     }
 
     public DefaultSnapshotDataTarget(
@@ -582,15 +565,6 @@ public class DefaultSnapshotDataTarget implements SnapshotDataTarget {
     }
 
     public static void setRate(final Integer megabytesPerSecond) {
-        m_es.execute(new Runnable() {
-            @Override
-            public void run() {
-                if (megabytesPerSecond == null) {
-                    SNAPSHOT_RATELIMITER.setRate(SNAPSHOT_RATELIMIT_MEGABYTES * 1024.0 * 1024.0);
-                } else {
-                    SNAPSHOT_RATELIMITER.setRate(megabytesPerSecond * 1024.0 * 1024.0);
-                }
-            }
-        });
+        DiskWriteScheduler.instance().setBackgroundRate(megabytesPerSecond);
     }
 }
@@ -0,0 +1,84 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.voltdb.VoltTable.ColumnInfo;
+import org.voltdb.utils.DiskWriteScheduler;
+import org.voltdb.utils.DiskWriteScheduler.Writer;
+import org.voltdb.utils.DiskWriteScheduler.WriterStats;
+
+/**
+ * One row per writer class of the {@link DiskWriteScheduler}.
+ */
+public class DiskWriteStats extends StatsSource {
+
+    public enum StatName {
+        WRITER,
+        PRIORITY,
+        BYTES_WRITTEN,
+        BYTES_QUEUED,
+        BYTES_THROTTLED,
+        THROTTLED_TIME,
+        RATE_LIMIT
+    };
+
+    private final DiskWriteScheduler m_scheduler;
+
+    public DiskWriteStats(DiskWriteScheduler scheduler) {
+        super(false);
+        m_scheduler = scheduler;
+    }
+
+    @Override
+    protected void populateColumnSchema(ArrayList<ColumnInfo> columns) {
+        super.populateColumnSchema(columns);
+        columns.add(new ColumnInfo(StatName.WRITER.name(), VoltType.STRING));
+        columns.add(new ColumnInfo(StatName.PRIORITY.name(), VoltType.STRING));
+        columns.add(new ColumnInfo(StatName.BYTES_WRITTEN.name(), VoltType.BIGINT));
+        columns.add(new ColumnInfo(StatName.BYTES_QUEUED.name(), VoltType.BIGINT));
+        columns.add(new ColumnInfo(StatName.BYTES_THROTTLED.name(), VoltType.BIGINT));
+        columns.add(new ColumnInfo(StatName.THROTTLED_TIME.name(), VoltType.BIGINT));
+        // Megabytes/second background writers are paced to, 0 if unlimited
+        columns.add(new ColumnInfo(StatName.RATE_LIMIT.name(), VoltType.INTEGER));
+    }
+
+    @Override
+    protected void updateStatsRow(Object rowKey, Object[] rowValues) {
+        Writer writer = (Writer) rowKey;
+        WriterStats stats = m_scheduler.getStats(writer);
+        int rate = m_scheduler.getRateMegabytes();
+        rowValues[columnNameToIndex.get(StatName.WRITER.name())] = writer.name();
+        rowValues[columnNameToIndex.get(StatName.PRIORITY.name())] = writer.priority.name();
+        rowValues[columnNameToIndex.get(StatName.BYTES_WRITTEN.name())] = stats.getBytesWritten();
+        rowValues[columnNameToIndex.get(StatName.BYTES_QUEUED.name())] = stats.getBytesQueued();
+        rowValues[columnNameToIndex.get(StatName.BYTES_THROTTLED.name())] = stats.getBytesThrottled();
+        rowValues[columnNameToIndex.get(StatName.THROTTLED_TIME.name())] = stats.getThrottledMillis();
+        rowValues[columnNameToIndex.get(StatName.RATE_LIMIT.name())] =
+                rate == DiskWriteScheduler.UNLIMITED ? 0 : rate;
+        super.updateStatsRow(rowKey, rowValues);
+    }
+
+    @Override
+    protected Iterator<Object> getStatsRowKeyIterator(boolean interval) {
+        return Arrays.asList((Object[]) Writer.values()).iterator();
+    }
+}
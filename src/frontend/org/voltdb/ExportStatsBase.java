@@ -39,10 +39,11 @@ public class ExportStatsBase extends StatsSource {
         public final long m_maxLatency;
         public final long m_queueGap;
         public final String m_status;
+        public final long m_throughput;
 
         public ExportStatsRow(int partitionId, int siteId, String sourceName, String exportTarget, String exportingRole,
                 long tupleCount, long tuplesPending, long lastQueuedTimestamp, long lastAckedTimestamp,
-                long averageLatency, long maxLatency, long queueGap, String status) {
+                long averageLatency, long maxLatency, long queueGap, String status, long throughput) {
             m_partitionId = partitionId;
             m_siteId = siteId;
             m_sourceName = sourceName;
@@ -56,6 +57,7 @@ public class ExportStatsBase extends StatsSource {
             m_maxLatency = maxLatency;
             m_queueGap = queueGap;
             m_status = status;
+            m_throughput = throughput;
         }
     }
 
@@ -79,6 +81,7 @@ public class ExportStatsBase extends StatsSource {
         public static final String MAX_LATENCY = "MAX_LATENCY";
         public static final String QUEUE_GAP = "QUEUE_GAP";
         public static final String STATUS = "STATUS";
+        public static final String THROUGHPUT = "THROUGHPUT";
     }
 
     /* Constructor */
@@ -103,6 +106,8 @@ public class ExportStatsBase extends StatsSource {
         columns.add(new ColumnInfo(Columns.MAX_LATENCY, VoltType.BIGINT));
         columns.add(new ColumnInfo(Columns.QUEUE_GAP, VoltType.BIGINT));
         columns.add(new ColumnInfo(Columns.STATUS, VoltType.STRING));
+        // Tuples per second delivered by the export client while it was processing blocks
+        columns.add(new ColumnInfo(Columns.THROUGHPUT, VoltType.BIGINT));
     }
 
     @Override
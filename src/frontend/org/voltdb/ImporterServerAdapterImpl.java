@@ -22,6 +22,7 @@ import org.voltdb.importer.AbstractImporter;
 import org.voltdb.importer.ImporterServerAdapter;
 import org.voltdb.importer.ImporterStatsCollector;
 
+import java.util.List;
 import java.util.function.Function;
 
 /**
@@ -48,6 +49,19 @@ public class ImporterServerAdapterImpl implements ImporterServerAdapter {
                 .callProcedure(importer, backPressurePredicate, m_statsCollector, procCallback, proc, fieldList);
     }
 
+    @Override
+    public boolean[] callProcedureBatch(AbstractImporter importer, Function<Integer, Boolean> backPressurePredicate,
+            List<? extends ProcedureCallback> callbacks, String proc, List<Object[]> paramsList) {
+        m_statsCollector.reportBatch(importer.getName(), proc, paramsList.size());
+        return getInternalConnectionHandler()
+                .callProcedureBatch(importer, backPressurePredicate, m_statsCollector, callbacks, proc, paramsList);
+    }
+
+    @Override
+    public VoltType[] getProcedureParameterTypes(String proc) {
+        return getInternalConnectionHandler().getProcedureParameterTypes(proc);
+    }
+
     private InternalConnectionHandler getInternalConnectionHandler() {
         return VoltDB.instance().getClientInterface().getInternalConnectionHandler();
     }
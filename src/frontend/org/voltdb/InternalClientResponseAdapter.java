@@ -22,6 +22,7 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
@@ -76,8 +77,10 @@ public class InternalClientResponseAdapter implements Connection, WriteStream {
     // Maintain internal connection ids per caller id. This is useful when collecting statistics
     // so that information can be grouped per user of this Connection.
     private final ConcurrentMap<String, Long> m_internalConnectionIds = new NonBlockingHashMap<>();
-    public final Semaphore m_permits =
-        new Semaphore(Integer.getInteger("INTERNAL_MAX_PENDING_TRANSACTION_PER_PARTITION", 500));
+    private static final int MAX_PENDING_TRANSACTIONS = Integer.getInteger("INTERNAL_MAX_PENDING_TRANSACTION_PER_PARTITION", 500);
+    // Largest group createTransactions accepts, well under the permits so a group can always get them
+    public static final int MAX_TRANSACTIONS_PER_BATCH = Math.max(1, Math.min(100, MAX_PENDING_TRANSACTIONS / 4));
+    public final Semaphore m_permits = new Semaphore(MAX_PENDING_TRANSACTIONS);
 
     private class InternalCallback implements Callback {
 
@@ -89,6 +92,8 @@ public class InternalClientResponseAdapter implements Connection, WriteStream {
         private final Procedure m_proc;
         private final AuthSystem.AuthUser m_user;
         private final String m_procName;
+        // Whether the transaction holds one of m_permits, to be given back with its response
+        private final boolean m_holdsPermit;
         public InternalCallback(
                 final InternalAdapterTaskAttributes kattrs,
                 Procedure proc,
@@ -98,6 +103,7 @@ public class InternalClientResponseAdapter implements Connection, WriteStream {
                 ProcedureCallback cb,
                 InternalConnectionStatsCollector statsCollector,
                 AuthSystem.AuthUser user,
+                boolean holdsPermit,
                 long id)
         {
             m_kattrs = kattrs;
@@ -108,6 +114,13 @@ public class InternalClientResponseAdapter implements Connection, WriteStream {
             m_partitions = partitions;
             m_user = user;
             m_procName = procName;
+            m_holdsPermit = holdsPermit;
+        }
+
+        void releasePermit() {
+            if (m_holdsPermit) {
+                m_permits.release();
+            }
         }
 
         @Override
@@ -166,6 +179,10 @@ public class InternalClientResponseAdapter implements Connection, WriteStream {
         return VoltDB.instance().getClientInterface();
     }
 
+    InvocationDispatcher getDispatcher() {
+        return getClientInterface().getDispatcher();
+    }
+
     public boolean createTransaction(final InternalAdapterTaskAttributes kattrs,
             final String procName,
             final Procedure catProc,
@@ -177,67 +194,159 @@ public class InternalClientResponseAdapter implements Connection, WriteStream {
             final boolean ntPriority,
             final Function<Integer, Boolean> backPressurePredicate) {
 
-        int primaryPartition = ((partitions == null) || (partitions.length > 1)) ? MpInitiator.MP_INIT_PID : partitions[0];
+        final int primaryPartition = getPrimaryPartition(partitions);
+        final ExecutorService executor = getPartitionExecutor(primaryPartition);
 
-        if (!m_partitionExecutor.containsKey(primaryPartition)) {
-            m_partitionExecutor.putIfAbsent(primaryPartition, CoreUtils.getSingleThreadExecutor("InternalHandlerExecutor - " + primaryPartition));
+        final boolean holdsPermit = backPressurePredicate != null && acquirePermit(primaryPartition, backPressurePredicate);
+
+        final InvocationDispatcher dispatcher = getDispatcher();
+
+        try {
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    registerConnectionId(kattrs);
+                    submitTransaction(dispatcher, kattrs, procName, catProc, proccb, statsCollector,
+                            task, user, partitions, ntPriority, holdsPermit);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            m_logger.error("Failed to submit transaction to the partition queue.", ex);
+            if (holdsPermit) {
+                m_permits.release();
+            }
+            return false;
         }
 
+        return true;
+    }
+
+    /**
+     * Create a transaction for each of the tasks, which must all have the same primary partition.
+     * Back pressure permits are taken for the whole group up front and the group is handed to the
+     * partition executor in one submission, so a batch pays for one executor hop instead of one
+     * per transaction.
+     *
+     * The group must be smaller than the number of permits, see {@link #MAX_TRANSACTIONS_PER_BATCH}.
+     * If the predicate gives up waiting the group is queued without permits, as a single transaction
+     * would be, and its responses don't give any back.
+     *
+     * @return true if all the transactions were queued, false if none were
+     */
+    public boolean createTransactions(final InternalAdapterTaskAttributes kattrs,
+            final String procName,
+            final Procedure catProc,
+            final List<? extends ProcedureCallback> proccbs,
+            final InternalConnectionStatsCollector statsCollector,
+            final List<StoredProcedureInvocation> tasks,
+            final AuthSystem.AuthUser user,
+            final List<int[]> partitions,
+            final Function<Integer, Boolean> backPressurePredicate) {
+
+        final int count = tasks.size();
+        final int primaryPartition = getPrimaryPartition(partitions.get(0));
+        final ExecutorService executor = getPartitionExecutor(primaryPartition);
+
+        boolean acquired = false;
         if (backPressurePredicate != null) {
+            // All or nothing, so batches waiting on the same partition never hold partial permits
             try {
                 do {
-                    if (m_permits.tryAcquire(BACK_PRESSURE_WAIT_TIME, MILLISECONDS)) {
-                        break;
-                    }
-                } while (backPressurePredicate.apply(primaryPartition));
+                    acquired = m_permits.tryAcquire(count, BACK_PRESSURE_WAIT_TIME, MILLISECONDS);
+                } while (!acquired && backPressurePredicate.apply(primaryPartition));
             } catch (InterruptedException e) {}
         }
+        final boolean holdsPermits = acquired;
 
-        final InvocationDispatcher dispatcher = getClientInterface().getDispatcher();
+        final InvocationDispatcher dispatcher = getDispatcher();
 
-        ExecutorService executor = m_partitionExecutor.get(primaryPartition);
         try {
             executor.submit(new Runnable() {
                 @Override
                 public void run() {
-                    if (!m_internalConnectionIds.containsKey(kattrs.getName())) {
-                        m_internalConnectionIds.putIfAbsent(kattrs.getName(), VoltProtocolHandler.getNextConnectionId());
+                    registerConnectionId(kattrs);
+                    for (int i = 0; i < count; i++) {
+                        submitTransaction(dispatcher, kattrs, procName, catProc, proccbs.get(i), statsCollector,
+                                tasks.get(i), user, partitions.get(i), false, holdsPermits);
                     }
-                    submitTransaction();
-                }
-                public boolean submitTransaction() {
-                    final long handle = nextHandle();
-                    task.setClientHandle(handle);
-                    final InternalCallback cb = new InternalCallback(
-                            kattrs, catProc, task, procName, partitions, proccb, statsCollector, user, handle);
-
-                    m_callbacks.put(handle, cb);
-
-                    ClientResponseImpl r = dispatcher.dispatch(task, kattrs, InternalClientResponseAdapter.this, user, null, ntPriority);
-                    if (r != null) {
-                        try {
-                            cb.handleResponse(r);
-                        } catch (Exception e) {
-                            m_logger.error("failed to process dispatch response " + r.getStatusString(), e);
-                        } finally {
-                            m_callbacks.remove(handle);
-                            m_permits.release();
-                        }
-                        return r.getStatus() == ClientResponse.SUCCESS;
-                    }
-
-                    return true;
                 }
             });
         } catch (RejectedExecutionException ex) {
-            m_logger.error("Failed to submit transaction to the partition queue.", ex);
-            m_permits.release();
+            m_logger.error("Failed to submit transactions to the partition queue.", ex);
+            if (holdsPermits) {
+                m_permits.release(count);
+            }
             return false;
         }
 
         return true;
     }
 
+    private static int getPrimaryPartition(int[] partitions) {
+        return ((partitions == null) || (partitions.length > 1)) ? MpInitiator.MP_INIT_PID : partitions[0];
+    }
+
+    private ExecutorService getPartitionExecutor(int primaryPartition) {
+        if (!m_partitionExecutor.containsKey(primaryPartition)) {
+            m_partitionExecutor.putIfAbsent(primaryPartition, CoreUtils.getSingleThreadExecutor("InternalHandlerExecutor - " + primaryPartition));
+        }
+        return m_partitionExecutor.get(primaryPartition);
+    }
+
+    /**
+     * @return false if the predicate gave up waiting, no permit was taken
+     */
+    private boolean acquirePermit(int primaryPartition, Function<Integer, Boolean> backPressurePredicate) {
+        try {
+            do {
+                if (m_permits.tryAcquire(BACK_PRESSURE_WAIT_TIME, MILLISECONDS)) {
+                    return true;
+                }
+            } while (backPressurePredicate.apply(primaryPartition));
+        } catch (InterruptedException e) {}
+        return false;
+    }
+
+    private void registerConnectionId(InternalAdapterTaskAttributes kattrs) {
+        if (!m_internalConnectionIds.containsKey(kattrs.getName())) {
+            m_internalConnectionIds.putIfAbsent(kattrs.getName(), VoltProtocolHandler.getNextConnectionId());
+        }
+    }
+
+    private boolean submitTransaction(final InvocationDispatcher dispatcher,
+            final InternalAdapterTaskAttributes kattrs,
+            final String procName,
+            final Procedure catProc,
+            final ProcedureCallback proccb,
+            final InternalConnectionStatsCollector statsCollector,
+            final StoredProcedureInvocation task,
+            final AuthSystem.AuthUser user,
+            final int[] partitions,
+            final boolean ntPriority,
+            final boolean holdsPermit) {
+        final long handle = nextHandle();
+        task.setClientHandle(handle);
+        final InternalCallback cb = new InternalCallback(
+                kattrs, catProc, task, procName, partitions, proccb, statsCollector, user, holdsPermit, handle);
+
+        m_callbacks.put(handle, cb);
+
+        ClientResponseImpl r = dispatcher.dispatch(task, kattrs, InternalClientResponseAdapter.this, user, null, ntPriority);
+        if (r != null) {
+            try {
+                cb.handleResponse(r);
+            } catch (Exception e) {
+                m_logger.error("failed to process dispatch response " + r.getStatusString(), e);
+            } finally {
+                m_callbacks.remove(handle);
+                cb.releasePermit();
+            }
+            return r.getStatus() == ClientResponse.SUCCESS;
+        }
+
+        return true;
+    }
+
     /**
      * @param connectionId    The connection ID for this adapter, needs to be unique for this
      *                        node.
@@ -291,7 +400,7 @@ public class InternalClientResponseAdapter implements Connection, WriteStream {
             VoltDB.crashLocalVoltDB("enqueue() in InternalClientResponseAdapter throw an exception", true, ex);
         }
 
-        final Callback callback = m_callbacks.get(resp.getClientHandle());
+        final InternalCallback callback = m_callbacks.get(resp.getClientHandle());
         if (callback == null) {
             throw new IllegalStateException("Callback was null?");
         }
@@ -314,7 +423,7 @@ public class InternalClientResponseAdapter implements Connection, WriteStream {
                         m_logger.error("Failed to process callback.", ex);
                     } finally {
                         m_callbacks.remove(resp.getClientHandle());
-                        m_permits.release();
+                        callback.releasePermit();
                     }
                 }
             });
@@ -17,6 +17,9 @@
 
 package org.voltdb;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
@@ -24,6 +27,7 @@ import java.util.function.Function;
 import org.voltcore.logging.Level;
 import org.voltcore.logging.VoltLogger;
 import org.voltdb.AuthSystem.AuthUser;
+import org.voltdb.catalog.ProcParameter;
 import org.voltdb.catalog.Procedure;
 import org.voltdb.catalog.Table;
 import org.voltdb.client.BatchTimeoutOverrideType;
@@ -71,6 +75,24 @@ public class InternalConnectionHandler {
         return (table!=null);
     }
 
+    /**
+     * Returns the type of each parameter of the named procedure by index, null for an
+     * array parameter, or null if there is no such procedure.
+     */
+    public VoltType[] getProcedureParameterTypes(String procName) {
+        Procedure catProc = InvocationDispatcher.getProcedureFromName(procName, getCatalogContext());
+        if (catProc == null) {
+            return null;
+        }
+        VoltType[] types = new VoltType[catProc.getParameters().size()];
+        for (ProcParameter param : catProc.getParameters()) {
+            if (!param.getIsarray()) {
+                types[param.getIndex()] = VoltType.get((byte) param.getType());
+            }
+        }
+        return types;
+    }
+
     public class NullCallback implements ProcedureCallback {
         @Override
         public void clientCallback(ClientResponse response) throws Exception {
@@ -213,4 +235,115 @@ public class InternalConnectionHandler {
         m_submitSuccessCount.incrementAndGet();
         return true;
     }
+
+    /**
+     * Queue a transaction for each parameter set. The procedure and the importer user are looked
+     * up once for the whole batch, and the transactions going to the same partition are handed to
+     * that partition's adapter as a group.
+     *
+     * @param procCallbacks the callback for each parameter set, or null for none
+     * @return for each parameter set, whether its transaction was queued
+     */
+    public boolean[] callProcedureBatch(InternalConnectionContext caller,
+                                        Function<Integer, Boolean> backPressurePredicate,
+                                        InternalConnectionStatsCollector statsCollector,
+                                        List<? extends ProcedureCallback> procCallbacks,
+                                        String proc, List<Object[]> paramsList) {
+        final boolean[] queued = new boolean[paramsList.size()];
+        Procedure catProc = InvocationDispatcher.getProcedureFromName(proc, getCatalogContext());
+        if (catProc == null) {
+            String fmt = "Cannot invoke procedure %s from streaming interface %s. Procedure not found.";
+            m_logger.rateLimitedLog(SUPPRESS_INTERVAL, Level.ERROR, null, fmt, proc, caller);
+            m_failedCount.addAndGet(queued.length);
+            return queued;
+        }
+        final AuthUser user = getCatalogContext().authSystem.getImporterUser();
+
+        // Group by primary partition, keeping the order of the records within each partition
+        final Map<Integer, PartitionBatch> batches = new HashMap<>();
+        for (int i = 0; i < queued.length; i++) {
+            StoredProcedureInvocation task = new StoredProcedureInvocation();
+            task.setProcName(proc);
+            task.setParams(paramsList.get(i));
+            try {
+                task = MiscUtils.roundTripForCL(task);
+            } catch (Exception e) {
+                String fmt = "Cannot invoke procedure %s from streaming interface %s. failed to create task.";
+                m_logger.rateLimitedLog(SUPPRESS_INTERVAL, Level.ERROR, null, fmt, proc, caller);
+                m_failedCount.incrementAndGet();
+                continue;
+            }
+            int[] partitions = null;
+            try {
+                partitions = InvocationDispatcher.getPartitionsForProcedure(catProc, task);
+            } catch (Exception e) {
+                String fmt = "Can not invoke procedure %s from streaming interface %s. Partition not found.";
+                m_logger.rateLimitedLog(SUPPRESS_INTERVAL, Level.ERROR, e, fmt, proc, caller);
+                m_failedCount.incrementAndGet();
+                continue;
+            }
+
+            boolean mp = (partitions[0] == MpInitiator.MP_INIT_PID) || (partitions.length > 1);
+            final int primaryPartition = mp ? MpInitiator.MP_INIT_PID : partitions[0];
+            PartitionBatch batch = batches.get(primaryPartition);
+            if (batch == null) {
+                batch = new PartitionBatch(m_adapters.get(primaryPartition));
+                batches.put(primaryPartition, batch);
+            }
+            batch.add(i, task, partitions, procCallbacks == null ? null : procCallbacks.get(i));
+            if (batch.m_tasks.size() == InternalClientResponseAdapter.MAX_TRANSACTIONS_PER_BATCH) {
+                batch.submit(caller, backPressurePredicate, statsCollector, proc, catProc, user, queued);
+            }
+        }
+        for (PartitionBatch batch : batches.values()) {
+            batch.submit(caller, backPressurePredicate, statsCollector, proc, catProc, user, queued);
+        }
+        return queued;
+    }
+
+    /**
+     * Transactions of one batch that go to the same adapter.
+     */
+    private class PartitionBatch {
+        final InternalClientResponseAdapter m_adapter;
+        List<Integer> m_indexes = new ArrayList<>();
+        List<StoredProcedureInvocation> m_tasks = new ArrayList<>();
+        List<int[]> m_partitions = new ArrayList<>();
+        List<ProcedureCallback> m_callbacks = new ArrayList<>();
+
+        PartitionBatch(InternalClientResponseAdapter adapter) {
+            m_adapter = adapter;
+        }
+
+        void add(int index, StoredProcedureInvocation task, int[] partitions, ProcedureCallback callback) {
+            m_indexes.add(index);
+            m_tasks.add(task);
+            m_partitions.add(partitions);
+            m_callbacks.add(callback);
+        }
+
+        void submit(InternalConnectionContext caller, Function<Integer, Boolean> backPressurePredicate,
+                InternalConnectionStatsCollector statsCollector, String proc, Procedure catProc,
+                AuthUser user, boolean[] queued) {
+            final int count = m_tasks.size();
+            if (count == 0) {
+                return;
+            }
+            InternalAdapterTaskAttributes kattrs = new InternalAdapterTaskAttributes(caller, m_adapter.connectionId());
+            if (m_adapter.createTransactions(kattrs, proc, catProc, m_callbacks, statsCollector,
+                    m_tasks, user, m_partitions, backPressurePredicate)) {
+                for (int index : m_indexes) {
+                    queued[index] = true;
+                }
+                m_submitSuccessCount.addAndGet(count);
+            } else {
+                m_failedCount.addAndGet(count);
+            }
+            // The adapter holds on to the lists until its executor gets to them
+            m_indexes = new ArrayList<>();
+            m_tasks = new ArrayList<>();
+            m_partitions = new ArrayList<>();
+            m_callbacks = new ArrayList<>();
+        }
+    }
 }
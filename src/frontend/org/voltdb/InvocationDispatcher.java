@@ -585,7 +585,8 @@ public final class InvocationDispatcher {
         // If we got here, instance is paused and handler is not admin.
         final String procName = task.getProcName();
         if (procedure.getSystemproc() &&
-                ("@AdHoc".equals(procName) || "@AdHocSpForTest".equals(procName))) {
+                ("@AdHoc".equals(procName) || "@AdHocSpForTest".equals(procName) ||
+                 "@AdHocExecutePrepared".equals(procName))) {
             // AdHoc is handled after it is planned and we figure out if it is read-only or not.
             return null;
         } else if (!procedure.getReadonly()) {
@@ -256,6 +256,73 @@ public class ParameterConverter {
         }
     }
 
+    /**
+     * Conversion of values to one parameter type, see {@link #conversionFor(Class)}.
+     */
+    public interface TypedConversion {
+        Object convert(Object param) throws VoltTypeException;
+    }
+
+    /**
+     * Pick the conversion for a parameter type once, e.g. when a procedure is loaded,
+     * instead of dispatching on the type for every value. Values that already have the
+     * class tryToMakeCompatible would return unchanged skip it, anything else goes
+     * through it, so the result is always the same as calling it directly.
+     */
+    public static TypedConversion conversionFor(final Class<?> expectedClz) {
+        final Class<?> exactClz;
+        if (expectedClz == long.class) {
+            exactClz = Long.class;
+        }
+        else if (expectedClz == int.class) {
+            exactClz = Integer.class;
+        }
+        else if (expectedClz == short.class) {
+            exactClz = Short.class;
+        }
+        else if (expectedClz == byte.class) {
+            exactClz = Byte.class;
+        }
+        else if (expectedClz == double.class) {
+            exactClz = Double.class;
+        }
+        else if (expectedClz == String.class) {
+            return new TypedConversion() {
+                @Override
+                public Object convert(Object param) throws VoltTypeException {
+                    return (param != null && param.getClass() == String.class && !Constants.CSV_NULL.equals(param)) ?
+                            param : tryToMakeCompatible(expectedClz, param);
+                }
+            };
+        }
+        else {
+            return new TypedConversion() {
+                @Override
+                public Object convert(Object param) throws VoltTypeException {
+                    return tryToMakeCompatible(expectedClz, param);
+                }
+            };
+        }
+        // Null markers of the primitive types pass through unchanged as well
+        return new TypedConversion() {
+            @Override
+            public Object convert(Object param) throws VoltTypeException {
+                return (param != null && param.getClass() == exactClz) ? param : tryToMakeCompatible(expectedClz, param);
+            }
+        };
+    }
+
+    /**
+     * @return the conversions for each of the parameter types
+     */
+    public static TypedConversion[] conversionsFor(final Class<?>[] expectedClzs) {
+        TypedConversion[] conversions = new TypedConversion[expectedClzs.length];
+        for (int i = 0; i < expectedClzs.length; i++) {
+            conversions[i] = conversionFor(expectedClzs[i]);
+        }
+        return conversions;
+    }
+
     /**
      * Convert the given value to the type given, if possible.
      *
@@ -19,6 +19,7 @@ package org.voltdb;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 
@@ -51,7 +52,11 @@ public class ParameterSet implements JSONString {
         byte[][] encodedStringArray;
     }
 
-    private final Object m_params[];
+    // Null until decoded when the set was built lazily around its serialized form
+    private volatile Object m_params[];
+    // Serialized parameters of a lazily built set, copied as is when flattened
+    private final ByteBuffer m_serialized;
+    private final int m_count;
 
     /*
      * The same ParameterSet instance could be accessed by multiple threads to
@@ -319,13 +324,76 @@ public class ParameterSet implements JSONString {
         return new ParameterSet(params, size, encodedStrings, encodedStringArrays);
     }
 
+    /**
+     * Wrap a serialized parameter set without decoding it. The buffer must hold
+     * exactly one parameter set from its position to its limit and must not be
+     * modified while the returned set is in use. The parameters are decoded the
+     * first time any of them is accessed, and flattening the set copies the
+     * serialized bytes, so a set that is only forwarded (e.g. to the EE) is
+     * never decoded at all. The buffer position is moved to its limit.
+     */
+    public static ParameterSet fromByteBufferLazily(ByteBuffer buffer) throws IOException {
+        final ByteBuffer serialized = buffer.slice();
+        buffer.position(buffer.limit());
+        if (serialized.remaining() < 2) {
+            throw new IOException("Truncated parameter set of " + serialized.remaining() + " bytes");
+        }
+        short count = serialized.getShort(0);
+        if (count < 0) {
+            throw new IllegalArgumentException("Invalid parameter length " + count + " for ParameterSet." );
+        }
+        return new ParameterSet(serialized, count);
+    }
+
     private ParameterSet(Object[] params, int serializedSize, byte[][] encodedStrings, byte[][][] encodedStringArrays) {
         m_params = params;
+        m_serialized = null;
+        m_count = params.length;
         m_serializedSize = serializedSize;
         m_encodedStrings = encodedStrings;
         m_encodedStringArrays = encodedStringArrays;
     }
 
+    private ParameterSet(ByteBuffer serialized, int count) {
+        m_params = null;
+        m_serialized = serialized;
+        m_count = count;
+        m_serializedSize = serialized.remaining();
+        m_encodedStrings = null;
+        m_encodedStringArrays = null;
+    }
+
+    private Object[] params() {
+        Object[] params = m_params;
+        if (params == null) {
+            synchronized (this) {
+                params = m_params;
+                if (params == null) {
+                    params = decode(m_serialized.duplicate(), m_count);
+                    m_params = params;
+                }
+            }
+        }
+        return params;
+    }
+
+    private static Object[] decode(ByteBuffer buffer, int count) {
+        Object[] params = new Object[count];
+        try {
+            buffer.getShort();
+            for (int i = 0; i < count; ++i) {
+                params[i] = readOneParameter(buffer).value;
+            }
+        }
+        catch (IOException | BufferUnderflowException e) {
+            throw new RuntimeException("Failed to deserialize parameter set", e);
+        }
+        if (buffer.hasRemaining()) {
+            throw new RuntimeException("Parameter set has " + buffer.remaining() + " trailing bytes");
+        }
+        return params;
+    }
+
     static Object limitType(Object o) {
         Class<?> ctype = o.getClass();
         if (ctype == Integer.class) {
@@ -336,11 +404,11 @@ public class ParameterSet implements JSONString {
     }
 
     public Object getParam(int index) {
-        return m_params[index];
+        return params()[index];
     }
 
     public boolean hasParam(int index) {
-        return m_params.length > index;
+        return m_count > index;
     }
 
     /**
@@ -348,11 +416,11 @@ public class ParameterSet implements JSONString {
      * @return
      */
     public Object[] toArray() {
-        return m_params.clone();
+        return params().clone();
     }
 
     public int size() {
-        return m_params.length;
+        return m_count;
     }
 
     public int getSerializedSize() {
@@ -497,9 +565,10 @@ public class ParameterSet implements JSONString {
     public String toString() {
         StringBuilder b = new StringBuilder();
         b.append("ParameterSet:");
-        for (int i = 0; i < m_params.length; ++i) {
-            b.append(",param[" + i + "]=" + (m_params[i] == null ? "NULL"
-                    : m_params[i].toString() + "(" + m_params[i].getClass().getName() + ")"));
+        final Object[] params = params();
+        for (int i = 0; i < params.length; ++i) {
+            b.append(",param[" + i + "]=" + (params[i] == null ? "NULL"
+                    : params[i].toString() + "(" + params[i].getClass().getName() + ")"));
         }
         return new String(b);
     }
@@ -509,7 +578,7 @@ public class ParameterSet implements JSONString {
         JSONStringer js = new JSONStringer();
         try {
             js.array();
-            for (Object o : m_params) {
+            for (Object o : params()) {
                 if(o instanceof Double) {
                     Double dval = (Double) o;
                     if (dval.isNaN()) {
@@ -687,11 +756,16 @@ public class ParameterSet implements JSONString {
     }
 
     public void flattenToBuffer(ByteBuffer buf) throws IOException {
+        if (m_serialized != null) {
+            buf.put(m_serialized.duplicate());
+            return;
+        }
 
-        buf.putShort((short)m_params.length);
+        final Object[] params = m_params;
+        buf.putShort((short)params.length);
 
-        for (int i = 0; i < m_params.length; i++) {
-            Object obj = m_params[i];
+        for (int i = 0; i < params.length; i++) {
+            Object obj = params[i];
             if ((obj == null) || (obj == JSONObject.NULL)) {
                 VoltType type = VoltType.NULL;
                 buf.put(type.getValue());
@@ -949,7 +1023,7 @@ public class ParameterSet implements JSONString {
             return false;
         }
         ParameterSet other = (ParameterSet) obj;
-        return Arrays.deepEquals(m_params, other.m_params);
+        return Arrays.deepEquals(params(), other.params());
     }
 
     /* (non-Javadoc)
@@ -23,6 +23,7 @@ import java.util.Iterator;
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.utils.CoreUtils;
 import org.voltdb.VoltTable.ColumnInfo;
+import org.voltdb.planner.ActivePlanRepository;
 
 /**
  * Collects global cache use stats
@@ -96,9 +97,23 @@ public class PlannerStatsCollector extends StatsSource {
     long m_lastCacheMisses = 0;
 
     /**
-     * Time of last planning start
+     * Cache 1 evictions
      */
-    Long m_currentStartTime = null;
+    long m_cache1Evictions = 0;
+    long m_lastCache1Evictions = 0;
+
+    /**
+     * Cache 2 evictions
+     */
+    long m_cache2Evictions = 0;
+    long m_lastCache2Evictions = 0;
+
+    /**
+     * Plan fragments shared by the sites of the host, only reported by the host level row
+     */
+    long m_lastFragmentLoads = 0;
+    long m_lastFragmentHits = 0;
+    long m_lastFragmentEvictions = 0;
 
     /**
      * Total amount of planning time
@@ -168,7 +183,7 @@ public class PlannerStatsCollector extends StatsSource {
     /**
      * Used to update EE cache stats without changing tracked time
      */
-    public void updateEECacheStats(long eeCacheSize, long hits, long misses, int partitionId) {
+    public synchronized void updateEECacheStats(long eeCacheSize, long hits, long misses, int partitionId) {
         m_cache1Level = eeCacheSize;
         m_cache1Hits += hits;
         m_cacheMisses += misses;
@@ -177,26 +192,38 @@ public class PlannerStatsCollector extends StatsSource {
         m_partitionId = partitionId;
     }
 
+    /**
+     * Used to update the eviction counts reported by the plan caches
+     */
+    public synchronized void updateCacheEvictions(long cache1Evictions, long cache2Evictions) {
+        m_cache1Evictions = cache1Evictions;
+        m_cache2Evictions = cache2Evictions;
+    }
+
     /**
      * Called before doing planning. Starts timer.
+     *
+     * @return the start time to hand to {@link #endStatsCollection}, null if this planning isn't timed
      */
-    public void startStatsCollection() {
+    public Long startStatsCollection() {
         if (getInvocations() % m_collectionFrequency == 0) {
-            m_currentStartTime = System.nanoTime();
+            return System.nanoTime();
         }
+        return null;
     }
 
     /**
      * Called after planning or failing to plan. Records timer and cache stats.
      *
+     * @param startTime    what {@link #startStatsCollection} returned for this planning
      * @param cache1Size   number of entries in level 1 cache
      * @param cache2Size   number of entries in level 2 cache
      * @param cacheUse     where the planned statement came from
      * @param partitionId  partition id
      */
-    public void endStatsCollection(long cache1Size, long cache2Size, CacheUse cacheUse, long partitionId) {
-        if (m_currentStartTime != null) {
-            long delta = System.nanoTime() - m_currentStartTime;
+    public synchronized void endStatsCollection(Long startTime, long cache1Size, long cache2Size, CacheUse cacheUse, long partitionId) {
+        if (startTime != null) {
+            long delta = System.nanoTime() - startTime;
             if (delta < 0) {
                 if (Math.abs(delta) > 1000000000) {
                     log.info("Planner statistics recorded a negative planning time larger than one second: " +
@@ -210,7 +237,6 @@ public class PlannerStatsCollector extends StatsSource {
                 m_lastMinPlanningTime = Math.min(delta, m_lastMinPlanningTime);
                 m_lastMaxPlanningTime = Math.max(delta, m_lastMaxPlanningTime);
             }
-            m_currentStartTime = null;
         }
 
         m_cache1Level = cache1Size;
@@ -255,6 +281,18 @@ public class PlannerStatsCollector extends StatsSource {
         long cache2Hits  = m_cache2Hits;
         long cacheMisses = m_cacheMisses;
         long failureCount = m_failures;
+        long cache1Evictions = m_cache1Evictions;
+        long cache2Evictions = m_cache2Evictions;
+        long fragmentLevel = 0;
+        long fragmentLoads = 0;
+        long fragmentHits = 0;
+        long fragmentEvictions = 0;
+        if (m_siteId == -1) {
+            fragmentLevel = ActivePlanRepository.getFragmentCount();
+            fragmentLoads = ActivePlanRepository.getLoadCount();
+            fragmentHits = ActivePlanRepository.getHitCount();
+            fragmentEvictions = ActivePlanRepository.getEvictionCount();
+        }
 
         if (m_interval) {
             totalTimedExecutionTime = m_totalPlanningTime - m_lastTimedPlanningTime;
@@ -283,6 +321,24 @@ public class PlannerStatsCollector extends StatsSource {
             failureCount = m_failures - m_lastFailures;
             m_lastFailures = m_failures;
 
+            cache1Evictions = m_cache1Evictions - m_lastCache1Evictions;
+            m_lastCache1Evictions = m_cache1Evictions;
+
+            cache2Evictions = m_cache2Evictions - m_lastCache2Evictions;
+            m_lastCache2Evictions = m_cache2Evictions;
+
+            final long totalFragmentLoads = fragmentLoads;
+            fragmentLoads = totalFragmentLoads - m_lastFragmentLoads;
+            m_lastFragmentLoads = totalFragmentLoads;
+
+            final long totalFragmentHits = fragmentHits;
+            fragmentHits = totalFragmentHits - m_lastFragmentHits;
+            m_lastFragmentHits = totalFragmentHits;
+
+            final long totalFragmentEvictions = fragmentEvictions;
+            fragmentEvictions = totalFragmentEvictions - m_lastFragmentEvictions;
+            m_lastFragmentEvictions = totalFragmentEvictions;
+
             m_lastInvocations = m_invocations;
         }
 
@@ -302,6 +358,12 @@ public class PlannerStatsCollector extends StatsSource {
             rowValues[columnNameToIndex.get("PLAN_TIME_AVG")] = 0L;
         }
         rowValues[columnNameToIndex.get("FAILURES")] = failureCount;
+        rowValues[columnNameToIndex.get("CACHE1_EVICTIONS")] = cache1Evictions;
+        rowValues[columnNameToIndex.get("CACHE2_EVICTIONS")] = cache2Evictions;
+        rowValues[columnNameToIndex.get("FRAGMENT_LEVEL")] = fragmentLevel;
+        rowValues[columnNameToIndex.get("FRAGMENT_LOADS")] = fragmentLoads;
+        rowValues[columnNameToIndex.get("FRAGMENT_HITS")] = fragmentHits;
+        rowValues[columnNameToIndex.get("FRAGMENT_EVICTIONS")] = fragmentEvictions;
     }
 
     /**
@@ -322,6 +384,12 @@ public class PlannerStatsCollector extends StatsSource {
         columns.add(new ColumnInfo("PLAN_TIME_MAX", VoltType.BIGINT));
         columns.add(new ColumnInfo("PLAN_TIME_AVG", VoltType.BIGINT));
         columns.add(new ColumnInfo("FAILURES",      VoltType.BIGINT));
+        columns.add(new ColumnInfo("CACHE1_EVICTIONS", VoltType.BIGINT));
+        columns.add(new ColumnInfo("CACHE2_EVICTIONS", VoltType.BIGINT));
+        columns.add(new ColumnInfo("FRAGMENT_LEVEL", VoltType.INTEGER));
+        columns.add(new ColumnInfo("FRAGMENT_LOADS", VoltType.BIGINT));
+        columns.add(new ColumnInfo("FRAGMENT_HITS", VoltType.BIGINT));
+        columns.add(new ColumnInfo("FRAGMENT_EVICTIONS", VoltType.BIGINT));
     }
 
     @Override
@@ -0,0 +1,81 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Calls the run method of a java stored procedure. The method handle is made
+ * once when the procedure is loaded, bound to the procedure instance and spread
+ * over the parameter array, so that the JIT can compile each call down to a
+ * direct call instead of going through Method.invoke and its access checks.
+ *
+ * Like Method.invoke, anything thrown by the procedure is wrapped in an
+ * InvocationTargetException.
+ */
+final class ProcedureInvoker {
+    private static final MethodType INVOKE_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    private final Object m_procedure;
+    private final Method m_method;
+    // null if the method is not accessible, Method.invoke then reports why on every call
+    private final MethodHandle m_handle;
+
+    ProcedureInvoker(Object procedure, Method method) {
+        m_procedure = procedure;
+        m_method = method;
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.lookup().unreflect(method).asFixedArity();
+            if (!Modifier.isStatic(method.getModifiers())) {
+                handle = handle.bindTo(procedure);
+            }
+            handle = handle.asSpreader(Object[].class, method.getParameterCount()).asType(INVOKE_TYPE);
+        }
+        catch (IllegalAccessException e) {
+            handle = null;
+        }
+        m_handle = handle;
+    }
+
+    /**
+     * @param params already converted to the parameter types of the method
+     * @return whatever the run method returned, null for void
+     */
+    Object invoke(Object[] params) throws InvocationTargetException {
+        if (m_handle == null) {
+            try {
+                return m_method.invoke(m_procedure, params);
+            }
+            catch (IllegalAccessException e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+        try {
+            return (Object) m_handle.invokeExact(params);
+        }
+        catch (Throwable t) {
+            throw new InvocationTargetException(t);
+        }
+    }
+}
@@ -113,6 +113,9 @@ public class ProcedureRunner {
     protected final VoltProcedure m_procedure;
     protected Method m_procMethod;
     protected Class<?>[] m_paramTypes;
+    // conversions to m_paramTypes and the invoker of m_procMethod, made once in reflect()
+    protected ParameterConverter.TypedConversion[] m_paramConversions;
+    private ProcedureInvoker m_procInvoker;
 
     // per txn state (are reset after call)
     //
@@ -363,7 +366,7 @@ public class ProcedureRunner {
 
             for (int i = 0; i < m_paramTypes.length; i++) {
                 try {
-                    paramList[i] = ParameterConverter.tryToMakeCompatible(m_paramTypes[i], paramList[i]);
+                    paramList[i] = m_paramConversions[i].convert(paramList[i]);
                     // check the result type in an assert
                     assert(ParameterConverter.verifyParameterConversion(paramList[i], m_paramTypes[i]));
                 } catch (Exception e) {
@@ -380,14 +383,9 @@ public class ProcedureRunner {
                     if (HOST_TRACE_ENABLED) {
                         log.trace("invoking... procMethod=" + m_procMethod.getName() + ", class=" + m_procMethod.getDeclaringClass().getName());
                     }
-                    try {
-                        Object rawResult = m_procMethod.invoke(m_procedure, paramList);
+                    Object rawResult = m_procInvoker.invoke(paramList);
 
-                        results = ParameterConverter.getResultsFromRawResults(m_procedureName, rawResult);
-                    } catch (IllegalAccessException e) {
-                        // If reflection fails, invoke the same error handling that other exceptions do
-                        throw new InvocationTargetException(e);
-                    }
+                    results = ParameterConverter.getResultsFromRawResults(m_procedureName, rawResult);
                     log.trace("invoked");
                 }
                 catch (InvocationTargetException itex) {
@@ -1130,6 +1128,7 @@ public class ProcedureRunner {
             if (m_procMethod == null) {
                 throw new RuntimeException("No \"run\" method found in: " + m_procedure.getClass().getName());
             }
+            m_procInvoker = new ProcedureInvoker(m_procedure, m_procMethod);
             // iterate through the fields and deal with sql statements
             try {
                 stmtMap = ProcedureCompiler.getValidSQLStmts(null, m_procedureName, m_procedure.getClass(), m_procedure,
@@ -1140,6 +1139,10 @@ public class ProcedureRunner {
             }
         }
 
+        if (m_paramTypes != null) {
+            m_paramConversions = ParameterConverter.conversionsFor(m_paramTypes);
+        }
+
         ArrayList<String> stmtNames = new ArrayList<String>(stmtMap.entrySet().size());
         for (final Entry<String, SQLStmt> entry : stmtMap.entrySet()) {
             String name = entry.getKey();
@@ -19,12 +19,11 @@ package org.voltdb;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.LinkedTransferQueue;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.voltcore.logging.VoltLogger;
 import org.voltdb.VoltTable.ColumnInfo;
 import org.voltdb.iv2.SiteTasker;
+import org.voltdb.iv2.SiteTaskerQueue;
 
 /**
  * A class to track and generate statistics regarding queue depth.
@@ -36,10 +35,9 @@ public class QueueDepthTracker extends SiteStatsSource {
 
     private static final VoltLogger s_logger = new VoltLogger("HOST");
 
-    private final AtomicInteger m_depth;
     private long m_lastWaitTime;
     private final ArrayBlockingQueue<QueueStatus> m_historicalData;
-    private LinkedTransferQueue<SiteTasker> m_tasks;
+    private final SiteTaskerQueue m_tasks;
     private long m_maxWaitTimeWindowSize = 5_000_000_000L; // window size set to 5 seconds
     private long m_maxWaitLastLogTime;
     private volatile long m_recentMaxWaitTime;
@@ -61,10 +59,9 @@ public class QueueDepthTracker extends SiteStatsSource {
         }
     }
 
-    public QueueDepthTracker(long siteId, LinkedTransferQueue<SiteTasker> tasks) {
+    public QueueDepthTracker(long siteId, SiteTaskerQueue tasks) {
         super(siteId, false);
         m_historicalData = new ArrayBlockingQueue<>(10);
-        m_depth = new AtomicInteger(tasks.size());
         m_lastWaitTime = 0;
         m_maxWaitLastLogTime = System.nanoTime();
         m_recentMaxWaitTime = 0;
@@ -73,21 +70,30 @@ public class QueueDepthTracker extends SiteStatsSource {
         m_tasks = tasks;
     }
 
-    public void offerUpdate() {
-        m_depth.incrementAndGet();
+    public void pollUpdate(long offerTime) {
+        pollUpdate(1, offerTime, offerTime);
     }
 
-    public void pollUpdate(long offerTime) {
-        m_depth.decrementAndGet();
+    /**
+     * Account for a batch of tasks taken off the queue at once.
+     * @param count            number of tasks in the batch
+     * @param oldestOfferTime  earliest offer time in the batch
+     * @param totalOfferTime   sum of the offer times of all the tasks in the batch
+     */
+    public void pollUpdate(int count, long oldestOfferTime, long totalOfferTime) {
+        if (count <= 0) {
+            return;
+        }
         long currentTime = System.nanoTime();
-        m_lastWaitTime = currentTime - offerTime;
+        m_lastWaitTime = currentTime - oldestOfferTime;
+        final long totalWaitTime = currentTime * count - totalOfferTime;
         // if max wait time was last logged less than m_recentWindowSize ago
         // keep the max wait time in m_recentMaxWaitTime
         // or log and reset the recentMaxWaitTime, update last log time
         if (currentTime - m_maxWaitLastLogTime < m_recentWindowSize) {
             if (m_recentMaxWaitTime < m_lastWaitTime) m_recentMaxWaitTime = m_lastWaitTime;
-            m_recentTotalWaitTime += m_lastWaitTime;
-            m_recentPollCount++;
+            m_recentTotalWaitTime += totalWaitTime;
+            m_recentPollCount += count;
         } else {
             // remove out of date historical data
             while (!m_historicalData.isEmpty() &&
@@ -103,8 +109,8 @@ public class QueueDepthTracker extends SiteStatsSource {
                 s_logger.warn("Could not insert queue stats data. Current data size: " + m_historicalData.size());
             }
             m_recentMaxWaitTime = m_lastWaitTime;
-            m_recentTotalWaitTime = m_lastWaitTime;
-            m_recentPollCount = 1;
+            m_recentTotalWaitTime = totalWaitTime;
+            m_recentPollCount = count;
             m_maxWaitLastLogTime = currentTime;
         }
     }
@@ -144,7 +150,7 @@ public class QueueDepthTracker extends SiteStatsSource {
                 }
             }
         }
-        rowValues[columnNameToIndex.get("CURRENT_DEPTH")] = m_depth;
+        rowValues[columnNameToIndex.get("CURRENT_DEPTH")] = m_tasks.size();
         rowValues[columnNameToIndex.get("POLL_COUNT")] = totalPollCountInWindow;
         // wait times are in microseconds
         rowValues[columnNameToIndex.get("AVG_WAIT")] = (totalWaitTimeInWindow / Math.max(1, totalPollCountInWindow)) / 1000;
@@ -128,6 +128,8 @@ import org.voltdb.catalog.Table;
 import org.voltdb.common.Constants;
 import org.voltdb.common.NodeState;
 import org.voltdb.compiler.AdHocCompilerCache;
+import org.voltdb.compiler.AdHocPreparedStatements;
+import org.voltdb.compiler.TableCardinalities;
 import org.voltdb.compiler.VoltCompiler;
 import org.voltdb.compiler.deploymentfile.ClusterType;
 import org.voltdb.compiler.deploymentfile.DeploymentType;
@@ -188,6 +190,7 @@ import org.voltdb.sysprocs.saverestore.SnapshotUtil.Snapshot;
 import org.voltdb.utils.CLibrary;
 import org.voltdb.utils.CatalogUtil;
 import org.voltdb.utils.CatalogUtil.CatalogAndDeployment;
+import org.voltdb.utils.DiskWriteScheduler;
 import org.voltdb.utils.FailedLoginCounter;
 import org.voltdb.utils.HTTPAdminListener;
 import org.voltdb.utils.InMemoryJarfile;
@@ -230,6 +233,9 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback, HostM
 
     private static final boolean DISABLE_JMX = Boolean.valueOf(System.getProperty("DISABLE_JMX", "true"));
 
+    // How often the ad hoc plan cache is saved for the next restart, 0 to not save and preload it
+    private static final int PLAN_CACHE_SAVE_INTERVAL_SECONDS = Integer.getInteger("PLAN_CACHE_SAVE_INTERVAL_SECONDS", 60);
+
     /** Default deployment file contents if path to deployment is null */
     private static final String[] defaultDeploymentXML = {
         "<?xml version=\"1.0\"?>",
@@ -1367,6 +1373,8 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback, HostM
             // ENG-6321
             m_commandLogStats = new CommandLogStats(m_commandLog);
             getStatsAgent().registerStatsSource(StatsSelector.COMMANDLOG, 0, m_commandLogStats);
+            getStatsAgent().registerStatsSource(StatsSelector.DISKWRITE, 0,
+                    new DiskWriteStats(DiskWriteScheduler.instance()));
 
             // Dummy DRCONSUMER stats
             replaceDRConsumerStatsWithDummy();
@@ -2274,6 +2282,16 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback, HostM
             }
         }, 0, 6, TimeUnit.MINUTES));
 
+        // save the ad hoc plans for the next restart
+        if (PLAN_CACHE_SAVE_INTERVAL_SECONDS > 0) {
+            m_periodicWorks.add(scheduleWork(new Runnable() {
+                @Override
+                public void run() {
+                    savePlanCache();
+                }
+            }, PLAN_CACHE_SAVE_INTERVAL_SECONDS, PLAN_CACHE_SAVE_INTERVAL_SECONDS, TimeUnit.SECONDS));
+        }
+
         // export stream master check
         m_periodicWorks.add(scheduleWork(new Runnable() {
             @Override
@@ -2289,6 +2307,51 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback, HostM
         GCInspector.instance.start(m_periodicPriorityWorkThread, m_gcStats);
     }
 
+    // Plans are only saved once the saved ones were preloaded, so that the file
+    // isn't replaced by the empty cache of a node still recovering
+    private volatile boolean m_planCachePreloaded = false;
+
+    private File getPlanCacheFile() {
+        return new VoltFile(getConfigDirectory(), AdHocCompilerCache.PLAN_CACHE_FILE_NAME);
+    }
+
+    /**
+     * Preload the ad hoc plans saved by the previous run with the same catalog, so that
+     * the first ad hoc statements after a restart or rejoin don't all need planning.
+     */
+    private void preloadPlanCache() {
+        final CatalogContext context = m_catalogContext;
+        if (PLAN_CACHE_SAVE_INTERVAL_SECONDS <= 0 || context == null) {
+            return;
+        }
+        try {
+            int loaded = context.m_ptool.preloadPlanCache(getPlanCacheFile());
+            if (loaded > 0) {
+                hostLog.info("Preloaded " + loaded + " ad hoc plans saved by the previous run");
+            }
+        }
+        catch (IOException e) {
+            hostLog.warn("Unable to preload the saved ad hoc plans: " + e.getMessage());
+        }
+        m_planCachePreloaded = true;
+    }
+
+    private void savePlanCache() {
+        final CatalogContext context = m_catalogContext;
+        if (!m_planCachePreloaded || context == null) {
+            return;
+        }
+        try {
+            int saved = context.m_ptool.savePlanCache(getPlanCacheFile());
+            if (saved >= 0 && hostLog.isDebugEnabled()) {
+                hostLog.debug("Saved " + saved + " ad hoc plans for the next restart");
+            }
+        }
+        catch (IOException e) {
+            hostLog.warn("Unable to save the ad hoc plans: " + e.getMessage());
+        }
+    }
+
     public boolean isClusterComplete() {
         return (m_config.m_hostCount == m_messenger.getLiveHostIds().size());
     }
@@ -3536,6 +3599,8 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback, HostM
                 m_periodicPriorityWorkThread.shutdown();
                 m_periodicPriorityWorkThread.awaitTermination(356, TimeUnit.DAYS);
 
+                savePlanCache();
+
                 if (m_elasticJoinService != null) {
                     m_elasticJoinService.shutdown();
                 }
@@ -3637,6 +3702,8 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback, HostM
                 m_latencyHistogramStats = null;
 
                 AdHocCompilerCache.clearHashCache();
+                TableCardinalities.instance().clear();
+                AdHocPreparedStatements.instance().clear();
                 org.voltdb.iv2.InitiatorMailbox.m_allInitiatorMailboxes.clear();
 
                 PartitionDRGateway.m_partitionDRGateways = ImmutableMap.of();
@@ -4200,6 +4267,7 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback, HostM
 
         if (m_clientInterface != null) {
             m_clientInterface.mayActivateSnapshotDaemon();
+            preloadPlanCache();
             try {
                 m_clientInterface.startAcceptingConnections();
             } catch (IOException e) {
@@ -4442,6 +4510,7 @@ public class RealVoltDB implements VoltDBInterface, RestoreAgent.Callback, HostM
 
         if (!m_rejoining && !m_joining) {
             if (m_clientInterface != null) {
+                preloadPlanCache();
                 try {
                     m_clientInterface.startAcceptingConnections();
                 } catch (IOException e) {
@@ -153,7 +153,45 @@ public class SnapshotSiteProcessor {
     /**
      * Limit the number of buffers that are outstanding at any given time
      */
-    private static final AtomicInteger m_availableSnapshotBuffers = new AtomicInteger(16);
+    public static final int DEFAULT_SNAPSHOT_BUFFERS = 16;
+    private static final AtomicInteger m_availableSnapshotBuffers = new AtomicInteger(DEFAULT_SNAPSHOT_BUFFERS);
+
+    /**
+     * Stream snapshots hold on to a buffer until the block is acked by the receiver,
+     * so the limit doubles as the in-flight window. It is widened while acks come back
+     * faster than the sites fill buffers, up to this many buffers.
+     */
+    public static final int MAX_STREAM_SNAPSHOT_BUFFERS =
+            Math.max(DEFAULT_SNAPSHOT_BUFFERS, Integer.getInteger("REJOIN_MAX_INFLIGHT_BUFFERS", 64));
+    private static final AtomicInteger m_snapshotBufferLimit = new AtomicInteger(DEFAULT_SNAPSHOT_BUFFERS);
+
+    /**
+     * Allow one more snapshot buffer to be outstanding.
+     * @return false if the window is already at its maximum
+     */
+    public static boolean growSnapshotBufferWindow() {
+        while (true) {
+            int limit = m_snapshotBufferLimit.get();
+            if (limit >= MAX_STREAM_SNAPSHOT_BUFFERS) {
+                return false;
+            }
+            if (m_snapshotBufferLimit.compareAndSet(limit, limit + 1)) {
+                m_availableSnapshotBuffers.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Shrink the window back to the default. Buffers still outstanding above the
+     * default are absorbed as they are returned.
+     */
+    public static void resetSnapshotBufferWindow() {
+        int extra = m_snapshotBufferLimit.getAndSet(DEFAULT_SNAPSHOT_BUFFERS) - DEFAULT_SNAPSHOT_BUFFERS;
+        if (extra > 0) {
+            m_availableSnapshotBuffers.addAndGet(-extra);
+        }
+    }
 
     /**
      * The last EE out has to shut off the lights. Cache a list
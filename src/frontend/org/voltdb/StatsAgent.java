@@ -564,6 +564,12 @@ public class StatsAgent extends OpsAgent
         case COMMANDLOG:
             stats = collectStats(StatsSelector.COMMANDLOG, false);
             break;
+        case DISKWRITE:
+            stats = collectStats(StatsSelector.DISKWRITE, false);
+            break;
+        case MPREADPOOL:
+            stats = collectStats(StatsSelector.MPREADPOOL, false);
+            break;
         case IMPORTER:
         case IMPORT:
             stats = collectStats(StatsSelector.IMPORTER, interval);
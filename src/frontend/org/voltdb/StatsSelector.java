@@ -61,6 +61,8 @@ public enum StatsSelector {
     GC,             // return GC Stats
 
     COMMANDLOG,     // return number of outstanding bytes and txns on this node
+    DISKWRITE,      // return bytes written, queued and throttled per disk writer class
+    MPREADPOOL,     // return active, idle and queued sites of the MP read-only site pool
     IMPORTER,       // synonym as IMPORT for backward compatibility
     IMPORT,
     EXPORT
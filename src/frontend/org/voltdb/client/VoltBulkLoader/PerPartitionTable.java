@@ -18,17 +18,12 @@
 package org.voltdb.client.VoltBulkLoader;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.List;
-import java.util.ListIterator;
-import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 import org.voltcore.logging.VoltLogger;
@@ -45,17 +40,24 @@ import org.voltdb.client.ProcedureCallback;
 /**
  * Partition specific table potentially shared by multiple VoltBulkLoader instances,
  * provided that they are all inserting to the same table.
+ *
+ * Rows are converted on the inserting thread and appended straight into the VoltTable
+ * of the current batch. When the batch is full it is swapped for an empty one and handed
+ * to the executor to be sent. Batches are handed over while the batch lock is held so the
+ * single threaded executor sends them in the order their rows were inserted. Inserting
+ * threads block while too many full batches are waiting for their responses.
  */
 public class PerPartitionTable {
     private static final VoltLogger loaderLog = new VoltLogger("LOADER");
 
+    // Number of full batches per partition that may be queued or in flight before inserts block
+    static final int MAX_OUTSTANDING_BATCHES = Integer.getInteger("BULKLOADER_MAX_OUTSTANDING_BATCHES", 5);
+
     // Client we are tied to
     final ClientImpl m_clientImpl;
     //The index in loader tables and the PartitionProcessor number
     final int m_partitionId;
     final boolean m_isMP;
-    //Queue for processing pending rows for this table
-    LinkedBlockingQueue<VoltBulkLoaderRow> m_partitionRowQueue;
 
     final ExecutorService m_es;
 
@@ -63,8 +65,6 @@ public class PerPartitionTable {
     final int m_partitionedColumnIndex;
     //Partitioned column type
     final VoltType m_partitionColumnType;
-    //Table used to build up requests to the PartitionProcessor
-    VoltTable m_table;
     //Column information
     final VoltTable.ColumnInfo m_columnInfo[];
     //Column types
@@ -82,27 +82,63 @@ public class PerPartitionTable {
     //Whether to retry insertion when the connection is lost
     final boolean m_autoReconnect;
 
-    // Callback for batch submissions to the Client. A failed request submits the entire
-    // batch of rows to m_failedQueue for row by row processing on m_failureProcessor.
+    // Guards m_batch, kept apart from the monitor used to wait for reconnection
+    private final Object m_batchLock = new Object();
+    // Batch currently being filled
+    private Batch m_batch;
+    // Permits for full batches that have not been answered yet
+    private final Semaphore m_outstandingBatches = new Semaphore(MAX_OUTSTANDING_BATCHES);
+    // Tables of sent batches, reused so their buffers don't have to grow again
+    private final ConcurrentLinkedQueue<VoltTable> m_spareTables = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Rows of one batch. The table holds the converted values, the arrays hold what is
+     * needed to report on each row, by index.
+     */
+    private final class Batch {
+        final VoltTable m_table;
+        final VoltBulkLoader[] m_loaders;
+        final Object[] m_rowHandles;
+        final Object[][] m_rowData;
+        int m_count = 0;
+        // Whether the batch holds one of m_outstandingBatches permits
+        boolean m_throttled = false;
+
+        Batch(int capacity) {
+            VoltTable table = m_spareTables.poll();
+            m_table = table == null ? new VoltTable(m_columnInfo) : table;
+            m_loaders = new VoltBulkLoader[capacity];
+            m_rowHandles = new Object[capacity];
+            m_rowData = new Object[capacity][];
+        }
+
+        boolean isFilledByNextRow() {
+            return m_count + 1 >= m_minBatchTriggerSize || m_count + 1 == m_loaders.length;
+        }
+    }
+
+    // Callback for batch submissions to the Client. A failed request resubmits the entire
+    // batch row by row so that each failure can be reported.
     class PartitionProcedureCallback implements ProcedureCallback {
-        final List<VoltBulkLoaderRow> m_batchRowList;
-        final Map<VoltBulkLoader, Long> m_batchSizes;
+        final Batch m_sentBatch;
 
-        PartitionProcedureCallback(List<VoltBulkLoaderRow> batchRowList, Map<VoltBulkLoader, Long> batchSizes) {
-            m_batchRowList = batchRowList;
-            m_batchSizes = batchSizes;
+        PartitionProcedureCallback(Batch batch) {
+            m_sentBatch = batch;
         }
 
         // Called by Client to inform us of the status of the bulk insert.
         @Override
         public void clientCallback(final ClientResponse response) throws InterruptedException {
+            if (m_sentBatch.m_throttled) {
+                m_outstandingBatches.release();
+            }
             if (response.getStatus() != ClientResponse.SUCCESS) {
                 // Queue up all rows for individual processing by originating BulkLoader's FailureProcessor.
                 m_es.execute(new Runnable() {
                     @Override
                     public void run() {
                         try {
-                            reinsertFailed(m_batchRowList);
+                            reinsertFailed(m_sentBatch);
                         } catch (Exception e) {
                             loaderLog.error("Failed to re-insert failed batch", e);
                         }
@@ -117,20 +153,35 @@ public class PerPartitionTable {
                     m_es.execute(new Runnable() {
                         @Override
                         public void run() {
-                            for (VoltBulkLoaderRow r : m_batchRowList) {
-                                m_successCallback.success(r.m_rowHandle, response);
+                            for (int i = 0; i < m_sentBatch.m_count; i++) {
+                                m_successCallback.success(m_sentBatch.m_rowHandles[i], response);
                             }
                         }
                     });
                 }
-                for (Map.Entry<VoltBulkLoader, Long> e : m_batchSizes.entrySet()) {
-                    e.getKey().m_loaderCompletedCnt.addAndGet(e.getValue());
-                    e.getKey().m_outstandingRowCount.addAndGet(-1 * e.getValue());
+                // Rows from one loader are usually contiguous, credit them a run at a time
+                VoltBulkLoader loader = null;
+                long run = 0;
+                for (int i = 0; i < m_sentBatch.m_count; i++) {
+                    if (m_sentBatch.m_loaders[i] != loader) {
+                        completed(loader, run);
+                        loader = m_sentBatch.m_loaders[i];
+                        run = 0;
+                    }
+                    run++;
                 }
+                completed(loader, run);
             }
         }
     }
 
+    private static void completed(VoltBulkLoader loader, long rows) {
+        if (loader != null) {
+            loader.m_loaderCompletedCnt.addAndGet(rows);
+            loader.m_outstandingRowCount.addAndGet(-rows);
+        }
+    }
+
     PerPartitionTable(ClientImpl clientImpl, String tableName, int partitionId, boolean isMP,
             VoltBulkLoader firstLoader, int minBatchTriggerSize, BulkLoaderSuccessCallback successCallback) {
         m_clientImpl = clientImpl;
@@ -138,7 +189,6 @@ public class PerPartitionTable {
         m_isMP = isMP;
         m_procName = firstLoader.m_procName;
         m_upsert = (byte) (firstLoader.m_upsert ? 1:0);
-        m_partitionRowQueue = new LinkedBlockingQueue<VoltBulkLoaderRow>(minBatchTriggerSize*5);
         m_minBatchTriggerSize = minBatchTriggerSize;
         m_columnInfo = firstLoader.m_colInfo;
         m_partitionedColumnIndex = firstLoader.m_partitionedColumnIndex;
@@ -146,8 +196,8 @@ public class PerPartitionTable {
         m_partitionColumnType = firstLoader.m_partitionColumnType;
         m_tableName = tableName;
         m_successCallback = successCallback;
-        m_table = new VoltTable(m_columnInfo);
         m_autoReconnect = m_clientImpl.isAutoReconnectEnabled();
+        m_batch = new Batch(minBatchTriggerSize);
 
         m_es = CoreUtils.getSingleThreadExecutor(tableName + "-" + partitionId);
     }
@@ -164,25 +214,52 @@ public class PerPartitionTable {
      }
 
     /**
-     * Synchronized so that when the a single batch is filled up, we only queue one task to
-     * drain the queue. The task will drain the queue until it doesn't contain a single batch.
+     * Convert the row to the column types and append it to the current batch. The thread that
+     * fills the batch swaps it out and queues it to be sent, blocking first if there are already
+     * {@link #MAX_OUTSTANDING_BATCHES} full batches waiting for responses. Other inserters wait
+     * on the batch lock meanwhile, which keeps the batches in order.
+     * @return false if the row could not be converted, it has been reported as failed
      */
-    synchronized void insertRowInTable(final VoltBulkLoaderRow nextRow) throws InterruptedException {
-        m_partitionRowQueue.put(nextRow);
-        if (m_partitionRowQueue.size() == m_minBatchTriggerSize) {
-            m_es.execute(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        while (m_partitionRowQueue.size() >= m_minBatchTriggerSize) {
-                            loadTable(buildTable(), m_table);
+    boolean insertRowInTable(VoltBulkLoader loader, Object rowHandle, Object[] rowData) throws InterruptedException {
+        final Object[] rowArgs = new Object[rowData.length];
+        try {
+            for (int i = 0; i < rowArgs.length; i++) {
+                rowArgs[i] = ParameterConverter.tryToMakeCompatible(m_columnTypes[i].classFromType(), rowData[i]);
+            }
+        } catch (Exception e) {
+            loader.generateError(rowHandle, rowData, e.getMessage());
+            return false;
+        }
+
+        synchronized (m_batchLock) {
+            final Batch batch = m_batch;
+            final boolean full = batch.isFilledByNextRow();
+            if (full) {
+                // Wait before the row is accepted, an interrupted insert leaves the batch as it was
+                m_outstandingBatches.acquire();
+                batch.m_throttled = true;
+            }
+            loader.m_outstandingRowCount.incrementAndGet();
+            batch.m_table.addRow(rowArgs);
+            batch.m_loaders[batch.m_count] = loader;
+            batch.m_rowHandles[batch.m_count] = rowHandle;
+            batch.m_rowData[batch.m_count] = rowData;
+            batch.m_count++;
+            if (full) {
+                m_batch = new Batch(m_minBatchTriggerSize);
+                m_es.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            loadBatch(batch);
+                        } catch (Exception e) {
+                            loaderLog.error("Failed to load batch", e);
                         }
-                    } catch (Exception e) {
-                        loaderLog.error("Failed to load batch", e);
                     }
-                }
-            });
+                });
+            }
         }
+        return true;
     }
 
     /**
@@ -191,13 +268,23 @@ public class PerPartitionTable {
      * are either inserted or failed definitively, call shutdown().
      */
     Future<?> flushAllTableQueues() throws InterruptedException {
-        return m_es.submit(new Callable<Boolean>() {
-            @Override
-            public Boolean call() throws Exception {
-                loadTable(buildTable(), m_table);
-                return true;
+        synchronized (m_batchLock) {
+            // Swap the batch out now rather than in the task, so that it is queued
+            // behind the full batches that were handed over before it
+            final Batch batch = m_batch.m_count == 0 ? null : m_batch;
+            if (batch != null) {
+                m_batch = new Batch(m_minBatchTriggerSize);
             }
-        });
+            return m_es.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    if (batch != null) {
+                        loadBatch(batch);
+                    }
+                    return true;
+                }
+            });
+        }
     }
 
     void shutdown() throws Exception {
@@ -210,88 +297,63 @@ public class PerPartitionTable {
         m_es.awaitTermination(365, TimeUnit.DAYS);
     }
 
-    private void reinsertFailed(List<VoltBulkLoaderRow> rows) throws Exception {
-        VoltTable tmpTable = new VoltTable(m_columnInfo);
-        for (final VoltBulkLoaderRow row : rows) {
-            // No need to check error here if a correctedLine has come here it was
-            // previously successful.
-            try {
-                Object row_args[] = new Object[row.m_rowData.length];
-                for (int i = 0; i < row_args.length; i++) {
-                    final VoltType type = m_columnTypes[i];
-                    row_args[i] = ParameterConverter.tryToMakeCompatible(type.classFromType(),
-                            row.m_rowData[i]);
-                }
-                tmpTable.addRow(row_args);
-            } catch (VoltTypeException ex) {
-                // Should never happened because the bulk conversion in PerPartitionProcessor
-                // should have caught this.
-                loaderLog.error("Type conversion exception", ex);
-                assert false: "Type conversion exception" + ex.getMessage();
-                continue;
-            }
-
-            ProcedureCallback callback = new ProcedureCallback() {
-                @Override
-                public void clientCallback(ClientResponse response) throws Exception {
-                    //one insert at a time callback
-                    if (response.getStatus() == ClientResponse.CONNECTION_LOST && m_autoReconnect) {
-                        m_es.execute(new Runnable() {
-                            @Override
-                            public void run() {
-                                try {
-                                    reinsertFailed(Arrays.asList(row));
-                                } catch (Exception e) {
-                                    loaderLog.error("Failed to re-insert failed batch", e);
-                                }
-                            }
-                        });
-                        return;
-                    }
-                    else if (response.getStatus() != ClientResponse.SUCCESS) {
-                        row.m_loader.m_notificationCallBack.failureCallback(row.m_rowHandle, row.m_rowData, response);
-                    }
+    private void loadBatch(Batch batch) throws Exception {
+        loadTable(new PartitionProcedureCallback(batch), batch.m_table);
+        m_spareTables.offer(batch.m_table);
+    }
 
-                    row.m_loader.m_loaderCompletedCnt.incrementAndGet();
-                    row.m_loader.m_outstandingRowCount.decrementAndGet();
-                }
-            };
-            loadTable(callback, tmpTable);
+    private void reinsertFailed(Batch batch) throws Exception {
+        VoltTable tmpTable = new VoltTable(m_columnInfo);
+        for (int i = 0; i < batch.m_count; i++) {
+            reinsertRow(tmpTable, batch.m_loaders[i], batch.m_rowHandles[i], batch.m_rowData[i]);
         }
     }
 
-    private PartitionProcedureCallback buildTable() {
-        ArrayList<VoltBulkLoaderRow> buf = new ArrayList<VoltBulkLoaderRow>(m_minBatchTriggerSize);
-        m_partitionRowQueue.drainTo(buf, m_minBatchTriggerSize);
+    private void reinsertRow(final VoltTable tmpTable, final VoltBulkLoader loader,
+            final Object rowHandle, final Object[] rowData) throws Exception {
+        // No need to check error here if a correctedLine has come here it was
+        // previously successful.
+        try {
+            Object row_args[] = new Object[rowData.length];
+            for (int i = 0; i < row_args.length; i++) {
+                final VoltType type = m_columnTypes[i];
+                row_args[i] = ParameterConverter.tryToMakeCompatible(type.classFromType(),
+                        rowData[i]);
+            }
+            tmpTable.addRow(row_args);
+        } catch (VoltTypeException ex) {
+            // Should never happened because the rows were converted when they were inserted
+            loaderLog.error("Type conversion exception", ex);
+            assert false: "Type conversion exception" + ex.getMessage();
+            return;
+        }
 
-        Map<VoltBulkLoader, Long> batchSizes = new HashMap<>();
-        ListIterator<VoltBulkLoaderRow> it = buf.listIterator();
-        while (it.hasNext()) {
-            VoltBulkLoaderRow currRow = it.next();
-            VoltBulkLoader loader = currRow.m_loader;
-            Object row_args[];
-            row_args = new Object[currRow.m_rowData.length];
-            try {
-                for (int i = 0; i < row_args.length; i++) {
-                    final VoltType type = m_columnTypes[i];
-                    row_args[i] = ParameterConverter.tryToMakeCompatible(type.classFromType(),
-                            currRow.m_rowData[i]);
+        ProcedureCallback callback = new ProcedureCallback() {
+            @Override
+            public void clientCallback(ClientResponse response) throws Exception {
+                //one insert at a time callback
+                if (response.getStatus() == ClientResponse.CONNECTION_LOST && m_autoReconnect) {
+                    m_es.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                reinsertRow(new VoltTable(m_columnInfo), loader, rowHandle, rowData);
+                            } catch (Exception e) {
+                                loaderLog.error("Failed to re-insert failed batch", e);
+                            }
+                        }
+                    });
+                    return;
+                }
+                else if (response.getStatus() != ClientResponse.SUCCESS) {
+                    loader.m_notificationCallBack.failureCallback(rowHandle, rowData, response);
                 }
-            } catch (Exception e) {
-                loader.generateError(currRow.m_rowHandle, currRow.m_rowData, e.getMessage());
-                loader.m_outstandingRowCount.decrementAndGet();
-                it.remove();
-                continue;
-            }
-            m_table.addRow(row_args);
 
-            Long prevValue;
-            if ((prevValue = batchSizes.put(loader, 1L)) != null) {
-                batchSizes.put(loader, prevValue + 1);
+                loader.m_loaderCompletedCnt.incrementAndGet();
+                loader.m_outstandingRowCount.decrementAndGet();
             }
-        }
-
-        return new PartitionProcedureCallback(buf, batchSizes);
+        };
+        loadTable(callback, tmpTable);
     }
 
     private void loadTable(ProcedureCallback callback, VoltTable toSend) throws Exception {
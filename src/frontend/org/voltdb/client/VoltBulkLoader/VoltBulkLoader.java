@@ -330,21 +330,19 @@ public class VoltBulkLoader {
             generateError(rowHandle, fieldList, errMsg);
             return;
         }
-        VoltBulkLoaderRow newRow = new VoltBulkLoaderRow(this, rowHandle, fieldList);
         if (m_isMP) {
-            m_partitionTable[m_firstPartitionTable].insertRowInTable(newRow);
+            m_partitionTable[m_firstPartitionTable].insertRowInTable(this, rowHandle, fieldList);
         }
         else {
             try {
                 partitionId = (int)m_clientImpl.getPartitionForParameter(
                         m_partitionColumnType.getValue(), fieldList[m_partitionedColumnIndex]);
-                m_partitionTable[partitionId].insertRowInTable(newRow);
             } catch (VoltTypeException e) {
                 generateError(rowHandle, fieldList, e.getMessage());
                 return;
             }
+            m_partitionTable[partitionId].insertRowInTable(this, rowHandle, fieldList);
         }
-        m_outstandingRowCount.incrementAndGet();
     }
 
     /**
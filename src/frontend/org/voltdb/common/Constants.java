@@ -52,6 +52,13 @@ public class Constants
     public static final byte AUTHENTICATION_FAILURE_DUE_TO_REJOIN = 4;
     public static final byte EXPORT_DISABLED_REJECTION = 5;
 
+    // app status of the GRACEFUL_FAILURE answered by @AdHocExecutePrepared for a plan
+    // handle unknown to the host, the statement must be prepared again
+    public static final byte UNKNOWN_PLAN_HANDLE = 1;
+    // app status of the GRACEFUL_FAILURE answered by @AdHocPrepare for SQL that is not
+    // a single DML or query statement, the client runs it with @AdHoc from then on
+    public static final byte NOT_PREPARABLE_STATEMENT = 2;
+
     // from jdbc metadata generation
     public static final String JSON_PARTITION_PARAMETER = "partitionParameter";
     public static final String JSON_PARTITION_PARAMETER_TYPE = "partitionParameterType";
@@ -17,20 +17,37 @@
 
 package org.voltdb.compiler;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractMap;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
 
+import org.voltdb.ParameterSet;
 import org.voltdb.common.Constants;
+import org.voltdb.messaging.FastDeserializer;
+import org.voltdb.messaging.FastSerializer;
 import org.voltdb.planner.BoundPlan;
+import org.voltdb.planner.CorePlan;
 import org.voltdb.utils.Encoder;
 
 import com.google_voltpatches.common.cache.Cache;
 import com.google_voltpatches.common.cache.CacheBuilder;
+import com.google_voltpatches.common.cache.CacheStats;
 
 /**
  * Keep a cache two level cache of plans generated by the Ad Hoc
@@ -43,10 +60,25 @@ import com.google_voltpatches.common.cache.CacheBuilder;
  * statement mapped to core parameterized plans. These parameterized
  * plans need parameter values and sql literals in order to be
  * actually used.
+ *
+ * Both levels are segmented LRU caches, so concurrent planner threads only
+ * contend when they hit the same segment. The literal cache is bounded by
+ * the serialized size of its plans as well as by its entry count.
+ *
+ * The plans can be saved to a file and preloaded by a node restarting with
+ * the same catalog, see {@link #writeTo(File, byte[])}.
  */
 public class AdHocCompilerCache implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    // Number of independently locked segments of each cache level
+    static final int CONCURRENCY_LEVEL = Integer.getInteger("ADHOC_COMPILER_CACHE_CONCURRENCY", 16);
+
+    /** Name of the file in the config directory the plans are saved to across restarts */
+    public static final String PLAN_CACHE_FILE_NAME = "adhoc-plan-cache.bin";
+    private static final int PLAN_CACHE_FILE_MAGIC = 0x41485043; // "AHPC"
+    private static final int PLAN_CACHE_FILE_VERSION = 1;
+
     //////////////////////////////////////////////////////////////////////////
     // STATIC CODE TO MANAGE CACHE LIFETIMES / GLOBALNESS
     //////////////////////////////////////////////////////////////////////////
@@ -63,14 +95,15 @@ public class AdHocCompilerCache implements Serializable {
      * Get the global cache for a given hash of the catalog. Note that there can be only
      * one cache per catalogHash at a time.
      */
-    public synchronized static AdHocCompilerCache getCacheForCatalogHash(byte[] catalogHash) {
+    public static AdHocCompilerCache getCacheForCatalogHash(byte[] catalogHash) {
         String hashString = Encoder.hexEncode(catalogHash);
-        AdHocCompilerCache cache = m_catalogHashMatch.getIfPresent(hashString);
-        if (cache == null) {
-            cache = new AdHocCompilerCache();
-            m_catalogHashMatch.put(hashString, cache);
+        try {
+            return m_catalogHashMatch.get(hashString, AdHocCompilerCache::new);
+        }
+        catch (ExecutionException e) {
+            // The constructor doesn't throw checked exceptions
+            throw new RuntimeException(e.getCause());
         }
-        return cache;
     }
 
     //////////////////////////////////////////////////////////////////////////
@@ -80,25 +113,19 @@ public class AdHocCompilerCache implements Serializable {
     // cache sizes determined at construction time
     final int MAX_LITERAL_ENTRIES;
     // max cache size for parameterized plans
-    final long MAX_LITERAL_MEM  = Long.getLong("ADHOC_COMPILER_CACHE_MAX_LITERAL_MEM_BYTES", 32*1024*1024);
+    final long MAX_LITERAL_MEM;
     final int MAX_CORE_ENTRIES;
 
     /** cache of literals to full plans */
-    final Map<String, AdHocPlannedStatement> m_literalCache;
+    final Cache<String, AdHocPlannedStatement> m_literalCache;
     /** cache of parameterized plan descriptions to one or more core parameterized plans,
      *  each plan optionally has its own requirements for which parameters need to be bound
-     *  to what values to enable its specialized (expression-indexed) plan. */
-    final Map<String, List<BoundPlan> > m_coreCache;
-
-    // placeholder stats used during development that may/may not survive
-    long m_literalHits = 0;
-    long m_literalQueries = 0;
-    long m_literalInsertions = 0;
-    long m_literalEvictions = 0;
-    long m_planHits = 0;
-    long m_planQueries = 0;
-    long m_planInsertions = 0;
-    long m_planEvictions = 0;
+     *  to what values to enable its specialized (expression-indexed) plan.
+     *  The lists are copy on write so planners can iterate them without locking. */
+    final Cache<String, List<BoundPlan> > m_coreCache;
+
+    /** Number of puts so far, so that a cache is only saved again if it changed */
+    final AtomicLong m_putCount = new AtomicLong();
 
     /** {@see this#startPeriodicStatsPrinting() } */
     Timer m_statsTimer = null;
@@ -114,129 +141,65 @@ public class AdHocCompilerCache implements Serializable {
      * Constructor with specific cache sizes is only called directly for testing.
      *
      * @param maxLiteralEntries cache size for literals
-     * @param maxLiteralMem cache memory for literals
+     * @param maxCoreEntries cache size for parameterized plans
      */
     AdHocCompilerCache(int maxLiteralEntries, int maxCoreEntries) {
-        MAX_LITERAL_ENTRIES = maxLiteralEntries;
-        MAX_CORE_ENTRIES = maxCoreEntries;
-
-        // an LRU cache map
-        m_literalCache = new AdHocStatementCache(MAX_LITERAL_ENTRIES, MAX_LITERAL_MEM);
-
-        // an LRU cache map
-        m_coreCache = new LinkedHashMap<String, List<BoundPlan> >(MAX_CORE_ENTRIES * 2, .75f, true) {
-            private static final long serialVersionUID = 1L;
-
-            // This method is called just after a new entry has been added
-            @Override
-            public boolean removeEldestEntry(Map.Entry<String, List<BoundPlan> > eldest) {
-                if (size() > MAX_CORE_ENTRIES) {
-                    ++m_planEvictions;
-                    return true;
-                }
-                return false;
-            }
-
-        };
+        this(maxLiteralEntries, maxCoreEntries,
+             Long.getLong("ADHOC_COMPILER_CACHE_MAX_LITERAL_MEM_BYTES", 32*1024*1024));
     }
 
-    // define a LinkedHashMap based LRU cache bounds by both entry number and entry value on-heap size
-    // without changing Map.Entry, only works for value of type AdHocPlannedStatement
-    // only extend put, remove,clear and removeEldestEntry methods to account weight
-    public class AdHocStatementCache extends LinkedHashMap<String, AdHocPlannedStatement>{
-       private static final long serialVersionUID = 2988383448026641836L;
-        private final int maxEntries;
-        private final long maxMemory; // in bytes
-        private long currentMemory;   // in bytes
-
-        public AdHocStatementCache() {
-            // default max entry of 1000
-            // default max value size of 32MB
-            this(1000, 32 * 1024 * 1024);
-        }
-
-        public AdHocStatementCache(final int maxEntries) {
-            this(maxEntries, 32 * 1024 * 1024);
-        }
-
-        public AdHocStatementCache(final int maxEntries, final long maxMemory) {
-            // set accessOrder to true for LRU
-            super(maxEntries * 2, .75f, true);
-            this.maxEntries = maxEntries;
-            this.maxMemory = maxMemory;
-            this.currentMemory = 0;
-        }
-
-        // This method is called just after a new entry has been added
-        @Override
-        public boolean removeEldestEntry(final Map.Entry<String, AdHocPlannedStatement> eldest) {
-            if ((size() > maxEntries) || (this.currentMemory > this.maxMemory))  {
-                ++m_literalEvictions;
-                this.currentMemory -= eldest.getValue().getSerializedSize();
-                return true;
-            }
-            return false;
-        }
-
-        @Override
-        public AdHocPlannedStatement put(String key, AdHocPlannedStatement value) {
-            this.currentMemory += value.getSerializedSize();
-            return super.put(key,value);
-        }
-
-        @Override
-        public AdHocPlannedStatement remove(Object key) {
-            AdHocPlannedStatement value = super.remove(key);
-            if (value != null) {
-                this.currentMemory -= value.getSerializedSize();
-            }
-            return value;
-        }
-
-        @Override
-        public void clear() {
-            super.clear();
-            this.currentMemory = 0;
-        }
+    /**
+     * @param maxLiteralEntries cache size for literals
+     * @param maxCoreEntries cache size for parameterized plans
+     * @param maxLiteralMem cache memory for literals
+     */
+    AdHocCompilerCache(int maxLiteralEntries, int maxCoreEntries, long maxLiteralMem) {
+        MAX_LITERAL_ENTRIES = maxLiteralEntries;
+        MAX_CORE_ENTRIES = maxCoreEntries;
+        MAX_LITERAL_MEM = maxLiteralMem;
+
+        // Plans are weighed in units of an entry's share of the memory budget, at least one
+        // unit each, so a single weight bound enforces both the entry count and the memory bounds
+        final long bytesPerUnit = Math.max(1, MAX_LITERAL_MEM / MAX_LITERAL_ENTRIES);
+        m_literalCache = CacheBuilder.newBuilder()
+                .concurrencyLevel(CONCURRENCY_LEVEL)
+                .maximumWeight(MAX_LITERAL_ENTRIES)
+                .weigher((String sql, AdHocPlannedStatement plan) ->
+                        (int) Math.max(1, (plan.getSerializedSize() + bytesPerUnit - 1) / bytesPerUnit))
+                .recordStats()
+                .build();
+
+        m_coreCache = CacheBuilder.newBuilder()
+                .concurrencyLevel(CONCURRENCY_LEVEL)
+                .maximumSize(MAX_CORE_ENTRIES)
+                .recordStats()
+                .build();
     }
 
     /**
      * Stats printing method used during development.
      * Probably shouldn't live past real stats integration.
      */
-    synchronized void printStats() {
-        String line1 = String.format("CACHE STATS - Literals: Hits %d/%d (%.1f%%), Inserts %d Evictions %d\n",
-                m_literalHits, m_literalQueries, (m_literalHits * 100.0) / m_literalQueries,
-                m_literalInsertions, m_literalEvictions);
-        String line2 = String.format("CACHE STATS - Plans:    Hits %d/%d (%.1f%%), Inserts %d Evictions %d\n",
-                m_planHits, m_planQueries, (m_planHits * 100.0) /m_planQueries,
-                m_planInsertions, m_planEvictions);
+    void printStats() {
+        CacheStats literals = m_literalCache.stats();
+        CacheStats plans = m_coreCache.stats();
+        String line1 = String.format("CACHE STATS - Literals: Hits %d/%d (%.1f%%), Evictions %d\n",
+                literals.hitCount(), literals.requestCount(), literals.hitRate() * 100.0,
+                literals.evictionCount());
+        String line2 = String.format("CACHE STATS - Plans:    Hits %d/%d (%.1f%%), Evictions %d\n",
+                plans.hitCount(), plans.requestCount(), plans.hitRate() * 100.0,
+                plans.evictionCount());
 
         System.out.print(line1 + line2);
         System.out.flush();
-
-        // reset these
-        m_literalHits = 0;
-        m_literalQueries = 0;
-        m_literalInsertions = 0;
-        m_literalEvictions = 0;
-        m_planHits = 0;
-        m_planQueries = 0;
-        m_planInsertions = 0;
-        m_planEvictions = 0;
     }
 
     /**
      * @param sql SQL literal
      * @return full, ready-to-go plan
      */
-    public synchronized AdHocPlannedStatement getWithSQL(String sql) {
-        ++m_literalQueries;
-        AdHocPlannedStatement retval = m_literalCache.get(sql);
-        if (retval != null) {
-            ++m_literalHits;
-        }
-        return retval;
+    public AdHocPlannedStatement getWithSQL(String sql) {
+        return m_literalCache.getIfPresent(sql);
     }
 
     /**
@@ -244,13 +207,8 @@ public class AdHocCompilerCache implements Serializable {
      * SQL statement
      * @return A CorePlan that needs parameter values to run.
      */
-    public synchronized List<BoundPlan> getWithParsedToken(String parsedToken) {
-        ++m_planQueries;
-        List<BoundPlan> retval = m_coreCache.get(parsedToken);
-        if (retval != null) {
-            ++m_planHits;
-        }
-        return retval;
+    public List<BoundPlan> getWithParsedToken(String parsedToken) {
+        return m_coreCache.getIfPresent(parsedToken);
     }
 
     /**
@@ -271,12 +229,12 @@ public class AdHocCompilerCache implements Serializable {
      * @param hasUserQuestionMarkParameters is user provided parameterized query
      * @param hasAutoParameterizedException is the auto parameterized query has parameter exception
      */
-    public synchronized void put(String sql,
-                                 String parsedToken,
-                                 AdHocPlannedStatement planIn,
-                                 String[] extractedLiterals,
-                                 boolean hasUserQuestionMarkParameters,
-                                 boolean hasAutoParameterizedException)
+    public void put(String sql,
+                    String parsedToken,
+                    AdHocPlannedStatement planIn,
+                    String[] extractedLiterals,
+                    boolean hasUserQuestionMarkParameters,
+                    boolean hasAutoParameterizedException)
     {
         assert(sql != null);
         assert(parsedToken != null);
@@ -291,56 +249,49 @@ public class AdHocCompilerCache implements Serializable {
         // uncomment this to get some raw stdout cache performance stats every 5s
         //startPeriodicStatsPrinting();
 
+        m_putCount.incrementAndGet();
+
         // deal with L2 cache
         if (! hasAutoParameterizedException) {
             BoundPlan matched = null;
             BoundPlan unmatched = new BoundPlan(planIn.core, planIn.parameterBindings(extractedLiterals));
-            // deal with the parameterized plan cache first
-            List<BoundPlan> boundVariants = m_coreCache.get(parsedToken);
+            // deal with the parameterized plan cache first, lookups through the map view
+            // don't count as hits or misses
+            List<BoundPlan> boundVariants = m_coreCache.asMap().get(parsedToken);
             if (boundVariants == null) {
-                boundVariants = new ArrayList<BoundPlan>();
-                m_coreCache.put(parsedToken, boundVariants);
-                // Note that there is an edge case in which more than one plan is getting counted as one
-                // "plan insertion". This only happens when two different plans arose from the same parameterized
-                // query (token) because one invocation used the correct constants to trigger an expression index and
-                // another invocation did not.  These are not counted separately (which would have to happen below
-                // after each call to boundVariants.add) because they are not evicted separately.
-                // It seems saner to use consistent units when counting insertions vs. evictions.
-                ++m_planInsertions;
-            } else {
+                List<BoundPlan> created = new CopyOnWriteArrayList<>();
+                boundVariants = m_coreCache.asMap().putIfAbsent(parsedToken, created);
+                if (boundVariants == null) {
+                    boundVariants = created;
+                }
+            }
+            // Only writers lock the list, so that two planners don't add the same variant
+            synchronized (boundVariants) {
                 for (BoundPlan boundPlan : boundVariants) {
                     if (boundPlan.equals(unmatched)) {
                         matched = boundPlan;
                         break;
                     }
                 }
-                if (matched != null) {
-                    // if a different core is found, reuse it
-                    // this is useful when updating the literal cache
-                    if (unmatched.m_core != matched.m_core) {
-                        plan = new AdHocPlannedStatement(planIn, matched.m_core);
-                        plan.setBoundConstants(matched.m_constants);
-                    }
+                if (matched == null) {
+                    boundVariants.add(unmatched);
                 }
             }
-            if (matched == null) {
-                // Don't count insertions (of possibly repeated tokens) here
-                //  -- see the comment above where only UNIQUE token insertions are being counted, instead.
-                boundVariants.add(unmatched);
+            if (matched != null) {
+                // if a different core is found, reuse it
+                // this is useful when updating the literal cache
+                if (unmatched.m_core != matched.m_core) {
+                    plan = new AdHocPlannedStatement(planIn, matched.m_core);
+                    plan.setBoundConstants(matched.m_constants);
+                }
             }
         }
 
         // then deal with the L1 cache
         if (! hasUserQuestionMarkParameters) {
-            AdHocPlannedStatement cachedPlan = m_literalCache.get(sql);
-            if (cachedPlan == null) {
-                //* enable to debug */ System.out.println("DEBUG: Caching literal '" + sql + "'");
-                m_literalCache.put(sql, plan);
-                ++m_literalInsertions;
-            }
-            else {
-                assert(cachedPlan.equals(plan));
-            }
+            //* enable to debug */ System.out.println("DEBUG: Caching literal '" + sql + "'");
+            AdHocPlannedStatement cachedPlan = m_literalCache.asMap().putIfAbsent(sql, plan);
+            assert(cachedPlan == null || cachedPlan.equals(plan));
         }
     }
 
@@ -348,7 +299,7 @@ public class AdHocCompilerCache implements Serializable {
      * Start a timer that prints cache stats to the console every 5s.
      * Used for development until we get better stats integration.
      */
-    public void startPeriodicStatsPrinting() {
+    public synchronized void startPeriodicStatsPrinting() {
         if (m_statsTimer == null) {
             m_statsTimer = new Timer();
             m_statsTimer.scheduleAtFixedRate(new TimerTask() {
@@ -360,12 +311,210 @@ public class AdHocCompilerCache implements Serializable {
         }
     }
 
+    /**
+     * Drop all the cached plans, e.g. when the estimates they were costed with are stale.
+     */
+    public void clear() {
+        m_putCount.incrementAndGet();
+        m_literalCache.invalidateAll();
+        m_coreCache.invalidateAll();
+    }
+
+    /**
+     * @return number of puts since the cache was created, changes whenever a plan may have been added
+     */
+    public long getPutCount() {
+        return m_putCount.get();
+    }
+
+    /**
+     * Save the plans of both levels to file so that a node restarting with the same
+     * catalog can preload them with {@link #readFrom(File, byte[])} instead of planning
+     * the statements again. The file is written next to it and then moved in place.
+     *
+     * Fragments are written once per core plan even when the core is shared by
+     * literal and parameterized entries.
+     *
+     * @param file          file to replace
+     * @param catalogHash   hash of the catalog the plans were planned against
+     * @return number of plans saved
+     */
+    public int writeTo(File file, byte[] catalogHash) throws IOException {
+        final Map<CorePlan, Integer> coreIndexes = new IdentityHashMap<>();
+        final List<CorePlan> cores = new ArrayList<>();
+
+        final List<Map.Entry<String, AdHocPlannedStatement>> literals = new ArrayList<>();
+        for (Map.Entry<String, AdHocPlannedStatement> e : m_literalCache.asMap().entrySet()) {
+            CorePlan core = e.getValue().core;
+            if (core.wasPlannedAgainstHash(catalogHash)) {
+                literals.add(e);
+                if (coreIndexes.putIfAbsent(core, cores.size()) == null) {
+                    cores.add(core);
+                }
+            }
+        }
+        final List<Map.Entry<String, List<BoundPlan>>> parameterized = new ArrayList<>();
+        for (Map.Entry<String, List<BoundPlan>> e : m_coreCache.asMap().entrySet()) {
+            List<BoundPlan> variants = new ArrayList<>();
+            for (BoundPlan variant : e.getValue()) {
+                if (variant.m_core.wasPlannedAgainstHash(catalogHash)) {
+                    variants.add(variant);
+                    if (coreIndexes.putIfAbsent(variant.m_core, cores.size()) == null) {
+                        cores.add(variant.m_core);
+                    }
+                }
+            }
+            if (!variants.isEmpty()) {
+                parameterized.add(new AbstractMap.SimpleImmutableEntry<>(e.getKey(), variants));
+            }
+        }
+
+        FastSerializer fs = new FastSerializer();
+        fs.writeInt(PLAN_CACHE_FILE_MAGIC);
+        fs.writeInt(PLAN_CACHE_FILE_VERSION);
+        fs.writeVarbinary(catalogHash);
+
+        fs.writeInt(cores.size());
+        for (CorePlan core : cores) {
+            ByteBuffer buf = ByteBuffer.allocate(core.getSerializedSize());
+            core.flattenToBuffer(buf);
+            fs.write(buf.array());
+            // Not part of the core serialization but needed to route the statements
+            fs.writeInt(core.getPartitioningParamIndex());
+            fs.writeParameterSet(ParameterSet.fromArrayNoCopy(new Object[] { core.getPartitioningParamValue() }));
+        }
+
+        fs.writeInt(literals.size());
+        for (Map.Entry<String, AdHocPlannedStatement> e : literals) {
+            AdHocPlannedStatement plan = e.getValue();
+            fs.writeString(e.getKey());
+            fs.writeInt(coreIndexes.get(plan.core));
+            fs.writeParameterSet(plan.extractedParams());
+            writeConstants(fs, plan.boundConstants());
+        }
+
+        fs.writeInt(parameterized.size());
+        for (Map.Entry<String, List<BoundPlan>> e : parameterized) {
+            fs.writeString(e.getKey());
+            fs.writeInt(e.getValue().size());
+            for (BoundPlan variant : e.getValue()) {
+                fs.writeInt(coreIndexes.get(variant.m_core));
+                writeConstants(fs, variant.m_constants);
+            }
+        }
+
+        byte[] content = fs.getBytes();
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        ByteBuffer checksum = ByteBuffer.allocate(8);
+        checksum.putLong(crc.getValue());
+
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp)) {
+            fos.write(content);
+            fos.write(checksum.array());
+            fos.getFD().sync();
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return literals.size() + parameterized.size();
+    }
+
+    /**
+     * Preload the plans saved by {@link #writeTo(File, byte[])}. Plans already in
+     * the cache are kept, and nothing is loaded from a file saved for another catalog.
+     *
+     * @param file          file to read, may not exist
+     * @param catalogHash   hash of the catalog this cache is for
+     * @return number of plans loaded, 0 if there is no file for this catalog
+     * @throws IOException if the file can't be read or is corrupt
+     */
+    public int readFrom(File file, byte[] catalogHash) throws IOException {
+        if (!file.exists()) {
+            return 0;
+        }
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        if (bytes.length < 8) {
+            throw new IOException("Plan cache file " + file + " is truncated");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 8);
+        if (crc.getValue() != ByteBuffer.wrap(bytes, bytes.length - 8, 8).getLong()) {
+            throw new IOException("Plan cache file " + file + " failed its checksum");
+        }
+
+        FastDeserializer fds = new FastDeserializer(ByteBuffer.wrap(bytes, 0, bytes.length - 8));
+        if (fds.readInt() != PLAN_CACHE_FILE_MAGIC || fds.readInt() != PLAN_CACHE_FILE_VERSION) {
+            throw new IOException("Plan cache file " + file + " has an unknown format");
+        }
+        if (!Arrays.equals(fds.readVarbinary(), catalogHash)) {
+            return 0;
+        }
+
+        final CorePlan[] cores = new CorePlan[fds.readInt()];
+        for (int i = 0; i < cores.length; i++) {
+            cores[i] = CorePlan.fromBuffer(fds.buffer());
+            cores[i].setPartitioningParamIndex(fds.readInt());
+            cores[i].setPartitioningParamValue(ParameterSet.fromByteBuffer(fds.buffer()).toArray()[0]);
+        }
+
+        int loaded = 0;
+        final int literalCount = fds.readInt();
+        for (int i = 0; i < literalCount; i++) {
+            String sql = fds.readString();
+            CorePlan core = cores[fds.readInt()];
+            ParameterSet params = ParameterSet.fromByteBuffer(fds.buffer());
+            AdHocPlannedStatement plan = new AdHocPlannedStatement(
+                    sql.getBytes(Constants.UTF8ENCODING), core, params, null);
+            plan.setBoundConstants(readConstants(fds));
+            if (m_literalCache.asMap().putIfAbsent(sql, plan) == null) {
+                loaded++;
+            }
+        }
+
+        final int parameterizedCount = fds.readInt();
+        for (int i = 0; i < parameterizedCount; i++) {
+            String parsedToken = fds.readString();
+            final int variantCount = fds.readInt();
+            List<BoundPlan> variants = new CopyOnWriteArrayList<>();
+            for (int j = 0; j < variantCount; j++) {
+                variants.add(new BoundPlan(cores[fds.readInt()], readConstants(fds)));
+            }
+            if (m_coreCache.asMap().putIfAbsent(parsedToken, variants) == null) {
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    private static void writeConstants(FastSerializer fs, String[] constants) throws IOException {
+        if (constants == null) {
+            fs.writeInt(-1);
+            return;
+        }
+        fs.writeInt(constants.length);
+        for (String constant : constants) {
+            fs.writeString(constant);
+        }
+    }
+
+    private static String[] readConstants(FastDeserializer fds) throws IOException {
+        final int length = fds.readInt();
+        if (length < 0) {
+            return null;
+        }
+        String[] constants = new String[length];
+        for (int i = 0; i < length; i++) {
+            constants[i] = fds.readString();
+        }
+        return constants;
+    }
+
     /**
      * Return the number of items in the literal cache.
      * @return  literal cache size as a count
      */
     public int getLiteralCacheSize() {
-        return m_literalCache.size();
+        return (int) m_literalCache.size();
     }
 
     /**
@@ -373,6 +522,20 @@ public class AdHocCompilerCache implements Serializable {
      * @return  core cache size as a count
      */
     public int getCoreCacheSize() {
-        return m_coreCache.size();
+        return (int) m_coreCache.size();
+    }
+
+    /**
+     * @return hit, miss and eviction counts of the literal cache
+     */
+    public CacheStats getLiteralCacheStats() {
+        return m_literalCache.stats();
+    }
+
+    /**
+     * @return hit, miss and eviction counts of the core (parameterized) cache
+     */
+    public CacheStats getCoreCacheStats() {
+        return m_coreCache.stats();
     }
 }
@@ -196,6 +196,14 @@ public class AdHocPlannedStatement {
         boundParamStrings = boundConstants;
     }
 
+    String[] boundConstants() {
+        return boundParamStrings;
+    }
+
+    ParameterSet extractedParams() {
+        return extractedParamValues;
+    }
+
     public Object[] extractedParamArray() {
         return extractedParamValues.toArray();
     }
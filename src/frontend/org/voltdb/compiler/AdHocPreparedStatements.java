@@ -0,0 +1,140 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.compiler;
+
+import java.nio.ByteBuffer;
+
+import org.voltdb.common.Constants;
+import org.voltdb.utils.Digester;
+
+import com.google_voltpatches.common.cache.Cache;
+import com.google_voltpatches.common.cache.CacheBuilder;
+
+/**
+ * Ad hoc statements prepared on this host with @AdHocPrepare, keyed by plan handle.
+ * A prepared statement runs with @AdHocExecutePrepared and only its parameter values,
+ * skipping SQL text transfer, parameterization and plan cache lookups.
+ *
+ * The handle is derived from the SQL text so that every host hands out the same handle
+ * for a statement and preparing it again is idempotent. Handles are not replicated: a
+ * host that never prepared a statement, or that evicted it, answers with the
+ * Constants.UNKNOWN_PLAN_HANDLE app status and the client prepares it again.
+ *
+ * Plans are checked against the catalog on every execution and replanned from the
+ * SQL text when the catalog changed.
+ */
+public class AdHocPreparedStatements {
+    // Maximum number of prepared statements kept on a host, least recently used go first
+    static final int MAX_STATEMENTS = Integer.getInteger("ADHOC_MAX_PREPARED_STATEMENTS", 10000);
+
+    private static final AdHocPreparedStatements s_instance = new AdHocPreparedStatements(MAX_STATEMENTS);
+
+    public static AdHocPreparedStatements instance() {
+        return s_instance;
+    }
+
+    /**
+     * A prepared statement, the plan is swapped when it gets replanned for a new catalog.
+     */
+    public static class PreparedStatement {
+        public final long handle;
+        public final String sql;
+        private volatile AdHocPlannedStatement m_plan;
+
+        PreparedStatement(long handle, String sql, AdHocPlannedStatement plan) {
+            this.handle = handle;
+            this.sql = sql;
+            m_plan = plan;
+        }
+
+        public AdHocPlannedStatement getPlan() {
+            return m_plan;
+        }
+
+        public void setPlan(AdHocPlannedStatement plan) {
+            m_plan = plan;
+        }
+
+        /**
+         * @return number of parameter values each execution must provide
+         */
+        public int getParameterCount() {
+            return getParameterCount(m_plan);
+        }
+
+        /**
+         * Question marks and extracted constants are never mixed in a plan, so the plan
+         * takes either nothing or all its parameters from the user.
+         */
+        static int getParameterCount(AdHocPlannedStatement plan) {
+            return plan.hasExtractedParams() ? 0 : plan.core.parameterTypes.length;
+        }
+    }
+
+    private final Cache<Long, PreparedStatement> m_statements;
+
+    AdHocPreparedStatements(int maxStatements) {
+        m_statements = CacheBuilder.newBuilder()
+                .maximumSize(maxStatements)
+                .concurrencyLevel(AdHocCompilerCache.CONCURRENCY_LEVEL)
+                .build();
+    }
+
+    /**
+     * @return the plan handle of a statement, positive and the same on every host
+     */
+    public static long handleFor(String sql) {
+        ByteBuffer digest = ByteBuffer.wrap(Digester.sha1(sql.getBytes(Constants.UTF8ENCODING)));
+        long handle = digest.getLong() & Long.MAX_VALUE;
+        return handle == 0 ? 1 : handle;
+    }
+
+    /**
+     * @return the prepared statement or null if this host doesn't know the handle
+     */
+    public PreparedStatement get(long handle) {
+        return m_statements.getIfPresent(handle);
+    }
+
+    /**
+     * Register a planned statement. If the statement was already prepared its plan is replaced.
+     * @return the prepared statement, or null in the unlikely event that its handle is taken
+     *         by a statement with different SQL text
+     */
+    public PreparedStatement put(String sql, AdHocPlannedStatement plan) {
+        final long handle = handleFor(sql);
+        PreparedStatement prepared = new PreparedStatement(handle, sql, plan);
+        PreparedStatement existing = m_statements.asMap().putIfAbsent(handle, prepared);
+        if (existing == null) {
+            return prepared;
+        }
+        if (!existing.sql.equals(sql)) {
+            return null;
+        }
+        existing.setPlan(plan);
+        return existing;
+    }
+
+    public long size() {
+        return m_statements.size();
+    }
+
+    public void clear() {
+        m_statements.invalidateAll();
+    }
+}
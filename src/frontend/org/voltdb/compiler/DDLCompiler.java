@@ -490,23 +490,6 @@ public class DDLCompiler {
 
     private void applyDiff(VoltXMLDiff stmtDiff)
     {
-        // record which tables changed
-        for (String tableName : stmtDiff.getChangedNodes().keySet()) {
-            assert(tableName.startsWith("table"));
-            tableName = tableName.substring("table".length());
-            m_compiler.markTableAsDirty(tableName);
-        }
-        for (VoltXMLElement tableXML : stmtDiff.getRemovedNodes()) {
-            String tableName = tableXML.attributes.get("name");
-            assert(tableName != null);
-            m_compiler.markTableAsDirty(tableName);
-        }
-        for (VoltXMLElement tableXML : stmtDiff.getAddedNodes()) {
-            String tableName = tableXML.attributes.get("name");
-            assert(tableName != null);
-            m_compiler.markTableAsDirty(tableName);
-        }
-
         m_schema.applyDiff(stmtDiff);
         // now go back and clean up anything that wasn't resolvable just by applying the diff
         // For now, this is:
@@ -639,9 +622,6 @@ public class DDLCompiler {
             if (columnName != null) {
                 tableXML.attributes.put("partitioncolumn", columnName.toUpperCase());
                 // Column validity check done by VoltCompiler in post-processing
-
-                // mark the table as dirty for the purposes of caching sql statements
-                m_compiler.markTableAsDirty(tableName);
             }
 
             // process export
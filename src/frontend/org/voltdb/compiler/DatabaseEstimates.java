@@ -19,6 +19,7 @@ package org.voltdb.compiler;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Map;
 
 public class DatabaseEstimates {
 
@@ -26,10 +27,32 @@ public class DatabaseEstimates {
         public long maxTuples = 1000000;
         public long minTuples = 100000;
         public ArrayList<ScalarValueHints> valueHints = new ArrayList<ScalarValueHints>();
+        // Fraction of the table's rows that each index holds, by index name. Only
+        // known from table statistics, where it is less than one for partial indexes.
+        public Map<String, Double> indexCoverage = new HashMap<String, Double>();
+
+        /**
+         * @return the number of rows the given index is expected to hold
+         */
+        public long getIndexTuples(String indexName) {
+            Double coverage = indexCoverage.get(indexName);
+            return coverage == null ? maxTuples : (long) (maxTuples * coverage);
+        }
     }
 
     HashMap<String, TableEstimates> tables = new HashMap<String, TableEstimates>();
 
+    public DatabaseEstimates() {
+    }
+
+    /**
+     * Start from known estimates, e.g. the ones derived from table statistics.
+     * Tables without a known estimate get the defaults.
+     */
+    public DatabaseEstimates(Map<String, TableEstimates> knownTables) {
+        tables.putAll(knownTables);
+    }
+
     public TableEstimates getEstimatesForTable(String tableName) {
         if (tables.containsKey(tableName) == false)
             tables.put(tableName, new TableEstimates());
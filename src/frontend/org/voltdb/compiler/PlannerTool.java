@@ -17,12 +17,19 @@
 
 package org.voltdb.compiler;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.hsqldb_voltpatches.HSQLInterface;
 import org.hsqldb_voltpatches.HSQLInterface.HSQLParseException;
 import org.voltcore.logging.VoltLogger;
+import org.voltcore.utils.CoreUtils;
 import org.voltdb.ParameterSet;
 import org.voltdb.PlannerStatsCollector;
 import org.voltdb.PlannerStatsCollector.CacheUse;
@@ -42,23 +49,58 @@ import org.voltdb.planner.TrivialCostModel;
 import org.voltdb.utils.CompressionService;
 import org.voltdb.utils.Encoder;
 
+import com.google_voltpatches.common.util.concurrent.Uninterruptibles;
+
 /**
  * Planner tool accepts an already compiled VoltDB catalog and then
  * interactively accept SQL and outputs plans on standard out.
  *
  * Used only for ad hoc queries.
+ *
+ * Statements are planned in parallel on a pool of HSQL sessions, each loaded
+ * with the schema. Sessions are created on demand up to PLANNER_POOL_SIZE and
+ * all of them share the same AdHocCompilerCache.
+ *
+ * Plans are costed with row counts from the table statistics of the local
+ * partitions when there are any (see TableCardinalities). When those move
+ * significantly the cached plans are dropped so they get re-planned.
+ *
+ * The cached plans can be saved and preloaded across restarts of a node with the
+ * same catalog, see {@link #savePlanCache(File)} and {@link #preloadPlanCache(File)}.
  */
 public class PlannerTool {
     private static final VoltLogger hostLog = new VoltLogger("HOST");
     private static final VoltLogger compileLog = new VoltLogger("COMPILE");
 
-    private Database m_database;
-    private byte[] m_catalogHash;
-    private AdHocCompilerCache m_cache;
-    private long m_adHocLargeFallbackCount = 0;
-    private long m_adHocLargeModeCount = 0;
-
+    // Cost plans with table statistics instead of the default estimates
+    private static final boolean PLAN_WITH_TABLE_STATS =
+            Boolean.valueOf(System.getProperty("PLANNER_USE_TABLE_STATS", "true"));
+
+    // Maximum number of HSQL sessions, and so of statements planned concurrently
+    private static final int PLANNER_POOL_SIZE = Integer.getInteger("PLANNER_POOL_SIZE",
+            Math.min(4, Math.max(1, CoreUtils.availableProcessors() / 2)));
+
+    private volatile Database m_database;
+    private volatile byte[] m_catalogHash;
+    private volatile AdHocCompilerCache m_cache;
+    private final AtomicLong m_adHocLargeFallbackCount = new AtomicLong();
+    private final AtomicLong m_adHocLargeModeCount = new AtomicLong();
+    // Table statistics generation the cached plans were costed with
+    private volatile long m_statsGeneration = 0;
+    // Preloaded plans were costed with the statistics of the previous run, which
+    // the first generation seen after a restart is assumed to match
+    private static final long ADOPT_NEXT_STATS_GENERATION = -1;
+    // The cache and put count as of the last save, guarded by this
+    private AdHocCompilerCache m_savedCache = null;
+    private long m_savedPutCount = -1;
+
+    // Decoded schema DDL used to load every session in the pool
+    private final List<String> m_ddl = new ArrayList<>();
+    // The first session, also handed out for catalog work by getHSQLInterface()
     private final HSQLInterface m_hsql;
+    private final LinkedBlockingQueue<HSQLInterface> m_idleSessions = new LinkedBlockingQueue<>();
+    private final AtomicInteger m_sessionCount = new AtomicInteger();
+    private final int m_poolSize;
 
     private static PlannerStatsCollector m_plannerStats;
 
@@ -70,15 +112,20 @@ public class PlannerTool {
             System.getenv("LARGE_MODE_RATIO").equals("-1")) ? System.getProperty("LARGE_MODE_RATIO", "0") : System.getenv("LARGE_MODE_RATIO"));
 
     public PlannerTool(final Database database, byte[] catalogHash)
+    {
+        this(database, catalogHash, PLANNER_POOL_SIZE);
+    }
+
+    public PlannerTool(final Database database, byte[] catalogHash, int poolSize)
     {
         assert(database != null);
+        assert(poolSize > 0);
 
         m_database = database;
         m_catalogHash = catalogHash;
         m_cache = AdHocCompilerCache.getCacheForCatalogHash(catalogHash);
+        m_poolSize = poolSize;
 
-        // LOAD HSQL
-        m_hsql = HSQLInterface.loadHsqldb(ParameterizationInfo.getParamStateManager());
         String binDDL = m_database.getSchema();
         String ddl = CompressionService.decodeBase64AndDecompress(binDDL);
         String[] commands = ddl.split("\n");
@@ -87,15 +134,13 @@ public class PlannerTool {
             decoded_cmd = decoded_cmd.trim();
             if (decoded_cmd.length() == 0)
                 continue;
-            try {
-                m_hsql.runDDLCommand(decoded_cmd);
-            }
-            catch (HSQLParseException e) {
-                // need a good error message here
-                throw new RuntimeException("Error creating hsql: " + e.getMessage() + " in DDL statement: " + decoded_cmd);
-            }
+            m_ddl.add(decoded_cmd);
         }
-        hostLog.debug("hsql loaded");
+
+        // LOAD HSQL
+        m_hsql = loadSession();
+        m_sessionCount.set(1);
+        m_idleSessions.offer(m_hsql);
 
         // Create and register a singleton planner stats collector, if this is the first time.
         if (m_plannerStats == null) {
@@ -125,11 +170,96 @@ public class PlannerTool {
     }
 
     public long getAdHocLargeFallbackCount() {
-        return m_adHocLargeFallbackCount;
+        return m_adHocLargeFallbackCount.get();
     }
 
     public long getAdHocLargeModeCount() {
-        return m_adHocLargeModeCount;
+        return m_adHocLargeModeCount.get();
+    }
+
+    /**
+     * @return number of HSQL sessions created so far, at most the pool size
+     */
+    public int getSessionCount() {
+        return m_sessionCount.get();
+    }
+
+    /**
+     * Save the cached plans for {@link #preloadPlanCache(File)}, unless nothing
+     * was planned since the last save.
+     * @return number of plans saved, -1 if the file is already up to date
+     */
+    public synchronized int savePlanCache(File file) throws IOException {
+        final AdHocCompilerCache cache = m_cache;
+        final long putCount = cache.getPutCount();
+        if (cache == m_savedCache && putCount == m_savedPutCount) {
+            return -1;
+        }
+        int saved = cache.writeTo(file, m_catalogHash);
+        m_savedCache = cache;
+        m_savedPutCount = putCount;
+        return saved;
+    }
+
+    /**
+     * Load the plans saved by a previous run with the same catalog, should be called
+     * before the node accepts client work.
+     * @return number of plans loaded
+     */
+    public synchronized int preloadPlanCache(File file) throws IOException {
+        final byte[] catalogHash = m_catalogHash;
+        final AdHocCompilerCache cache = AdHocCompilerCache.getCacheForCatalogHash(catalogHash);
+        int loaded = cache.readFrom(file, catalogHash);
+        if (loaded > 0) {
+            m_statsGeneration = ADOPT_NEXT_STATS_GENERATION;
+            // The file already has these plans
+            m_savedCache = cache;
+            m_savedPutCount = cache.getPutCount();
+        }
+        return loaded;
+    }
+
+    private HSQLInterface loadSession() {
+        HSQLInterface hsql = HSQLInterface.loadHsqldb(ParameterizationInfo.getParamStateManager());
+        for (String command : m_ddl) {
+            try {
+                hsql.runDDLCommand(command);
+            }
+            catch (HSQLParseException e) {
+                // need a good error message here
+                throw new RuntimeException("Error creating hsql: " + e.getMessage() + " in DDL statement: " + command);
+            }
+        }
+        hostLog.debug("hsql loaded");
+        return hsql;
+    }
+
+    /**
+     * Take an idle session, load a new one if the pool is not full yet,
+     * otherwise wait for another planner to release one.
+     */
+    private HSQLInterface acquireSession() {
+        HSQLInterface hsql = m_idleSessions.poll();
+        if (hsql != null) {
+            return hsql;
+        }
+        int count;
+        while ((count = m_sessionCount.get()) < m_poolSize) {
+            if (m_sessionCount.compareAndSet(count, count + 1)) {
+                try {
+                    return loadSession();
+                }
+                catch (RuntimeException e) {
+                    m_sessionCount.decrementAndGet();
+                    throw e;
+                }
+            }
+        }
+        return Uninterruptibles.takeUninterruptibly(m_idleSessions);
+    }
+
+    private void releaseSession(HSQLInterface hsql) {
+        m_idleSessions.offer(hsql);
     }
 
     public AdHocPlannedStatement planSqlForTest(String sqlIn) {
@@ -137,6 +267,31 @@ public class PlannerTool {
         return planSql(sqlIn, infer, false, null, false, false);
     }
 
+    /**
+     * Estimates for one planning run. Drops the cached plans first if the
+     * table statistics drifted since they were planned.
+     */
+    private DatabaseEstimates getEstimates() {
+        if (!PLAN_WITH_TABLE_STATS) {
+            return new DatabaseEstimates();
+        }
+        TableCardinalities.Snapshot snapshot = TableCardinalities.instance().snapshot();
+        if (snapshot.getGeneration() != m_statsGeneration) {
+            if (m_statsGeneration == ADOPT_NEXT_STATS_GENERATION) {
+                // Generation 0 has no row counts yet, wait for the first one that has
+                if (snapshot.getGeneration() != 0) {
+                    m_statsGeneration = snapshot.getGeneration();
+                }
+            }
+            else {
+                m_statsGeneration = snapshot.getGeneration();
+                compileLog.info("Table row counts changed significantly, re-planning cached ad hoc statements");
+                m_cache.clear();
+            }
+        }
+        return snapshot.newEstimates();
+    }
+
     private void logException(Exception e, String fmtLabel) {
         compileLog.error(fmtLabel + ": ", e);
     }
@@ -144,16 +299,16 @@ public class PlannerTool {
     /**
      * Stripped down compile that is ONLY used to plan default procedures.
      */
-    public synchronized CompiledPlan planSqlCore(String sql, StatementPartitioning partitioning) {
+    public CompiledPlan planSqlCore(String sql, StatementPartitioning partitioning) {
         TrivialCostModel costModel = new TrivialCostModel();
-        DatabaseEstimates estimates = new DatabaseEstimates();
+        DatabaseEstimates estimates = getEstimates();
 
         CompiledPlan plan = null;
-        // This try-with-resources block acquires a global lock on all planning
-        // This is required until we figure out how to do parallel planning.
+        // The planner locks the session only while it parses the statement
+        HSQLInterface hsql = acquireSession();
         try (QueryPlanner planner = new QueryPlanner(
                 sql, "PlannerTool", "PlannerToolProc", m_database,
-                partitioning, m_hsql, estimates, !VoltCompiler.DEBUG_MODE,
+                partitioning, hsql, estimates, !VoltCompiler.DEBUG_MODE,
                 costModel, null, null, DeterminismMode.FASTER, false)) {
 
             // do the expensive full planning.
@@ -176,6 +331,9 @@ public class PlannerTool {
             }
             throw new RuntimeException("SQL error while compiling query: " + e.toString() + loggedMsg, e);
         }
+        finally {
+            releaseSession(hsql);
+        }
 
         if (plan == null) {
             throw new RuntimeException("Null plan received in PlannerTool.planSql");
@@ -184,22 +342,42 @@ public class PlannerTool {
         return plan;
     }
 
-    public synchronized AdHocPlannedStatement planSql(String sql, StatementPartitioning partitioning,
+    public AdHocPlannedStatement planSql(String sql, StatementPartitioning partitioning,
             boolean isExplainMode, final Object[] userParams, boolean isSwapTables, boolean isLargeQuery) {
+        return planSql(sql, partitioning, isExplainMode, userParams, isSwapTables, isLargeQuery, false);
+    }
+
+    /**
+     * Plan a statement ahead of its executions, for @AdHocPrepare. The partitioning is
+     * inferred and the user parameter values are not known yet, so any number of
+     * question marks is accepted. The plan carries no user parameter values.
+     */
+    public AdHocPlannedStatement prepareSql(String sql) {
+        return planSql(sql, StatementPartitioning.inferPartitioning(), false, null, false, false, true);
+    }
+
+    private AdHocPlannedStatement planSql(String sql, StatementPartitioning partitioning,
+            boolean isExplainMode, final Object[] userParams, boolean isSwapTables, boolean isLargeQuery,
+            boolean isPrepare) {
         // large_mode_ratio will force execution of SQL queries to use the "large" path (for read-only queries)
         // a certain percentage of the time
         if (m_largeModeRatio > 0 && !isLargeQuery) {
             if (m_largeModeRatio >= 1 || m_largeModeRatio > ThreadLocalRandom.current().nextDouble()) {
                 isLargeQuery = true;
-                m_adHocLargeModeCount++;
+                m_adHocLargeModeCount.incrementAndGet();
             }
         }
         CacheUse cacheUse = CacheUse.FAIL;
+        // Statements are planned concurrently, so each keeps its own start time
+        Long statsStartTime = null;
         if (m_plannerStats != null) {
-            m_plannerStats.startStatsCollection();
+            synchronized (m_plannerStats) {
+                statsStartTime = m_plannerStats.startStatsCollection();
+            }
         }
         boolean hasUserQuestionMark = false;
         boolean wrongNumberParameters = false;
+        DatabaseEstimates estimates = getEstimates();
         try {
             if ((sql == null) || (sql = sql.trim()).isEmpty()) {    // remove any spaces or newlines
                 throw new RuntimeException("Can't plan empty or null SQL.");
@@ -238,16 +416,15 @@ public class PlannerTool {
             String parsedToken = null;
 
             TrivialCostModel costModel = new TrivialCostModel();
-            DatabaseEstimates estimates = new DatabaseEstimates();
-            // This try-with-resources block acquires a global lock on all planning
-            // This is required until we figure out how to do parallel planning.
+            // The planner locks the session only while it parses the statement
+            HSQLInterface hsql = acquireSession();
             try (QueryPlanner planner = new QueryPlanner(
                     sql,
                     "PlannerTool",
                     "PlannerToolProc",
                     m_database,
                     partitioning,
-                    m_hsql,
+                    hsql,
                     estimates,
                     !VoltCompiler.DEBUG_MODE,
                     costModel,
@@ -266,6 +443,9 @@ public class PlannerTool {
                 // check the parameters count
                 // check user input question marks with input parameters
                 int inputParamsLengh = userParams == null ? 0: userParams.length;
+                if (isPrepare) {
+                    inputParamsLengh = planner.getAdhocUserParamsCount();
+                }
                 if (planner.getAdhocUserParamsCount() > CompiledPlan.MAX_PARAM_COUNT) {
                     throw new PlanningErrorException(
                             "The statement's parameter count " + planner.getAdhocUserParamsCount() +
@@ -303,10 +483,11 @@ public class PlannerTool {
                             ParameterSet params = null;
                             if (planner.compiledAsParameterizedPlan()) {
                                 params = planner.extractedParamValues(core.parameterTypes);
-                            } else if (hasUserQuestionMark) {
+                            } else if (hasUserQuestionMark && !isPrepare) {
                                 params = ParameterSet.fromArrayNoCopy(userParams);
                             } else {
-                                // No constants AdHoc queries
+                                // No constants AdHoc queries, or a prepared statement
+                                // whose parameter values come with each execution
                                 params = ParameterSet.emptyParameterSet();
                             }
 
@@ -329,7 +510,7 @@ public class PlannerTool {
                     partitioning = plan.getStatementPartitioning();
                 }
                 if (plan.getIsLargeQuery() != isLargeQuery) {
-                    ++m_adHocLargeFallbackCount;
+                    m_adHocLargeFallbackCount.incrementAndGet();
                 }
 
                 planHasExceptionsWhenParameterized = planner.wasBadPameterized();
@@ -349,6 +530,9 @@ public class PlannerTool {
                 }
                 throw new RuntimeException("SQL error while compiling query: " + e.toString() + loggedMsg, e);
             }
+            finally {
+                releaseSession(hsql);
+            }
 
             //////////////////////
             // OUTPUT THE RESULT
@@ -376,7 +560,12 @@ public class PlannerTool {
         }
         finally {
             if (m_plannerStats != null) {
-                m_plannerStats.endStatsCollection(m_cache.getLiteralCacheSize(), m_cache.getCoreCacheSize(), cacheUse, -1);
+                synchronized (m_plannerStats) {
+                    m_plannerStats.endStatsCollection(statsStartTime, m_cache.getLiteralCacheSize(),
+                                                      m_cache.getCoreCacheSize(), cacheUse, -1);
+                    m_plannerStats.updateCacheEvictions(m_cache.getLiteralCacheStats().evictionCount(),
+                                                        m_cache.getCoreCacheStats().evictionCount());
+                }
             }
         }
     }
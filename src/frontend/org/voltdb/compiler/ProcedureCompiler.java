@@ -83,6 +83,73 @@ public abstract class ProcedureCompiler {
         }
     }
 
+    /**
+     * Submit the statements of a procedure to be planned ahead of compiling it.
+     * This is best effort, a statement that isn't planned ahead is planned when
+     * the procedure gets compiled.
+     */
+    static void prefetchPlans(VoltCompiler compiler,
+                              StatementPlanPrefetcher prefetcher,
+                              ProcedureDescriptor procedureDescriptor) {
+        ProcedurePartitionData info = procedureDescriptor.m_partitionData;
+        boolean isSinglePartition = info != null && info.isSinglePartition();
+        String className = procedureDescriptor.m_className;
+
+        if (procedureDescriptor.m_stmtLiterals != null) {
+            String shortName = procedureDescriptor.m_builtInStmt ? className : deriveShortProcedureName(className);
+            String[] stmts = SQLLexer.splitStatements(procedureDescriptor.m_stmtLiterals)
+                    .getCompletelyParsedStmts().toArray(new String[0]);
+            // The statements of a multi-statement procedure share their partitioning
+            // analysis state, so only the first one is planned independently
+            for (String curStmt : stmts) {
+                if (curStmt.equalsIgnoreCase("end")) {
+                    continue;
+                }
+                StatementCompiler.prefetchPlan(compiler, prefetcher, shortName, VoltDB.ANON_STMT_NAME + "0",
+                        curStmt, procedureDescriptor.m_joinOrder, DeterminismMode.FASTER, isSinglePartition);
+                break;
+            }
+            return;
+        }
+
+        Class<?> procClass = procedureDescriptor.m_class;
+        if (procClass == null || VoltNonTransactionalProcedure.class.isAssignableFrom(procClass)) {
+            return;
+        }
+        Map<String, SQLStmt> stmtMap;
+        try {
+            stmtMap = getSQLStmtMap(compiler, procClass);
+        }
+        catch (VoltCompilerException | RuntimeException e) {
+            // Reported when the procedure gets compiled
+            return;
+        }
+        String shortName = deriveShortProcedureName(className);
+        DeterminismMode detMode = determinismModeFor(stmtMap.values());
+        for (Entry<String, SQLStmt> entry : stmtMap.entrySet()) {
+            SQLStmt stmt = entry.getValue();
+            StatementCompiler.prefetchPlan(compiler, prefetcher, shortName, entry.getKey(),
+                    stmt.getText(), stmt.getJoinOrder(), detMode, isSinglePartition);
+        }
+    }
+
+    /**
+     * Default to FASTER determinism mode, which may favor non-deterministic plans,
+     * but if it's a read-write proc, use a SAFER planning mode wrt determinism.
+     */
+    private static DeterminismMode determinismModeFor(Iterable<?> fields) {
+        // Determine if the procedure is read-only or read-write by checking if the procedure contains any write SQL statements.
+        for (Object field : fields) {
+            if (!(field instanceof SQLStmt)) continue;
+            SQLStmt stmt = (SQLStmt)field;
+            QueryType qtype = QueryType.getFromSQL(stmt.getText());
+            if (!qtype.isReadOnly()) {
+                return DeterminismMode.SAFER;
+            }
+        }
+        return DeterminismMode.FASTER;
+    }
+
     public static Map<String, SQLStmt> getValidSQLStmts(VoltCompiler compiler,
                                                         String procName,
                                                         Class<?> procClass,
@@ -237,21 +304,7 @@ public abstract class ProcedureCompiler {
         String exampleSPstatement = null;
         Object exampleSPvalue = null;
 
-        // Determine if the procedure is read-only or read-write by checking if the procedure contains any write SQL statements.
-        boolean readWrite = false;
-        for (Object field : fields.values()) {
-            if (!(field instanceof SQLStmt)) continue;
-            SQLStmt stmt = (SQLStmt)field;
-            QueryType qtype = QueryType.getFromSQL(stmt.getText());
-            if (!qtype.isReadOnly()) {
-                readWrite = true;
-                break;
-            }
-        }
-
-        // default to FASTER determinism mode, which may favor non-deterministic plans
-        // but if it's a read-write proc, use a SAFER planning mode wrt determinism.
-        final DeterminismMode detMode = readWrite ? DeterminismMode.SAFER : DeterminismMode.FASTER;
+        final DeterminismMode detMode = determinismModeFor(fields.values());
 
         for (Entry<String, Object> entry : fields.entrySet()) {
             if (!(entry.getValue() instanceof SQLStmt)) continue;
@@ -100,17 +100,9 @@ public abstract class StatementCompiler {
             DeterminismMode detMode, StatementPartitioning partitioning)
     throws VoltCompiler.VoltCompilerException {
 
-        // Cleanup whitespace newlines for catalog compatibility
-        // and to make statement parsing easier.
-        stmt = stmt.replaceAll("\n", " ");
-        stmt = stmt.trim();
+        stmt = formatStatementText(stmt);
         compiler.addInfo("Compiling Statement: " + stmt);
 
-        // put the data in the catalog that we have
-        if (!stmt.endsWith(";")) {
-            stmt += ";";
-        }
-
         // if this key + sql is the same, then a cached stmt can be used
         String keyPrefix = compiler.getKeyPrefix(partitioning, detMode, joinOrder);
         // if the key is cache-able, look for a previous statement
@@ -200,30 +192,41 @@ public abstract class StatementCompiler {
         CompiledPlan plan = null;
 
         try {
-            // This try-with-resources block acquires a global lock on all planning
-            // This is required until we figure out how to do parallel planning.
-            try (QueryPlanner planner = new QueryPlanner(
-                    sql, stmtName, procName,  db,
-                    partitioning, hsql, estimates, false,
-                    costModel, null, joinOrder, detMode, false)) {
-                if (xml != null) {
-                    planner.parseFromXml(xml);
-                }
-                else {
-                    planner.parse();
-                }
-
-                plan = planner.plan();
-                assert(plan != null);
+            // Use the plan if the statement was planned ahead, a statement that failed
+            // to plan is planned again here to report the error
+            StatementPlanPrefetcher prefetcher = compiler.getPlanPrefetcher();
+            StatementPlanPrefetcher.PlannedStatement prefetched = null;
+            if (prefetcher != null && xml == null && keyPrefix != null) {
+                prefetched = prefetcher.take(keyPrefix + stmt);
             }
-            catch (Exception e) {
-                // These are normal expectable errors -- don't normally need a stack-trace.
-                String msg = "Failed to plan for statement (" + catalogStmt.getTypeName() + ") \"" +
-                        catalogStmt.getSqltext() + "\".";
-                if (e.getMessage() != null) {
-                    msg += " Error: \"" + e.getMessage() + "\"";
+            if (prefetched != null) {
+                plan = prefetched.plan;
+                partitioning.copyAnalysisState(prefetched.partitioning);
+            }
+            else {
+                try (QueryPlanner planner = new QueryPlanner(
+                        sql, stmtName, procName,  db,
+                        partitioning, hsql, estimates, false,
+                        costModel, null, joinOrder, detMode, false)) {
+                    if (xml != null) {
+                        planner.parseFromXml(xml);
+                    }
+                    else {
+                        planner.parse();
+                    }
+
+                    plan = planner.plan();
+                    assert(plan != null);
+                }
+                catch (Exception e) {
+                    // These are normal expectable errors -- don't normally need a stack-trace.
+                    String msg = "Failed to plan for statement (" + catalogStmt.getTypeName() + ") \"" +
+                            catalogStmt.getSqltext() + "\".";
+                    if (e.getMessage() != null) {
+                        msg += " Error: \"" + e.getMessage() + "\"";
+                    }
+                    throw compiler.new VoltCompilerException(msg);
                 }
-                throw compiler.new VoltCompilerException(msg);
             }
 
             // There is a hard-coded limit to the number of parameters that can be passed to the EE.
@@ -448,6 +451,36 @@ public abstract class StatementCompiler {
         catalogStmt.setFunctiondependees(sb.toString());
     }
 
+    /**
+     * Cleanup whitespace newlines for catalog compatibility and to make statement
+     * parsing easier, and terminate the statement.
+     */
+    static String formatStatementText(String stmt) {
+        stmt = stmt.replaceAll("\n", " ");
+        stmt = stmt.trim();
+        if (!stmt.endsWith(";")) {
+            stmt += ";";
+        }
+        return stmt;
+    }
+
+    /**
+     * Hand a statement that will be compiled later to the prefetcher so that it gets planned
+     * ahead on another thread. Statements that will be reused from the previous catalog are skipped.
+     */
+    static void prefetchPlan(VoltCompiler compiler, StatementPlanPrefetcher prefetcher,
+            String procName, String stmtName, String sqlText, String joinOrder,
+            DeterminismMode detMode, boolean singlePartition) {
+        String stmt = formatStatementText(sqlText);
+        StatementPartitioning partitioning = singlePartition ?
+                StatementPartitioning.forceSP() : StatementPartitioning.forceMP();
+        String keyPrefix = compiler.getKeyPrefix(partitioning, detMode, joinOrder);
+        if (compiler.hasCachedStatement(keyPrefix, stmt)) {
+            return;
+        }
+        prefetcher.submit(keyPrefix + stmt, procName, stmtName, stmt, joinOrder, detMode, partitioning);
+    }
+
     static boolean compileFromSqlTextAndUpdateCatalog(VoltCompiler compiler, HSQLInterface hsql,
             Database db, DatabaseEstimates estimates,
             Statement catalogStmt, String sqlText, String joinOrder,
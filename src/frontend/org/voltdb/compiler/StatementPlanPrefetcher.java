@@ -0,0 +1,278 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.compiler;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.hsqldb_voltpatches.HSQLInterface;
+import org.voltcore.logging.VoltLogger;
+import org.voltcore.utils.CoreUtils;
+import org.voltdb.catalog.CatalogType;
+import org.voltdb.catalog.Column;
+import org.voltdb.catalog.ColumnRef;
+import org.voltdb.catalog.Constraint;
+import org.voltdb.catalog.ConstraintRef;
+import org.voltdb.catalog.Database;
+import org.voltdb.catalog.Function;
+import org.voltdb.catalog.FunctionParameter;
+import org.voltdb.catalog.Index;
+import org.voltdb.catalog.MaterializedViewHandlerInfo;
+import org.voltdb.catalog.MaterializedViewInfo;
+import org.voltdb.catalog.Table;
+import org.voltdb.catalog.TableRef;
+import org.voltdb.planner.CompiledPlan;
+import org.voltdb.planner.QueryPlanner;
+import org.voltdb.planner.StatementPartitioning;
+import org.voltdb.planner.TrivialCostModel;
+
+/**
+ * Plans the statements of the procedures of a catalog on a pool of threads ahead of
+ * the procedure compiler. The procedure compiler still builds the catalog one statement
+ * at a time, in the same order the statements were submitted, but finds most of the
+ * plans ready.
+ *
+ * The planning threads share the compiler's HSQL session, which they only lock while
+ * parsing, and read the tables and functions of the database being compiled. The procedure
+ * compiler only adds procedures and statements, it doesn't change those, but the catalog
+ * resolves references and relative indexes lazily on first read, so that is all done on
+ * the compiler thread before the planning threads start. Each planning thread gets its own
+ * copy of the table estimates, which are filled in on demand. A statement whose planning
+ * failed is planned again by the procedure compiler so that the error is reported the
+ * usual way.
+ *
+ * Only a window of statements is planned ahead to bound the memory held by plans.
+ */
+class StatementPlanPrefetcher implements AutoCloseable {
+    private static final VoltLogger compilerLog = new VoltLogger("COMPILER");
+
+    // Number of threads planning the statements of a catalog, 1 plans them inline
+    static final int PLANNER_THREADS = Integer.getInteger("COMPILER_PLANNER_THREADS",
+            Math.min(8, CoreUtils.availableProcessors()));
+
+    // Statements planned ahead per thread
+    private static final int WINDOW_PER_THREAD = 8;
+
+    static class PlannedStatement {
+        final CompiledPlan plan;
+        // Partitioning analysis of the plan, to be copied to the caller's partitioning
+        final StatementPartitioning partitioning;
+
+        PlannedStatement(CompiledPlan plan, StatementPartitioning partitioning) {
+            this.plan = plan;
+            this.partitioning = partitioning;
+        }
+    }
+
+    private class Request {
+        final String procName;
+        final String stmtName;
+        final String sql;
+        final String joinOrder;
+        final DeterminismMode detMode;
+        final StatementPartitioning partitioning;
+
+        Request(String procName, String stmtName, String sql, String joinOrder,
+                DeterminismMode detMode, StatementPartitioning partitioning) {
+            this.procName = procName;
+            this.stmtName = stmtName;
+            this.sql = sql;
+            this.joinOrder = joinOrder;
+            this.detMode = detMode;
+            this.partitioning = partitioning;
+        }
+
+        PlannedStatement plan() {
+            try (QueryPlanner planner = new QueryPlanner(
+                    sql, stmtName, procName, m_db,
+                    partitioning, m_hsql, m_estimates.get(), false,
+                    new TrivialCostModel(), null, joinOrder, detMode, false)) {
+                planner.parse();
+                return new PlannedStatement(planner.plan(), partitioning);
+            }
+        }
+    }
+
+    private final HSQLInterface m_hsql;
+    private final Database m_db;
+    private final ThreadLocal<DatabaseEstimates> m_estimates;
+    private final ExecutorService m_es;
+    private final int m_window;
+
+    // Both in submission order and keyed by cache key prefix + SQL text
+    private final LinkedHashMap<String, Request> m_pending = new LinkedHashMap<>();
+    private final LinkedHashMap<String, Future<PlannedStatement>> m_planning = new LinkedHashMap<>();
+
+    StatementPlanPrefetcher(HSQLInterface hsql, Database db, DatabaseEstimates estimates, int threads) {
+        m_hsql = hsql;
+        m_db = db;
+        resolveTables(db);
+
+        // Start each planning thread from the same estimates, known for every table
+        for (Table table : db.getTables()) {
+            estimates.getEstimatesForTable(table.getTypeName());
+        }
+        final HashMap<String, DatabaseEstimates.TableEstimates> tableEstimates = new HashMap<>(estimates.tables);
+        m_estimates = new ThreadLocal<DatabaseEstimates>() {
+            @Override
+            protected DatabaseEstimates initialValue() {
+                return new DatabaseEstimates(tableEstimates);
+            }
+        };
+        m_window = threads * WINDOW_PER_THREAD;
+        m_es = Executors.newFixedThreadPool(threads,
+                CoreUtils.getThreadFactory(null, "Statement Planner", CoreUtils.MEDIUM_STACK_SIZE, true, null));
+    }
+
+    /**
+     * Plan a statement ahead. A statement submitted again with the same key is only planned once.
+     */
+    void submit(String key, String procName, String stmtName, String sql, String joinOrder,
+            DeterminismMode detMode, StatementPartitioning partitioning) {
+        if (m_pending.containsKey(key) || m_planning.containsKey(key)) {
+            return;
+        }
+        m_pending.put(key, new Request(procName, stmtName, sql, joinOrder, detMode, partitioning));
+        fillWindow();
+    }
+
+    /**
+     * Wait for the plan of a submitted statement.
+     * @return the plan, or null if the statement wasn't submitted or failed to plan
+     */
+    PlannedStatement take(String key) {
+        Future<PlannedStatement> future = m_planning.get(key);
+        if (future == null) {
+            // Not started yet or never submitted, the caller plans it
+            m_pending.remove(key);
+            return null;
+        }
+        // Statements are compiled in submission order, so plans submitted before this one
+        // and still not taken never will be
+        Iterator<Map.Entry<String, Future<PlannedStatement>>> iter = m_planning.entrySet().iterator();
+        while (iter.hasNext()) {
+            Map.Entry<String, Future<PlannedStatement>> entry = iter.next();
+            iter.remove();
+            if (entry.getValue() == future) {
+                break;
+            }
+            entry.getValue().cancel(false);
+        }
+        fillWindow();
+
+        try {
+            return future.get();
+        }
+        catch (ExecutionException e) {
+            return null;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private void fillWindow() {
+        Iterator<Map.Entry<String, Request>> iter = m_pending.entrySet().iterator();
+        while (m_planning.size() < m_window && iter.hasNext()) {
+            Map.Entry<String, Request> entry = iter.next();
+            iter.remove();
+            final Request request = entry.getValue();
+            m_planning.put(entry.getKey(), m_es.submit(request::plan));
+        }
+    }
+
+    /**
+     * Resolve the references and relative indexes of the tables and functions the planner
+     * reads, which the catalog otherwise does on first read from whichever thread.
+     */
+    private static void resolveTables(Database db) {
+        for (Table table : db.getTables()) {
+            resolve(table);
+            for (Column column : table.getColumns()) {
+                resolve(column);
+                for (ConstraintRef ref : column.getConstraints()) {
+                    resolve(ref);
+                }
+            }
+            for (Index index : table.getIndexes()) {
+                resolve(index);
+                for (ColumnRef ref : index.getColumns()) {
+                    resolve(ref);
+                }
+            }
+            for (Constraint constraint : table.getConstraints()) {
+                resolve(constraint);
+                for (ColumnRef ref : constraint.getForeignkeycols()) {
+                    resolve(ref);
+                }
+            }
+            for (MaterializedViewInfo view : table.getViews()) {
+                resolve(view);
+                for (ColumnRef ref : view.getGroupbycols()) {
+                    resolve(ref);
+                }
+            }
+            for (MaterializedViewHandlerInfo handler : table.getMvhandlerinfo()) {
+                resolve(handler);
+                for (TableRef ref : handler.getSourcetables()) {
+                    resolve(ref);
+                }
+            }
+        }
+        for (Function function : db.getFunctions()) {
+            resolve(function);
+            for (FunctionParameter parameter : function.getParameters()) {
+                resolve(parameter);
+            }
+        }
+    }
+
+    private static void resolve(CatalogType item) {
+        item.getRelativeIndex();
+        for (String field : item.getFields()) {
+            item.getField(field);
+        }
+    }
+
+    @Override
+    public void close() {
+        m_pending.clear();
+        for (Future<PlannedStatement> future : m_planning.values()) {
+            future.cancel(false);
+        }
+        m_planning.clear();
+        // The planning threads must be done with the HSQL session before the compiler goes on
+        m_es.shutdown();
+        try {
+            if (!m_es.awaitTermination(1, TimeUnit.MINUTES)) {
+                compilerLog.warn("Timed out waiting for statement planner threads to finish");
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
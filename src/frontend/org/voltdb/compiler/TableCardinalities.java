@@ -0,0 +1,211 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.compiler;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.voltcore.logging.VoltLogger;
+import org.voltdb.compiler.DatabaseEstimates.TableEstimates;
+
+/**
+ * Row counts of the tables and indexes of the local partitions, fed by the sites
+ * from the EE table and index statistics they already fetch on every tick. The ad
+ * hoc planner builds its DatabaseEstimates from a snapshot of them instead of the
+ * static defaults.
+ *
+ * Estimates are per partition, the largest local partition for partitioned tables,
+ * which is what a fragment scans. Every snapshot also carries a generation that
+ * changes when the estimate of some table moves by more than DRIFT_RATIO since the
+ * previous generation, so that plans cached with the old estimates can be dropped.
+ */
+public class TableCardinalities {
+    private static final VoltLogger compileLog = new VoltLogger("COMPILE");
+
+    // Estimates never go below this so that plans for small or empty tables
+    // still favor indexes the way they would once the tables grow
+    static final long MIN_TUPLES = Long.getLong("PLANNER_STATS_MIN_TUPLES", 1000);
+    // How much a table estimate must grow or shrink to start a new generation
+    static final double DRIFT_RATIO = Double.valueOf(System.getProperty("PLANNER_STATS_DRIFT_RATIO", "4"));
+
+    private static final TableCardinalities s_instance = new TableCardinalities();
+
+    public static TableCardinalities instance() {
+        return s_instance;
+    }
+
+    private static class PartitionCounts {
+        final Map<String, Long> m_tableTuples;
+        // Keyed by table name, then index name
+        final Map<String, Map<String, Long>> m_indexEntries;
+
+        PartitionCounts(Map<String, Long> tableTuples, Map<String, Map<String, Long>> indexEntries) {
+            m_tableTuples = tableTuples;
+            m_indexEntries = indexEntries;
+        }
+    }
+
+    /**
+     * Immutable estimates of all the tables with statistics at one point in time.
+     */
+    public static class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(0, 0, Collections.<String, TableEstimates>emptyMap());
+
+        private final long m_version;
+        private final long m_generation;
+        private final Map<String, TableEstimates> m_tables;
+
+        Snapshot(long version, long generation, Map<String, TableEstimates> tables) {
+            m_version = version;
+            m_generation = generation;
+            m_tables = tables;
+        }
+
+        public long getGeneration() {
+            return m_generation;
+        }
+
+        public boolean isEmpty() {
+            return m_tables.isEmpty();
+        }
+
+        /**
+         * @return estimates for one planning run, starting from this snapshot
+         */
+        public DatabaseEstimates newEstimates() {
+            return new DatabaseEstimates(m_tables);
+        }
+
+        long getMaxTuples(String tableName) {
+            TableEstimates estimates = m_tables.get(tableName);
+            return estimates == null ? new TableEstimates().maxTuples : estimates.maxTuples;
+        }
+    }
+
+    private final ConcurrentHashMap<Integer, PartitionCounts> m_partitions = new ConcurrentHashMap<>();
+    private final AtomicLong m_version = new AtomicLong();
+    private volatile Snapshot m_snapshot = Snapshot.EMPTY;
+    // The snapshot that started the current generation, guarded by this
+    private Snapshot m_baseline = Snapshot.EMPTY;
+
+    TableCardinalities() {
+    }
+
+    /**
+     * Replace the counts of a partition, called by its site.
+     * @param tableTuples    rows per table name
+     * @param indexEntries   entries per index name, per table name
+     */
+    public void update(int partitionId, Map<String, Long> tableTuples, Map<String, Map<String, Long>> indexEntries) {
+        m_partitions.put(partitionId, new PartitionCounts(tableTuples, indexEntries));
+        m_version.incrementAndGet();
+    }
+
+    /**
+     * Forget all the counts, e.g. when the database shuts down.
+     */
+    public synchronized void clear() {
+        m_partitions.clear();
+        m_version.incrementAndGet();
+    }
+
+    /**
+     * @return the estimates as of the latest update, rebuilt at most once per update
+     */
+    public Snapshot snapshot() {
+        final long version = m_version.get();
+        Snapshot snapshot = m_snapshot;
+        if (snapshot.m_version == version) {
+            return snapshot;
+        }
+        synchronized (this) {
+            snapshot = m_snapshot;
+            if (snapshot.m_version >= version) {
+                return snapshot;
+            }
+            Map<String, TableEstimates> tables = buildEstimates();
+            long generation = m_baseline.m_generation;
+            String driftedTable = findDrift(m_baseline, tables);
+            if (driftedTable != null) {
+                generation++;
+                if (compileLog.isDebugEnabled()) {
+                    compileLog.debug("Row count estimate of table " + driftedTable + " moved from " +
+                            m_baseline.getMaxTuples(driftedTable) + " to " + tables.get(driftedTable).maxTuples +
+                            ", starting planner statistics generation " + generation);
+                }
+            }
+            snapshot = new Snapshot(version, generation, tables);
+            if (driftedTable != null) {
+                m_baseline = snapshot;
+            }
+            m_snapshot = snapshot;
+            return snapshot;
+        }
+    }
+
+    private Map<String, TableEstimates> buildEstimates() {
+        Map<String, Long> maxTuples = new HashMap<>();
+        Map<String, Long> minTuples = new HashMap<>();
+        Map<String, Map<String, Long>> maxEntries = new HashMap<>();
+        for (PartitionCounts counts : m_partitions.values()) {
+            for (Map.Entry<String, Long> e : counts.m_tableTuples.entrySet()) {
+                maxTuples.merge(e.getKey(), e.getValue(), Math::max);
+                minTuples.merge(e.getKey(), e.getValue(), Math::min);
+            }
+            for (Map.Entry<String, Map<String, Long>> e : counts.m_indexEntries.entrySet()) {
+                Map<String, Long> entries = maxEntries.computeIfAbsent(e.getKey(), k -> new HashMap<>());
+                for (Map.Entry<String, Long> index : e.getValue().entrySet()) {
+                    entries.merge(index.getKey(), index.getValue(), Math::max);
+                }
+            }
+        }
+
+        Map<String, TableEstimates> tables = new HashMap<>();
+        for (Map.Entry<String, Long> e : maxTuples.entrySet()) {
+            final long rows = e.getValue();
+            TableEstimates estimates = new TableEstimates();
+            estimates.maxTuples = Math.max(MIN_TUPLES, rows);
+            estimates.minTuples = Math.max(MIN_TUPLES, minTuples.get(e.getKey()));
+            Map<String, Long> entries = maxEntries.get(e.getKey());
+            if (entries != null && rows > 0) {
+                for (Map.Entry<String, Long> index : entries.entrySet()) {
+                    estimates.indexCoverage.put(index.getKey(), Math.min(1.0, index.getValue() / (double) rows));
+                }
+            }
+            tables.put(e.getKey(), estimates);
+        }
+        return Collections.unmodifiableMap(tables);
+    }
+
+    /**
+     * @return the name of a table whose estimate moved by at least DRIFT_RATIO, or null
+     */
+    private static String findDrift(Snapshot baseline, Map<String, TableEstimates> tables) {
+        for (Map.Entry<String, TableEstimates> e : tables.entrySet()) {
+            double previous = baseline.getMaxTuples(e.getKey());
+            double current = e.getValue().maxTuples;
+            if (Math.max(previous, current) >= DRIFT_RATIO * Math.min(previous, current)) {
+                return e.getKey();
+            }
+        }
+        return null;
+    }
+}
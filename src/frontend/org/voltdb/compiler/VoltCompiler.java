@@ -36,7 +36,6 @@ import java.util.Map.Entry;
 import java.util.NavigableMap;
 import java.util.NavigableSet;
 import java.util.Set;
-import java.util.TreeSet;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.regex.Matcher;
@@ -77,6 +76,7 @@ import org.voltdb.planner.StatementPartitioning;
 import org.voltdb.settings.ClusterSettings;
 import org.voltdb.utils.CatalogSchemaTools;
 import org.voltdb.utils.CatalogUtil;
+import org.voltdb.utils.Digester;
 import org.voltdb.utils.Encoder;
 import org.voltdb.utils.InMemoryJarfile;
 import org.voltdb.utils.InMemoryJarfile.JarLoader;
@@ -213,12 +213,19 @@ public class VoltCompiler {
     // was this voltcompiler instantiated in a main(), or as part of VoltDB
     public final boolean standaloneCompiler;
 
-    // tables that change between the previous compile and this one
-    // used for Live-DDL caching of plans
-    private final Set<String> m_dirtyTables = new TreeSet<>();
     // A collection of statements from the previous catalog
     // used for Live-DDL caching of plans
     private final Map<String, Statement> m_previousCatalogStmts = new HashMap<>();
+    // The previous database and the one being compiled, a statement from the previous
+    // catalog is reused if every table it uses has the same dependency hash in both
+    private Database m_previousDB = null;
+    private Database m_currentDB = null;
+    private final Map<String, String> m_previousTableHashes = new HashMap<>();
+    private final Map<String, String> m_currentTableHashes = new HashMap<>();
+    // Plans the statements of the procedures ahead of the procedure compiler, or null
+    private StatementPlanPrefetcher m_planPrefetcher = null;
+    // Number of threads planning those statements, 1 plans them inline
+    int m_plannerThreads = StatementPlanPrefetcher.PLANNER_THREADS;
 
     // feedback by filename
     ArrayList<Feedback> m_infos = new ArrayList<>();
@@ -1099,8 +1106,6 @@ public class VoltCompiler {
                 ddlcompiler.loadSchema(cannonicalDDLIfAny, db, whichProcs);
             }
 
-            m_dirtyTables.clear();
-
             for (final VoltCompilerReader schemaReader : schemaReaders) {
                 String origFilename = m_currentFilename;
                 try {
@@ -1148,11 +1153,7 @@ public class VoltCompiler {
 
             if (whichProcs != DdlProceduresToLoad.NO_DDL_PROCEDURES) {
                 Collection<ProcedureDescriptor> allProcs = voltDdlTracker.getProcedureDescriptors();
-                CatalogMap<Procedure> previousProcsIfAny = null;
-                if (previousDBIfAny != null) {
-                    previousProcsIfAny = previousDBIfAny.getProcedures();
-                }
-                compileProcedures(db, hsql, allProcs, classDependencies, whichProcs, previousProcsIfAny, jarOutput);
+                compileProcedures(db, hsql, allProcs, classDependencies, whichProcs, previousDBIfAny, jarOutput);
             }
 
             // add extra classes from the DDL
@@ -1239,18 +1240,11 @@ public class VoltCompiler {
                                    Collection<ProcedureDescriptor> allProcs,
                                    Collection<Class<?>> classDependencies,
                                    DdlProceduresToLoad whichProcs,
-                                   CatalogMap<Procedure> prevProcsIfAny,
+                                   Database prevDBIfAny,
                                    InMemoryJarfile jarOutput) throws VoltCompilerException
     {
         // build a cache of previous SQL stmts
-        m_previousCatalogStmts.clear();
-        if (prevProcsIfAny != null) {
-            for (Procedure prevProc : prevProcsIfAny) {
-                for (Statement prevStmt : prevProc.getStatements()) {
-                    addStatementToCache(prevStmt);
-                }
-            }
-        }
+        startStatementCache(prevDBIfAny, db);
 
         // Ignore class dependencies if ignoring java stored procs.
         // This extra qualification anticipates some (undesirable) overlap between planner
@@ -1269,6 +1263,37 @@ public class VoltCompiler {
         final List<ProcedureDescriptor> procedures = new ArrayList<>();
         procedures.addAll(allProcs);
 
+        // Plan the statements on a pool of threads ahead of compiling the procedures.
+        // The tables, functions and estimates the planners read are final by now:
+        // compiling the procedures only adds procedures and statements to the catalog.
+        if (m_plannerThreads > 1 && procedures.size() > 1) {
+            m_planPrefetcher = new StatementPlanPrefetcher(hsql, db, m_estimates, m_plannerThreads);
+            for (final ProcedureDescriptor procedureDescriptor : procedures) {
+                if (procedureDescriptor.m_stmtLiterals != null ||
+                        whichProcs != DdlProceduresToLoad.ONLY_SINGLE_STATEMENT_PROCEDURES) {
+                    ProcedureCompiler.prefetchPlans(this, m_planPrefetcher, procedureDescriptor);
+                }
+            }
+        }
+        try {
+            compileProcedures(hsql, db, procedures, whichProcs, jarOutput);
+        }
+        finally {
+            if (m_planPrefetcher != null) {
+                m_planPrefetcher.close();
+                m_planPrefetcher = null;
+            }
+            // allow gc to reclaim any cache memory here
+            clearStatementCache();
+        }
+    }
+
+    private void compileProcedures(HSQLInterface hsql,
+                                   Database db,
+                                   List<ProcedureDescriptor> procedures,
+                                   DdlProceduresToLoad whichProcs,
+                                   InMemoryJarfile jarOutput) throws VoltCompilerException
+    {
         // Actually parse and handle all the Procedures
         for (final ProcedureDescriptor procedureDescriptor : procedures) {
             final String procedureName = procedureDescriptor.m_className;
@@ -1291,9 +1316,6 @@ public class VoltCompiler {
         }
         // done handling files
         m_currentFilename = NO_FILENAME;
-
-        // allow gc to reclaim any cache memory here
-        m_previousCatalogStmts.clear();
     }
 
     /** Provide a feedback path to monitor plan output via harvestCapturedDetail */
@@ -1950,13 +1972,8 @@ public class VoltCompiler {
         try {
             CatalogMap<Procedure> procedures = db.getProcedures();
 
-            // build a cache of previous SQL stmts
-            m_previousCatalogStmts.clear();
-            for (Procedure prevProc : procedures) {
-                for (Statement prevStmt : prevProc.getStatements()) {
-                    addStatementToCache(prevStmt);
-                }
-            }
+            // build a cache of previous SQL stmts, the tables don't change
+            startStatementCache(db, db);
 
             // Use the in-memory jar-file-provided class loader so that procedure
             // classes can be found and copied to the new file that gets written.
@@ -2030,7 +2047,7 @@ public class VoltCompiler {
 
             ////////////////////////////////////////////
             // allow gc to reclaim any cache memory here
-            m_previousCatalogStmts.clear();
+            clearStatementCache();
 
         } catch (final VoltCompilerException e) {
             throw e;
@@ -2222,14 +2239,6 @@ public class VoltCompiler {
         return upgradedFromVersion;
     }
 
-    /**
-     * Note that a table changed in order to invalidate potential cached
-     * statements that reference the changed table.
-     */
-    public void markTableAsDirty(String tableName) {
-        m_dirtyTables.add(tableName.toLowerCase());
-    }
-
     /**
      * Key prefix includes attributes that make a cached statement usable if they match
      *
@@ -2257,44 +2266,106 @@ public class VoltCompiler {
         m_previousCatalogStmts.put(key, stmt);
     }
 
+    /**
+     * Cache the statements of the previous database for reuse while compiling
+     * the procedures of the current one.
+     */
+    private void startStatementCache(Database previousDBIfAny, Database currentDB) {
+        clearStatementCache();
+        if (previousDBIfAny == null) {
+            return;
+        }
+        m_previousDB = previousDBIfAny;
+        m_currentDB = currentDB;
+        for (Procedure prevProc : previousDBIfAny.getProcedures()) {
+            for (Statement prevStmt : prevProc.getStatements()) {
+                addStatementToCache(prevStmt);
+            }
+        }
+    }
+
+    private void clearStatementCache() {
+        m_previousCatalogStmts.clear();
+        m_previousTableHashes.clear();
+        m_currentTableHashes.clear();
+        m_previousDB = null;
+        m_currentDB = null;
+    }
+
+    StatementPlanPrefetcher getPlanPrefetcher() {
+        return m_planPrefetcher;
+    }
+
     // track hits and misses for debugging
     static long m_stmtCacheHits = 0;
     static long m_stmtCacheMisses = 0;
 
     /** Look for a match from the previous catalog that matches the key + sql */
     Statement getCachedStatement(String keyPrefix, String sql) {
-        String key = keyPrefix + sql;
-
-        Statement candidate = m_previousCatalogStmts.get(key);
+        Statement candidate = findCachedStatement(keyPrefix, sql);
         if (candidate == null) {
             ++m_stmtCacheMisses;
             return null;
         }
 
-        // check that no underlying tables have been modified since the proc had been compiled
-        String[] tablesTouched = candidate.getTablesread().split(",");
-        for (String tableName : tablesTouched) {
-            if (isDirtyTable(tableName)) {
-                ++m_stmtCacheMisses;
-                return null;
-            }
-        }
-        tablesTouched = candidate.getTablesupdated().split(",");
-        for (String tableName : tablesTouched) {
-            if (isDirtyTable(tableName)) {
-                ++m_stmtCacheMisses;
-                return null;
-            }
-        }
-
         ++m_stmtCacheHits;
         // easy debugging stmt
         //printStmtCacheStats();
         return candidate;
     }
 
-    private boolean isDirtyTable(String tableName) {
-        return m_dirtyTables.contains(tableName.toLowerCase());
+    /** Same as getCachedStatement but without counting, to check ahead of compiling */
+    boolean hasCachedStatement(String keyPrefix, String sql) {
+        return findCachedStatement(keyPrefix, sql) != null;
+    }
+
+    private Statement findCachedStatement(String keyPrefix, String sql) {
+        Statement candidate = m_previousCatalogStmts.get(keyPrefix + sql);
+        if (candidate == null) {
+            return null;
+        }
+
+        // check that no underlying table or index changed since the statement was compiled
+        if (tablesChanged(candidate.getTablesread()) || tablesChanged(candidate.getTablesupdated())) {
+            return null;
+        }
+        return candidate;
+    }
+
+    private boolean tablesChanged(String tableNames) {
+        if (m_previousDB == m_currentDB) {
+            return false;
+        }
+        for (String tableName : tableNames.split(",")) {
+            if (tableName.isEmpty()) {
+                continue;
+            }
+            String previousHash = m_previousTableHashes.computeIfAbsent(tableName,
+                    name -> tableDependencyHash(m_previousDB, name));
+            String currentHash = m_currentTableHashes.computeIfAbsent(tableName,
+                    name -> tableDependencyHash(m_currentDB, name));
+            if (previousHash == null || ! previousHash.equals(currentHash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Hash of everything about a table that plans depend on: columns, constraints,
+     * indexes and partitioning. Computed from the table's canonical DDL.
+     * @return the hash or null if the table doesn't exist
+     */
+    static String tableDependencyHash(Database db, String tableName) {
+        Table table = db.getTables().getIgnoreCase(tableName);
+        if (table == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        CatalogSchemaTools.toSchema(sb, table, null, CatalogUtil.isTableExportOnly(db, table),
+                (table.getPartitioncolumn() != null ? table.getPartitioncolumn().getName() : null),
+                CatalogUtil.getExportTargetIfExportTableOrNullOtherwise(db, table));
+        return Digester.sha1AsHex(sb.toString().getBytes(Constants.UTF8ENCODING));
     }
 
     @SuppressWarnings("unused")
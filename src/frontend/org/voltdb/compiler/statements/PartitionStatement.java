@@ -76,9 +76,6 @@ public class PartitionStatement extends StatementProcessor {
         if (tableXML != null) {
             tableXML.attributes.put("partitioncolumn", columnName.toUpperCase());
             // Column validity check done by VoltCompiler in post-processing
-
-            // mark the table as dirty for the purposes of caching sql statements
-            m_compiler.markTableAsDirty(tableName);
         }
         else {
             throw m_compiler.new VoltCompilerException(String.format(
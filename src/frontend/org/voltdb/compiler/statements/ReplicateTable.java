@@ -50,9 +50,6 @@ public class ReplicateTable extends StatementProcessor {
         VoltXMLElement tableXML = m_schema.findChild("table", tableName.toUpperCase());
         if (tableXML != null) {
             tableXML.attributes.remove("partitioncolumn");
-
-            // mark the table as dirty for the purposes of caching sql statements
-            m_compiler.markTableAsDirty(tableName);
         }
         else {
             throw m_compiler.new VoltCompilerException(String.format(
@@ -36,8 +36,10 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
@@ -107,6 +109,11 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
     private long m_overallLatencyInMS = 0;
     private long m_overallMaxLatency = 0;
     private long m_queueGap = 0;
+    // Tuples the export client finished and the time it spent on them, updated from the client's thread
+    private final AtomicLong m_exportedTuples = new AtomicLong();
+    private final AtomicLong m_exportNanos = new AtomicLong();
+    private long m_exportedTuplesAtClear = 0;
+    private long m_exportNanosAtClear = 0;
     private StreamStatus m_status = StreamStatus.ACTIVE;
 
     private final ExportFormat m_format;
@@ -589,6 +596,18 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
                     }
                     maxLatency = m_overallMaxLatency;
                 }
+                final long exportNanos = m_exportNanos.get();
+                final long exportedTuples = m_exportedTuples.get();
+                long throughput;
+                if (interval) {
+                    throughput = tuplesPerSecond(exportedTuples - m_exportedTuplesAtClear,
+                                                 exportNanos - m_exportNanosAtClear);
+                    m_exportedTuplesAtClear = exportedTuples;
+                    m_exportNanosAtClear = exportNanos;
+                }
+                else {
+                    throughput = tuplesPerSecond(exportedTuples, exportNanos);
+                }
                 String exportingRole;
                 if (m_runEveryWhere) {
                     exportingRole = "XDCR";
@@ -598,11 +617,25 @@ public class ExportDataSource implements Comparable<ExportDataSource> {
                 return new ExportStatsRow(m_partitionId, m_siteId, m_tableName, m_exportTargetName,
                         exportingRole, m_tupleCount, m_tuplesPending.get(),
                         m_lastQueuedTimestamp, m_lastAckedTimestamp,
-                        avgLatency, maxLatency, m_queueGap, m_status.toString());
+                        avgLatency, maxLatency, m_queueGap, m_status.toString(), throughput);
             }
         });
     }
 
+    private static long tuplesPerSecond(long tuples, long nanos) {
+        return nanos > 0 ? (long) (tuples * (double) TimeUnit.SECONDS.toNanos(1) / nanos) : 0;
+    }
+
+    /**
+     * Record a block the export client has fully processed, for the throughput stat
+     * @param tupleCount   rows in the block
+     * @param elapsedNanos time from the first row handed to the client to block completion
+     */
+    public void recordExportedBlock(int tupleCount, long elapsedNanos) {
+        m_exportNanos.addAndGet(elapsedNanos);
+        m_exportedTuples.addAndGet(tupleCount);
+    }
+
     private long calcEndSequenceNumber(long startSeq, int tupleCount) {
         return startSeq + tupleCount - 1;
     }
@@ -46,6 +46,7 @@ import org.voltdb.exportclient.ExportClientBase;
 import org.voltdb.exportclient.ExportDecoderBase;
 import org.voltdb.exportclient.ExportDecoderBase.RestartBlockException;
 import org.voltdb.exportclient.ExportRow;
+import org.voltdb.exportclient.ExportRowCursor;
 
 import com.google_voltpatches.common.base.Preconditions;
 import com.google_voltpatches.common.util.concurrent.ListenableFuture;
@@ -360,15 +361,39 @@ public class GuestProcessor implements ExportDataProcessor {
                                 }
                                 ExportRow row = null;
                                 boolean firstRowOfBlock = true;
+                                final long blockStartNanos = System.nanoTime();
+                                int rowCount = 0;
+                                final ExportRowCursor cursor = edb.usesRowCursor() ? new ExportRowCursor() : null;
                                 while (buf.hasRemaining() && !m_shutdown) {
                                     int length = buf.getInt();
-                                    byte[] rowdata = new byte[length];
-                                    buf.get(rowdata, 0, length);
                                     if (edb.isLegacy()) {
+                                        byte[] rowdata = new byte[length];
+                                        buf.get(rowdata, 0, length);
                                         cont.updateStartTime(System.currentTimeMillis());
                                         edb.onBlockStart();
                                         edb.processRow(length, rowdata);
+                                        ++rowCount;
+                                    } else if (cursor != null) {
+                                        // Decode in place, the row is not copied out of the block
+                                        try {
+                                            cont.updateStartTime(System.currentTimeMillis());
+                                            cursor.reset(edb.getPreviousRow(), source.getPartitionId(), buf, length);
+                                        } catch (IOException ioe) {
+                                            m_logger.warn("Failed decoding row for partition" + source.getPartitionId() + ". " + ioe.getMessage());
+                                            cont.discard();
+                                            cont = null;
+                                            break;
+                                        }
+                                        row = cursor.getSchema();
+                                        if (firstRowOfBlock) {
+                                            edb.onBlockStart(row);
+                                            firstRowOfBlock = false;
+                                        }
+                                        edb.processRow(cursor);
+                                        ++rowCount;
                                     } else {
+                                        byte[] rowdata = new byte[length];
+                                        buf.get(rowdata, 0, length);
                                         //New style connector.
                                         try {
                                             cont.updateStartTime(System.currentTimeMillis());
@@ -385,6 +410,7 @@ public class GuestProcessor implements ExportDataProcessor {
                                             firstRowOfBlock = false;
                                         }
                                         edb.processRow(row);
+                                        ++rowCount;
                                     }
                                 }
                                 if (edb.isLegacy()) {
@@ -399,6 +425,7 @@ public class GuestProcessor implements ExportDataProcessor {
                                 // that container isn't fully consumed. Discard the buffer prematurely
                                 // would cause missing rows in export stream.
                                 if (!m_shutdown && cont != null) {
+                                    source.recordExportedBlock(rowCount, System.nanoTime() - blockStartNanos);
                                     cont.discard();
                                     cont = null;
                                 }
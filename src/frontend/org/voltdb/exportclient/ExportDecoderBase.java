@@ -223,6 +223,29 @@ public abstract class ExportDecoderBase {
         throw new UnsupportedOperationException("processRow must be implemented.");
     }
 
+    /**
+     * Return true to have rows handed to {@link #processRow(ExportRowCursor)}
+     * instead of {@link #processRow(ExportRow)}. The cursor reads the values in
+     * place in the export block, so no objects are created per row. The block
+     * callbacks then get the row carrying the block schema, without values.
+     */
+    public boolean usesRowCursor() {
+        return false;
+    }
+
+    /**
+     * Process a row of the Export stream through a cursor that is only valid
+     * for the duration of the call. Defaults to materializing the row for
+     * {@link #processRow(ExportRow)}.
+     *
+     * @param row cursor positioned on the row
+     * @return whether or not the row processing was successful
+     * @throws org.voltdb.exportclient.ExportDecoderBase.RestartBlockException
+     */
+    public boolean processRow(ExportRowCursor row) throws RestartBlockException {
+        return processRow(row.toExportRow());
+    }
+
     abstract public void sourceNoLongerAdvertised(AdvertisedDataSource source);
 
     /**
@@ -0,0 +1,342 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.exportclient;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.voltdb.VoltType;
+import org.voltdb.types.GeographyPointValue;
+import org.voltdb.types.GeographyValue;
+import org.voltdb.types.TimestampType;
+
+import com.google_voltpatches.common.base.Charsets;
+
+/**
+ * A reusable view of one exported row in place in its stream block. Positioning
+ * the cursor on a row only records where each column starts, values are read
+ * from the block by the typed accessors, so decoding a row allocates nothing.
+ * Schema information comes from the row that carried the block schema, as for
+ * {@link ExportRow#decodeRow(ExportRow, int, long, ByteBuffer)}.
+ *
+ * A cursor is only valid until it is moved to the next row or the block is
+ * released, anything kept longer must be copied out of it.
+ */
+public class ExportRowCursor {
+
+    private ExportRow m_schema;
+    private VoltType[] m_types = new VoltType[0];
+    private ByteBuffer m_buf;
+    private int[] m_offsets = new int[0];
+    private boolean[] m_nulls = new boolean[0];
+    private int m_columnCount;
+    private int m_partitionColIndex;
+    private int m_partitionId;
+
+    /**
+     * Position the cursor on the row starting at the buffer position, which is
+     * moved past the row.
+     *
+     * @param schema row carrying the schema of the block
+     * @param partitionId partition of this data
+     * @param bb little endian buffer positioned after the row length
+     * @param length the row length
+     * @throws IOException if the row does not match the schema
+     */
+    public void reset(ExportRow schema, int partitionId, ByteBuffer bb, int length) throws IOException {
+        if (schema == null) {
+            throw new IOException("Export block with no schema found without prior block with schema.");
+        }
+        if (schema != m_schema) {
+            m_schema = schema;
+            m_types = schema.types.toArray(new VoltType[schema.types.size()]);
+            if (m_offsets.length < m_types.length) {
+                m_offsets = new int[m_types.length];
+                m_nulls = new boolean[m_types.length];
+            }
+        }
+        final int end = bb.position() + length;
+        m_buf = bb;
+        m_partitionId = partitionId;
+        m_partitionColIndex = bb.getInt();
+        final int columnCount = bb.getInt();
+        if (columnCount != m_types.length) {
+            throw new IOException("Export row has " + columnCount + " columns but its schema has " + m_types.length);
+        }
+        m_columnCount = columnCount;
+
+        // Null flags are one bit per column, most significant bit first
+        final int nullBytes = ((columnCount + 7) & -8) >> 3;
+        int position = bb.position();
+        for (int i = 0; i < columnCount; i++) {
+            m_nulls[i] = (bb.get(position + (i >> 3)) & (0x80 >>> (i & 7))) != 0;
+        }
+        position += nullBytes;
+
+        for (int i = 0; i < columnCount; i++) {
+            m_offsets[i] = position;
+            if (!m_nulls[i]) {
+                position += columnLength(m_types[i], position);
+            }
+        }
+        if (position != end) {
+            throw new IOException("Export row of " + length + " bytes does not match its schema");
+        }
+        bb.position(end);
+    }
+
+    private int columnLength(VoltType type, int position) throws IOException {
+        switch (type) {
+        case TINYINT:
+            return 1;
+        case SMALLINT:
+            return 2;
+        case INTEGER:
+            return 4;
+        case BIGINT:
+        case FLOAT:
+        case TIMESTAMP:
+            return 8;
+        case STRING:
+        case VARBINARY:
+        case GEOGRAPHY:
+            return 4 + m_buf.getInt(position);
+        case DECIMAL:
+            return 2 + m_buf.get(position + 1);
+        case GEOGRAPHY_POINT:
+            return GeographyPointValue.getLengthInBytes();
+        default:
+            throw new IOException("Invalid column type: " + type);
+        }
+    }
+
+    public String getTableName() {
+        return m_schema.tableName;
+    }
+
+    public long getGeneration() {
+        return m_schema.generation;
+    }
+
+    public int getPartitionId() {
+        return m_partitionId;
+    }
+
+    public int getPartitionColumnIndex() {
+        return m_partitionColIndex;
+    }
+
+    public int getColumnCount() {
+        return m_columnCount;
+    }
+
+    public List<String> getColumnNames() {
+        return m_schema.names;
+    }
+
+    public List<VoltType> getColumnTypes() {
+        return m_schema.types;
+    }
+
+    public VoltType getColumnType(int column) {
+        return m_types[column];
+    }
+
+    /**
+     * @return the row carrying the schema of the block this cursor is in
+     */
+    public ExportRow getSchema() {
+        return m_schema;
+    }
+
+    public boolean isNull(int column) {
+        return m_nulls[column];
+    }
+
+    /**
+     * Value of a TINYINT, SMALLINT, INTEGER or BIGINT column, or the microseconds
+     * since the epoch of a TIMESTAMP column
+     */
+    public long getLong(int column) {
+        final int offset = m_offsets[column];
+        switch (m_types[column]) {
+        case TINYINT:
+            return m_buf.get(offset);
+        case SMALLINT:
+            return m_buf.getShort(offset);
+        case INTEGER:
+            return m_buf.getInt(offset);
+        case BIGINT:
+        case TIMESTAMP:
+            return m_buf.getLong(offset);
+        default:
+            throw new IllegalArgumentException("Column " + column + " of type " + m_types[column] + " is not integral");
+        }
+    }
+
+    public double getDouble(int column) {
+        if (m_types[column] == VoltType.FLOAT) {
+            return m_buf.getDouble(m_offsets[column]);
+        }
+        return getLong(column);
+    }
+
+    /**
+     * Length in bytes of a STRING, VARBINARY or GEOGRAPHY column
+     */
+    public int getBytesLength(int column) {
+        return m_buf.getInt(m_offsets[column]);
+    }
+
+    /**
+     * Copy the bytes of a STRING, VARBINARY or GEOGRAPHY column into dst,
+     * which must have room for {@link #getBytesLength(int)} bytes
+     */
+    public void getBytes(int column, byte[] dst, int dstOffset) {
+        final int offset = m_offsets[column] + 4;
+        final int length = m_buf.getInt(m_offsets[column]);
+        if (m_buf.hasArray()) {
+            System.arraycopy(m_buf.array(), m_buf.arrayOffset() + offset, dst, dstOffset, length);
+        }
+        else {
+            for (int i = 0; i < length; i++) {
+                dst[dstOffset + i] = m_buf.get(offset + i);
+            }
+        }
+    }
+
+    public byte[] getBytes(int column) {
+        byte[] bytes = new byte[getBytesLength(column)];
+        getBytes(column, bytes, 0);
+        return bytes;
+    }
+
+    public String getString(int column) {
+        final int offset = m_offsets[column] + 4;
+        final int length = m_buf.getInt(m_offsets[column]);
+        if (m_buf.hasArray()) {
+            return new String(m_buf.array(), m_buf.arrayOffset() + offset, length, Charsets.UTF_8);
+        }
+        return new String(getBytes(column), Charsets.UTF_8);
+    }
+
+    /**
+     * Append the value of a STRING column to sb. Pure ASCII values, the common
+     * case, are appended without allocating.
+     */
+    public void appendString(int column, StringBuilder sb) {
+        final int offset = m_offsets[column] + 4;
+        final int length = m_buf.getInt(m_offsets[column]);
+        for (int i = 0; i < length; i++) {
+            if (m_buf.get(offset + i) < 0) {
+                sb.append(getString(column));
+                return;
+            }
+        }
+        sb.ensureCapacity(sb.length() + length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) m_buf.get(offset + i));
+        }
+    }
+
+    public BigDecimal getDecimal(int column) {
+        final int offset = m_offsets[column];
+        final int scale = m_buf.get(offset);
+        final byte[] bytes = new byte[m_buf.get(offset + 1)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = m_buf.get(offset + 2 + i);
+        }
+        return new BigDecimal(new BigInteger(bytes), scale);
+    }
+
+    public TimestampType getTimestamp(int column) {
+        return new TimestampType(m_buf.getLong(m_offsets[column]));
+    }
+
+    private ByteBuffer viewAt(int offset) {
+        ByteBuffer view = m_buf.duplicate().order(m_buf.order());
+        view.position(offset);
+        return view;
+    }
+
+    /**
+     * Decode a column into the same object {@link ExportRow#decodeRow} produces
+     */
+    public Object getObject(int column) {
+        if (m_nulls[column]) {
+            return null;
+        }
+        final int offset = m_offsets[column];
+        switch (m_types[column]) {
+        case TINYINT:
+            return m_buf.get(offset);
+        case SMALLINT:
+            return m_buf.getShort(offset);
+        case INTEGER:
+            return m_buf.getInt(offset);
+        case BIGINT:
+            return m_buf.getLong(offset);
+        case FLOAT:
+            return m_buf.getDouble(offset);
+        case TIMESTAMP:
+            return getTimestamp(column);
+        case STRING:
+            return getString(column);
+        case VARBINARY:
+            return getBytes(column);
+        case DECIMAL:
+            return getDecimal(column);
+        case GEOGRAPHY_POINT:
+            return GeographyPointValue.unflattenFromBuffer(viewAt(offset));
+        case GEOGRAPHY:
+            return GeographyValue.unflattenFromBuffer(viewAt(offset + 4));
+        default:
+            throw new IllegalArgumentException("Invalid column type: " + m_types[column]);
+        }
+    }
+
+    public Object[] getValues() {
+        Object[] values = new Object[m_columnCount];
+        for (int i = 0; i < m_columnCount; i++) {
+            values[i] = getObject(i);
+        }
+        return values;
+    }
+
+    /**
+     * @return the value of the partition column, or the partition id if there is
+     * no such column or it is null
+     */
+    public Object getPartitionValue() {
+        if (m_partitionColIndex >= 0 && m_partitionColIndex < m_columnCount && !m_nulls[m_partitionColIndex]) {
+            return getObject(m_partitionColIndex);
+        }
+        return m_partitionId;
+    }
+
+    /**
+     * Materialize the row for code that still consumes {@link ExportRow}s
+     */
+    public ExportRow toExportRow() {
+        return new ExportRow(m_schema.tableName, m_schema.names, m_schema.types, m_schema.lengths,
+                getValues(), getPartitionValue(), m_partitionColIndex, m_partitionId, m_schema.generation);
+    }
+}
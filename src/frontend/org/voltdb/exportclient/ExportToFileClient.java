@@ -18,12 +18,25 @@
 package org.voltdb.exportclient;
 
 import java.io.BufferedWriter;
+import java.io.CharArrayWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
@@ -39,10 +52,12 @@ import java.util.Set;
 import java.util.TimeZone;
 import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.GZIPOutputStream;
 
 import org.apache.commons.lang3.StringEscapeUtils;
 import org.json_voltpatches.JSONObject;
@@ -57,8 +72,10 @@ import org.voltdb.export.ExportManager;
 import org.voltdb.exportclient.ExportDecoderBase.BinaryEncoding;
 import org.voltdb.exportclient.decode.CSVWriterDecoder;
 import org.voltdb.utils.VoltFile;
+import org.xerial.snappy.SnappyOutputStream;
 
 import com.google_voltpatches.common.base.Throwables;
+import com.google_voltpatches.common.util.concurrent.ListenableFuture;
 import com.google_voltpatches.common.util.concurrent.ListeningExecutorService;
 
 import au.com.bytecode.opencsv_voltpatches.CSVWriter;
@@ -73,6 +90,9 @@ public class ExportToFileClient extends ExportClientBase {
     private static final TimeUnit TIME_PERIOD_UNIT =
             TimeUnit.valueOf(System.getProperty("__EXPORT_FILE_ROTATE_PERIOD_UNIT__", TimeUnit.MINUTES.name()));
     private static final int EXPORT_DELIM_NUM_CHARACTERS = 4;
+    // initial size of the per decoder buffers a block is formatted and encoded into, they grow to the block size
+    private static final int WRITE_BUFFER_SIZE = Integer.getInteger("EXPORT_FILE_WRITE_BUFFER_SIZE", 64 * 1024);
+    private static final int COMPRESSION_BUFFER_SIZE = 64 * 1024;
 
     // These get put in from of the batch folders
     // active means the folder is being written to
@@ -115,9 +135,50 @@ public class ExportToFileClient extends ExportClientBase {
     // date formatter time zone
     protected TimeZone m_timeZone;
 
+    // compression applied to completed files, and the pools doing it
+    protected FileCompression m_compression;
+    protected ListeningExecutorService m_compressionService;
+    protected ListeningExecutorService m_compressionFinisher;
+
     //For test
     public static String TEST_VOLTDB_ROOT = null;
 
+    enum FileCompression {
+        NONE(""),
+        GZIP(".gz"),
+        SNAPPY(".snappy");
+
+        final String m_extension;
+
+        FileCompression(String extension) {
+            m_extension = extension;
+        }
+
+        OutputStream wrap(OutputStream out) throws IOException {
+            switch (this) {
+            case GZIP:
+                return new GZIPOutputStream(out, COMPRESSION_BUFFER_SIZE);
+            case SNAPPY:
+                return new SnappyOutputStream(out, COMPRESSION_BUFFER_SIZE);
+            default:
+                return out;
+            }
+        }
+    }
+
+    /**
+     * A CharArrayWriter whose content can be handed to an encoder without copying it.
+     */
+    static class BlockBuffer extends CharArrayWriter {
+        BlockBuffer(int initialSize) {
+            super(initialSize);
+        }
+
+        CharBuffer chars() {
+            return CharBuffer.wrap(buf, 0, count);
+        }
+    }
+
     class DecoderMetaData {
         final String tableName;
         final long generation;
@@ -163,7 +224,7 @@ public class ExportToFileClient extends ExportClientBase {
 
     class PeriodicExportContext {
         File m_dirContainingFiles;
-        final Map<FileHandle, CSVWriter> m_writers = Collections.synchronizedMap(new TreeMap<FileHandle, CSVWriter>());
+        final Map<FileHandle, ExportFile> m_files = Collections.synchronizedMap(new TreeMap<FileHandle, ExportFile>());
         boolean m_hasClosed = false;
         protected Date start;
         protected final Set<String> m_batchSchemasWritten = new HashSet<>();
@@ -239,6 +300,58 @@ public class ExportToFileClient extends ExportClientBase {
             }
         }
 
+        /**
+         * An open export file shared by the decoders of every partition of a table.
+         * Each decoder formats and encodes a block on its own thread, so appending
+         * the finished block is the only work serialized on the file.
+         */
+        class ExportFile {
+            final String m_path;
+            final FileChannel m_channel;
+            final long m_openedMillis = System.currentTimeMillis();
+            long m_rows = 0;
+            long m_bytes = 0;
+            long m_blocks = 0;
+            long m_writeNanos = 0;
+
+            ExportFile(String path, FileChannel channel) {
+                m_path = path;
+                m_channel = channel;
+            }
+
+            synchronized void append(ByteBuffer block, int rows) throws IOException {
+                final long start = System.nanoTime();
+                final long position = m_channel.position();
+                try {
+                    while (block.hasRemaining()) {
+                        m_channel.write(block);
+                    }
+                }
+                catch (IOException e) {
+                    // drop the partial block so the restarted block is not written twice
+                    try {
+                        m_channel.truncate(position);
+                    }
+                    catch (IOException ignore) {}
+                    throw e;
+                }
+                m_bytes += m_channel.position() - position;
+                m_rows += rows;
+                m_blocks++;
+                m_writeNanos += System.nanoTime() - start;
+            }
+
+            synchronized void close() throws IOException {
+                m_channel.close();
+                if (m_logger.isDebugEnabled()) {
+                    double seconds = Math.max(m_writeNanos, 1) / 1000000000.0;
+                    m_logger.debug(String.format("Closed export file %s: %d rows, %d bytes in %d blocks, " +
+                            "written at %.2f MB/s, open for %d ms", m_path, m_rows, m_bytes, m_blocks,
+                            m_bytes / seconds / (1024 * 1024), System.currentTimeMillis() - m_openedMillis));
+                }
+            }
+        }
+
         PeriodicExportContext() {
             if (m_batched) {
                 /*
@@ -295,22 +408,17 @@ public class ExportToFileClient extends ExportClientBase {
             // only need to run this once per batch
             if (m_hasClosed) return;
 
-            // flush and close any files that are open
-            for (Entry<FileHandle, CSVWriter> entry : m_writers.entrySet()) {
-                CSVWriter writer = entry.getValue();
-                if (writer == null) {
-                    m_logger.info("Null writer found for: " + entry.getKey().toString());
+            // close any files that are open, blocks are written out as they complete
+            for (Entry<FileHandle, ExportFile> entry : m_files.entrySet()) {
+                ExportFile file = entry.getValue();
+                if (file == null) {
+                    m_logger.info("Null file found for: " + entry.getKey().toString());
                     continue;
                 }
                 try {
-                    writer.flush();
-                    writer.close();
+                    file.close();
                 } catch (IOException e) {
                     m_logger.error("Failed to flush or close file, export file may be unavailable/unwritable, or not enough space.", e);
-                } finally {
-                    if (writer.checkError()) {
-                        m_logger.error("Failed to flush or close file, export file may be unavailable/unwritable, or not enough space.");
-                    }
                 }
             }
 
@@ -321,14 +429,37 @@ public class ExportToFileClient extends ExportClientBase {
                 closeFiles();
             }
 
-            // empty the writer set (probably not needed)
-            m_writers.clear();
+            // empty the file set (probably not needed)
+            m_files.clear();
 
             // note that we're closed now
             m_hasClosed = true;
         }
 
         void closeBatch() {
+            if (m_compression == FileCompression.NONE) {
+                renameBatch();
+                return;
+            }
+
+            // compress the files in place, then publish the directory once all of them are done
+            final List<ListenableFuture<Boolean>> compressed = new ArrayList<>();
+            for (FileHandle handle : m_files.keySet()) {
+                String path = handle.getPath("");
+                compressed.add(compressFile(new VoltFile(path), new VoltFile(path + m_compression.m_extension)));
+            }
+            m_compressionFinisher.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (ListenableFuture<Boolean> result : compressed) {
+                        awaitCompression(result);
+                    }
+                    renameBatch();
+                }
+            });
+        }
+
+        void renameBatch() {
             // rename the file appropriately
             m_logger.trace("Renaming batch.");
 
@@ -354,14 +485,11 @@ public class ExportToFileClient extends ExportClientBase {
         }
 
         void closeFiles() {
-            File[] notifySet = new VoltFile[m_writers.size()];
-
-            int i = 0;
             // Sort the open files by TXN ID so that we can close and rename
             // them in the order in which they were created.  This allows
             // apps interested in the files to know that whenever a new file
             // is closed, it will be the next file temporally in the export stream
-            FileHandle[] keys = m_writers.keySet().toArray(new FileHandle[] {});
+            final FileHandle[] keys = m_files.keySet().toArray(new FileHandle[] {});
             Arrays.sort(keys, new Comparator<FileHandle>(){
                 @Override
                 public int compare(FileHandle f1, FileHandle f2)
@@ -370,32 +498,95 @@ public class ExportToFileClient extends ExportClientBase {
                 }
             });
 
-            for (FileHandle handle : keys)
-            {
-                String oldPath = handle.getPath(ACTIVE_PREFIX);
-                String newPath = handle.getPath("");
+            if (m_compression == FileCompression.NONE) {
+                for (FileHandle handle : keys) {
+                    renameFile(handle.getPath(ACTIVE_PREFIX), handle.getPath(""));
+                }
+                return;
+            }
+
+            // Compress the files in parallel, but rename them on the single finisher
+            // thread in creation order so that the ordering above still holds
+            final List<ListenableFuture<Boolean>> compressed = new ArrayList<>(keys.length);
+            for (FileHandle handle : keys) {
+                String path = handle.getPath(ACTIVE_PREFIX);
+                compressed.add(compressFile(new VoltFile(path), new VoltFile(path + m_compression.m_extension)));
+            }
+            m_compressionFinisher.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < keys.length; i++) {
+                        String oldPath = keys[i].getPath(ACTIVE_PREFIX);
+                        String newPath = keys[i].getPath("");
+                        if (awaitCompression(compressed.get(i))) {
+                            renameFile(oldPath + m_compression.m_extension, newPath + m_compression.m_extension);
+                        }
+                        else {
+                            renameFile(oldPath, newPath);
+                        }
+                    }
+                }
+            });
+        }
 
-                File oldFile = new VoltFile(oldPath);
-                assert(oldFile.exists());
-                assert(oldFile.isFile());
-                assert(oldFile.canWrite());
+        void renameFile(String oldPath, String newPath) {
+            File oldFile = new VoltFile(oldPath);
+            assert(oldFile.exists());
+            assert(oldFile.isFile());
+            assert(oldFile.canWrite());
 
-                File newFile = new VoltFile(newPath);
-                assert(!newFile.exists());
-                if (!oldFile.renameTo(newFile)) {
-                    m_logger.error("Failed to rename export file from " + oldPath + " to " + newPath);
+            File newFile = new VoltFile(newPath);
+            assert(!newFile.exists());
+            if (!oldFile.renameTo(newFile)) {
+                m_logger.error("Failed to rename export file from " + oldPath + " to " + newPath);
+            }
+        }
+
+        /**
+         * Compress a completed file into target on the compression pool, removing
+         * the source once done. The future yields false if the file was left as is.
+         */
+        ListenableFuture<Boolean> compressFile(final File source, final File target) {
+            return m_compressionService.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    final long start = System.nanoTime();
+                    try (OutputStream out = m_compression.wrap(new FileOutputStream(target, false))) {
+                        Files.copy(source.toPath(), out);
+                    }
+                    catch (IOException e) {
+                        m_logger.error("Failed to compress export file " + source.getPath() + ", leaving it uncompressed.", e);
+                        target.delete();
+                        return false;
+                    }
+                    if (m_logger.isDebugEnabled()) {
+                        double seconds = Math.max(System.nanoTime() - start, 1) / 1000000000.0;
+                        m_logger.debug(String.format("Compressed export file %s from %d to %d bytes at %.2f MB/s",
+                                source.getPath(), source.length(), target.length(), source.length() / seconds / (1024 * 1024)));
+                    }
+                    if (!source.delete()) {
+                        m_logger.warn("Failed to delete export file " + source.getPath() + " after compressing it.");
+                    }
+                    return true;
                 }
+            });
+        }
 
-                notifySet[i] = newFile;
-                i++;
+        boolean awaitCompression(ListenableFuture<Boolean> result) {
+            try {
+                return result.get();
+            }
+            catch (InterruptedException | ExecutionException e) {
+                m_logger.error("Failed to compress export file.", e);
+                return false;
             }
         }
 
-        CSVWriter getWriter(String tableName, long generation) throws IOException {
+        synchronized ExportFile getFile(String tableName, long generation) throws IOException {
             FileHandle handle = new FileHandle(tableName, generation);
-            CSVWriter writer = m_writers.get(handle);
-            if (writer != null)
-                return writer;
+            ExportFile file = m_files.get(handle);
+            if (file != null)
+                return file;
 
             String path = handle.getPath(ACTIVE_PREFIX);
             File newFile = new VoltFile(path);
@@ -406,19 +597,8 @@ public class ExportToFileClient extends ExportClientBase {
                 throw new RuntimeException();
             }
             try {
-                OutputStreamWriter osw = new OutputStreamWriter(new FileOutputStream(newFile, false), StandardCharsets.UTF_8);
-                if (m_fullDelimiters != null) {
-                    writer = new CSVWriter(new BufferedWriter(osw, 4096 * 4),
-                            m_fullDelimiters[0], m_fullDelimiters[1], m_fullDelimiters[2], String.valueOf(m_fullDelimiters[3]));
-                }
-                else if (m_delimiter == ',') {
-                    // CSV
-                    writer = new CSVWriter(new BufferedWriter(osw, 4096 * 4), m_delimiter);
-                }
-                else {
-                    // TSV
-                    writer = CSVWriter.getStrictTSVWriter(new BufferedWriter(osw, 4096 * 4));
-                }
+                file = new ExportFile(path,
+                        FileChannel.open(newFile.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
             }
             catch (Exception e) {
                 if (e instanceof IOException) {
@@ -430,8 +610,8 @@ public class ExportToFileClient extends ExportClientBase {
                 }
 
             }
-            m_writers.put(handle, writer);
-            return writer;
+            m_files.put(handle, file);
+            return file;
         }
 
         void writeSchema(String tableName, long generation, String schema) throws IOException {
@@ -499,8 +679,16 @@ public class ExportToFileClient extends ExportClientBase {
     class ExportToFileDecoder extends ExportDecoderBase {
         DecoderMetaData m_metaData;
         protected String m_schemaString = "ERROR SERIALIZING SCHEMA";
-        private FutureTask<CSVWriter> m_firstBlockTask;
-        private CSVWriter m_writer;
+        private FutureTask<PeriodicExportContext.ExportFile> m_firstBlockTask;
+        private PeriodicExportContext.ExportFile m_file;
+        // rows of the current block are formatted into m_block, then encoded into m_bytes
+        private final BlockBuffer m_block = new BlockBuffer(WRITE_BUFFER_SIZE);
+        private final CharsetEncoder m_encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private ByteBuffer m_bytes = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        private int m_blockRows;
+        private final CSVWriter m_writer;
         private final CSVWriterDecoder m_csvWriterDecoder;
         private ListeningExecutorService m_es;
 
@@ -509,10 +697,11 @@ public class ExportToFileClient extends ExportClientBase {
 
             // file export exports data to a file per table (per generation in the periodic window)
             // irrespective of number of partitions. Decoder instances gets spawned for number of
-            // tables and partitions as table information is not available at time of creation. To
-            // avoid synchronization and contention on the file resource, the creation of executor
-            // is delayed till block start notification when the table information is available
-            // and instead use the current thread available in base export client as the executor
+            // tables and partitions as table information is not available at time of creation, so
+            // the creation of executor is delayed till block start notification when the table
+            // information is available and instead use the current thread available in base export
+            // client as the executor. Each partition formats its blocks on its own executor and
+            // only appending a finished block to the shared file is synchronized.
             m_es = null;
             m_metaData = new DecoderMetaData("", Long.MIN_VALUE, Integer.MIN_VALUE);
 
@@ -524,18 +713,49 @@ public class ExportToFileClient extends ExportClientBase {
                 .skipInternalFields(m_skipinternal)
                 ;
             m_csvWriterDecoder = builder.build();
+            m_writer = createWriter(m_block);
         }
 
         private void resetWriter() {
-            m_firstBlockTask = new FutureTask<>(new Callable<CSVWriter>() {
+            m_firstBlockTask = new FutureTask<>(new Callable<PeriodicExportContext.ExportFile>() {
                 @Override
-                public CSVWriter call() throws Exception {
+                public PeriodicExportContext.ExportFile call() throws Exception {
                     assert !m_metaData.tableName.isEmpty() : "Table not initialized";
-                    CSVWriter writer = m_current.getWriter(m_metaData.tableName, m_metaData.generation);
+                    PeriodicExportContext.ExportFile file = m_current.getFile(m_metaData.tableName, m_metaData.generation);
                     m_current.writeSchema(m_metaData.tableName, m_metaData.generation, m_schemaString);
-                    return writer;
+                    return file;
                 }
-            });;
+            });
+        }
+
+        /**
+         * Encode the formatted block into m_bytes, growing it as needed,
+         * and return it ready to be written.
+         */
+        private ByteBuffer encodeBlock() throws CharacterCodingException {
+            CharBuffer chars = m_block.chars();
+            m_encoder.reset();
+            m_bytes.clear();
+            CoderResult result = m_encoder.encode(chars, m_bytes, true);
+            while (result.isOverflow()) {
+                growBytes();
+                result = m_encoder.encode(chars, m_bytes, true);
+            }
+            if (result.isError()) {
+                result.throwException();
+            }
+            while (m_encoder.flush(m_bytes).isOverflow()) {
+                growBytes();
+            }
+            m_bytes.flip();
+            return m_bytes;
+        }
+
+        private void growBytes() {
+            ByteBuffer bytes = ByteBuffer.allocateDirect(m_bytes.capacity() * 2);
+            m_bytes.flip();
+            bytes.put(m_bytes);
+            m_bytes = bytes;
         }
 
         @Override
@@ -602,18 +822,19 @@ public class ExportToFileClient extends ExportClientBase {
                     // TODO: if same export client is getting used, unregisterSelf(not implemented) during generation change
                     registerSelf(row);
                     if (m_es == null) {
-                        ListeningExecutorService executor = m_decoderExecutor.get(row.tableName);
+                        String executorKey = row.tableName + "-" + row.partitionId;
+                        ListeningExecutorService executor = m_decoderExecutor.get(executorKey);
                         if (executor == null) {
                             executor = CoreUtils.getListeningSingleThreadExecutor(
-                                "File Export decoder for table " + row.tableName + CoreUtils.MEDIUM_STACK_SIZE
-                                );
-                            m_decoderExecutor.put(row.tableName, executor);
+                                "File Export decoder for table " + row.tableName + " partition " + row.partitionId,
+                                CoreUtils.MEDIUM_STACK_SIZE);
+                            m_decoderExecutor.put(executorKey, executor);
                         }
                         m_es = executor;
 
-                        // force fetch the writer ahead for fresh start to avoid multiple threads race for same file creation
+                        // force fetch the file ahead for fresh start
                         m_firstBlockTask.run();
-                        m_writer = m_firstBlockTask.get();
+                        m_file = m_firstBlockTask.get();
                     }
                 } catch (Exception e) {
                     // if writeSchema or getWriter method fails, it will throw IOException
@@ -637,7 +858,9 @@ public class ExportToFileClient extends ExportClientBase {
 
             try {
                 m_firstBlockTask.run();
-                m_writer = m_firstBlockTask.get();
+                m_file = m_firstBlockTask.get();
+                m_block.reset();
+                m_blockRows = 0;
             }
             catch (Exception e) {
                 // if writeSchema or getWriter method fails, it will throw IOException
@@ -663,6 +886,7 @@ public class ExportToFileClient extends ExportClientBase {
             // reader lock is acquired in on-block start
             try {
                 m_csvWriterDecoder.decode(rd.generation, rd.tableName, rd.types, rd.names, m_writer,rd.values);
+                m_blockRows++;
             }
             catch (IOException io) {
                 rateLimitedLogError(m_logger, "failed to to process export row %s", Throwables.getStackTraceAsString(io));
@@ -679,17 +903,21 @@ public class ExportToFileClient extends ExportClientBase {
         public void onBlockCompletion(ExportRow row) throws RestartBlockException {
             try {
                 m_writer.flush();
-            }
-            catch (Throwable t) {
-                Throwables.propagate(t);
-            }
-            finally {
-                m_batchLock.readLock().unlock();
                 if (m_writer.checkError()) {
                     rateLimitedLogError(m_logger, "Failed to flush, export file may be unavailable/unwritable, or not enough space.");
                     m_writer.resetWriter();
                     throw new RestartBlockException("Failed to complete the block.", true);
                 }
+                m_file.append(encodeBlock(), m_blockRows);
+            }
+            catch (IOException e) {
+                rateLimitedLogError(m_logger, "Failed to write %s, export file may be unavailable/unwritable, or not enough space: %s",
+                        m_file.m_path, e.getMessage());
+                throw new RestartBlockException("Failed to complete the block.", e, true);
+            }
+            finally {
+                m_batchLock.readLock().unlock();
+                m_block.reset();
             }
         }
 
@@ -701,6 +929,9 @@ public class ExportToFileClient extends ExportClientBase {
                 if (decoder != null) {
                     m_tableDecoders.remove(m_metaData);
                 }
+                if (m_es != null) {
+                    m_decoderExecutor.remove(m_metaData.tableName + "-" + m_metaData.partitionId);
+                }
             }
             finally {
                 m_batchLock.writeLock().unlock();
@@ -719,6 +950,24 @@ public class ExportToFileClient extends ExportClientBase {
         }
     }
 
+    /**
+     * Create the CSV or TSV writer decoders format their blocks with.
+     */
+    CSVWriter createWriter(Writer out) {
+        if (m_fullDelimiters != null) {
+            return new CSVWriter(out,
+                    m_fullDelimiters[0], m_fullDelimiters[1], m_fullDelimiters[2], String.valueOf(m_fullDelimiters[3]));
+        }
+        else if (m_delimiter == ',') {
+            // CSV
+            return new CSVWriter(out, m_delimiter);
+        }
+        else {
+            // TSV
+            return CSVWriter.getStrictTSVWriter(out);
+        }
+    }
+
     @Override
     public ExportToFileDecoder constructExportDecoder(AdvertisedDataSource source) {
         return new ExportToFileDecoder(source);
@@ -740,6 +989,18 @@ public class ExportToFileClient extends ExportClientBase {
         finally {
             m_batchLock.writeLock().unlock();
         }
+        if (m_compressionService != null) {
+            // let files already handed off finish compressing and get renamed
+            m_compressionService.shutdown();
+            m_compressionFinisher.shutdown();
+            try {
+                m_compressionService.awaitTermination(365, TimeUnit.DAYS);
+                m_compressionFinisher.awaitTermination(365, TimeUnit.DAYS);
+            }
+            catch (InterruptedException iex) {
+                Throwables.propagate(iex);
+            }
+        }
     }
 
     /**
@@ -843,6 +1104,19 @@ public class ExportToFileClient extends ExportClientBase {
                 conf.getProperty("binaryencoding", "HEX").trim().toUpperCase());
         boolean uniquenames = Boolean.parseBoolean(conf.getProperty("uniquenames"));
 
+        FileCompression compression;
+        try {
+            compression = FileCompression.valueOf(conf.getProperty("compression", "none").trim().toUpperCase());
+        }
+        catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Error: compression must be one of none, gzip or snappy");
+        }
+        int compressionThreads = Integer.parseInt(conf.getProperty("compressionthreads",
+                Integer.toString(Math.max(1, CoreUtils.availableProcessors() / 4))).trim());
+        if (compressionThreads < 1) {
+            throw new IllegalArgumentException("Error: Specified value for compressionthreads must be >= 1.");
+        }
+
         //Dont do actual config in check mode.
         boolean configcheck = Boolean.parseBoolean(conf.getProperty(ExportManager.CONFIG_CHECK_ONLY, "false"));
         if (configcheck) {
@@ -861,7 +1135,9 @@ public class ExportToFileClient extends ExportClientBase {
                 withSchema,
                 tz,
                 encoding,
-                uniquenames);
+                uniquenames,
+                compression,
+                compressionThreads);
     }
 
     private void configureInternal(
@@ -876,7 +1152,9 @@ public class ExportToFileClient extends ExportClientBase {
                               final boolean withSchema,
                               final TimeZone tz,
                               final BinaryEncoding be,
-                              final boolean uniquenames) {
+                              final boolean uniquenames,
+                              final FileCompression compression,
+                              final int compressionThreads) {
         m_delimiter = delimiter;
         m_extension = (delimiter == ',') ? ".csv" : ".tsv";
         m_nonce = nonce;
@@ -899,6 +1177,13 @@ public class ExportToFileClient extends ExportClientBase {
         m_batched = batched;
         m_withSchema = withSchema;
         m_uniquenames = uniquenames;
+        m_compression = compression;
+        if (compression != FileCompression.NONE) {
+            m_compressionService = CoreUtils.getListeningExecutorService(
+                    "Export file compression for nonce " + nonce, compressionThreads);
+            m_compressionFinisher = CoreUtils.getListeningSingleThreadExecutor(
+                    "Export file compression finisher for nonce " + nonce);
+        }
 
         if (fullDelimiters != null) {
             fullDelimiters = StringEscapeUtils.unescapeHtml4(fullDelimiters);
@@ -31,6 +31,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -53,6 +55,7 @@ import com.google_voltpatches.common.base.Throwables;
 import com.google_voltpatches.common.collect.ImmutableMap;
 import com.google_voltpatches.common.collect.ImmutableSet;
 import com.google_voltpatches.common.collect.Maps;
+import com.google_voltpatches.common.util.concurrent.ListenableFuture;
 import com.google_voltpatches.common.util.concurrent.ListeningExecutorService;
 import static org.voltdb.exportclient.ExportClientBase.rateLimitedLogError;
 
@@ -65,6 +68,10 @@ public class JDBCExportClient extends ExportClientBase {
     boolean m_createTable = true;
     private int firstField = 0;
     private boolean m_lowercaseNames = false;
+    int m_parallelWriters = 1;
+    int m_minBatchRows = 100;
+    int m_maxBatchRows = 5000;
+    long m_batchTargetNanos = TimeUnit.MILLISECONDS.toNanos(500);
     PoolProperties m_poolProperties = new PoolProperties();
     URI m_urlId;
     static AtomicReference<Map<URI,RefCountedDS>> m_cpds =
@@ -149,19 +156,158 @@ public class JDBCExportClient extends ExportClientBase {
         //If the column value is longer than the limit, truncate the value to avoid flushing too much data to log.
         private static final int MAX_COLUMN_PRINT_SIZE = 1024;
 
-        private Connection conn = null;
-        private PreparedStatement pstmt = null;
         private final ListeningExecutorService m_es;
         private String pstmtString = null;
-        private boolean supportsBatchUpdates;
+        private volatile boolean supportsBatchUpdates;
 
         private final RefCountedDS m_ds;
 
-        private final List<BatchRow> m_dataRows =  new ArrayList<>();
-        private class BatchRow {
-            private final ExportRow m_row;
-            public BatchRow(ExportRow r) {
-                m_row = r;
+        // The rows of a block are written in batches, spread round robin over the writers. Each writer
+        // has its own connection and transaction, which are all committed in order when the block is done.
+        private final Writer[] m_writers;
+        private int m_nextWriter = 0;
+        private List<ExportRow> m_batch = new ArrayList<>();
+        // Rows per batch, adjusted to the commit latency the target database shows
+        private volatile int m_batchRows;
+
+        /**
+         * A connection writing a share of the batches of every block. The batches run on the
+         * writer's own thread when there is more than one writer, otherwise on the decoder thread.
+         */
+        private final class Writer {
+            private final ListeningExecutorService m_writerES;
+            private Connection conn = null;
+            private PreparedStatement pstmt = null;
+            private ListenableFuture<?> m_lastBatch = null;
+            // Whether rows were written since the last commit
+            private boolean m_dirty = false;
+
+            Writer(ListeningExecutorService es) {
+                m_writerES = es;
+            }
+
+            void connect() throws SQLException {
+                if (conn == null) {
+                    conn = m_ds.getDataSource().getConnection();
+                    conn.setAutoCommit(false);
+                }
+            }
+
+            void write(final List<ExportRow> rows) throws Exception {
+                if (m_writerES == null) {
+                    writeBatch(rows);
+                } else {
+                    m_lastBatch = m_writerES.submit(new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            writeBatch(rows);
+                            return null;
+                        }
+                    });
+                }
+            }
+
+            /**
+             * Wait for the batches handed to this writer, rethrowing the first failure.
+             */
+            void await() throws Exception {
+                ListenableFuture<?> lastBatch = m_lastBatch;
+                m_lastBatch = null;
+                if (lastBatch != null) {
+                    try {
+                        lastBatch.get();
+                    } catch (ExecutionException e) {
+                        Throwables.propagateIfPossible(e.getCause(), Exception.class);
+                        throw e;
+                    }
+                }
+            }
+
+            private void writeBatch(List<ExportRow> rows) throws Exception {
+                // a failed batch leaves the connection closed, the rest of the block is skipped
+                if (conn == null) {
+                    throw new SQLException("JDBC export connection was reset");
+                }
+                if (pstmt == null) {
+                    if (m_logger.isDebugEnabled()) {
+                        m_logger.debug(pstmtString);
+                    }
+                    try {
+                        pstmt = conn.prepareStatement(pstmtString);
+                    } catch (Exception e) {
+                        m_logger.warn("JDBC export unable to prepare insert statement", e);
+                        close();
+                        throw e;
+                    }
+                }
+                final long start = System.nanoTime();
+                m_dirty = true;
+                ExportRow rowinst = null;
+                try {
+                    for (ExportRow row : rows) {
+                        rowinst = row;
+                        bind(pstmt, row);
+                        if (supportsBatchUpdates) {
+                            pstmt.addBatch();
+                        } else {
+                            pstmt.executeUpdate();
+                        }
+                    }
+                    rowinst = null;
+                    if (supportsBatchUpdates) {
+                        pstmt.executeBatch();
+                    }
+                } catch (BatchUpdateException e) {
+                    logBatchErrors(e, rows);
+                    close();
+                    throw e;
+                } catch (Exception e) {
+                    rateLimitedLogError(m_logger, "processRow() failed in table %s, %s",
+                            (rowinst == null ? "Unknown" : rowinst.tableName), Throwables.getStackTraceAsString(e));
+                    close();
+                    throw e;
+                }
+                adjustBatchRows(rows.size(), System.nanoTime() - start);
+            }
+
+            void commit() throws SQLException {
+                conn.commit();
+                m_dirty = false;
+            }
+
+            /*
+             * If there is any kind of exception from the DB call this to get a clean slate
+             * and retry will recreate the connection and prepared statement.
+             */
+            void close() {
+                try {
+                    try {
+                        if (pstmt != null) {
+                            pstmt.close();
+                        }
+                    } catch (Exception e) {
+                        m_logger.warn("Exception closing pstmt for reset for table ", e);
+                    }
+                    try {
+                        // the pool hands the connection out again as it is
+                        if (conn != null && m_dirty) {
+                            conn.rollback();
+                        }
+                    } catch (Exception e) {
+                        m_logger.warn("Exception rolling back conn for reset for table ", e);
+                    }
+                    try {
+                        if (conn != null) {
+                            conn.close();
+                        }
+                    } catch (Exception e) {
+                        m_logger.warn("Exception closing conn for reset for table ", e);
+                    }
+                } finally {
+                    conn = null;
+                    pstmt = null;
+                    m_dirty = false;
+                }
             }
         }
 
@@ -177,10 +323,28 @@ public class JDBCExportClient extends ExportClientBase {
             m_es =
                     CoreUtils.getListeningSingleThreadExecutor(
                             "JDBC Export decoder for partition " + source.partitionId, CoreUtils.MEDIUM_STACK_SIZE);
+            m_writers = new Writer[m_parallelWriters];
+            for (int i = 0; i < m_writers.length; i++) {
+                m_writers[i] = new Writer(m_writers.length == 1 ? null :
+                    CoreUtils.getListeningSingleThreadExecutor(
+                            "JDBC Export writer " + i + " for partition " + source.partitionId, CoreUtils.MEDIUM_STACK_SIZE));
+            }
+            m_batchRows = Math.max(m_minBatchRows, Math.min(m_maxBatchRows, 1000));
+        }
 
+        /*
+         * Halve the batch when it takes longer than the target to write, double it when a full
+         * batch takes less than half of the target.
+         */
+        private synchronized void adjustBatchRows(int rows, long nanos) {
+            if (nanos > m_batchTargetNanos) {
+                m_batchRows = Math.max(m_minBatchRows, m_batchRows / 2);
+            } else if (rows >= m_batchRows && nanos < m_batchTargetNanos / 2) {
+                m_batchRows = Math.min(m_maxBatchRows, m_batchRows * 2);
+            }
         }
 
-        private void initialize(long generation, String stableName, List<String> columnNames, List<VoltType> columnTypes, List<Integer> columnLengths) throws SQLException {
+        private void initialize(Connection conn, long generation, String stableName, List<String> columnNames, List<VoltType> columnTypes, List<Integer> columnLengths) throws SQLException {
             boolean supportsBatchUpdatesTmp;
             String identifierQuoteTemp = "";
             DatabaseMetaData md = conn.getMetaData();
@@ -224,7 +388,7 @@ public class JDBCExportClient extends ExportClientBase {
 
             firstField = ExportRow.getFirstField(skipInternals);
             if (m_createTable){
-                createTable(dbType, schemaAndTable, identifierQuote, columnNames, columnLengths, columnTypes);
+                createTable(conn, dbType, schemaAndTable, identifierQuote, columnNames, columnLengths, columnTypes);
             }
 
             String pstmtStringTmp = "INSERT INTO " + schemaAndTable + " (";
@@ -251,7 +415,7 @@ public class JDBCExportClient extends ExportClientBase {
             }
         }
 
-        private void createTable(DatabaseType dbType, String schemaAndTable, String identifierQuote, List<String> columnNames, List<Integer> columnLengths, List<VoltType> columnTypes){
+        private void createTable(Connection conn, DatabaseType dbType, String schemaAndTable, String identifierQuote, List<String> columnNames, List<Integer> columnLengths, List<VoltType> columnTypes){
 
             Statement stmt = null;
             try {
@@ -488,37 +652,38 @@ public class JDBCExportClient extends ExportClientBase {
 
         @Override
         public void onBlockStart(ExportRow row) throws RestartBlockException {
-            m_dataRows.clear();
-            if (conn == null) {
-                if (pstmt != null) {
-                    try {
-                        pstmt.close();
-                    } catch (Exception e) {}
-                    finally {
-                        pstmt = null;
-                    }
-                }
-                try {
-                    conn = m_ds.getDataSource().getConnection();
-                    conn.setAutoCommit(false);
-                } catch (Exception e) {
-                    m_logger.warn("JDBC export unable to connect", e);
-                    closeConnection();
-                    throw new RestartBlockException(true);
+            m_batch = new ArrayList<>();
+            m_nextWriter = 0;
+            try {
+                for (Writer writer : m_writers) {
+                    writer.connect();
                 }
+            } catch (Exception e) {
+                m_logger.warn("JDBC export unable to connect", e);
+                closeConnection();
+                throw new RestartBlockException(true);
             }
         }
 
         @Override
         public void onBlockCompletion(ExportRow row) throws RestartBlockException {
             try {
-                if (supportsBatchUpdates) {
-                    pstmt.executeBatch();
+                writeBatch();
+                for (Writer writer : m_writers) {
+                    writer.await();
+                }
+                // Only commit once every writer has its share of the block in the database
+                for (int i = 0; i < m_writers.length; i++) {
+                    try {
+                        m_writers[i].commit();
+                    } catch (SQLException e) {
+                        if (i > 0) {
+                            m_logger.warn("JDBC export committed part of a block before a commit failed," +
+                                    " the block will be retried and rows may be duplicated");
+                        }
+                        throw e;
+                    }
                 }
-                conn.commit();
-            } catch(BatchUpdateException e){
-                logBatchErrors(e);
-                throw new RestartBlockException(true);
             } catch (SQLException e) {
                 rateLimitedLogError(m_logger, "commit() failed for row %s", Throwables.getStackTraceAsString(e));
                 throw new RestartBlockException(true);
@@ -526,18 +691,18 @@ public class JDBCExportClient extends ExportClientBase {
                 rateLimitedLogError(m_logger, "Exception while executing and committing batch %s", Throwables.getStackTraceAsString(e));
                 throw new RestartBlockException(true);
             } finally{
-                m_dataRows.clear();
+                m_batch = new ArrayList<>();
                 closeConnection();
             }
         }
 
-        private void logBatchErrors(BatchUpdateException e){
+        private void logBatchErrors(BatchUpdateException e, List<ExportRow> rows){
 
            int [] results = e.getUpdateCounts();
            StringBuilder builder = new StringBuilder();
-           for(int i = 0; i < results.length; i++){
+           for(int i = 0; i < results.length && i < rows.size(); i++){
                 if(results[i] == Statement.EXECUTE_FAILED){
-                    ExportRow rowi = m_dataRows.get(i).m_row;
+                    ExportRow rowi = rows.get(i);
                     Object row[] = rowi.values;
                     for (int j = firstField; j < rowi.types.size(); j++) {
                         builder.append((j == firstField) ? "":", ");
@@ -581,7 +746,7 @@ public class JDBCExportClient extends ExportClientBase {
         public boolean processRow(ExportRow rowinst) throws RestartBlockException {
             if (pstmtString == null) {
                 try {
-                    initialize(rowinst.generation, rowinst.tableName, rowinst.names, rowinst.types, rowinst.lengths);
+                    initialize(m_writers[0].conn, rowinst.generation, rowinst.tableName, rowinst.names, rowinst.types, rowinst.lengths);
                 } catch (Exception e) {
                     m_logger.warn("JDBC export unable to initialize jdbc target database", e);
                     closeConnection();
@@ -591,103 +756,79 @@ public class JDBCExportClient extends ExportClientBase {
             if (pstmtString == null) {
                 throw new RestartBlockException(true);
             }
-            if (pstmt == null) {
+
+            m_batch.add(rowinst);
+            if (m_batch.size() >= m_batchRows) {
                 try {
-                    if (m_logger.isDebugEnabled()) {
-                        m_logger.debug(pstmtString);
-                    }
-                    pstmt = conn.prepareStatement(pstmtString);
+                    writeBatch();
                 } catch (Exception e) {
-                    m_logger.warn("JDBC export unable to prepare insert statement", e);
+                    // already logged by the writer
                     closeConnection();
                     throw new RestartBlockException(true);
                 }
             }
+            return true;
+        }
 
+        private void writeBatch() throws Exception {
+            if (m_batch.isEmpty()) {
+                return;
+            }
+            Writer writer = m_writers[m_nextWriter];
+            m_nextWriter = (m_nextWriter + 1) % m_writers.length;
+            List<ExportRow> batch = m_batch;
+            m_batch = new ArrayList<>(m_batchRows);
+            writer.write(batch);
+        }
+
+        private void bind(PreparedStatement pstmt, ExportRow rowinst) throws SQLException {
             Object[] row = rowinst.values;
             List<VoltType> columnTypes = rowinst.types;
-            boolean restartBlock = false;
-            try {
-                for (int i = firstField; i < columnTypes.size(); i++) {
-                    final int pstmtIndex = i + 1 - firstField;
-                    if (row[i] == null) {
-                        pstmt.setNull(pstmtIndex, Types.NULL);
-                    } else if (columnTypes.get(i) == VoltType.DECIMAL) {
-                        pstmt.setBigDecimal(pstmtIndex, (BigDecimal)row[i]);
-                    } else if (columnTypes.get(i) == VoltType.TINYINT) {
-                        pstmt.setByte(pstmtIndex, (Byte)row[i]);
-                    } else if (columnTypes.get(i) == VoltType.SMALLINT) {
-                        pstmt.setShort(pstmtIndex, (Short)row[i]);
-                    } else if (columnTypes.get(i) == VoltType.INTEGER) {
-                        pstmt.setInt(pstmtIndex, (Integer)row[i]);
-                    } else if (columnTypes.get(i) == VoltType.BIGINT) {
-                        pstmt.setLong(pstmtIndex, (Long)row[i]);
-                    } else if (columnTypes.get(i) == VoltType.FLOAT) {
-                        pstmt.setDouble(pstmtIndex, (Double)row[i]);
-                    } else if (columnTypes.get(i) == VoltType.STRING) {
-                        pstmt.setString(pstmtIndex, (String)row[i]);
-                    } else if (columnTypes.get(i) == VoltType.TIMESTAMP) {
-                        TimestampType timestamp = (TimestampType)row[i];
-                        pstmt.setTimestamp(pstmtIndex, timestamp.asJavaTimestamp());
-                    } else if (columnTypes.get(i) == VoltType.GEOGRAPHY_POINT) {
-                        GeographyPointValue gpv = (GeographyPointValue)row[i];
-                        pstmt.setString(pstmtIndex, gpv.toWKT());
-                    } else if (columnTypes.get(i) == VoltType.GEOGRAPHY) {
-                        GeographyValue gv = (GeographyValue)row[i];
-                        pstmt.setString(pstmtIndex, gv.toWKT());
-                    } else if (columnTypes.get(i) == VoltType.VARBINARY) {
-                        byte[] bytes = (byte[])row[i];
-                        pstmt.setBytes(pstmtIndex, bytes);
-                    }
+            for (int i = firstField; i < columnTypes.size(); i++) {
+                final int pstmtIndex = i + 1 - firstField;
+                if (row[i] == null) {
+                    pstmt.setNull(pstmtIndex, Types.NULL);
+                } else if (columnTypes.get(i) == VoltType.DECIMAL) {
+                    pstmt.setBigDecimal(pstmtIndex, (BigDecimal)row[i]);
+                } else if (columnTypes.get(i) == VoltType.TINYINT) {
+                    pstmt.setByte(pstmtIndex, (Byte)row[i]);
+                } else if (columnTypes.get(i) == VoltType.SMALLINT) {
+                    pstmt.setShort(pstmtIndex, (Short)row[i]);
+                } else if (columnTypes.get(i) == VoltType.INTEGER) {
+                    pstmt.setInt(pstmtIndex, (Integer)row[i]);
+                } else if (columnTypes.get(i) == VoltType.BIGINT) {
+                    pstmt.setLong(pstmtIndex, (Long)row[i]);
+                } else if (columnTypes.get(i) == VoltType.FLOAT) {
+                    pstmt.setDouble(pstmtIndex, (Double)row[i]);
+                } else if (columnTypes.get(i) == VoltType.STRING) {
+                    pstmt.setString(pstmtIndex, (String)row[i]);
+                } else if (columnTypes.get(i) == VoltType.TIMESTAMP) {
+                    TimestampType timestamp = (TimestampType)row[i];
+                    pstmt.setTimestamp(pstmtIndex, timestamp.asJavaTimestamp());
+                } else if (columnTypes.get(i) == VoltType.GEOGRAPHY_POINT) {
+                    GeographyPointValue gpv = (GeographyPointValue)row[i];
+                    pstmt.setString(pstmtIndex, gpv.toWKT());
+                } else if (columnTypes.get(i) == VoltType.GEOGRAPHY) {
+                    GeographyValue gv = (GeographyValue)row[i];
+                    pstmt.setString(pstmtIndex, gv.toWKT());
+                } else if (columnTypes.get(i) == VoltType.VARBINARY) {
+                    byte[] bytes = (byte[])row[i];
+                    pstmt.setBytes(pstmtIndex, bytes);
                 }
-
-                try {
-                    if (supportsBatchUpdates) {
-                        pstmt.addBatch();
-                        m_dataRows.add(new BatchRow(rowinst));
-                    } else {
-                        pstmt.executeUpdate();
-                    }
-                } catch (SQLException e) {
-                    rateLimitedLogError(m_logger, "executeUpdate() failed in processRow() for table %s %s", (rowinst == null ? "Unknown" : rowinst.tableName), Throwables.getStackTraceAsString(e));
-                    restartBlock = true;
-                }
-            } catch (Exception e) {
-                rateLimitedLogError(m_logger, "processRow() failed in table %s, %s", (rowinst == null ? "Unknown" : rowinst.tableName), Throwables.getStackTraceAsString(e));
-                restartBlock = true;
-            }
-
-            if (restartBlock) {
-                closeConnection();
-                throw new RestartBlockException(true);
             }
-
-            return true;
         }
 
         /*
-         * If there is any kind of exception from the DB call this to get a clean slate
-         * and retry will recreate the connection and prepared statement.
+         * Wait for the writers and close their connections, rolling back anything not committed.
          */
         private void closeConnection() {
-            try {
-                try {
-                    if (pstmt != null) {
-                        pstmt.close();
-                    }
-                } catch (Exception e) {
-                    m_logger.warn("Exception closing pstmt for reset for table ", e);
-                }
+            for (Writer writer : m_writers) {
                 try {
-                    if (conn != null) {
-                        conn.close();
-                    }
+                    writer.await();
                 } catch (Exception e) {
-                    m_logger.warn("Exception closing conn for reset for table ", e);
+                    // already logged by the writer
                 }
-            } finally {
-                conn = null;
-                pstmt = null;
+                writer.close();
             }
         }
 
@@ -700,6 +841,11 @@ public class JDBCExportClient extends ExportClientBase {
                 Throwables.propagate(e);
             }
             closeConnection();
+            for (Writer writer : m_writers) {
+                if (writer.m_writerES != null) {
+                    writer.m_writerES.shutdown();
+                }
+            }
         }
     }
 
@@ -783,6 +929,36 @@ public class JDBCExportClient extends ExportClientBase {
         m_poolProperties.setJdbcInterceptors("org.apache.tomcat.jdbc.pool.interceptor.StatementCache(max="
                 + maxStatementsCachedVal + ")");
 
+        m_parallelWriters = parsePositiveInt(config, "parallelwriters", 1);
+        m_maxBatchRows = parsePositiveInt(config, "maxbatchrows", 5000);
+        m_minBatchRows = Math.min(m_maxBatchRows, parsePositiveInt(config, "minbatchrows", 100));
+        m_batchTargetNanos = TimeUnit.MILLISECONDS.toNanos(parsePositiveInt(config, "batchlatencyms", 500));
+
+        /*
+         * Have the drivers that can send a batch of inserts as a few multi-row statements do so,
+         * unless the url or the connection properties already say otherwise.
+         */
+        String rewriteBatches = config.getProperty("rewritebatches", "true").trim();
+        if (Boolean.parseBoolean(rewriteBatches)) {
+            String rewriteProperty = null;
+            if (url.startsWith("jdbc:postgresql")) {
+                rewriteProperty = "reWriteBatchedInserts";
+            } else if (url.startsWith("jdbc:mysql")) {
+                rewriteProperty = "rewriteBatchedStatements";
+            }
+            String connectionProperties = m_poolProperties.getConnectionProperties();
+            if (rewriteProperty != null && !url.contains(rewriteProperty) &&
+                    (connectionProperties == null || !connectionProperties.contains(rewriteProperty))) {
+                urlId += "&" + rewriteProperty + "=true";
+                // Keep any connection properties already set, the pool separates them with ;
+                if (connectionProperties == null || connectionProperties.trim().isEmpty()) {
+                    m_poolProperties.setConnectionProperties(rewriteProperty + "=true");
+                } else {
+                    m_poolProperties.setConnectionProperties(connectionProperties + ";" + rewriteProperty + "=true");
+                }
+            }
+        }
+
         m_poolProperties.setTestOnBorrow(true);
         if (url.startsWith("jdbc:oracle"))
             m_poolProperties.setValidationQuery("SELECT 1 FROM DUAL");
@@ -859,6 +1035,21 @@ public class JDBCExportClient extends ExportClientBase {
         } while (!m_cpds.compareAndSet(cpds, builder.build()));
     }
 
+    private static int parsePositiveInt(Properties config, String name, int defaultValue) {
+        String value = config.getProperty(name, "").trim();
+        if (value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed > 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+        }
+        throw new IllegalArgumentException("\"" + name + "\" must be a positive integer");
+    }
+
     @Override
     public void shutdown() {
         ImmutableMap.Builder<URI,RefCountedDS> builder;
@@ -19,16 +19,22 @@ package org.voltdb.exportclient.decode;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 
 import au.com.bytecode.opencsv_voltpatches.CSVWriter;
 import java.util.List;
 import org.voltdb.VoltType;
+import org.voltdb.exportclient.ExportRowCursor;
+
+import com.google_voltpatches.common.base.Preconditions;
 
 public class CSVStringDecoder extends RowDecoder<String, RuntimeException> {
 
     protected final StringArrayDecoder m_stringArrayDecoder;
     protected final CSVWriter m_writer;
     protected final StringBuffer m_writerDestination;
+    protected final StringBuilder m_line = new StringBuilder(2048);
+    protected final StringBuilder m_field = new StringBuilder(256);
 
     protected CSVStringDecoder(StringArrayDecoder stringArrayDecoder) {
         super(stringArrayDecoder);
@@ -48,6 +54,72 @@ public class CSVStringDecoder extends RowDecoder<String, RuntimeException> {
         return csvLine;
     }
 
+    /**
+     * Writes the CSV line straight from the cursor, quoting and escaping the
+     * fields the way the CSVWriter does, without an intermediate string array
+     */
+    @Override
+    public String decode(ExportRowCursor row, String ignoreIt) throws RuntimeException {
+        return appendLine(row).toString();
+    }
+
+    /**
+     * Same as {@link #decode(ExportRowCursor, String)} but returns the UTF-8
+     * bytes of the line, skipping the intermediate String for ASCII rows
+     */
+    public byte[] decodeToBytes(ExportRowCursor row) throws RuntimeException {
+        final StringBuilder sb = appendLine(row);
+        final int length = sb.length();
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; ++i) {
+            final char c = sb.charAt(i);
+            if (c >= 0x80) {
+                return sb.toString().getBytes(StandardCharsets.UTF_8);
+            }
+            bytes[i] = (byte) c;
+        }
+        return bytes;
+    }
+
+    private StringBuilder appendLine(ExportRowCursor row) {
+        Preconditions.checkArgument(
+                row.getColumnCount() > m_firstFieldOffset,
+                "inapropriately sized export row"
+        );
+        final StringBuilder sb = m_line;
+        sb.setLength(0);
+        final String nullRepresentation = m_stringArrayDecoder.getNullRepresentation();
+        for (int i = m_firstFieldOffset; i < row.getColumnCount(); ++i) {
+            if (i != m_firstFieldOffset) {
+                sb.append(CSVWriter.DEFAULT_SEPARATOR);
+            }
+            final StringBuilder field = m_field;
+            field.setLength(0);
+            if (m_stringArrayDecoder.appendField(row, i, field)) {
+                appendQuoted(sb, field);
+            } else if (nullRepresentation != null) {
+                appendQuoted(sb, nullRepresentation);
+            }
+        }
+        return sb;
+    }
+
+    /**
+     * Append the field to sb between quotes, doubling any quote in it
+     */
+    private static void appendQuoted(StringBuilder sb, CharSequence field) {
+        sb.append(CSVWriter.DEFAULT_QUOTE_CHARACTER);
+        final int length = field.length();
+        for (int i = 0; i < length; ++i) {
+            final char c = field.charAt(i);
+            if (c == CSVWriter.DEFAULT_QUOTE_CHARACTER) {
+                sb.append(CSVWriter.DEFAULT_ESCAPE_CHARACTER);
+            }
+            sb.append(c);
+        }
+        sb.append(CSVWriter.DEFAULT_QUOTE_CHARACTER);
+    }
+
     public static Builder builder() {
         return new Builder();
     }
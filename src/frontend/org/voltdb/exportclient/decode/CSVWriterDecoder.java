@@ -21,12 +21,15 @@ import java.io.IOException;
 import java.util.List;
 
 import org.voltdb.VoltType;
+import org.voltdb.exportclient.ExportRowCursor;
 
 import au.com.bytecode.opencsv_voltpatches.CSVWriter;
 
 public class CSVWriterDecoder extends RowDecoder<CSVWriter, IOException> {
 
     protected final StringArrayDecoder m_stringArrayDecoder;
+    // Reused across rows decoded from a cursor, the writer does not keep it
+    private String[] m_fields;
 
     protected CSVWriterDecoder(StringArrayDecoder stringArrayDecoder) {
         super(stringArrayDecoder);
@@ -39,6 +42,13 @@ public class CSVWriterDecoder extends RowDecoder<CSVWriter, IOException> {
         return to;
     }
 
+    @Override
+    public CSVWriter decode(ExportRowCursor row, CSVWriter to) throws IOException {
+        m_fields = m_stringArrayDecoder.decode(row, m_fields);
+        to.writeNext(m_fields);
+        return to;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
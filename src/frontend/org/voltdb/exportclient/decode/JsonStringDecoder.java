@@ -31,6 +31,7 @@ import org.json_voltpatches.JSONException;
 import org.json_voltpatches.JSONWriter;
 import org.voltdb.VoltType;
 import org.voltdb.common.Constants;
+import org.voltdb.exportclient.ExportRowCursor;
 import org.voltdb.exportclient.decode.DecodeType.SimpleVisitor;
 import org.voltdb.types.GeographyPointValue;
 import org.voltdb.types.GeographyValue;
@@ -57,10 +58,7 @@ public class JsonStringDecoder extends RowDecoder<String, JSONException> {
 
     }
 
-    @Override
-    public String decode(long generation, String tableName, List<VoltType> types, List<String> names, String ignored, Object[] fields) throws JSONException {
-        final JSONWriter jsonWriter = new JSONWriter(m_writer);
-
+    protected JsonFieldDecoder [] getFieldDecoders(long generation, List<VoltType> types, List<String> names) {
         JsonFieldDecoder [] fieldDecoders;
         if ((fieldDecoders = m_fieldDecoders.get(generation)) == null) {
             List<String> columnNames = names;
@@ -81,6 +79,13 @@ public class JsonStringDecoder extends RowDecoder<String, JSONException> {
             }
             m_fieldDecoders.put(generation, fieldDecoders);
         }
+        return fieldDecoders;
+    }
+
+    @Override
+    public String decode(long generation, String tableName, List<VoltType> types, List<String> names, String ignored, Object[] fields) throws JSONException {
+        final JSONWriter jsonWriter = new JSONWriter(m_writer);
+        final JsonFieldDecoder [] fieldDecoders = getFieldDecoders(generation, types, names);
 
         jsonWriter.object();
         for (
@@ -98,6 +103,48 @@ public class JsonStringDecoder extends RowDecoder<String, JSONException> {
         return decoded;
     }
 
+    /**
+     * Writes integers and strings straight from the cursor, other types go
+     * through the same field decoders as materialized rows
+     */
+    @Override
+    public String decode(ExportRowCursor row, String ignored) throws JSONException {
+        final JSONWriter jsonWriter = new JSONWriter(m_writer);
+        final JsonFieldDecoder [] fieldDecoders =
+                getFieldDecoders(row.getGeneration(), row.getColumnTypes(), row.getColumnNames());
+
+        jsonWriter.object();
+        for (
+                int i = m_firstFieldOffset, j = 0;
+                i < row.getColumnCount() && j < fieldDecoders.length;
+                ++i, ++j
+        ) {
+            if (row.isNull(i)) {
+                jsonWriter.key(fieldDecoders[j].m_fieldName).valueNull();
+                continue;
+            }
+            switch (row.getColumnType(i)) {
+            case TINYINT:
+            case SMALLINT:
+            case INTEGER:
+            case BIGINT:
+                jsonWriter.key(fieldDecoders[j].m_fieldName).value(row.getLong(i));
+                break;
+            case STRING:
+                jsonWriter.key(fieldDecoders[j].m_fieldName).value(row.getString(i));
+                break;
+            default:
+                fieldDecoders[j].decode(jsonWriter, row.getObject(i));
+            }
+        }
+        jsonWriter.endObject();
+
+        String decoded = m_writer.toString();
+        m_writer.getBuffer().setLength(0);
+
+        return decoded;
+    }
+
     static abstract class JsonFieldDecoder implements FieldDecoder<JSONWriter, JSONException> {
         protected final String m_fieldName;
 
@@ -17,7 +17,9 @@
 
 package org.voltdb.exportclient.decode;
 
+import java.text.FieldPosition;
 import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +27,7 @@ import java.util.TimeZone;
 
 import org.voltdb.VoltType;
 import org.voltdb.common.Constants;
+import org.voltdb.exportclient.ExportRowCursor;
 import org.voltdb.exportclient.ExportDecoderBase.BinaryEncoding;
 import org.voltdb.exportclient.decode.DecodeType.SimpleVisitor;
 import org.voltdb.types.GeographyPointValue;
@@ -46,6 +49,13 @@ public class StringArrayDecoder extends RowDecoder<String[], RuntimeException> {
     protected final String m_nullRepresentation;
     protected final Map<Long, StringFieldDecoder []> m_fieldDecoders = new HashMap<>();
 
+    // Scratch space for decoding from a cursor, a decoder is used by one thread at a time
+    private final StringBuilder m_fieldBuilder = new StringBuilder(64);
+    private SimpleDateFormat m_cursorDateFormatter;
+    private final Date m_cursorDate = new Date();
+    private final StringBuffer m_cursorDateBuffer = new StringBuffer(32);
+    private final FieldPosition m_cursorDatePosition = new FieldPosition(0);
+
     protected StringArrayDecoder(
             int firstFieldOffset,
             SimpleDateFormat dateFormatter,
@@ -104,6 +114,86 @@ public class StringArrayDecoder extends RowDecoder<String[], RuntimeException> {
         return to;
     }
 
+    /**
+     * Converts the exported row under the cursor into an array of the string
+     * representations of its values, without materializing the values
+     */
+    @Override
+    public String[] decode(ExportRowCursor row, String[] to) throws RuntimeException {
+        Preconditions.checkArgument(
+                row.getColumnCount() > m_firstFieldOffset,
+                "inapropriately sized export row"
+        );
+        final int fieldCount = row.getColumnCount() - m_firstFieldOffset;
+        if (to == null || to.length != fieldCount) {
+            to = new String[fieldCount];
+        }
+        for (int i = m_firstFieldOffset, j = 0; j < fieldCount; ++i, ++j) {
+            m_fieldBuilder.setLength(0);
+            to[j] = appendField(row, i, m_fieldBuilder) ? m_fieldBuilder.toString() : m_nullRepresentation;
+        }
+        return to;
+    }
+
+    public String getNullRepresentation() {
+        return m_nullRepresentation;
+    }
+
+    /**
+     * Append the string representation of a column of the row under the cursor,
+     * the same one {@link #decode(ExportRowCursor, String[])} produces. Numbers,
+     * timestamps and ASCII strings are appended without allocating.
+     *
+     * @return false, without appending anything, if the value is null
+     */
+    public boolean appendField(ExportRowCursor row, int column, StringBuilder sb) {
+        if (row.isNull(column)) {
+            return false;
+        }
+        switch (row.getColumnType(column)) {
+        case TINYINT:
+        case SMALLINT:
+        case INTEGER:
+        case BIGINT:
+            sb.append(row.getLong(column));
+            break;
+        case FLOAT:
+            sb.append(row.getDouble(column));
+            break;
+        case TIMESTAMP:
+            if (m_cursorDateFormatter == null) {
+                m_cursorDateFormatter = (SimpleDateFormat)m_dateFormatter.clone();
+            }
+            m_cursorDate.setTime(row.getLong(column) / 1000);
+            m_cursorDateBuffer.setLength(0);
+            m_cursorDateFormatter.format(m_cursorDate, m_cursorDateBuffer, m_cursorDatePosition);
+            sb.append(m_cursorDateBuffer);
+            break;
+        case STRING:
+            row.appendString(column, sb);
+            break;
+        case VARBINARY:
+            if (m_binaryEncoding == BinaryEncoding.BASE64) {
+                sb.append(Encoder.base64Encode(row.getBytes(column)));
+            } else {
+                sb.append(Encoder.hexEncode(row.getBytes(column)));
+            }
+            break;
+        case DECIMAL:
+            sb.append(row.getDecimal(column).toString());
+            break;
+        case GEOGRAPHY_POINT:
+            sb.append(((GeographyPointValue)row.getObject(column)).toWKT());
+            break;
+        case GEOGRAPHY:
+            sb.append(((GeographyValue)row.getObject(column)).toWKT());
+            break;
+        default:
+            throw new IllegalArgumentException("Invalid column type: " + row.getColumnType(column));
+        }
+        return true;
+    }
+
     static abstract class StringFieldDecoder implements FieldDecoder<String[], RuntimeException> {
         protected final int m_fieldIndex;
 
@@ -17,25 +17,21 @@
 
 package org.voltdb.exportclient.kafka;
 
-import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.TimeZone;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.kafka.clients.producer.Callback;
-import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.config.ConfigException;
-import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.voltcore.utils.CoreUtils;
 import org.voltdb.VoltDB;
 import org.voltdb.common.Constants;
@@ -46,10 +42,10 @@ import org.voltdb.exportclient.ExportClientLogger;
 import org.voltdb.exportclient.ExportDecoderBase;
 import org.voltdb.exportclient.ExportDecoderBase.BinaryEncoding;
 import org.voltdb.exportclient.ExportRow;
+import org.voltdb.exportclient.ExportRowCursor;
 import org.voltdb.exportclient.decode.CSVStringDecoder;
 
 import com.google_voltpatches.common.base.Splitter;
-import com.google_voltpatches.common.collect.ImmutableList;
 import com.google_voltpatches.common.collect.ImmutableMap;
 import com.google_voltpatches.common.util.concurrent.ListeningExecutorService;
 
@@ -66,7 +62,7 @@ public class KafkaExportClient extends ExportClientBase {
     private final static String OLD_SERIALIZER = "serializer.class";
     private final static String OLD_PARTITIONER = "partitioner.class";
     private final static String ACKS_TIMEOUT = "acks.retry.timeout";
-    private final static String LEGACY_ACKS = "request.required.acks";
+    private final static String PRODUCER_POOL_SIZE_PN = "producer.pool.size";
 
     private final static Splitter COMMA_SPLITTER = Splitter.on(",").omitEmptyStrings().trimResults();
     private final static Splitter PERIOD_SPLITTER = Splitter.on(".").omitEmptyStrings().trimResults();
@@ -82,8 +78,12 @@ public class KafkaExportClient extends ExportClientBase {
     TimeZone m_timeZone = VoltDB.REAL_DEFAULT_TIMEZONE;
     BinaryEncoding m_binaryEncoding = BinaryEncoding.HEX;
     Map<String, String> m_tablePartitionColumns;
-    boolean m_pollFutures = false;
     int m_acksTimeout = 5_000;
+    int m_producerPoolSize = Math.max(1, CoreUtils.availableProcessors() / 4);
+    boolean m_byteArrayKeys = true;
+    boolean m_byteArrayValues = true;
+    KafkaProducerPool.ProducerFactory m_producerFactory = KafkaProducerPool.KAFKA_PRODUCER_FACTORY;
+    KafkaProducerPool m_producerPool;
 
     @Override
     public void configure(Properties config) throws Exception {
@@ -173,13 +173,6 @@ public class KafkaExportClient extends ExportClientBase {
         if (acksVal.isEmpty()) {
             m_producerConfig.setProperty(ProducerConfig.ACKS_CONFIG, "0");
         }
-        m_pollFutures = !"0".equals(m_producerConfig.get(ProducerConfig.ACKS_CONFIG));
-
-        if (!m_pollFutures) {
-            //If old producer property is seen use it to ack futures.
-            String legacyAck = config.getProperty(LEGACY_ACKS, "false");
-            m_pollFutures = Boolean.getBoolean(legacyAck);
-        }
         String retries = "4";
         try {
             retries = config.getProperty(ProducerConfig.RETRIES_CONFIG, retries);
@@ -240,9 +233,23 @@ public class KafkaExportClient extends ExportClientBase {
         }
         m_producerConfig.remove(ACKS_TIMEOUT);
 
+        try {
+            String poolSize = config.getProperty(PRODUCER_POOL_SIZE_PN, "").trim();
+            if (!poolSize.isEmpty() && (m_producerPoolSize = Integer.parseInt(poolSize)) <= 0) {
+                throw new IllegalArgumentException(
+                        "\"" + PRODUCER_POOL_SIZE_PN + "\" must be > 0"
+                        );
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                    "\"" + PRODUCER_POOL_SIZE_PN + "\" must be an integer", e
+                    );
+        }
+        m_producerConfig.remove(PRODUCER_POOL_SIZE_PN);
+
         String kSerializer = config.getProperty(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, "").trim();
         if (kSerializer.isEmpty()) {
-            m_producerConfig.setProperty(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+            m_producerConfig.setProperty(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
         } else try {
             Class.forName(kSerializer);
         } catch (UnknownError|ExceptionInInitializerError|ClassNotFoundException e) {
@@ -251,7 +258,7 @@ public class KafkaExportClient extends ExportClientBase {
 
         String vSerializer = config.getProperty(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, "").trim();
         if (vSerializer.isEmpty()) {
-            m_producerConfig.setProperty(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+            m_producerConfig.setProperty(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
         } else try {
             Class.forName(vSerializer);
         } catch (UnknownError|ExceptionInInitializerError|ClassNotFoundException e) {
@@ -274,6 +281,14 @@ public class KafkaExportClient extends ExportClientBase {
 
         m_producerConfig.setProperty(ProducerConfig.BLOCK_ON_BUFFER_FULL_CONFIG, "true");
 
+        // Send the encoded bytes unless a custom serializer expects the row as a String
+        m_byteArrayKeys = ByteArraySerializer.class.getName().equals(
+                m_producerConfig.getProperty(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG));
+        m_byteArrayValues = ByteArraySerializer.class.getName().equals(
+                m_producerConfig.getProperty(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG));
+
+        m_producerPool = new KafkaProducerPool(m_producerConfig, m_producerPoolSize, m_producerFactory);
+
         LOG.info("Configuring Kafka export client: %s", m_producerConfig);
     }
 
@@ -282,14 +297,68 @@ public class KafkaExportClient extends ExportClientBase {
         return new KafkaExportDecoder(source);
     }
 
+    @Override
+    public void shutdown() {
+        if (m_producerPool != null) {
+            m_producerPool.close();
+        }
+    }
+
+    /**
+     * Tracks the sends of one export block. The producer completes every record
+     * of the block through this single callback, so the block is acked when the
+     * outstanding count drops to zero instead of by polling a future per row.
+     */
+    static class BlockAcks implements Callback {
+        private int m_outstanding = 0;
+        private Exception m_failure = null;
+
+        synchronized void sent() {
+            ++m_outstanding;
+        }
+
+        @Override
+        public synchronized void onCompletion(RecordMetadata metadata, Exception e) {
+            if (e != null && m_failure == null) {
+                m_failure = e;
+            }
+            if (--m_outstanding == 0) {
+                notifyAll();
+            }
+        }
+
+        /**
+         * Wait for all the records sent so far to be completed
+         * @return false if some were still outstanding after the timeout
+         */
+        synchronized boolean await(long timeoutMillis) throws InterruptedException {
+            final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (m_outstanding > 0) {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            return true;
+        }
+
+        synchronized int outstanding() {
+            return m_outstanding;
+        }
+
+        synchronized Exception failure() {
+            return m_failure;
+        }
+    }
+
     class KafkaExportDecoder extends ExportDecoderBase {
 
         String m_topic = null;
-        boolean m_primed = false;
-        KafkaProducer<String, String> m_producer;
+        final int m_partitionId;
+        Producer<Object, Object> m_producer;
         final CSVStringDecoder m_decoder;
-        final List<Future<RecordMetadata>> m_futures = new ArrayList<>();
-        private final AtomicBoolean m_failure = new AtomicBoolean(false);
+        BlockAcks m_blockAcks;
         final ListeningExecutorService m_es;
 
         public KafkaExportDecoder(AdvertisedDataSource source) {
@@ -307,17 +376,18 @@ public class KafkaExportClient extends ExportClientBase {
                             source.tableName + " - " + source.partitionId, CoreUtils.MEDIUM_STACK_SIZE);
 
             m_decoder = builder.build();
+            m_partitionId = source.partitionId;
+            m_producerPool.retain();
         }
 
-        final void checkOnFirstRow() throws RestartBlockException {
-            if (!m_primed) try {
-                m_producer = new KafkaProducer<>(m_producerConfig);
+        final void acquireProducer() throws RestartBlockException {
+            if (m_producer == null) try {
+                m_producer = m_producerPool.get(m_partitionId);
             }
             catch (ConfigException e) {
                 LOG.error("Unable to instantiate a Kafka producer", e);
                 throw new RestartBlockException("Unable to instantiate a Kafka producer", e, true);
             }
-            m_primed = true;
         }
 
         private void populateTopic(String tableName) {
@@ -335,60 +405,79 @@ public class KafkaExportClient extends ExportClientBase {
 
         @Override
         public void onBlockCompletion(ExportRow row) throws RestartBlockException {
+            final BlockAcks acks = m_blockAcks;
+            m_blockAcks = null;
+            if (acks == null) {
+                return;
+            }
+            // With acks=0 the producer completes a record once it is written to the
+            // broker connection, so the wait still covers every record of the block
             try {
-                if (m_pollFutures || m_failure.get()) {
-                    ImmutableList<Future<RecordMetadata>> pollFutures = ImmutableList.copyOf(m_futures);
-                    for (Future<RecordMetadata> fut: pollFutures) {
-                        fut.get(m_acksTimeout, TimeUnit.MILLISECONDS);
-                    }
+                if (!acks.await(m_acksTimeout)) {
+                    throw new RestartBlockException("Send operation timed out", true);
                 }
-            } catch (TimeoutException e) {
-                throw new RestartBlockException("Send operation timed out", e, true);
-            } catch (ExecutionException e) {
-                LOG.warn("Send operation failed to complete", e.getCause());
-                throw new RestartBlockException("Send operation failed to complete", e.getCause(), true);
             } catch (InterruptedException e) {
                 LOG.warn("Iterrupted send operation", e);
                 throw new RestartBlockException("Iterrupted send operation", e, true);
-            } finally {
-                m_futures.clear();
-                m_failure.set(false);
+            }
+            final Exception failure = acks.failure();
+            if (failure != null) {
+                LOG.warn("Failed to send data. Verify if the kafka server matches bootstrap.servers %s", failure,
+                        m_producerConfig.getProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG));
+                throw new RestartBlockException("Send operation failed to complete", failure, true);
             }
         }
 
         @Override
         public void onBlockStart(ExportRow row) throws RestartBlockException {
-            if (!m_primed) checkOnFirstRow();
+            acquireProducer();
             if (m_topic == null) populateTopic(row.tableName);
+            // A fresh tracker per attempt, late callbacks from a restarted block can't leak into this one
+            m_blockAcks = new BlockAcks();
         }
 
         @Override
-        public boolean processRow(ExportRow rd) throws RestartBlockException {
-            if (!m_primed) checkOnFirstRow();
+        public boolean usesRowCursor() {
+            return true;
+        }
 
+        @Override
+        public boolean processRow(ExportRow rd) throws RestartBlockException {
             String decoded = m_decoder.decode(rd.generation, rd.tableName, rd.types, rd.names, null, rd.values);
             //Use partition value by default if its null use partition id.
             //partition value will be null only if partition column is overridden table.column and is nullable
             String pval = (rd.partitionValue == null) ? String.valueOf(rd.partitionId) : rd.partitionValue.toString();
-            ProducerRecord<String, String> krec = new ProducerRecord<String, String>(m_topic, pval, decoded);
+            return send(
+                    m_byteArrayKeys ? pval.getBytes(StandardCharsets.UTF_8) : pval,
+                    m_byteArrayValues ? decoded.getBytes(StandardCharsets.UTF_8) : decoded);
+        }
+
+        @Override
+        public boolean processRow(ExportRowCursor row) throws RestartBlockException {
+            String pval = row.getPartitionValue().toString();
+            return send(
+                    m_byteArrayKeys ? pval.getBytes(StandardCharsets.UTF_8) : pval,
+                    m_byteArrayValues ? m_decoder.decodeToBytes(row) : m_decoder.decode(row, null));
+        }
+
+        private boolean send(Object key, Object value) throws RestartBlockException {
+            acquireProducer();
+            if (m_blockAcks == null) {
+                m_blockAcks = new BlockAcks();
+            }
+
+            ProducerRecord<Object, Object> krec = new ProducerRecord<>(m_topic, key, value);
             try {
-                m_futures.add(m_producer.send(krec, new Callback() {
-                    @Override
-                    public void onCompletion(RecordMetadata metadata, Exception e) {
-                        if (e != null){
-                            LOG.warn("Failed to send data. Verify if the kafka server matches bootstrap.servers %s", e,
-                                    m_producerConfig.getProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG));
-                            m_failure.compareAndSet(false, true);
-                        }
-                    }
-                }));
+                m_blockAcks.sent();
+                m_producer.send(krec, m_blockAcks);
             } catch (KafkaException e) {
-                LOG.warn("Unable to send %s", e, krec);
+                LOG.warn("Unable to send to topic %s", e, m_topic);
                 throw new RestartBlockException("Unable to send message", e, true);
             } catch (IllegalStateException e) {
-                LOG.warn("Unable to send %s", e, krec);
-                if (m_producer != null) try { m_producer.close(); } catch (Exception ignoreIt) {}
-                m_primed = false;
+                LOG.warn("Unable to send to topic %s", e, m_topic);
+                // The producer is closed, replace it for every decoder sharing it
+                m_producerPool.invalidate(m_producer);
+                m_producer = null;
                 throw new RestartBlockException("Unable to send message", e, true);
             }
             return true;
@@ -396,7 +485,8 @@ public class KafkaExportClient extends ExportClientBase {
 
         @Override
         public void sourceNoLongerAdvertised(AdvertisedDataSource source) {
-            if (m_producer != null) try { m_producer.close(); } catch (Exception ignoreIt) {}
+            m_producer = null;
+            m_producerPool.release();
             m_es.shutdown();
             try {
                 m_es.awaitTermination(365, TimeUnit.DAYS);
@@ -0,0 +1,113 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.exportclient.kafka;
+
+import java.util.Properties;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+
+/**
+ * Kafka producers shared by all the export decoders of one client. A decoder
+ * sends through the producer picked by its partition id modulo the pool size,
+ * so the pool size bounds how many producer I/O threads and record buffers the
+ * streams of a target are spread over. Producers are created on first use and
+ * closed when the last decoder releases the pool.
+ */
+class KafkaProducerPool {
+
+    interface ProducerFactory {
+        Producer<Object, Object> create(Properties config);
+    }
+
+    static final ProducerFactory KAFKA_PRODUCER_FACTORY = new ProducerFactory() {
+        @Override
+        public Producer<Object, Object> create(Properties config) {
+            return new KafkaProducer<>(config);
+        }
+    };
+
+    private final Properties m_config;
+    private final ProducerFactory m_factory;
+    private final Producer<Object, Object>[] m_producers;
+    private int m_references = 0;
+
+    @SuppressWarnings("unchecked")
+    KafkaProducerPool(Properties config, int size, ProducerFactory factory) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Producer pool size must be > 0");
+        }
+        m_config = config;
+        m_factory = factory;
+        m_producers = new Producer[size];
+    }
+
+    int size() {
+        return m_producers.length;
+    }
+
+    synchronized void retain() {
+        ++m_references;
+    }
+
+    synchronized void release() {
+        if (m_references > 0 && --m_references == 0) {
+            close();
+        }
+    }
+
+    /**
+     * Get the producer for a partition, creating it if needed
+     * @throws org.apache.kafka.common.config.ConfigException if the producer can't be created
+     */
+    synchronized Producer<Object, Object> get(int partitionId) {
+        final int slot = (partitionId & Integer.MAX_VALUE) % m_producers.length;
+        Producer<Object, Object> producer = m_producers[slot];
+        if (producer == null) {
+            producer = m_factory.create(m_config);
+            m_producers[slot] = producer;
+        }
+        return producer;
+    }
+
+    /**
+     * Close a producer that failed so the next {@link #get(int)} for its slot
+     * creates a fresh one. Decoders still holding it will fail and fetch again.
+     */
+    synchronized void invalidate(Producer<Object, Object> producer) {
+        for (int i = 0; i < m_producers.length; ++i) {
+            if (m_producers[i] == producer) {
+                m_producers[i] = null;
+                closeQuietly(producer);
+            }
+        }
+    }
+
+    synchronized void close() {
+        for (int i = 0; i < m_producers.length; ++i) {
+            if (m_producers[i] != null) {
+                closeQuietly(m_producers[i]);
+                m_producers[i] = null;
+            }
+        }
+    }
+
+    private static void closeQuietly(Producer<Object, Object> producer) {
+        try { producer.close(); } catch (Exception ignoreIt) {}
+    }
+}
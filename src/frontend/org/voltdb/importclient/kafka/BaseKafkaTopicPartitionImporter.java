@@ -22,6 +22,7 @@ import static java.util.Collections.singletonMap;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -104,6 +105,22 @@ public abstract class BaseKafkaTopicPartitionImporter {
      */
     public abstract boolean invoke(Object[] params, ProcedureInvocationCallback cb);
 
+    /*
+     * Submit the data of one fetch. Subclasses that can queue the invocations together override this,
+     * by default each one is submitted on its own.
+     */
+    public boolean[] invokeBatch(List<Object[]> paramsList, List<ProcedureInvocationCallback> callbacks) {
+        boolean[] results = new boolean[paramsList.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = invoke(paramsList.get(i), callbacks.get(i));
+        }
+        return results;
+    }
+
+    protected Formatter createFormatter() {
+        return m_config.getFormatterBuilder().create();
+    }
+
     public BaseKafkaTopicPartitionImporter(KafkaStreamImporterConfig config, ImporterLifecycle lifecycle, ImporterLogger logger)
     {
         m_lifecycle = lifecycle;
@@ -382,7 +399,7 @@ public abstract class BaseKafkaTopicPartitionImporter {
         m_logger.info(null, "Starting partition fetcher for " + m_topicAndPartition);
         long submitCount = 0;
         PendingWorkTracker callbackTracker = new PendingWorkTracker();
-        Formatter formatter = m_config.getFormatterBuilder().create();
+        Formatter formatter = createFormatter();
 
         try {
             //Start with the starting leader.
@@ -456,6 +473,8 @@ public abstract class BaseKafkaTopicPartitionImporter {
                 }
                 sleepCounter = 1;
                 String topicIdentifer = m_topicAndPartition.topic() + "-" + m_topicAndPartition.partition();
+                List<Object[]> paramsList = new ArrayList<>();
+                List<ProcedureInvocationCallback> callbacks = new ArrayList<>();
                 for (MessageAndOffset messageAndOffset : fetchResponse.messageSet(m_topicAndPartition.topic(), m_topicAndPartition.partition())) {
                     //You may be catchin up so dont sleep.
                     currentFetchCount++;
@@ -475,15 +494,8 @@ public abstract class BaseKafkaTopicPartitionImporter {
                                 messageAndOffset.nextOffset(), callbackTracker, m_gapTracker, m_dead, m_pauseOffset, topicIdentifer);
 
                         if (m_lifecycle.hasTransaction()) {
-                            if (invoke(params, cb)) {
-                                callbackTracker.produceWork();
-                            }
-                            else {
-                                if (m_logger.isDebugEnabled()) {
-                                    m_logger.debug(null, "Failed to process Invocation possibly bad data: " + Arrays.toString(params));
-                                }
-                                m_gapTracker.commit(messageAndOffset.nextOffset());
-                            }
+                            paramsList.add(params);
+                            callbacks.add(cb);
                         }
 
                     } catch (FormatException e) {
@@ -496,6 +508,21 @@ public abstract class BaseKafkaTopicPartitionImporter {
                         break;
                     }
                 }
+                //the messages of a fetch are submitted together, grouped by partition
+                if (!paramsList.isEmpty()) {
+                    boolean[] results = invokeBatch(paramsList, callbacks);
+                    for (int i = 0; i < results.length; i++) {
+                        if (results[i]) {
+                            callbackTracker.produceWork();
+                        }
+                        else {
+                            if (m_logger.isDebugEnabled()) {
+                                m_logger.debug(null, "Failed to process Invocation possibly bad data: " + Arrays.toString(paramsList.get(i)));
+                            }
+                            m_gapTracker.commit(callbacks.get(i).getNextOffset());
+                        }
+                    }
+                }
                 if (!m_lifecycle.shouldRun()) {
                     break;
                 }
@@ -17,12 +17,14 @@
 package org.voltdb.importclient.kafka;
 
 import java.net.URI;
+import java.util.List;
 
 import org.voltdb.importclient.kafka.util.ProcedureInvocationCallback;
 import org.voltdb.importer.AbstractImporter;
 import org.voltdb.importer.ImporterLifecycle;
 import org.voltdb.importer.ImporterLogger;
 import org.voltdb.importer.Invocation;
+import org.voltdb.importer.formatter.Formatter;
 
 /**
  * Implementation that imports from a single partition of a Kafka topic.
@@ -84,6 +86,16 @@ public class KafkaTopicPartitionImporter extends AbstractImporter
             return callProcedure(new Invocation(m_config.getProcedure(), params), cb);
         }
 
+        @Override
+        public boolean[] invokeBatch(List<Object[]> paramsList, List<ProcedureInvocationCallback> callbacks) {
+            return callProcedureBatch(m_config.getProcedure(), paramsList, callbacks);
+        }
+
+        @Override
+        protected Formatter createFormatter() {
+            return KafkaTopicPartitionImporter.this.createFormatter(m_config.getFormatterBuilder(), m_config.getProcedure());
+        }
+
     }
 
 }
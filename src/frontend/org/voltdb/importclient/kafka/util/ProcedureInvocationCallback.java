@@ -55,6 +55,10 @@ public class ProcedureInvocationCallback implements ProcedureCallback {
         m_topicIdentifier = topicIdentifier;
     }
 
+    public long getNextOffset() {
+        return m_nextoffset;
+    }
+
     @Override
     public void clientCallback(ClientResponse response) throws Exception {
         m_callbackTracker.consumeWork();
@@ -17,7 +17,6 @@
 
 package org.voltdb.importclient.kafka10;
 
-import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -55,8 +54,8 @@ import org.voltdb.importclient.kafka.util.PendingWorkTracker;
 import org.voltdb.importclient.kafka.util.ProcedureInvocationCallback;
 import org.voltdb.importclient.kafka.util.SimpleTracker;
 import org.voltdb.importer.CommitTracker;
+import org.voltdb.importer.ImportDecoderPool;
 import org.voltdb.importer.ImporterLifecycle;
-import org.voltdb.importer.formatter.FormatException;
 import org.voltdb.importer.formatter.Formatter;
 import org.voltdb.importer.formatter.FormatterBuilder;
 
@@ -78,8 +77,8 @@ public abstract class KafkaConsumerRunner implements Runnable {
 
     protected final AtomicBoolean m_done = new AtomicBoolean(false);
 
-    //Formatter by topic and partition.
-    private final Map<String, Formatter>  m_formatters = new HashMap<>();
+    //Decodes the polled messages, with a formatter or csv parser per topic and decoding thread
+    private final ImportDecoderPool m_decoderPool;
 
     //for commit policies.
     private long m_lastCommitTime = 0;
@@ -90,6 +89,7 @@ public abstract class KafkaConsumerRunner implements Runnable {
         m_lifecycle = lifecycle;
         m_consumer = consumer;
         m_config = config;
+        m_decoderPool = new ImportDecoderPool("Kafka decoder " + config.getGroupId(), config.getDecodeThreads());
         m_lastCommittedOffSets.set(new HashMap<>());
         m_trackerMap.set(new HashMap<>());
     }
@@ -191,12 +191,28 @@ public abstract class KafkaConsumerRunner implements Runnable {
 
     public abstract boolean invoke(String rawMessage, long offset, String topic, Object[] params, ProcedureCallback procedureCallback) throws Exception;
 
+    /**
+     * Invoke the procedure of the topic for a batch of decoded messages from one partition.
+     * @return whether each invocation was submitted
+     */
+    protected boolean[] invokeBatch(String topic, List<ConsumerRecord<ByteBuffer, ByteBuffer>> records,
+            List<Object[]> paramsList, List<ProcedureCallback> callbacks) throws Exception {
+        boolean[] results = new boolean[paramsList.size()];
+        for (int i = 0; i < results.length; i++) {
+            ConsumerRecord<ByteBuffer, ByteBuffer> record = records.get(i);
+            results[i] = invoke(new String(record.value().array(), StandardCharsets.UTF_8), record.offset(), topic,
+                    paramsList.get(i), callbacks.get(i));
+        }
+        return results;
+    }
+
     @Override
     public void run() {
         LOGGER.info("Starting Kafka consumer for group:" + m_config.getGroupId() + " topics:" + m_config.getTopics());
         List<TopicPartition> seekList = new ArrayList<>();
         Map<TopicPartition, AtomicLong> submitCounts = new HashMap<>();
-        CSVParser csvParser = new CSVParser();
+        Object[][] decoded = new Object[0][];
+        Exception[] decodeErrors = new Exception[0];
         try {
             subscribe();
             int sleepCounter = 1;
@@ -238,7 +254,6 @@ public abstract class KafkaConsumerRunner implements Runnable {
                         if (!m_lifecycle.shouldRun()) {
                             break;
                         }
-                        Formatter formatter = getFormatter(partition.topic());
                         int partitionSubmittedCount = 0;
                         CommitTracker commitTracker = getCommitTracker(partition);
                         AtomicLong lastCommittedOffset = m_lastCommittedOffSets.get().get(partition);
@@ -256,19 +271,40 @@ public abstract class KafkaConsumerRunner implements Runnable {
                         String topicIdentifer = "group " + m_config.getGroupId() + "-" + partition;
                         List<ConsumerRecord<ByteBuffer, ByteBuffer>> messages = records.records(partition);
                         int count = messages.size();
-                        for (int i = 0; i < count; i++) {
+
+                        //Poll the partition next round after moving the position to the last committed offset
+                        int end = count;
+                        if (lastCommittedOffset.longValue() > -1L) {
+                            for (int i = 0; i < count; i++) {
+                                if (messages.get(i).offset() < lastCommittedOffset.longValue()) {
+                                    seekList.add(partition);
+                                    end = i;
+                                    break;
+                                }
+                            }
+                        }
+                        if (end == 0) {
+                            continue;
+                        }
+
+                        final String topic = partition.topic();
+                        if (decoded.length < end) {
+                            decoded = new Object[end][];
+                            decodeErrors = new Exception[end];
+                        }
+                        m_decoderPool.decode(topic, () -> createDecoder(topic), messages, end, decoded, decodeErrors);
+
+                        List<Object[]> paramsList = new ArrayList<>(end);
+                        List<ProcedureCallback> callbacks = new ArrayList<>(end);
+                        List<ConsumerRecord<ByteBuffer, ByteBuffer>> submitted = new ArrayList<>(end);
+                        long[] nextOffsets = new long[end];
+                        for (int i = 0; i < end; i++) {
                             if (!m_lifecycle.shouldRun()) {
                                 break;
                             }
                             ConsumerRecord<ByteBuffer, ByteBuffer> record = messages.get(i);
                             long offset = record.offset();
 
-                            //Poll the partition next round after moving the position to the last committed offset
-                            if (lastCommittedOffset.longValue() > -1L && offset < lastCommittedOffset.longValue()) {
-                                seekList.add(partition);
-                                break;
-                            }
-
                             //The Kafka message offsets are consecutive numbers. Kafka messages come in ascending order by the offsets
                             //A message record in Kafka 10, not as Kafka 8, does not have the offset of next message.
                             //Thus get next offset from next message for the purpose of tracking. The next offset for the last message in the batch
@@ -278,38 +314,35 @@ public abstract class KafkaConsumerRunner implements Runnable {
                                 nextOffSet = messages.get(i + 1).offset();
                             }
 
-                            Object params[] = null;
-                            String smsg = null;
-                            try {
-                                smsg = new String(record.value().array(), StandardCharsets.UTF_8);
-                                if (formatter != null) {
-                                    params = formatter.transform(ByteBuffer.wrap(smsg.getBytes()));
-                                } else {
-                                    params = csvParser.parseLine(smsg);
-                                }
-                                commitTracker.submit(nextOffSet);
-                                submitCount.incrementAndGet();
-                                ProcedureCallback cb = new ProcedureInvocationCallback(offset, nextOffSet, m_workTrackers.get(partition),
-                                        commitTracker, m_done, m_pauseOffsets.get(partition),
-                                        topicIdentifer);
-                                partitionSubmittedCount++;
-
-                                if (invoke(smsg, offset, partition.topic(), params, cb)) {
+                            partitionSubmittedCount++;
+                            if (decodeErrors[i] != null) {
+                                LOGGER.rateLimitedLog(KafkaConstants.LOG_SUPPRESSION_INTERVAL_SECONDS, Level.WARN, decodeErrors[i],
+                                        "Failed to tranform data at offset %d of %s" , offset, topicIdentifer);
+                                commitTracker.commit(nextOffSet);
+                                continue;
+                            }
+                            commitTracker.submit(nextOffSet);
+                            submitCount.incrementAndGet();
+                            callbacks.add(new ProcedureInvocationCallback(offset, nextOffSet, m_workTrackers.get(partition),
+                                    commitTracker, m_done, m_pauseOffsets.get(partition),
+                                    topicIdentifer));
+                            nextOffsets[paramsList.size()] = nextOffSet;
+                            paramsList.add(decoded[i]);
+                            submitted.add(record);
+                            decoded[i] = null;
+                        }
+
+                        if (!paramsList.isEmpty()) {
+                            boolean[] results = invokeBatch(topic, submitted, paramsList, callbacks);
+                            for (int i = 0; i < results.length; i++) {
+                                if (results[i]) {
                                     m_workTrackers.get(partition).produceWork();
                                 } else {
                                     if (LOGGER.isDebugEnabled()) {
-                                        LOGGER.debug("Failed to process. possibly bad data: " + Arrays.toString(params));
+                                        LOGGER.debug("Failed to process. possibly bad data: " + Arrays.toString(paramsList.get(i)));
                                     }
-                                    commitTracker.commit(nextOffSet);
+                                    commitTracker.commit(nextOffsets[i]);
                                 }
-                            } catch (FormatException | IOException e) {
-                                partitionSubmittedCount++;
-                                LOGGER.rateLimitedLog(KafkaConstants.LOG_SUPPRESSION_INTERVAL_SECONDS, Level.WARN, e,
-                                        "Failed to tranform data: %s" , Arrays.toString(params));
-                                commitTracker.commit(nextOffSet);
-                            }
-                            if (!m_lifecycle.shouldRun()) {
-                                break;
                             }
                         }
                         if (partitionSubmittedCount > 0) {
@@ -335,6 +368,7 @@ public abstract class KafkaConsumerRunner implements Runnable {
         } catch (Exception e) {
             LOGGER.error("Failed to start topic partition fetcher for " + m_config.getTopics(), e);
         } finally {
+            m_decoderPool.shutdown();
             try {
                 commitPauseOffsets();
                 m_consumer.close();
@@ -483,21 +517,18 @@ public abstract class KafkaConsumerRunner implements Runnable {
         }
     }
 
-    private Formatter getFormatter(String topic) {
-
-        Formatter formatter = m_formatters.get(topic);
-        if (formatter != null) {
-            return formatter;
-        }
+    protected Formatter createFormatter(FormatterBuilder builder, String topic) {
+        return builder.create();
+    }
 
+    private ImportDecoderPool.Decoder<ConsumerRecord<ByteBuffer, ByteBuffer>> createDecoder(String topic) {
         FormatterBuilder builder = m_config.getFormatterBuilder(topic);
         if (builder != null) {
-            formatter = builder.create();
-            m_formatters.put(topic, formatter);
-            return formatter;
+            final Formatter formatter = createFormatter(builder, topic);
+            return record -> formatter.transform(ByteBuffer.wrap(record.value().array()));
         }
-
-        return null;
+        final CSVParser csvParser = new CSVParser();
+        return record -> csvParser.parseLine(new String(record.value().array(), StandardCharsets.UTF_8));
     }
 
     public int getKafkaTopicPartitionCount() {
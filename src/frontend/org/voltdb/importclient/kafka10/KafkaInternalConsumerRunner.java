@@ -17,11 +17,15 @@
 package org.voltdb.importclient.kafka10;
 
 import java.nio.ByteBuffer;
+import java.util.List;
 
 import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.voltdb.client.ProcedureCallback;
 import org.voltdb.importer.AbstractImporter;
 import org.voltdb.importer.Invocation;
+import org.voltdb.importer.formatter.Formatter;
+import org.voltdb.importer.formatter.FormatterBuilder;
 
 public class KafkaInternalConsumerRunner extends KafkaConsumerRunner {
 
@@ -33,4 +37,15 @@ public class KafkaInternalConsumerRunner extends KafkaConsumerRunner {
     public boolean invoke(String rawMessage, long offset, String topic, Object[] params, ProcedureCallback procedureCallback) throws Exception {
         return ((AbstractImporter)m_lifecycle).callProcedure(new Invocation(m_config.getProcedure(topic), params), procedureCallback);
     }
+
+    @Override
+    protected Formatter createFormatter(FormatterBuilder builder, String topic) {
+        return ((AbstractImporter)m_lifecycle).createFormatter(builder, m_config.getProcedure(topic));
+    }
+
+    @Override
+    protected boolean[] invokeBatch(String topic, List<ConsumerRecord<ByteBuffer, ByteBuffer>> records,
+            List<Object[]> paramsList, List<ProcedureCallback> callbacks) {
+        return ((AbstractImporter)m_lifecycle).callProcedureBatch(m_config.getProcedure(topic), paramsList, callbacks);
+    }
 }
@@ -109,6 +109,12 @@ public class KafkaStreamImporterConfig implements ImporterConfig {
      */
     private int m_pollTimeout;
 
+    /**
+     * <code>m_decodeThreads</code> The number of threads, including the consumer thread, transforming the polled messages
+     * into procedure parameters. Configured via property <code>decode.threads</code> Default: 1
+     */
+    private int m_decodeThreads = 1;
+
     //The total number of consumers for the importer, which are distributed among the hosts.
     private int m_consumerCount;
 
@@ -153,6 +159,8 @@ public class KafkaStreamImporterConfig implements ImporterConfig {
         //the smaller, the quicker response from kafka, minimize the blocking time.
         m_pollTimeout = parseProperty(properties, ImportDataProcessor.POLL_TIMEOUT_MS, 100);
 
+        m_decodeThreads = parseProperty(properties, ImportDataProcessor.DECODE_THREADS, 1);
+
         m_procedureMap = (Map<String, String>) properties.get(ImportDataProcessor.KAFKA10_PROCEDURES);
         if (m_procedureMap == null) {
             m_procedureMap = new HashMap<String, String>();
@@ -228,6 +236,7 @@ public class KafkaStreamImporterConfig implements ImporterConfig {
         builder.append("\n\tMaxPollRecords: " + m_maxPollRecords);
         builder.append("\n\tAutoOffsetReset: " + m_autoOffsetReset);
         builder.append("\n\tSessionTimeOut: " + m_sessionTimeOut);
+        builder.append("\n\tDecodeThreads: " + m_decodeThreads);
         builder.append("\n\tURI: " + m_uri);
         builder.append("\n\tProcedures: " + m_procedureMap);
         builder.append("\n\tFormatterBuilder: " + m_formatterBuilderMap);
@@ -356,6 +365,10 @@ public class KafkaStreamImporterConfig implements ImporterConfig {
         return m_pollTimeout;
     }
 
+    public int getDecodeThreads() {
+        return m_decodeThreads;
+    }
+
     public int getConsumerCount() {
         return m_consumerCount;
     }
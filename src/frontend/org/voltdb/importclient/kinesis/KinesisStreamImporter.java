@@ -19,7 +19,9 @@ package org.voltdb.importclient.kinesis;
 
 import java.math.BigInteger;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -47,7 +49,6 @@ import org.voltcore.logging.Level;
 import org.voltdb.client.ClientResponse;
 import org.voltdb.client.ProcedureCallback;
 import org.voltdb.importer.AbstractImporter;
-import org.voltdb.importer.Invocation;
 import org.voltdb.importer.formatter.FormatException;
 import org.voltdb.importer.formatter.Formatter;
 /**
@@ -148,7 +149,7 @@ public class KinesisStreamImporter extends AbstractImporter {
         public void initialize(InitializationInput initInput) {
 
             m_shardId = initInput.getShardId();
-            m_formatter = m_config.getFormatterBuilder().create();
+            m_formatter = createFormatter(m_config.getFormatterBuilder(), m_config.getProcedure());
 
             String seq = initInput.getExtendedSequenceNumber().getSequenceNumber();
             if (NumberUtils.isDigits(seq)) {
@@ -168,6 +169,9 @@ public class KinesisStreamImporter extends AbstractImporter {
             BigInteger seq = BigInteger.ZERO;
             m_gapTracker.resetTo();
             int offset = 0;
+            final int count = records.getRecords().size();
+            List<Object[]> paramsList = new ArrayList<>(count);
+            List<StreamProcedureCallback> callbacks = new ArrayList<>(count);
             for (Record record : records.getRecords()) {
                 m_submitCount.incrementAndGet();
                 BigInteger seqNum = new BigInteger(record.getSequenceNumber());
@@ -188,13 +192,8 @@ public class KinesisStreamImporter extends AbstractImporter {
                 Object params[] = null;
                 try {
                     params = m_formatter.transform(record.getData());
-                    Invocation invocation = new Invocation(m_config.getProcedure(), params);
-
-                    StreamProcedureCallback cb = new StreamProcedureCallback(m_gapTracker, offset, seqNum, m_cbcnt);
-                    if (!callProcedure(invocation, cb)) {
-                        rateLimitedLog(Level.ERROR, null, "Call procedure error on shard %s", m_shardId);
-                        m_gapTracker.commit(offset, seqNum);
-                    }
+                    paramsList.add(params);
+                    callbacks.add(new StreamProcedureCallback(m_gapTracker, offset, seqNum, m_cbcnt));
                 } catch (FormatException e) {
                     rateLimitedLog(Level.ERROR, e, "Data error on shard %s, data: %s", m_shardId, Arrays.toString(params));
                     m_gapTracker.commit(offset, seqNum);
@@ -205,6 +204,18 @@ public class KinesisStreamImporter extends AbstractImporter {
                 offset++;
             }
 
+            //the records of a fetch are submitted together, grouped by partition
+            if (!paramsList.isEmpty()) {
+                boolean[] results = callProcedureBatch(m_config.getProcedure(), paramsList, callbacks);
+                for (int i = 0; i < results.length; i++) {
+                    if (!results[i]) {
+                        rateLimitedLog(Level.ERROR, null, "Call procedure error on shard %s", m_shardId);
+                        StreamProcedureCallback cb = callbacks.get(i);
+                        m_gapTracker.commit(cb.m_offset, cb.m_seq);
+                    }
+                }
+            }
+
             commitCheckPoint(records.getCheckpointer());
         }
 
@@ -26,11 +26,12 @@ import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.voltcore.logging.Level;
 import org.voltdb.importer.AbstractImporter;
-import org.voltdb.importer.Invocation;
 import org.voltdb.importer.formatter.FormatException;
 import org.voltdb.importer.formatter.Formatter;
 
@@ -43,6 +44,9 @@ import java.nio.ByteBuffer;
  */
 public class PullSocketImporter extends AbstractImporter {
 
+    // Most lines read ahead of the procedure calls, as long as they are already buffered
+    private static final int MAX_LINES_PER_BATCH = 100;
+
     private PullSocketImporterConfig m_config;
     private final AtomicBoolean m_eos = new AtomicBoolean(false);
     private volatile Optional<Thread> m_thread = Optional.absent();
@@ -101,6 +105,20 @@ public class PullSocketImporter extends AbstractImporter {
         }
     }
 
+    private void submit(List<String> lines, List<Object[]> paramsList) {
+        if (paramsList.isEmpty()) {
+            return;
+        }
+        boolean[] results = callProcedureBatch(m_config.getProcedure(), paramsList, null);
+        for (int i = 0; i < results.length; i++) {
+            if (!results[i] && isDebugEnabled()) {
+                debug(null, "Failed to process Invocation possibly bad data: " + lines.get(i));
+            }
+        }
+        lines.clear();
+        paramsList.clear();
+    }
+
     private void susceptibleRun() {
         if (m_eos.get()) return;
 
@@ -108,7 +126,7 @@ public class PullSocketImporter extends AbstractImporter {
 
         m_thread = Optional.of(Thread.currentThread());
         Optional<BufferedReader> reader = null;
-        Formatter formatter = m_config.getFormatterBuilder().create();
+        Formatter formatter = createFormatter(m_config.getFormatterBuilder(), m_config.getProcedure());
         while (!m_eos.get()) {
             try {
                 reader = attemptBufferedReader();
@@ -120,19 +138,23 @@ public class PullSocketImporter extends AbstractImporter {
 
                 BufferedReader br = reader.get();
                 String csv = null;
+                List<String> lines = new ArrayList<>();
+                List<Object[]> paramsList = new ArrayList<>();
                 while ((csv=br.readLine()) != null) {
                      try{
                         Object params[] = formatter.transform(ByteBuffer.wrap(csv.getBytes()));
-                        Invocation invocation = new Invocation(m_config.getProcedure(), params);
-                        if (!callProcedure(invocation)) {
-                            if (isDebugEnabled()) {
-                                 debug(null, "Failed to process Invocation possibly bad data: " + csv);
-                            }
-                         }
+                        lines.add(csv);
+                        paramsList.add(params);
                       } catch (FormatException e){
                           rateLimitedLog(Level.ERROR, e, "Failed to tranform data: %s" ,csv);;
                       }
+                     //lines that have already arrived are submitted together, grouped by partition
+                     if (paramsList.size() < MAX_LINES_PER_BATCH && br.ready()) {
+                         continue;
+                     }
+                     submit(lines, paramsList);
                 }
+                submit(lines, paramsList);
                 if (csv == null) {
                     warn(null, m_config.getResourceID() + " peer terminated stream");
                 }
@@ -29,7 +29,6 @@ import java.util.List;
 
 import org.voltcore.logging.Level;
 import org.voltdb.importer.AbstractImporter;
-import org.voltdb.importer.Invocation;
 import org.voltdb.importer.formatter.FormatException;
 import org.voltdb.importer.formatter.Formatter;
 
@@ -39,6 +38,9 @@ import org.voltdb.importer.formatter.Formatter;
  */
 public class ServerSocketImporter extends AbstractImporter {
 
+    // Most lines read ahead of the procedure calls, as long as they are already buffered
+    private static final int MAX_LINES_PER_BATCH = 100;
+
     private final ServerSocketImporterConfig m_config;
     private List<ClientConnectionHandler> m_clients = new ArrayList<>();
 
@@ -116,25 +118,29 @@ public class ServerSocketImporter extends AbstractImporter {
             try {
                 BufferedReader in = new BufferedReader(
                         new InputStreamReader(m_clientSocket.getInputStream()));
-                Formatter formatter = m_config.getFormatterBuilder().create();
-                Object params[] = null;
+                Formatter formatter = createFormatter(m_config.getFormatterBuilder(), m_procedure);
+                List<Object[]> paramsList = new ArrayList<>();
                 while (shouldRun()) {
                     String line = in.readLine();
                     if (line == null) {
                         break; // end of stream
                     }
                     try{
-                        params = formatter.transform(ByteBuffer.wrap(line.getBytes()));
+                        Object params[] = formatter.transform(ByteBuffer.wrap(line.getBytes()));
                         //You should convert your data to params here.
-                        if (params == null) continue;
-                        Invocation invocation = new Invocation(m_procedure, params);
-                        if (!callProcedure(invocation)) {
-                            rateLimitedLog(Level.ERROR, null, "Socket importer insertion failed");
+                        if (params != null) {
+                            paramsList.add(params);
                         }
                    } catch (FormatException e){
                        rateLimitedLog(Level.ERROR, e, "Failed to tranform data: %s" ,line);
                   }
+                    //lines that have already arrived are submitted together, grouped by partition
+                    if (paramsList.size() < MAX_LINES_PER_BATCH && in.ready()) {
+                        continue;
+                    }
+                    submit(paramsList);
                 }
+                submit(paramsList);
             } catch (IOException ioe) {
                 error(ioe, "IO exception reading from client socket connection in socket importer");
             }
@@ -147,6 +153,18 @@ public class ServerSocketImporter extends AbstractImporter {
             }
         }
 
+        private void submit(List<Object[]> paramsList) {
+            if (paramsList.isEmpty()) {
+                return;
+            }
+            for (boolean result : callProcedureBatch(m_procedure, paramsList, null)) {
+                if (!result) {
+                    rateLimitedLog(Level.ERROR, null, "Socket importer insertion failed");
+                }
+            }
+            paramsList.clear();
+        }
+
         public void stopClient()
         {
             // nothing to do for now
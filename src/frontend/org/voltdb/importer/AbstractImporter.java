@@ -18,12 +18,17 @@
 package org.voltdb.importer;
 
 import java.net.URI;
+import java.util.List;
 import java.util.function.Function;
 
 import org.voltcore.logging.Level;
 import org.voltcore.logging.VoltLogger;
 import org.voltdb.InternalConnectionContext;
+import org.voltdb.VoltType;
 import org.voltdb.client.ProcedureCallback;
+import org.voltdb.importer.formatter.Formatter;
+import org.voltdb.importer.formatter.FormatterBuilder;
+import org.voltdb.importer.formatter.TypedFormatter;
 
 
 /**
@@ -120,6 +125,57 @@ public abstract class AbstractImporter
         }
     }
 
+    /**
+     * This should be used by importer implementations to execute the same stored procedure for
+     * a batch of records, typically everything decoded from one fetch. The invocations are
+     * grouped by partition and each group is queued at once.
+     *
+     * @param procName the name of the procedure to execute for each record
+     * @param paramsList the parameters of each record
+     * @param callbacks the callback for each record, or null for none
+     * @return for each record, true if the procedure execution was queued successfully; false otherwise
+     */
+    public boolean[] callProcedureBatch(String procName, List<Object[]> paramsList,
+            List<? extends ProcedureCallback> callbacks)
+    {
+        boolean[] results;
+        try {
+            results = m_importServerAdapter.callProcedureBatch(this, m_backPressurePredicate,
+                                                               callbacks, procName, paramsList);
+        } catch (Exception ex) {
+            rateLimitedLog(Level.ERROR, ex, "%s: Error trying to import", getName());
+            results = new boolean[paramsList.size()];
+        }
+        for (boolean result : results) {
+            reportStat(result, procName);
+        }
+        return results;
+    }
+
+    /**
+     * This should be used by importer implementations to create their formatters. A formatter
+     * that can produce typed values gets the parameter types of the procedure it feeds.
+     *
+     * @param builder the formatter builder of the importer configuration
+     * @param procName the name of the procedure the formatted values are passed to
+     * @return the new formatter
+     */
+    public Formatter createFormatter(FormatterBuilder builder, String procName)
+    {
+        Formatter formatter = builder.create();
+        if (formatter instanceof TypedFormatter) {
+            try {
+                VoltType[] types = m_importServerAdapter.getProcedureParameterTypes(procName);
+                if (types != null) {
+                    ((TypedFormatter) formatter).setParameterTypes(types);
+                }
+            } catch (Exception ex) {
+                rateLimitedLog(Level.WARN, ex, "%s: Failed to look up the parameters of %s", getName(), procName);
+            }
+        }
+        return formatter;
+    }
+
     /**
      * Called to stop the importer from processing more data.
      */
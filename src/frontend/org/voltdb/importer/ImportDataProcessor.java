@@ -40,6 +40,7 @@ public interface ImportDataProcessor  {
     static final String VOLTDB_HOST_COUNT = "voltdb.host.count";
     static final String KAFKA10_CONSUMER_COUNT = "kafka.consumer.count";
     static final String POLL_TIMEOUT_MS = "poll.timeout.ms";
+    static final String DECODE_THREADS = "decode.threads";
 
     /**
      * Inform the processor that initialization is complete; commence work.
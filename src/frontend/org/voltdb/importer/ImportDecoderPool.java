@@ -0,0 +1,117 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.importer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import org.voltcore.utils.CoreUtils;
+
+/**
+ * Decodes the records of a fetch on a pool of worker threads, so the thread polling the
+ * source only fetches and submits. Formatters are not required to be thread safe, so
+ * every thread decoding gets its own decoder for each key from the supplied factory.
+ */
+public class ImportDecoderPool {
+
+    // Below this many records per thread the hand off costs more than it saves
+    static final int MIN_RECORDS_PER_THREAD = 32;
+
+    public interface Decoder<T> {
+        Object[] decode(T record) throws Exception;
+    }
+
+    private final ExecutorService m_es;
+    private final int m_threads;
+    private final ThreadLocal<Map<Object, Decoder<?>>> m_decoders = ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * @param name name of the worker threads
+     * @param threads number of threads decoding, including the caller
+     */
+    public ImportDecoderPool(String name, int threads) {
+        m_threads = Math.max(1, threads);
+        m_es = m_threads > 1 ? Executors.newFixedThreadPool(m_threads - 1, CoreUtils.getThreadFactory(name)) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Decoder<T> decoder(Object key, Supplier<Decoder<T>> factory) {
+        return (Decoder<T>) m_decoders.get().computeIfAbsent(key, k -> factory.get());
+    }
+
+    /**
+     * Decode the first count records. results[i] receives the values of record i, or errors[i]
+     * the exception its decoder threw. The calling thread decodes a share of the records too.
+     *
+     * @param key identifies the decoder, for example the topic whose formatter it wraps
+     * @param factory creates the decoder for key on a thread that has none yet
+     */
+    public <T> void decode(Object key, Supplier<Decoder<T>> factory, List<T> records, int count,
+            Object[][] results, Exception[] errors) throws InterruptedException {
+        final int threads = m_es == null ? 1 : Math.min(m_threads, Math.max(1, count / MIN_RECORDS_PER_THREAD));
+        final int perThread = (count + threads - 1) / Math.max(1, threads);
+        final List<Future<?>> futures = new ArrayList<>(threads - 1);
+        for (int start = perThread; start < count; start += perThread) {
+            final int from = start;
+            final int to = Math.min(count, start + perThread);
+            futures.add(m_es.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    decodeRange(decoder(key, factory), records, from, to, results, errors);
+                    return null;
+                }
+            }));
+        }
+        decodeRange(decoder(key, factory), records, 0, Math.min(count, perThread), results, errors);
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                // decodeRange records every failure, anything else is a bug
+                throw new RuntimeException(e.getCause());
+            }
+        }
+    }
+
+    private static <T> void decodeRange(Decoder<T> decoder, List<T> records, int from, int to,
+            Object[][] results, Exception[] errors) {
+        for (int i = from; i < to; i++) {
+            try {
+                results[i] = decoder.decode(records.get(i));
+                errors[i] = null;
+            } catch (Exception e) {
+                results[i] = null;
+                errors[i] = e;
+            }
+        }
+    }
+
+    public void shutdown() {
+        if (m_es != null) {
+            m_es.shutdownNow();
+        }
+    }
+}
@@ -17,10 +17,12 @@
 
 package org.voltdb.importer;
 
-import org.voltdb.client.ProcedureCallback;
-
+import java.util.List;
 import java.util.function.Function;
 
+import org.voltdb.VoltType;
+import org.voltdb.client.ProcedureCallback;
+
 
 /**
  * Adapter that is used by importers to access the server. For example, to execute procedures
@@ -49,6 +51,40 @@ public interface ImporterServerAdapter {
      */
     public boolean callProcedure(AbstractImporter importer, Function<Integer, Boolean> backPressurePredicate, ProcedureCallback callback, String proc, Object... fieldList);
 
+    /**
+     * This is used by importers to execute the same procedure once for each of a batch of
+     * parameter sets. Implementations may group the invocations by partition and queue each
+     * group at once, which costs less than queuing them one at a time.
+     *
+     * @param importer the calling importer instance.
+     * @param backPressurePredicate the predicate to check when a partition is on back pressure,
+     *                              see {@link #callProcedure}.
+     * @param callbacks the callback for each parameter set, or null for none
+     * @param proc the name of the procedure that is to be executed
+     * @param paramsList the parameters for each invocation
+     * @return for each parameter set, true if its invocation was queued successfully
+     */
+    public default boolean[] callProcedureBatch(AbstractImporter importer, Function<Integer, Boolean> backPressurePredicate,
+            List<? extends ProcedureCallback> callbacks, String proc, List<Object[]> paramsList) {
+        final boolean[] queued = new boolean[paramsList.size()];
+        for (int i = 0; i < queued.length; i++) {
+            queued[i] = callProcedure(importer, backPressurePredicate,
+                    callbacks == null ? null : callbacks.get(i), proc, paramsList.get(i));
+        }
+        return queued;
+    }
+
+    /**
+     * Returns the type of each parameter of a procedure by index, with null for array parameters,
+     * so that importers can have their formatters produce values of those types.
+     *
+     * @param proc the name of the procedure
+     * @return the parameter types, or null if they are not known
+     */
+    public default VoltType[] getProcedureParameterTypes(String proc) {
+        return null;
+    }
+
     /**
      * This should be used by importers to report failure while trying to execute a procedure.
      *
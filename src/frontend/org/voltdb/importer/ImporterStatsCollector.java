@@ -44,6 +44,8 @@ public class ImporterStatsCollector extends SiteStatsSource
     public static final String FAILURE_COUNT_COL = "FAILURES";
     public static final String PENDING_COUNT_COL = "OUTSTANDING_REQUESTS";
     public static final String RETRY_COUNT_COL = "RETRIES";
+    public static final String BATCH_COUNT_COL = "BATCHES";
+    public static final String AVG_BATCH_SIZE_COL = "AVG_BATCH_SIZE";
 
     // Holds stats info for each known importer-procname combination.
     // Using AtomicReferences with ImmutableMap to avoid locking and faster access
@@ -90,6 +92,13 @@ public class ImporterStatsCollector extends SiteStatsSource
         statsInfo.m_failureCount.incrementAndGet();
     }
 
+    // A batch of requests was handed over together
+    public void reportBatch(String importerName, String procName, int size) {
+        StatsInfo statsInfo = getStatsInfo(importerName, procName);
+        statsInfo.m_batchCount.incrementAndGet();
+        statsInfo.m_batchedCount.addAndGet(size);
+    }
+
     // Report that the importer was successfully initialized
     public void reportInitialized(String importerName, String procName) {
         getStatsInfo(importerName, procName);
@@ -158,6 +167,7 @@ public class ImporterStatsCollector extends SiteStatsSource
         rowValues[columnNameToIndex.get(FAILURE_COUNT_COL)] = getFailureCountUpdateLast(stats);
         rowValues[columnNameToIndex.get(PENDING_COUNT_COL)] = getPendingCountUpdateLast(stats);
         rowValues[columnNameToIndex.get(RETRY_COUNT_COL)] = getRetryCountUpdateLast(stats);
+        updateBatchColumns(stats, rowValues);
 
         super.updateStatsRow(rowKey, rowValues);
     }
@@ -195,6 +205,21 @@ public class ImporterStatsCollector extends SiteStatsSource
         return value;
     }
 
+    private void updateBatchColumns(StatsInfo stats, Object rowValues[]) {
+        long batches = stats.m_batchCount.get();
+        long batched = stats.m_batchedCount.get();
+        long batchesValue = batches;
+        long batchedValue = batched;
+        if (m_isInterval) {
+            batchesValue = batches - stats.m_lastBatchCount;
+            batchedValue = batched - stats.m_lastBatchedCount;
+            stats.m_lastBatchCount = batches;
+            stats.m_lastBatchedCount = batched;
+        }
+        rowValues[columnNameToIndex.get(BATCH_COUNT_COL)] = batchesValue;
+        rowValues[columnNameToIndex.get(AVG_BATCH_SIZE_COL)] = batchesValue == 0 ? 0 : (int) (batchedValue / batchesValue);
+    }
+
     private long getPendingCountUpdateLast(StatsInfo stats) {
         long current = stats.m_pendingCount.get();
         current = (current<0) ? 0 : current; // pending could be -ve if we get callback responses
@@ -224,6 +249,8 @@ public class ImporterStatsCollector extends SiteStatsSource
         columns.add(new ColumnInfo(FAILURE_COUNT_COL, VoltType.BIGINT));
         columns.add(new ColumnInfo(PENDING_COUNT_COL, VoltType.BIGINT));
         columns.add(new ColumnInfo(RETRY_COUNT_COL, VoltType.BIGINT));
+        columns.add(new ColumnInfo(BATCH_COUNT_COL, VoltType.BIGINT));
+        columns.add(new ColumnInfo(AVG_BATCH_SIZE_COL, VoltType.INTEGER));
     }
 
     private class StatsInfo
@@ -234,10 +261,14 @@ public class ImporterStatsCollector extends SiteStatsSource
         AtomicLong m_failureCount = new AtomicLong(0);
         AtomicLong m_pendingCount = new AtomicLong(0);
         AtomicLong m_retryCount = new AtomicLong(0);
+        AtomicLong m_batchCount = new AtomicLong(0);
+        AtomicLong m_batchedCount = new AtomicLong(0);
         long m_lastSuccessCount = 0;
         long m_lastFailureCount = 0;
         long m_lastPendingCount = 0;
         long m_lastRetryCount = 0;
+        long m_lastBatchCount = 0;
+        long m_lastBatchedCount = 0;
 
         public StatsInfo(String importerName, String procName) {
             m_importerName = importerName;
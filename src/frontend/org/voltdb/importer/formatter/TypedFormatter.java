@@ -0,0 +1,36 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.importer.formatter;
+
+import org.voltdb.VoltType;
+
+/**
+ * A formatter that can produce values of the parameter types of the procedure it feeds
+ * rather than strings, parsing them straight from the source bytes. The values are converted
+ * by the procedure runner as usual, which costs next to nothing for values of the right type.
+ */
+public interface TypedFormatter extends Formatter {
+    /**
+     * Called once, before the first transform, by importers that know the procedure they invoke.
+     * Formatters that are never called keep returning strings.
+     *
+     * @param types the type of each procedure parameter by index, null for a parameter
+     * that is to be left as it is, e.g. an array parameter
+     */
+    public void setParameterTypes(VoltType[] types);
+}
@@ -20,17 +20,27 @@ package org.voltdb.importer.formatter.builtin;
 import java.io.IOException;
 import java.util.Properties;
 
+import org.voltdb.VoltType;
 import org.voltdb.common.Constants;
 import org.voltdb.importer.formatter.FormatException;
-import org.voltdb.importer.formatter.Formatter;
+import org.voltdb.importer.formatter.TypedFormatter;
 
 import au.com.bytecode.opencsv_voltpatches.CSVParser;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
-public class VoltCSVFormatter implements Formatter {
+public class VoltCSVFormatter implements TypedFormatter {
     final CSVParser m_parser;
 
+    // Records without quote and escape characters are split and converted straight from the
+    // payload bytes when the procedure parameter types are known. Only possible when the
+    // special characters are ASCII, so that they can't be part of a multi byte character.
+    private final boolean m_splitBytes;
+    private final byte m_separator;
+    private final byte m_quotechar;
+    private final byte m_escape;
+    private VoltType[] m_types;
+
     public VoltCSVFormatter (String formatName, Properties prop) {
 
         if (!("csv".equalsIgnoreCase(formatName) || "tsv".equalsIgnoreCase(formatName))) {
@@ -68,6 +78,15 @@ public class VoltCSVFormatter implements Formatter {
         }
 
         m_parser = new CSVParser(separator, quotechar, escape, strictQuotes, ignoreLeadingWhiteSpace);
+        m_splitBytes = !strictQuotes && separator < 0x80 && quotechar < 0x80 && escape < 0x80;
+        m_separator = (byte) separator;
+        m_quotechar = (byte) quotechar;
+        m_escape = (byte) escape;
+    }
+
+    @Override
+    public void setParameterTypes(VoltType[] types) {
+        m_types = types;
     }
 
     @Override
@@ -77,6 +96,12 @@ public class VoltCSVFormatter implements Formatter {
             if (payload == null) {
                 return null;
             }
+            if (m_types != null && m_splitBytes) {
+                Object list[] = splitTyped(payload.array(), payload.arrayOffset(), payload.arrayOffset() + payload.limit());
+                if (list != null) {
+                    return list;
+                }
+            }
             line = new String(payload.array(), payload.arrayOffset(), payload.limit(), StandardCharsets.UTF_8);
             Object list[] = m_parser.parseLine(line);
             if (list != null) {
@@ -93,4 +118,117 @@ public class VoltCSVFormatter implements Formatter {
             throw new FormatException("failed to format " + line, e);
         }
     }
+
+    /**
+     * Split a record that has no quote or escape characters, which the parser would split on
+     * the separator alone, and convert the fields to the parameter types. A \N field is the
+     * one use of the escape character allowed, it is NULL either way.
+     * @return the values, or null if the record has to go through the parser
+     */
+    private Object[] splitTyped(byte[] data, int start, int end) {
+        int fields = 1;
+        int fieldStart = start;
+        for (int i = start; i < end; i++) {
+            if (data[i] == m_separator) {
+                fields++;
+                fieldStart = i + 1;
+            } else if (data[i] == m_quotechar) {
+                return null;
+            } else if (data[i] == m_escape) {
+                final int fieldEnd = i + Constants.CSV_NULL.length();
+                if (i != fieldStart || fieldEnd > end || !matches(data, i, fieldEnd, Constants.CSV_NULL)
+                        || (fieldEnd < end && data[fieldEnd] != m_separator)) {
+                    return null;
+                }
+                i = fieldEnd - 1;
+            }
+        }
+        Object list[] = new Object[fields];
+        int field = 0;
+        int from = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || data[i] == m_separator) {
+                list[field] = convert(field < m_types.length ? m_types[field] : null, data, from, i);
+                field++;
+                from = i + 1;
+            }
+        }
+        return list;
+    }
+
+    private static Object convert(VoltType type, byte[] data, int from, int to) {
+        if (isNull(data, from, to)) {
+            return null;
+        }
+        Object value = null;
+        if (type != null) {
+            switch (type) {
+            case TINYINT:
+            case SMALLINT:
+            case INTEGER:
+            case BIGINT:
+                // narrowed and range checked by the procedure runner
+                value = parseLong(data, from, to);
+                break;
+            case VARBINARY:
+                value = parseHex(data, from, to);
+                break;
+            default:
+                break;
+            }
+        }
+        // anything not converted here is converted from the string like it always was
+        return value != null ? value : new String(data, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isNull(byte[] data, int from, int to) {
+        return matches(data, from, to, "NULL") || matches(data, from, to, Constants.CSV_NULL);
+    }
+
+    private static boolean matches(byte[] data, int from, int to, String ascii) {
+        if (to - from != ascii.length()) {
+            return false;
+        }
+        for (int i = 0; i < ascii.length(); i++) {
+            if (data[from + i] != ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Plain decimal integers short enough not to overflow, null for anything else
+    private static Long parseLong(byte[] data, int from, int to) {
+        boolean negative = from < to && data[from] == '-';
+        int i = negative ? from + 1 : from;
+        if (i == to || to - i > 18) {
+            return null;
+        }
+        long value = 0;
+        for (; i < to; i++) {
+            int digit = data[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return null;
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    // Plain hex strings of whole bytes, null for anything else
+    private static byte[] parseHex(byte[] data, int from, int to) {
+        if (from == to || ((to - from) & 1) != 0) {
+            return null;
+        }
+        byte[] value = new byte[(to - from) / 2];
+        for (int i = 0; i < value.length; i++) {
+            int high = Character.digit(data[from + 2 * i], 16);
+            int low = Character.digit(data[from + 2 * i + 1], 16);
+            if (high < 0 || low < 0) {
+                return null;
+            }
+            value[i] = (byte) ((high << 4) | low);
+        }
+        return value;
+    }
 }
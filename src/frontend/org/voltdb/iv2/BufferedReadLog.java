@@ -101,6 +101,12 @@ public class BufferedReadLog
     }
 
 
+    public boolean hasReleasableReads(long spHandle)
+    {
+        Item item = m_bufferedReads.peek();
+        return item != null && item.getSafeSpHandle() <= spHandle;
+    }
+
     public void releaseBufferedReads(Mailbox mailbox, long spHandle)
     {
         Deque<Item> deq = m_bufferedReads;
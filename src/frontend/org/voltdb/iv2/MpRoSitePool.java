@@ -26,6 +26,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.utils.CoreUtils;
 import org.voltdb.BackendTarget;
@@ -37,12 +38,96 @@ import org.voltdb.StarvationTracker;
  * Provide a pool of MP Read-only sites to do MP RO work.
  * This should be owned by the MpTransactionTaskQueue and expects all operations
  * to be done while holding its lock.
+ *
+ * The pool keeps at least mpiReadPoolMinSize sites and grows up to mpiReadPoolSize
+ * sites while reads are queued behind busy sites. Sites that stay idle longer than
+ * mpiReadPoolIdleTimeoutMs are retired again, down to the minimum.
  */
 class MpRoSitePool {
     final static VoltLogger tmLog = new VoltLogger("TM");
 
     static int DEFAULT_MAX_POOL_SIZE = 20;
-    static int INITIAL_POOL_SIZE = 1;
+    static int DEFAULT_MIN_POOL_SIZE = 1;
+    static long DEFAULT_IDLE_TIMEOUT_MS = 60 * 1000;
+
+    /**
+     * Decides how many sites the pool may have. Grows with the number of reads
+     * waiting for a site. If the reads already running got much slower since the
+     * last growth they are contending for cpu or memory rather than waiting for a
+     * site, so the pool then grows by one site at most every few read latencies.
+     */
+    static class PoolSizer {
+        // Average latency increase since the last growth that is taken as contention
+        static final double CONTENTION_LATENCY_RATIO = 2.0;
+        // Under contention grow at most once per this many average read latencies
+        static final int CONTENDED_GROWTH_LATENCIES = 10;
+        private static final double LATENCY_WEIGHT = 0.1;
+
+        final int m_minSize;
+        final int m_maxSize;
+        final long m_idleTimeoutNanos;
+        private int m_targetSize;
+        private double m_avgLatencyNanos = 0;
+        private double m_latencyAtLastGrowth = 0;
+        private long m_lastGrowthNanos = 0;
+
+        PoolSizer(int minSize, int maxSize, long idleTimeoutNanos) {
+            m_minSize = Math.max(1, minSize);
+            m_maxSize = Math.max(m_minSize, maxSize);
+            m_idleTimeoutNanos = idleTimeoutNanos;
+            m_targetSize = m_minSize;
+        }
+
+        int target() {
+            return m_targetSize;
+        }
+
+        long avgLatencyNanos() {
+            return (long) m_avgLatencyNanos;
+        }
+
+        void recordLatency(long nanos) {
+            m_avgLatencyNanos = m_avgLatencyNanos == 0 ? nanos
+                    : m_avgLatencyNanos + LATENCY_WEIGHT * (nanos - m_avgLatencyNanos);
+        }
+
+        /**
+         * @return true if the target size was raised
+         */
+        boolean grow(int busySites, int queuedReads, long nowNanos) {
+            if (queuedReads <= 0 || m_targetSize >= m_maxSize) {
+                return false;
+            }
+            int newTarget = Math.min(m_maxSize, busySites + queuedReads);
+            if (m_latencyAtLastGrowth > 0
+                    && m_avgLatencyNanos > CONTENTION_LATENCY_RATIO * m_latencyAtLastGrowth) {
+                if (nowNanos - m_lastGrowthNanos < CONTENDED_GROWTH_LATENCIES * m_avgLatencyNanos) {
+                    return false;
+                }
+                newTarget = m_targetSize + 1;
+            }
+            if (newTarget <= m_targetSize) {
+                return false;
+            }
+            m_targetSize = newTarget;
+            m_latencyAtLastGrowth = m_avgLatencyNanos;
+            m_lastGrowthNanos = nowNanos;
+            return true;
+        }
+
+        boolean isIdleTooLong(long idleSinceNanos, long nowNanos) {
+            return nowNanos - idleSinceNanos > m_idleTimeoutNanos;
+        }
+
+        /**
+         * Sites were retired, so the pool is now down to siteCount sites
+         */
+        void shrunk(int siteCount) {
+            m_targetSize = Math.max(m_minSize, Math.min(m_targetSize, siteCount));
+            // Latency observed at a larger size says nothing about contention now
+            m_latencyAtLastGrowth = 0;
+        }
+    }
 
     class MpRoSiteContext {
         final private SiteTaskerQueue m_queue;
@@ -50,6 +135,8 @@ class MpRoSitePool {
         final private CatalogContext m_catalogContext;
         final private LoadedProcedureSet m_loadedProcedures;
         final private Thread m_siteThread;
+        private long m_idleSinceNanos;
+        private long m_startNanos;
 
         MpRoSiteContext(long siteId, BackendTarget backend,
                 CatalogContext context, int partitionId,
@@ -110,9 +197,18 @@ class MpRoSitePool {
     private final InitiatorMailbox m_initiatorMailbox;
     private CatalogContext m_catalogContext;
     private ThreadFactory m_poolThreadFactory;
-    private final int m_poolSize;
+    private final PoolSizer m_sizer;
     private volatile boolean m_shuttingDown = false;
 
+    // Published for the MPREADPOOL statistics, which are read without the queue lock
+    private volatile int m_activeCount = 0;
+    private volatile int m_idleCount = 0;
+    private volatile int m_queuedCount = 0;
+    private volatile int m_targetCount = 0;
+    private volatile long m_avgLatencyNanos = 0;
+    private volatile long m_sitesCreated = 0;
+    private volatile long m_sitesRetired = 0;
+
     MpRoSitePool(
             long siteId,
             BackendTarget backend,
@@ -131,22 +227,47 @@ class MpRoSitePool {
 
         Integer poolSize = Integer.getInteger("mpiReadPoolSize");
         if (poolSize == null) {
-            poolSize = DEFAULT_MAX_POOL_SIZE;
+            // Don't leave cores idle behind the fixed default on big hosts
+            poolSize = Math.max(DEFAULT_MAX_POOL_SIZE, CoreUtils.availableProcessors());
         }
-        m_poolSize = poolSize;
-        tmLog.info("Setting maximum size of MPI read pool to: " + m_poolSize);
+        m_sizer = new PoolSizer(Integer.getInteger("mpiReadPoolMinSize", DEFAULT_MIN_POOL_SIZE),
+                poolSize,
+                TimeUnit.MILLISECONDS.toNanos(Long.getLong("mpiReadPoolIdleTimeoutMs", DEFAULT_IDLE_TIMEOUT_MS)));
+        tmLog.info("Setting size of MPI read pool to between " + m_sizer.m_minSize
+                + " and " + m_sizer.m_maxSize + " sites");
 
         // Construct the initial pool
-        for (int i = 0; i < INITIAL_POOL_SIZE; i++) {
-            MpRoSiteContext site = new MpRoSiteContext(m_siteId,
-                    m_backend,
-                    m_catalogContext,
-                    m_partitionId,
-                    m_initiatorMailbox,
-                    m_poolThreadFactory);
+        for (int i = 0; i < m_sizer.m_minSize; i++) {
+            MpRoSiteContext site = createSite();
+            site.m_idleSinceNanos = System.nanoTime();
             m_idleSites.push(site);
-            m_allSites.add(site);
         }
+        publishCounts();
+    }
+
+    private MpRoSiteContext createSite() {
+        MpRoSiteContext site = new MpRoSiteContext(m_siteId,
+                m_backend,
+                m_catalogContext,
+                m_partitionId,
+                m_initiatorMailbox,
+                m_poolThreadFactory);
+        m_allSites.add(site);
+        m_sitesCreated++;
+        return site;
+    }
+
+    private void retireSite(MpRoSiteContext site) {
+        site.shutdown();
+        m_allSites.remove(site);
+        m_sitesRetired++;
+    }
+
+    private void publishCounts() {
+        m_activeCount = m_busySites.size();
+        m_idleCount = m_idleSites.size();
+        m_targetCount = m_sizer.target();
+        m_avgLatencyNanos = m_sizer.avgLatencyNanos();
     }
 
     /**
@@ -167,11 +288,11 @@ class MpRoSitePool {
             MpRoSiteContext site = siterator.next();
             if (site.getCatalogCRC() != m_catalogContext.getCatalogCRC()
                     || site.getCatalogVersion() != m_catalogContext.catalogVersion) {
-                site.shutdown();
-                m_idleSites.remove(site);
-                m_allSites.remove(site);
+                siterator.remove();
+                retireSite(site);
             }
         }
+        publishCounts();
     }
 
     /**
@@ -208,7 +329,45 @@ class MpRoSitePool {
         if (m_shuttingDown) {
             return false;
         }
-        return (!m_idleSites.isEmpty() || m_busySites.size() < m_poolSize);
+        return (!m_idleSites.isEmpty() || m_busySites.size() < m_sizer.target());
+    }
+
+    /**
+     * Called when queuedReads reads at the head of the backlog could not be handed
+     * to the pool. Raises the number of sites the pool may create if that looks
+     * like it would help.
+     * @return true if the pool can now accept more work
+     */
+    boolean growForBacklog(int queuedReads)
+    {
+        m_queuedCount = queuedReads;
+        if (m_shuttingDown || !m_sizer.grow(m_busySites.size(), queuedReads, System.nanoTime())) {
+            return false;
+        }
+        if (tmLog.isDebugEnabled()) {
+            tmLog.debug("Growing MPI read pool to " + m_sizer.target() + " sites for "
+                    + queuedReads + " queued reads");
+        }
+        publishCounts();
+        return canAcceptWork();
+    }
+
+    /**
+     * Record how many reads are waiting for a site, for statistics only
+     */
+    void setQueuedReads(int queuedReads)
+    {
+        m_queuedCount = queuedReads;
+    }
+
+    int getMaxSize()
+    {
+        return m_sizer.m_maxSize;
+    }
+
+    long getIdleTimeoutMs()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(m_sizer.m_idleTimeoutNanos);
     }
 
     /**
@@ -228,17 +387,14 @@ class MpRoSitePool {
         }
         else {
             if (m_idleSites.isEmpty()) {
-                MpRoSiteContext newSite = new MpRoSiteContext(m_siteId,
-                        m_backend,
-                        m_catalogContext,
-                        m_partitionId,
-                        m_initiatorMailbox,
-                        m_poolThreadFactory);
-                m_idleSites.push(newSite);
-                m_allSites.add(newSite);
+                m_idleSites.push(createSite());
             }
             site = m_idleSites.pop();
+            site.m_startNanos = System.nanoTime();
             m_busySites.put(txnId, site);
+            // the sites left idle have not been picked up, they may have been idle too long
+            retireIdleSites(site.m_startNanos);
+            publishCounts();
         }
         site.offer(task);
         return true;
@@ -257,17 +413,94 @@ class MpRoSitePool {
         if (site == null) {
             throw new RuntimeException("No busy site for txnID: " + txnId + " found, shouldn't happen.");
         }
+        final long now = System.nanoTime();
+        m_sizer.recordLatency(now - site.m_startNanos);
         // check the catalog versions, only push back onto idle if the catalog hasn't changed
         // otherwise, just let it get garbage collected and let doWork() construct new ones for the
         // pool with the updated catalog.
         if (site.getCatalogCRC() == m_catalogContext.getCatalogCRC()
                 && site.getCatalogVersion() == m_catalogContext.catalogVersion) {
+            site.m_idleSinceNanos = now;
             m_idleSites.push(site);
         }
         else {
-            site.shutdown();
-            m_allSites.remove(site);
+            retireSite(site);
         }
+        retireIdleSites(now);
+        publishCounts();
+    }
+
+    /**
+     * Shrink the pool while no reads complete, called periodically
+     */
+    void retireIdleSites()
+    {
+        if (m_shuttingDown) {
+            return;
+        }
+        retireIdleSites(System.nanoTime());
+        publishCounts();
+    }
+
+    /**
+     * Shut down sites beyond the minimum pool size that have not been used for
+     * longer than the idle timeout. Idle sites are reused most recently used
+     * first, so the ones idle the longest are at the bottom of the stack.
+     */
+    private void retireIdleSites(long now)
+    {
+        boolean retired = false;
+        while (m_allSites.size() > m_sizer.m_minSize && !m_idleSites.isEmpty()
+                && m_sizer.isIdleTooLong(m_idleSites.peekLast().m_idleSinceNanos, now)) {
+            retireSite(m_idleSites.pollLast());
+            retired = true;
+        }
+        if (retired) {
+            m_sizer.shrunk(m_allSites.size());
+            if (tmLog.isDebugEnabled()) {
+                tmLog.debug("Shrinking MPI read pool to " + m_allSites.size() + " sites");
+            }
+        }
+    }
+
+    int getActiveCount()
+    {
+        return m_activeCount;
+    }
+
+    int getIdleCount()
+    {
+        return m_idleCount;
+    }
+
+    int getQueuedCount()
+    {
+        return m_queuedCount;
+    }
+
+    int getTargetSize()
+    {
+        return m_targetCount;
+    }
+
+    int getMinSize()
+    {
+        return m_sizer.m_minSize;
+    }
+
+    long getAverageLatencyNanos()
+    {
+        return m_avgLatencyNanos;
+    }
+
+    long getSitesCreated()
+    {
+        return m_sitesCreated;
+    }
+
+    long getSitesRetired()
+    {
+        return m_sitesRetired;
     }
 
     void shutdown()
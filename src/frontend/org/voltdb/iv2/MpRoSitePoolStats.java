@@ -0,0 +1,87 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.iv2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.voltdb.StatsSource;
+import org.voltdb.VoltTable.ColumnInfo;
+import org.voltdb.VoltType;
+
+/**
+ * One row describing the sizing and load of the MPI read-only site pool.
+ */
+public class MpRoSitePoolStats extends StatsSource {
+
+    public enum StatName {
+        ACTIVE,
+        IDLE,
+        QUEUED,
+        TARGET_SIZE,
+        MIN_SIZE,
+        MAX_SIZE,
+        AVG_LATENCY,
+        SITES_CREATED,
+        SITES_RETIRED
+    };
+
+    private final MpRoSitePool m_pool;
+
+    MpRoSitePoolStats(MpRoSitePool pool) {
+        super(false);
+        m_pool = pool;
+    }
+
+    @Override
+    protected void populateColumnSchema(ArrayList<ColumnInfo> columns) {
+        super.populateColumnSchema(columns);
+        columns.add(new ColumnInfo(StatName.ACTIVE.name(), VoltType.INTEGER));
+        columns.add(new ColumnInfo(StatName.IDLE.name(), VoltType.INTEGER));
+        columns.add(new ColumnInfo(StatName.QUEUED.name(), VoltType.INTEGER));
+        columns.add(new ColumnInfo(StatName.TARGET_SIZE.name(), VoltType.INTEGER));
+        columns.add(new ColumnInfo(StatName.MIN_SIZE.name(), VoltType.INTEGER));
+        columns.add(new ColumnInfo(StatName.MAX_SIZE.name(), VoltType.INTEGER));
+        // Moving average of read transaction latency in microseconds
+        columns.add(new ColumnInfo(StatName.AVG_LATENCY.name(), VoltType.BIGINT));
+        columns.add(new ColumnInfo(StatName.SITES_CREATED.name(), VoltType.BIGINT));
+        columns.add(new ColumnInfo(StatName.SITES_RETIRED.name(), VoltType.BIGINT));
+    }
+
+    @Override
+    protected void updateStatsRow(Object rowKey, Object[] rowValues) {
+        rowValues[columnNameToIndex.get(StatName.ACTIVE.name())] = m_pool.getActiveCount();
+        rowValues[columnNameToIndex.get(StatName.IDLE.name())] = m_pool.getIdleCount();
+        rowValues[columnNameToIndex.get(StatName.QUEUED.name())] = m_pool.getQueuedCount();
+        rowValues[columnNameToIndex.get(StatName.TARGET_SIZE.name())] = m_pool.getTargetSize();
+        rowValues[columnNameToIndex.get(StatName.MIN_SIZE.name())] = m_pool.getMinSize();
+        rowValues[columnNameToIndex.get(StatName.MAX_SIZE.name())] = m_pool.getMaxSize();
+        rowValues[columnNameToIndex.get(StatName.AVG_LATENCY.name())] =
+                TimeUnit.NANOSECONDS.toMicros(m_pool.getAverageLatencyNanos());
+        rowValues[columnNameToIndex.get(StatName.SITES_CREATED.name())] = m_pool.getSitesCreated();
+        rowValues[columnNameToIndex.get(StatName.SITES_RETIRED.name())] = m_pool.getSitesRetired();
+        super.updateStatsRow(rowKey, rowValues);
+    }
+
+    @Override
+    protected Iterator<Object> getStatsRowKeyIterator(boolean interval) {
+        return Collections.<Object>singletonList(m_pool).iterator();
+    }
+}
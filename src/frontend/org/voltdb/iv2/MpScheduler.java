@@ -26,6 +26,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.json_voltpatches.JSONException;
 import org.json_voltpatches.JSONObject;
@@ -81,6 +83,7 @@ public class MpScheduler extends Scheduler
     private final UniqueIdGenerator m_uniqueIdGenerator;
     final private MpTransactionTaskQueue m_pendingTasks;
     private final int m_leaderNodeId;
+    private ScheduledFuture<?> m_idleSiteRetirement = null;
 
     // the current not-needed-any-more point of the repair log.
     long m_repairLogTruncationHandle = Long.MIN_VALUE;
@@ -104,6 +107,14 @@ public class MpScheduler extends Scheduler
     void setMpRoSitePool(MpRoSitePool sitePool)
     {
         m_pendingTasks.setMpRoSitePool(sitePool);
+        // The pool also shrinks when reads complete, this covers the time without any
+        final long interval = Math.max(1, sitePool.getIdleTimeoutMs() / 2);
+        m_idleSiteRetirement = VoltDB.instance().scheduleWork(new Runnable() {
+            @Override
+            public void run() {
+                m_pendingTasks.retireIdleSites();
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
     }
 
     void updateCatalog(String diffCmds, CatalogContext context)
@@ -123,6 +134,9 @@ public class MpScheduler extends Scheduler
         // response to roll back. This function must be called with
         // the deliver lock held to be correct. The null task should
         // never run; the site thread is expected to be told to stop.
+        if (m_idleSiteRetirement != null) {
+            m_idleSiteRetirement.cancel(false);
+        }
         m_pendingTasks.shutdown();
         m_pendingTasks.repair(m_nullTask, m_iv2Masters, m_partitionMasters, false);
         m_tasks.offer(m_nullTask);
@@ -71,6 +71,11 @@ public class MpTransactionTaskQueue extends TransactionTaskQueue
         m_sitePool.updateSettings(context);
     }
 
+    synchronized void retireIdleSites()
+    {
+        m_sitePool.retireIdleSites();
+    }
+
     void shutdown()
     {
         if (m_sitePool != null) {
@@ -213,7 +218,7 @@ public class MpTransactionTaskQueue extends TransactionTaskQueue
             }
             else if (m_currentWrites.isEmpty()) {
                 while (task != null && task.getTransactionState().isReadOnly() &&
-                       m_sitePool.canAcceptWork())
+                       (m_sitePool.canAcceptWork() || m_sitePool.growForBacklog(queuedReads())))
                 {
                     task = m_backlog.pollFirst();
                     assert(task.getTransactionState().isReadOnly());
@@ -224,11 +229,29 @@ public class MpTransactionTaskQueue extends TransactionTaskQueue
                     // task will be null
                     task = m_backlog.peekFirst();
                 }
+                if (task == null || !task.getTransactionState().isReadOnly()) {
+                    m_sitePool.setQueuedReads(0);
+                }
             }
         }
         return retval;
     }
 
+    /**
+     * Number of reads at the head of the backlog, counting no further than the
+     * most sites the pool could ever run
+     */
+    private int queuedReads()
+    {
+        final int limit = m_sitePool.getMaxSize();
+        int count = 0;
+        Iterator<TransactionTask> iter = m_backlog.iterator();
+        while (count < limit && iter.hasNext() && iter.next().getTransactionState().isReadOnly()) {
+            ++count;
+        }
+        return count;
+    }
+
     /**
      * Indicate that the transaction associated with txnId is complete.  Perform
      * management of reads/writes in progress then call taskQueueOffer() to
@@ -51,6 +51,8 @@ import org.voltdb.utils.CatalogUtil;
  */
 public class RejoinProducer extends JoinProducerBase {
     private static final VoltLogger REJOINLOG = new VoltLogger("REJOIN");
+    // Upper bound on snapshot blocks restored in one pass through the task queue
+    private static final int MAX_RESTORE_BLOCKS_PER_TASK = Integer.getInteger("REJOIN_BLOCKS_PER_TASK", 4);
 
     private final AtomicBoolean m_currentlyRejoining;
     private static ScheduledFuture<?> m_timeFuture;
@@ -219,6 +221,9 @@ public class RejoinProducer extends JoinProducerBase {
         if (!m_schemaHasNoTables) {
             m_streamSnapshotMb = VoltDB.instance().getHostMessenger().createMailbox();
             m_rejoinSiteProcessor = new StreamSnapshotSink(m_streamSnapshotMb);
+            if (message.getSnapshotProgress() != null) {
+                m_rejoinSiteProcessor.setProgressCounter(message.getSnapshotProgress().register(m_mailbox.getHSId()));
+            }
         }
         else {
             m_streamSnapshotMb = null;
@@ -306,8 +311,13 @@ public class RejoinProducer extends JoinProducerBase {
         }
         if (!m_schemaHasNoTables) {
             boolean sourcesReady = false;
-            RestoreWork rejoinWork = m_rejoinSiteProcessor.poll(m_snapshotBufferAllocator);
-            if (rejoinWork != null) {
+            // Blocks arrive from several sender threads, apply what is already
+            // decompressed instead of going around the task queue for each one
+            for (int i = 0; i < MAX_RESTORE_BLOCKS_PER_TASK; i++) {
+                RestoreWork rejoinWork = m_rejoinSiteProcessor.poll(m_snapshotBufferAllocator);
+                if (rejoinWork == null) {
+                    break;
+                }
                 restoreBlock(rejoinWork, siteConnection);
                 sourcesReady = true;
             }
@@ -17,11 +17,9 @@
 
 package org.voltdb.iv2;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Deque;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -68,6 +66,7 @@ public class RepairLog
     long m_HSId = Long.MIN_VALUE;
 
     // want voltmessage as payload with message-independent metadata.
+    // Only materialized when the log contents are requested for repair.
     static class Item
     {
         final VoltMessage m_msg;
@@ -106,27 +105,116 @@ public class RepairLog
         {
             return m_type == IS_MP;
         }
+    }
+
+    /**
+     * Growable ring buffer holding the logged messages and their handles and
+     * txn ids in parallel arrays, so logging a message allocates nothing once
+     * the ring has reached its working size. Entries are appended in handle
+     * order and truncated from the head by index.
+     */
+    static final class LogRing
+    {
+        private static final int INITIAL_CAPACITY = 256;
+
+        private final boolean m_type;
+        private VoltMessage[] m_msgs;
+        private long[] m_handles;
+        private long[] m_txnIds;
+        // index of the oldest entry
+        private int m_head = 0;
+        private int m_size = 0;
+
+        LogRing(boolean type)
+        {
+            m_type = type;
+            m_msgs = new VoltMessage[INITIAL_CAPACITY];
+            m_handles = new long[INITIAL_CAPACITY];
+            m_txnIds = new long[INITIAL_CAPACITY];
+        }
+
+        void add(VoltMessage msg, long handle, long txnId)
+        {
+            if (m_size == m_msgs.length) {
+                grow();
+            }
+            final int index = (m_head + m_size) & (m_msgs.length - 1);
+            m_msgs[index] = msg;
+            m_handles[index] = handle;
+            m_txnIds[index] = txnId;
+            m_size++;
+        }
+
+        private void grow()
+        {
+            final int capacity = m_msgs.length << 1;
+            VoltMessage[] msgs = new VoltMessage[capacity];
+            long[] handles = new long[capacity];
+            long[] txnIds = new long[capacity];
+            // unroll the ring so the head is at index 0
+            final int firstPart = Math.min(m_size, m_msgs.length - m_head);
+            System.arraycopy(m_msgs, m_head, msgs, 0, firstPart);
+            System.arraycopy(m_handles, m_head, handles, 0, firstPart);
+            System.arraycopy(m_txnIds, m_head, txnIds, 0, firstPart);
+            System.arraycopy(m_msgs, 0, msgs, firstPart, m_size - firstPart);
+            System.arraycopy(m_handles, 0, handles, firstPart, m_size - firstPart);
+            System.arraycopy(m_txnIds, 0, txnIds, firstPart, m_size - firstPart);
+            m_msgs = msgs;
+            m_handles = handles;
+            m_txnIds = txnIds;
+            m_head = 0;
+        }
 
-        boolean canTruncate(long handle)
+        /**
+         * Drop all the leading entries at or below handle. SP entries are
+         * compared by their handle, MP entries by their txn id.
+         */
+        void truncate(long handle)
         {
-            if (isSP() && m_handle <= handle) {
-                return true;
+            final long[] keys = (m_type == IS_SP) ? m_handles : m_txnIds;
+            final int mask = m_msgs.length - 1;
+            while (m_size > 0 && keys[m_head] <= handle) {
+                // release the message for GC
+                m_msgs[m_head] = null;
+                m_head = (m_head + 1) & mask;
+                m_size--;
             }
-            else if (isMP() && m_txnId <= handle) {
-                return true;
+        }
+
+        boolean isEmpty()
+        {
+            return m_size == 0;
+        }
+
+        int size()
+        {
+            return m_size;
+        }
+
+        long getLastHandle()
+        {
+            assert(m_size > 0);
+            return m_handles[(m_head + m_size - 1) & (m_msgs.length - 1)];
+        }
+
+        void addItemsTo(List<Item> items)
+        {
+            final int mask = m_msgs.length - 1;
+            for (int i = 0; i < m_size; i++) {
+                final int index = (m_head + i) & mask;
+                items.add(new Item(m_type, m_msgs[index], m_handles[index], m_txnIds[index]));
             }
-            return false;
         }
     }
 
     // log storage.
-    final Deque<Item> m_logSP;
-    final Deque<Item> m_logMP;
+    final LogRing m_logSP;
+    final LogRing m_logMP;
 
     RepairLog()
     {
-        m_logSP = new ArrayDeque<Item>();
-        m_logMP = new ArrayDeque<Item>();
+        m_logSP = new LogRing(IS_SP);
+        m_logMP = new LogRing(IS_MP);
     }
 
     // get the HSID for dump logging
@@ -144,7 +232,7 @@ public class RepairLog
         // action always happens after repair is completed.
         if (m_isLeader) {
             if (!m_logSP.isEmpty()) {
-                truncate(m_logSP.getLast().getHandle(), IS_SP);
+                truncate(m_logSP.getLastHandle(), IS_SP);
             }
         }
     }
@@ -177,7 +265,7 @@ public class RepairLog
                 return;
             }
 
-            m_logSP.add(new Item(IS_SP, m, m.getSpHandle(), m.getTxnId()));
+            m_logSP.add(m, m.getSpHandle(), m.getTxnId());
         } else if (msg instanceof FragmentTaskMessage) {
             boolean newMp = false;
             final FragmentTaskMessage m = (FragmentTaskMessage) msg;
@@ -194,7 +282,7 @@ public class RepairLog
             truncate(m.getTruncationHandle(), IS_MP);
             // only log the first fragment of a procedure (and handle 1st case)
             if (newMp) {
-                m_logMP.add(new Item(IS_MP, m, m.getSpHandle(), m.getTxnId()));
+                m_logMP.add(m, m.getSpHandle(), m.getTxnId());
                 m_lastSpHandle = m.getSpHandle();
             }
         }
@@ -215,7 +303,7 @@ public class RepairLog
             }
 
             truncate(ctm.getTruncationHandle(), IS_MP);
-            m_logMP.add(new Item(IS_MP, ctm, ctm.getSpHandle(), ctm.getTxnId()));
+            m_logMP.add(ctm, ctm.getSpHandle(), ctm.getTxnId());
             m_lastSpHandle = ctm.getSpHandle();
         }
         else if (msg instanceof DumpMessage) {
@@ -240,25 +328,15 @@ public class RepairLog
             return;
         }
 
-        Deque<RepairLog.Item> deq = null;
         if (isSP) {
-            deq = m_logSP;
             if (m_truncationHandle < handle) {
                 m_truncationHandle = handle;
                 notifyTxnCommitInterests(handle);
             }
+            m_logSP.truncate(handle);
         }
         else {
-            deq = m_logMP;
-        }
-
-        RepairLog.Item item = null;
-        while ((item = deq.peek()) != null) {
-            if (item.canTruncate(handle)) {
-                deq.poll();
-            } else {
-                break;
-            }
+            m_logMP.truncate(handle);
         }
     }
 
@@ -286,12 +364,12 @@ public class RepairLog
     // produce the contents of the repair log.
     public List<Iv2RepairLogResponseMessage> contents(long requestId, boolean forMPI)
     {
-        List<Item> items = new LinkedList<Item>();
+        List<Item> items = new ArrayList<Item>(m_logMP.size() + (forMPI ? 0 : m_logSP.size()));
         // All cases include the log of MP transactions
-        items.addAll(m_logMP);
+        m_logMP.addItemsTo(items);
         // SP repair requests also want the SP transactions
         if (!forMPI) {
-            items.addAll(m_logSP);
+            m_logSP.addItemsTo(items);
         }
 
         // Contents need to be sorted in increasing spHandle order
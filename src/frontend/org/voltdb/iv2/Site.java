@@ -84,6 +84,7 @@ import org.voltdb.catalog.Database;
 import org.voltdb.catalog.Deployment;
 import org.voltdb.catalog.Procedure;
 import org.voltdb.catalog.Table;
+import org.voltdb.compiler.TableCardinalities;
 import org.voltdb.dtxn.SiteTracker;
 import org.voltdb.dtxn.TransactionState;
 import org.voltdb.dtxn.UndoAction;
@@ -822,16 +823,27 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
         m_startupConfig = null; // release the serializableCatalog.
         //Maintain a minimum ratio of task log (unrestricted) to live (restricted) transactions
         final MinimumRatioMaintainer mrm = new MinimumRatioMaintainer(m_taskLogReplayRatio);
+        final SiteTasker[] taskBatch = new SiteTasker[SiteTaskerQueue.MAX_BATCH_SIZE];
         try {
             while (m_shouldContinue) {
                 if (m_rejoinState == kStateRunning) {
-                    // Normal operation blocks the site thread on the sitetasker queue.
-                    SiteTasker task = m_scheduler.take();
-                    if (task instanceof TransactionTask) {
-                        m_currentTxnId = ((TransactionTask)task).getTxnId();
-                        m_lastTxnTime = EstTime.currentTimeMillis();
+                    // Normal operation blocks the site thread on the sitetasker queue
+                    // and runs everything that was queued up when it wakes.
+                    final int count = m_scheduler.takeBatch(taskBatch);
+                    for (int i = 0; i < count; i++) {
+                        SiteTasker task = taskBatch[i];
+                        taskBatch[i] = null;
+                        if (!m_shouldContinue) {
+                            continue;
+                        }
+                        if (task instanceof TransactionTask) {
+                            m_currentTxnId = ((TransactionTask)task).getTxnId();
+                            m_lastTxnTime = EstTime.currentTimeMillis();
+                        }
+                        m_scheduler.startTask(task);
+                        task.run(getSiteProcedureConnection());
                     }
-                    task.run(getSiteProcedureConnection());
+                    m_scheduler.finishBatch();
                 } else if (m_rejoinState == kStateReplayingRejoin) {
                     // Rejoin operation poll and try to do some catchup work. Tasks
                     // are responsible for logging any rejoin work they might have.
@@ -1318,6 +1330,10 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
             long indexMem = 0;
             long stringMem = 0;
 
+            // row counts for the planner estimates
+            Map<String, Long> tableTuples = new HashMap<>();
+            Map<String, Map<String, Long>> indexEntries = new HashMap<>();
+
             // update table stats
             final VoltTable[] s1 =
                 m_ee.getStats(StatsSelector.TABLE, tableIds, false, time);
@@ -1333,8 +1349,11 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
                     assert(stats.getColumnName(5).equals("TABLE_NAME"));
                     boolean isReplicated = tables.getIgnoreCase(stats.getString(5)).getIsreplicated();
                     boolean trackMemory = (!isReplicated) || m_isLowestSiteId;
-                    if ("PersistentTable".equals(stats.getString(6)) && trackMemory){
-                        tupleCount += stats.getLong(7);
+                    if ("PersistentTable".equals(stats.getString(6))) {
+                        if (trackMemory) {
+                            tupleCount += stats.getLong(7);
+                        }
+                        tableTuples.put(stats.getString(5), stats.getLong(7));
                     }
                     assert(stats.getColumnName(8).equals("TUPLE_ALLOCATED_MEMORY"));
                     if (trackMemory) {
@@ -1376,6 +1395,10 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
                     if (trackMemory) {
                         indexMem += stats.getLong(11);
                     }
+                    assert(stats.getColumnName(5).equals("INDEX_NAME"));
+                    assert(stats.getColumnName(10).equals("ENTRY_COUNT"));
+                    indexEntries.computeIfAbsent(stats.getString(6), t -> new HashMap<>())
+                                .put(stats.getString(5), stats.getLong(10));
                 }
                 stats.resetRowPosition();
 
@@ -1397,6 +1420,8 @@ public class Site implements Runnable, SiteProcedureConnection, SiteSnapshotConn
                                             stringMem,
                                             m_ee.getThreadLocalPoolAllocations());
             }
+
+            TableCardinalities.instance().update(m_partitionId, tableTuples, indexEntries);
         }
     }
 
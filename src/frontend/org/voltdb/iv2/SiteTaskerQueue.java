@@ -17,16 +17,30 @@
 
 package org.voltdb.iv2;
 
-import java.util.concurrent.LinkedTransferQueue;
-
-import org.voltcore.utils.CoreUtils;
+import org.voltcore.utils.MpscChunkedQueue;
 import org.voltdb.QueueDepthTracker;
 import org.voltdb.StarvationTracker;
 
 /** SiteTaskerScheduler orders SiteTaskers for execution. */
 public class SiteTaskerQueue
 {
-    private final LinkedTransferQueue<SiteTasker> m_tasks = new LinkedTransferQueue<SiteTasker>();
+    /** Maximum number of tasks a site pulls off its queue per wakeup */
+    public static final int MAX_BATCH_SIZE = Math.max(1, Integer.getInteger("SITE_TASK_BATCH_SIZE", 16));
+
+    /**
+     * Told on the site thread when it starts and finishes running a batch of
+     * more than one task taken with {@link SiteTaskerQueue#takeBatch(SiteTasker[])},
+     * and before each task of the batch runs.
+     */
+    public interface BatchListener {
+        void batchStarted();
+        void taskStarting(SiteTasker task);
+        void batchFinished();
+    }
+
+    private final MpscChunkedQueue<SiteTasker> m_tasks = new MpscChunkedQueue<SiteTasker>();
+    private BatchListener m_batchListener;
+    private boolean m_inBatch = false;
     private StarvationTracker m_starvationTracker;
     private QueueDepthTracker m_queueDepthTracker;
     private int m_partitionId;
@@ -42,11 +56,6 @@ public class SiteTaskerQueue
     public boolean offer(SiteTasker task)
     {
         task.setQueueOfferTime();
-        // update tracker before enqueue the task
-        // prevent another thread from polling a task and decrementing
-        // the queue depth before it is incremented
-        // i.e. avoid queueDepth < 0
-        m_queueDepthTracker.offerUpdate();
         return m_tasks.offer(task);
     }
 
@@ -62,7 +71,7 @@ public class SiteTaskerQueue
             return task;
         }
         try {
-            task = CoreUtils.queueSpinTake(m_tasks);
+            task = m_tasks.take();
             // task is never null
             m_queueDepthTracker.pollUpdate(task.getQueueOfferTime());
             return task;
@@ -71,6 +80,61 @@ public class SiteTaskerQueue
         }
     }
 
+    /**
+     * Block on the site tasker queue until at least one task is available, then
+     * move up to batch.length tasks into batch. Must only be called by the site thread.
+     * @return the number of tasks placed at the start of batch
+     */
+    public int takeBatch(SiteTasker[] batch) throws InterruptedException
+    {
+        int count = m_tasks.drain(batch, batch.length);
+        if (count == 0) {
+            m_starvationTracker.beginStarvation();
+            try {
+                count = m_tasks.takeBatch(batch, batch.length);
+            } finally {
+                m_starvationTracker.endStarvation();
+            }
+        }
+        long oldestOfferTime = Long.MAX_VALUE;
+        long totalOfferTime = 0;
+        for (int i = 0; i < count; i++) {
+            final long offerTime = batch[i].getQueueOfferTime();
+            oldestOfferTime = Math.min(oldestOfferTime, offerTime);
+            totalOfferTime += offerTime;
+        }
+        m_queueDepthTracker.pollUpdate(count, oldestOfferTime, totalOfferTime);
+        if (count > 1 && m_batchListener != null) {
+            m_inBatch = true;
+            m_batchListener.batchStarted();
+        }
+        return count;
+    }
+
+    /**
+     * Called by the site thread before it runs each task of the last batch.
+     */
+    public void startTask(SiteTasker task)
+    {
+        if (m_inBatch) {
+            m_batchListener.taskStarting(task);
+        }
+    }
+
+    /**
+     * Called by the site thread once it has run every task of the last batch.
+     */
+    public void finishBatch()
+    {
+        if (m_inBatch) {
+            m_inBatch = false;
+            m_batchListener.batchFinished();
+        }
+    }
+
+    public void setBatchListener(BatchListener listener) {
+        m_batchListener = listener;
+    }
     // Non-blocking poll on the site tasker queue.
     public SiteTasker poll()
     {
@@ -96,7 +160,7 @@ public class SiteTaskerQueue
     }
 
     public QueueDepthTracker setupQueueDepthTracker(long siteId) {
-        m_queueDepthTracker = new QueueDepthTracker(siteId, m_tasks);
+        m_queueDepthTracker = new QueueDepthTracker(siteId, this);
         return m_queueDepthTracker;
     }
 
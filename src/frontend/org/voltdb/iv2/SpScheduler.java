@@ -23,7 +23,6 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +32,7 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.voltcore.logging.VoltLogger;
@@ -41,6 +41,7 @@ import org.voltcore.messaging.Mailbox;
 import org.voltcore.messaging.TransactionInfoBaseMessage;
 import org.voltcore.messaging.VoltMessage;
 import org.voltcore.utils.CoreUtils;
+import org.voltcore.utils.LongObjectHashMap;
 import org.voltdb.ClientResponseImpl;
 import org.voltdb.CommandLog;
 import org.voltdb.CommandLog.DurabilityListener;
@@ -65,6 +66,7 @@ import org.voltdb.messaging.DumpMessage;
 import org.voltdb.messaging.DumpPlanThenExitMessage;
 import org.voltdb.messaging.FragmentResponseMessage;
 import org.voltdb.messaging.FragmentTaskMessage;
+import org.voltdb.messaging.InitiateResponseBatchMessage;
 import org.voltdb.messaging.InitiateResponseMessage;
 import org.voltdb.messaging.Iv2InitiateTaskMessage;
 import org.voltdb.messaging.Iv2LogFaultMessage;
@@ -151,8 +153,8 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
     private List<Long> m_replicaHSIds = new ArrayList<>();
     long m_sendToHSIds[] = new long[0];
     private final TransactionTaskQueue m_pendingTasks;
-    private final Map<Long, TransactionState> m_outstandingTxns =
-        new HashMap<Long, TransactionState>();
+    private final LongObjectHashMap<TransactionState> m_outstandingTxns =
+        new LongObjectHashMap<TransactionState>();
     private final TreeMap<DuplicateCounterKey, DuplicateCounter> m_duplicateCounters =
         new TreeMap<DuplicateCounterKey, DuplicateCounter>();
     // MP fragment tasks or completion tasks pending durability
@@ -187,6 +189,23 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
 
     private final boolean IS_KSAFE_CLUSTER;
 
+    // Maximum number of write responses held back while the site runs a batch of tasks
+    static final int MAX_RESPONSE_BATCH = Integer.getInteger("SPI_RESPONSE_BATCH_SIZE", 64);
+    // Longest a write response is held back before the next task of the batch runs
+    static final long MAX_RESPONSE_HOLD_NANOS =
+            TimeUnit.MICROSECONDS.toNanos(Long.getLong("SPI_RESPONSE_BATCH_MAX_DELAY_US", 1000));
+
+    // Write responses to a ClientInterface that complete while the site is running a
+    // batch of tasks are held here and sent as one InitiateResponseBatchMessage per
+    // ClientInterface when the batch ends, or earlier if the next task of the batch
+    // isn't a user SP procedure or they have been held too long.
+    // Set on the site thread, read under m_lock.
+    private volatile boolean m_batchingResponses = false;
+    private final InitiateResponseMessage[] m_pendingResponses = new InitiateResponseMessage[MAX_RESPONSE_BATCH];
+    private final long[] m_pendingResponseDests = new long[MAX_RESPONSE_BATCH];
+    private int m_pendingResponseCount = 0;
+    private long m_pendingSinceNanos = 0;
+
     SpScheduler(int partitionId, SiteTaskerQueue taskQueue, SnapshotCompletionMonitor snapMonitor, boolean scoreboardEnabled)
     {
         super(partitionId, taskQueue);
@@ -199,6 +218,32 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
         // initialized as current txn id in order to release the initial reads into the system
         m_maxScheduledTxnSpHandle = getCurrentTxnId();
         IS_KSAFE_CLUSTER = VoltDB.instance().getKFactor() > 0;
+        if (MAX_RESPONSE_BATCH > 1) {
+            m_tasks.setBatchListener(new SiteTaskerQueue.BatchListener() {
+                @Override
+                public void batchStarted() {
+                    m_batchingResponses = true;
+                }
+
+                @Override
+                public void taskStarting(SiteTasker task) {
+                    synchronized (m_lock) {
+                        if (m_pendingResponseCount > 0 && (!isUserSpProcedure(task)
+                                || System.nanoTime() - m_pendingSinceNanos >= MAX_RESPONSE_HOLD_NANOS)) {
+                            flushResponses();
+                        }
+                    }
+                }
+
+                @Override
+                public void batchFinished() {
+                    synchronized (m_lock) {
+                        m_batchingResponses = false;
+                        flushResponses();
+                    }
+                }
+            });
+        }
     }
 
     public void initializeScoreboard(int siteId, Mailbox mailBox) {
@@ -259,6 +304,8 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
                     " on " + CoreUtils.hsIdToString(m_mailbox.getHSId())
              + " from " + CoreUtils.hsIdCollectionToString(m_replicaHSIds));
         }
+        // Responses completed by the replica change must not overtake the held back ones
+        flushResponses();
         long[] replicasAdded = new long[0];
         if (m_replicaHSIds.size() > 0 && replicas.size() > m_replicaHSIds.size()) {
             // Remember the rejoin sites before update replicas set
@@ -360,6 +407,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
                 response.setResults(new ClientResponseImpl(ClientResponse.UNEXPECTED_FAILURE,
                             new VoltTable[0],
                             ClientResponseImpl.IGNORED_TRANSACTION));
+                flushResponses();
                 m_mailbox.send(response.getInitiatorHSId(), response);
             }
             m = m_replaySequencer.drain();
@@ -396,6 +444,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
                     (TransactionInfoBaseMessage) message);
             if (dupe != null) {
                 // Duplicate initiate task message, send response
+                flushResponses();
                 m_mailbox.send(dupe.getInitiatorHSId(), dupe);
             }
             else if (!m_replaySequencer.offer(sequenceWithUniqueId, (TransactionInfoBaseMessage) message)) {
@@ -413,6 +462,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
                         new ClientResponseImpl(ClientResponseImpl.UNEXPECTED_FAILURE,
                                 new VoltTable[0], ClientResponseImpl.IGNORED_TRANSACTION);
                 response.setResults(clientResponse);
+                flushResponses();
                 m_mailbox.send(response.getInitiatorHSId(), response);
             }
         }
@@ -778,6 +828,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
     {
         //For mis-routed transactions, no update for truncation handle or duplicated counter
         if (message.isMisrouted()){
+            flushResponses();
             m_mailbox.send(message.getInitiatorHSId(), message);
             return;
         }
@@ -802,6 +853,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
 
             // InvocationDispatcher routes SAFE reads to SPI only
             assert(m_bufferedReadLog != null);
+            flushResponses();
             m_bufferedReadLog.offer(m_mailbox, message, m_repairLogTruncationHandle);
             return;
         }
@@ -821,7 +873,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
             if (result == DuplicateCounter.DONE) {
                 m_duplicateCounters.remove(dcKey);
                 setRepairLogTruncationHandle(spHandle, message.isForOldLeader());
-                m_mailbox.send(counter.m_destinationId, counter.getLastResponse());
+                sendInitiateResponse(counter.m_destinationId, counter.getLastResponse());
             }
             else if (result == DuplicateCounter.MISMATCH) {
                 if (m_isLeader && m_sendToHSIds.length > 0) {
@@ -862,7 +914,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
             //if the duplicate counter contains only the replica's HSIDs from failed hosts. That is, a response from a replica could get here
             //AFTER the transaction is completed. Such a response message should not be further propagated.
             if (m_mailbox.getHSId() != message.getInitiatorHSId()) {
-                m_mailbox.send(message.getInitiatorHSId(), message);
+                sendInitiateResponse(message.getInitiatorHSId(), message);
             }
         }
 
@@ -1424,7 +1476,7 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
             }
         }
         builder.append("\n  most recent SP handle: ").append(TxnEgo.txnIdToString(getCurrentTxnId()));
-        builder.append("\n  outstanding txns: ").append(TxnEgo.txnIdCollectionToString(m_outstandingTxns.keySet()));
+        builder.append("\n  outstanding txns: ").append(TxnEgo.txnIdCollectionToString(Longs.asList(m_outstandingTxns.keys())));
         builder.append("\n  ");
         m_pendingTasks.toString(builder);
         if (m_duplicateCounters.size() > 0) {
@@ -1624,6 +1676,78 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
         return m_maxScheduledTxnSpHandle;
     }
 
+    /**
+     * Tasks that are expected to run as briefly as the responses held back behind them.
+     * Anything else, such as sysprocs, fragments or snapshot work, sends them first.
+     */
+    private static boolean isUserSpProcedure(SiteTasker task)
+    {
+        return task instanceof SpProcedureTask && !((SpProcedureTask) task).m_procName.startsWith("@");
+    }
+
+    /**
+     * Send the response of a completed write to its initiator. While the site is
+     * running a batch of tasks, responses to a ClientInterface are held back and
+     * sent together when the batch finishes.
+     */
+    private void sendInitiateResponse(long destHSId, VoltMessage response)
+    {
+        if (m_batchingResponses && response instanceof InitiateResponseMessage &&
+                CoreUtils.getSiteIdFromHSId(destHSId) == HostMessenger.CLIENT_INTERFACE_SITE_ID) {
+            if (m_pendingResponseCount == 0) {
+                m_pendingSinceNanos = System.nanoTime();
+            }
+            m_pendingResponses[m_pendingResponseCount] = (InitiateResponseMessage) response;
+            m_pendingResponseDests[m_pendingResponseCount] = destHSId;
+            if (++m_pendingResponseCount == MAX_RESPONSE_BATCH) {
+                flushResponses();
+            }
+        } else {
+            flushResponses();
+            m_mailbox.send(destHSId, response);
+        }
+    }
+
+    /**
+     * Send the held back responses, one message per ClientInterface, keeping
+     * their relative order. Must be called before anything else is sent to a
+     * ClientInterface to maintain the invariant that responses arrive in txnid order.
+     */
+    private void flushResponses()
+    {
+        final int count = m_pendingResponseCount;
+        if (count == 0) {
+            return;
+        }
+        m_pendingResponseCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (m_pendingResponses[i] == null) {
+                // Already sent with an earlier response to the same destination
+                continue;
+            }
+            final long destHSId = m_pendingResponseDests[i];
+            int groupSize = 0;
+            for (int j = i; j < count; j++) {
+                if (m_pendingResponses[j] != null && m_pendingResponseDests[j] == destHSId) {
+                    groupSize++;
+                }
+            }
+            if (groupSize == 1) {
+                m_mailbox.send(destHSId, m_pendingResponses[i]);
+                m_pendingResponses[i] = null;
+                continue;
+            }
+            final InitiateResponseMessage[] group = new InitiateResponseMessage[groupSize];
+            for (int j = i, k = 0; k < groupSize; j++) {
+                if (m_pendingResponses[j] != null && m_pendingResponseDests[j] == destHSId) {
+                    group[k++] = m_pendingResponses[j];
+                    m_pendingResponses[j] = null;
+                }
+            }
+            m_mailbox.send(destHSId, new InitiateResponseBatchMessage(group));
+        }
+    }
+
     private long getRepairLogTruncationHandleForReplicas()
     {
         m_lastSentTruncationHandle = m_repairLogTruncationHandle;
@@ -1635,7 +1759,11 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
         if (newHandle > m_repairLogTruncationHandle) {
             m_repairLogTruncationHandle = newHandle;
             // ENG-14553: release buffered reads regardless of leadership status
-            m_bufferedReadLog.releaseBufferedReads(m_mailbox, m_repairLogTruncationHandle);
+            if (m_bufferedReadLog.hasReleasableReads(m_repairLogTruncationHandle)) {
+                // Released reads must not overtake the writes before them
+                flushResponses();
+                m_bufferedReadLog.releaseBufferedReads(m_mailbox, m_repairLogTruncationHandle);
+            }
             // We have to advance the local truncation point on the replica. It's important for
             // node promotion when there are no missing repair log transactions on the replica.
             // Because we still want to release the reads if no following writes will come to this replica.
@@ -1808,18 +1936,14 @@ public class SpScheduler extends Scheduler implements SnapshotCompletionInterest
         if (m_isLeader && m_sendToHSIds.length > 0) {
             m_mailbox.send(m_sendToHSIds, new MPBacklogFlushMessage());
         }
-        Iterator<Entry<Long, TransactionState>> iter = m_outstandingTxns.entrySet().iterator();
-        while (iter.hasNext()) {
-            Entry<Long, TransactionState> entry = iter.next();
-            TransactionState txnState = entry.getValue();
-            if (TxnEgo.getPartitionId(entry.getKey()) == MpInitiator.MP_INIT_PID ) {
-                if (txnState.isReadOnly()) {
-                    txnState.setDone();
-                    m_duplicateCounters.entrySet().removeIf((e) -> e.getKey().m_txnId == entry.getKey());
-                    iter.remove();
-                }
+        m_outstandingTxns.removeIf((txnId, txnState) -> {
+            if (TxnEgo.getPartitionId(txnId) == MpInitiator.MP_INIT_PID && txnState.isReadOnly()) {
+                txnState.setDone();
+                m_duplicateCounters.entrySet().removeIf((e) -> e.getKey().m_txnId == txnId);
+                return true;
             }
-        }
+            return false;
+        });
 
         // flush all RO transactions out of backlog
         m_pendingTasks.removeMPReadTransactions();
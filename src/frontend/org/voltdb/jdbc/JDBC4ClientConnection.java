@@ -22,6 +22,8 @@ import java.io.File;
 import java.io.IOException;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
@@ -38,6 +40,7 @@ import org.voltdb.client.ClientStatsContext;
 import org.voltdb.client.NoConnectionsException;
 import org.voltdb.client.ProcCallException;
 import org.voltdb.client.ProcedureCallback;
+import org.voltdb.common.Constants;
 
 /**
  * Provides a high-level wrapper around the core {@link Client} class to provide performance
@@ -80,6 +83,31 @@ public class JDBC4ClientConnection implements Closeable {
      */
     protected long defaultAsyncTimeout = 60000;
 
+    /**
+     * The maximum number of plan handles remembered by the connection, least recently used go first.
+     */
+    protected static final int MAX_PLAN_HANDLES = 1024;
+
+    /**
+     * The server plan handles of the statements prepared on this connection, by SQL text. Shared by
+     * all the prepared statements using the connection so that preparing the same SQL again does not
+     * cost a round trip to the server.
+     */
+    private final Map<String, JDBC4Statement.VoltSQL.PlanHandle> planHandles =
+            new LinkedHashMap<String, JDBC4Statement.VoltSQL.PlanHandle>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, JDBC4Statement.VoltSQL.PlanHandle> eldest) {
+                    return size() > MAX_PLAN_HANDLES;
+                }
+            };
+
+    /**
+     * Whether the server has @AdHocPrepare, null until it is first needed.
+     */
+    private volatile Boolean adHocPrepareSupported = null;
+
     /**
      * Creates a new native client wrapper from the given parameters (internal use only).
      *
@@ -325,6 +353,48 @@ public class JDBC4ClientConnection implements Closeable {
         JDBC4ClientConnectionPool.dispose(this);
     }
 
+    /**
+     * Get the plan handle shared by the prepared statements with the given SQL text.
+     */
+    JDBC4Statement.VoltSQL.PlanHandle getPlanHandle(String sql) {
+        synchronized (planHandles) {
+            JDBC4Statement.VoltSQL.PlanHandle handle = planHandles.get(sql);
+            if (handle == null) {
+                handle = new JDBC4Statement.VoltSQL.PlanHandle();
+                planHandles.put(sql, handle);
+            }
+            return handle;
+        }
+    }
+
+    /**
+     * Whether the server has @AdHocPrepare, servers older than the driver don't. Asked once per
+     * connection by preparing an empty statement, which a server that has it refuses as not
+     * preparable while any other server answers that the procedure doesn't exist.
+     */
+    boolean supportsAdHocPrepare(long timeout, TimeUnit unit)
+            throws NoConnectionsException, IOException, ProcCallException {
+        Boolean supported = adHocPrepareSupported;
+        if (supported == null) {
+            ClientResponse response;
+            try {
+                response = execute("@AdHocPrepare", timeout, unit, "");
+            }
+            catch (ProcCallException e) {
+                response = e.getClientResponse();
+                if (response == null ||
+                        (response.getStatus() != ClientResponse.GRACEFUL_FAILURE &&
+                         response.getStatus() != ClientResponse.UNEXPECTED_FAILURE)) {
+                    throw e;
+                }
+            }
+            supported = response.getStatus() == ClientResponse.GRACEFUL_FAILURE &&
+                    response.getAppStatus() == Constants.NOT_PREPARABLE_STATEMENT;
+            adHocPrepareSupported = supported;
+        }
+        return supported;
+    }
+
     /**
      * Executes a procedure synchronously and returns the result to the caller. The method
      * internally tracks execution performance.
@@ -338,7 +408,7 @@ public class JDBC4ClientConnection implements Closeable {
      * @throws NoConnectionsException
      * @throws ProcCallException
      */
-   public ClientResponse execute(String procedure, long timeout, TimeUnit unit, Object... parameters)
+    public ClientResponse execute(String procedure, long timeout, TimeUnit unit, Object... parameters)
             throws NoConnectionsException, IOException, ProcCallException {
         ClientImpl currentClient = this.getClient();
         if (unit == null) {
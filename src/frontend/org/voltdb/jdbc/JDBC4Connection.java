@@ -45,6 +45,7 @@ public class JDBC4Connection implements java.sql.Connection, IVoltDBConnection
     public static final String COMMIT_THROW_EXCEPTION = "jdbc.committhrowexception";
     public static final String ROLLBACK_THROW_EXCEPTION = "jdbc.rollbackthrowexception";
     public static final String QUERYTIMEOUT_UNIT = "jdbc.querytimeout.unit";
+    public static final String PREPARED_PLANS = "jdbc.preparedplans";
 
     protected final JDBC4ClientConnection NativeConnection;
     protected final String User;
@@ -63,6 +64,14 @@ public class JDBC4Connection implements java.sql.Connection, IVoltDBConnection
         }
     }
 
+    /**
+     * Prepared statements run through server side plans (@AdHocPrepare) unless disabled.
+     */
+    boolean usePreparedPlans()
+    {
+        return this.props.getProperty(PREPARED_PLANS, "true").equalsIgnoreCase("true");
+    }
+
     private void checkClosed() throws SQLException
     {
         if (this.isClosed())
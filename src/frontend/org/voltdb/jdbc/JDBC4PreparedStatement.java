@@ -49,6 +49,9 @@ public class JDBC4PreparedStatement extends JDBC4Statement implements java.sql.P
     {
         super(connection);
         VoltSQL query = VoltSQL.parseSQL(sql);
+        if (connection.usePreparedPlans()) {
+            query = query.withPlanHandle(connection.NativeConnection.getPlanHandle(query.toSqlString()));
+        }
         this.Query = query;
         this.parameters = this.Query.getParameterArray();
         this.parameterMetaData = new JDBC4ParameterMetaData(this, this.Query.getParameterCount()); // to be replaced with actual param count (!)
@@ -68,6 +71,9 @@ public class JDBC4PreparedStatement extends JDBC4Statement implements java.sql.P
         else
         {
             query = VoltSQL.parseSQL(sql);
+            if (connection.usePreparedPlans()) {
+                query = query.withPlanHandle(connection.NativeConnection.getPlanHandle(query.toSqlString()));
+            }
         }
         this.Query = query;
         this.parameters = this.Query.getParameterArray();
@@ -35,6 +35,7 @@ import org.voltdb.VoltTable;
 import org.voltdb.VoltType;
 import org.voltdb.client.ClientResponse;
 import org.voltdb.client.ProcCallException;
+import org.voltdb.common.Constants;
 import org.voltdb.parser.JDBCParser;
 import org.voltdb.parser.SQLLexer;
 import org.voltdb.parser.JDBCParser.ParsedCall;
@@ -50,11 +51,24 @@ public class JDBC4Statement implements java.sql.Statement
         public static final byte TYPE_UPDATE = 2;
         public static final byte TYPE_EXEC = 3;
 
+        /**
+         * Server side plan of a prepared statement (see @AdHocPrepare), shared by
+         * all its executions.
+         */
+        static class PlanHandle
+        {
+            // The server can't prepare the statement, e.g. DDL, always use @AdHoc
+            static final long NOT_PREPARABLE = -1;
+            // 0 until prepared, reset when a server doesn't know the handle
+            volatile long value = 0;
+        }
+
         private final String[] sql;
         private final int parameterCount;
         private final byte type;
         private final byte queryType;   // Type of query EXEC'd by @AdHoc
         private final Object[] parameters;
+        private final PlanHandle planHandle;
 
         private VoltSQL(String[] sql, int parameterCount, byte type)
         {
@@ -62,6 +76,7 @@ public class JDBC4Statement implements java.sql.Statement
             this.parameterCount = parameterCount;
             this.type = this.queryType = type;
             this.parameters = null;
+            this.planHandle = null;
         }
 
         private VoltSQL(String[] sql, int parameterCount, byte type, Object[] parameters)
@@ -70,12 +85,28 @@ public class JDBC4Statement implements java.sql.Statement
         }
 
         private VoltSQL(String[] sql, int parameterCount, byte type, byte queryType, Object[] parameters)
+        {
+            this(sql, parameterCount, type, queryType, parameters, null);
+        }
+
+        private VoltSQL(String[] sql, int parameterCount, byte type, byte queryType, Object[] parameters,
+                PlanHandle planHandle)
         {
             this.sql = sql;
             this.parameterCount = parameterCount;
             this.type = type;
             this.queryType = queryType;
             this.parameters = parameters;
+            this.planHandle = planHandle;
+        }
+
+        /**
+         * @return this statement executed through the given server side plan instead of @AdHoc
+         */
+        public VoltSQL withPlanHandle(PlanHandle planHandle)
+        {
+            assert(this.type != TYPE_EXEC);
+            return new VoltSQL(this.sql, this.parameterCount, this.type, this.type, null, planHandle);
         }
 
         public boolean hasParameters()
@@ -116,6 +147,9 @@ public class JDBC4Statement implements java.sql.Statement
         protected VoltTable[] execute(JDBC4ClientConnection connection, long timeout, TimeUnit queryTimeOutUnit) throws SQLException {
             try
             {
+                if (this.planHandle != null) {
+                    return executePrepared(connection, timeout, queryTimeOutUnit);
+                }
                 if (this.type == TYPE_EXEC) {
                     return connection.execute(this.sql[0], timeout, queryTimeOutUnit, this.parameters).getResults();
                 } else {
@@ -154,6 +188,70 @@ public class JDBC4Statement implements java.sql.Statement
             }
         }
 
+        /**
+         * Execute by plan handle, preparing the statement first if needed. Fall back to @AdHoc
+         * when the statement can't be prepared or the server that got the call doesn't know the
+         * handle, in which case the statement is prepared again before its next execution.
+         */
+        private VoltTable[] executePrepared(JDBC4ClientConnection connection, long timeout, TimeUnit unit)
+                throws ProcCallException, IOException
+        {
+            long handle = this.planHandle.value;
+            if (handle == 0) {
+                handle = prepare(connection, timeout, unit);
+            }
+            if (handle != PlanHandle.NOT_PREPARABLE) {
+                Object[] paramsOut = new Object[this.parameters.length + 1];
+                paramsOut[0] = handle;
+                System.arraycopy(this.parameters, 0, paramsOut, 1, this.parameters.length);
+                try {
+                    return connection.execute("@AdHocExecutePrepared", timeout, unit, paramsOut).getResults();
+                }
+                catch (ProcCallException e) {
+                    ClientResponse response = e.getClientResponse();
+                    if (response == null || response.getAppStatus() != Constants.UNKNOWN_PLAN_HANDLE) {
+                        throw e;
+                    }
+                    this.planHandle.value = 0;
+                }
+            }
+            Object[] paramsOut = new Object[this.parameters.length + 1];
+            paramsOut[0] = this.sql[0];
+            System.arraycopy(this.parameters, 0, paramsOut, 1, this.parameters.length);
+            return connection.execute("@AdHoc", timeout, unit, paramsOut).getResults();
+        }
+
+        private long prepare(JDBC4ClientConnection connection, long timeout, TimeUnit unit)
+                throws ProcCallException, IOException
+        {
+            if (!connection.supportsAdHocPrepare(timeout, unit)) {
+                this.planHandle.value = PlanHandle.NOT_PREPARABLE;
+                return PlanHandle.NOT_PREPARABLE;
+            }
+            long handle;
+            try {
+                VoltTable result = connection.execute("@AdHocPrepare", timeout, unit, this.sql[0]).getResults()[0];
+                handle = result.fetchRow(0).getLong("HANDLE");
+            }
+            catch (ProcCallException e) {
+                ClientResponse response = e.getClientResponse();
+                if (response == null ||
+                        (response.getStatus() != ClientResponse.GRACEFUL_FAILURE &&
+                         response.getStatus() != ClientResponse.UNEXPECTED_FAILURE)) {
+                    throw e;
+                }
+                if (response.getAppStatus() == Constants.NOT_PREPARABLE_STATEMENT) {
+                    // Not a single DML or query statement, don't try again.
+                    this.planHandle.value = PlanHandle.NOT_PREPARABLE;
+                }
+                // Any other error, e.g. a table that doesn't exist yet, may go away, so the
+                // next execution prepares again. @AdHoc reports the error this time.
+                return PlanHandle.NOT_PREPARABLE;
+            }
+            this.planHandle.value = handle;
+            return handle;
+        }
+
         public static boolean isUpdateResult(VoltTable table)
         {
             return ((table.getColumnName(0).length() == 0 || table.getColumnName(0).equals("modified_tuples"))&& table.getRowCount() == 1 && table.getColumnCount() == 1 && table.getColumnType(0) == VoltType.BIGINT);
@@ -172,6 +270,9 @@ public class JDBC4Statement implements java.sql.Statement
 
             if (this.type == TYPE_EXEC) {
                 return new VoltSQL(this.sql, this.parameterCount, this.type, params);
+            } else if (this.planHandle != null) {
+                // Keep the SQL text, it is only sent if the statement can't run by handle
+                return new VoltSQL(this.sql, this.parameterCount, TYPE_EXEC, this.queryType, params, this.planHandle);
             } else
             {
                 Object[] paramsOut = new Object[params.length+1];
@@ -137,6 +137,8 @@ public abstract class ExecutionEngine implements FastDeserializer.Deserializatio
 
     /** Statistics collector (provided later) */
     private PlannerStatsCollector m_plannerStats = null;
+    // Start of the planning timed by the site's planner statistics, null if not timed
+    private Long m_plannerStatsStartTime = null;
 
     // used for tracking statistics about the plan cache in the EE
     private int m_cacheMisses = 0;
@@ -1192,7 +1194,7 @@ public abstract class ExecutionEngine implements FastDeserializer.Deserializatio
      */
     protected void startStatsCollection() {
         if (m_plannerStats != null) {
-            m_plannerStats.startStatsCollection();
+            m_plannerStatsStartTime = m_plannerStats.startStatsCollection();
         }
     }
 
@@ -1204,7 +1206,8 @@ public abstract class ExecutionEngine implements FastDeserializer.Deserializatio
      */
     protected void endStatsCollection(long cacheSize, CacheUse cacheUse) {
         if (m_plannerStats != null) {
-            m_plannerStats.endStatsCollection(cacheSize, 0, cacheUse, m_partitionId);
+            m_plannerStats.endStatsCollection(m_plannerStatsStartTime, cacheSize, 0, cacheUse, m_partitionId);
+            m_plannerStatsStartTime = null;
         }
     }
 
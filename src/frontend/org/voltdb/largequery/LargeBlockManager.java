@@ -36,6 +36,7 @@ import java.util.concurrent.Future;
 
 import com.google_voltpatches.common.util.concurrent.ListeningExecutorService;
 import org.voltcore.utils.CoreUtils;
+import org.voltdb.utils.DiskWriteScheduler;
 import org.voltdb.utils.VoltFile;
 
 /**
@@ -180,6 +181,7 @@ public class LargeBlockManager {
             block.position(0);
             Path blockPath = makeBlockPath(blockId);
             try (SeekableByteChannel channel = Files.newByteChannel(blockPath, OPEN_OPTIONS, PERMISSIONS)) {
+                DiskWriteScheduler.instance().acquire(DiskWriteScheduler.Writer.LARGE_QUERY, block.remaining());
                 channel.write(block);
             }
             finally {
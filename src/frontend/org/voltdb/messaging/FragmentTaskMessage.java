@@ -577,7 +577,9 @@ public class FragmentTaskMessage extends TransactionInfoBaseMessage
         final ByteBuffer paramData = m_items.get(index).m_parameterSet.asReadOnlyBuffer();
         if (paramData != null) {
             try {
-                params = ParameterSet.fromByteBuffer(paramData);
+                // Fragment parameters are mostly just flattened into the EE buffer,
+                // so only decode them if someone actually looks at them
+                params = ParameterSet.fromByteBufferLazily(paramData);
             }
             catch (final IOException e) {
                 hostLog.l7dlog(Level.FATAL,
@@ -0,0 +1,104 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.voltdb.messaging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.voltcore.messaging.VoltMessage;
+import org.voltcore.utils.CoreUtils;
+
+/**
+ * Several single partition transaction responses bound for the same
+ * ClientInterface, sent as one message by the SPI when they complete
+ * together. The ClientInterface handles each one as if it arrived alone.
+ */
+public class InitiateResponseBatchMessage extends VoltMessage {
+
+    private InitiateResponseMessage[] m_responses;
+
+    /** Empty constructor for de-serialization */
+    InitiateResponseBatchMessage() {
+        super();
+    }
+
+    public InitiateResponseBatchMessage(InitiateResponseMessage[] responses)
+    {
+        super();
+        m_responses = responses;
+    }
+
+    public InitiateResponseMessage[] getResponses() {
+        return m_responses;
+    }
+
+    @Override
+    public int getSerializedSize()
+    {
+        int msgsize = super.getSerializedSize();
+        msgsize += 4; // response count
+        for (InitiateResponseMessage response : m_responses) {
+            msgsize += 4 + response.getSerializedSize();
+        }
+        return msgsize;
+    }
+
+    @Override
+    public void flattenToBuffer(ByteBuffer buf) throws IOException
+    {
+        buf.put(VoltDbMessageFactory.INITIATE_RESPONSE_BATCH_ID);
+        buf.putInt(m_responses.length);
+        for (InitiateResponseMessage response : m_responses) {
+            final int size = response.getSerializedSize();
+            buf.putInt(size);
+            // Each response expects a buffer of exactly its own size
+            ByteBuffer slice = buf.slice();
+            slice.limit(size);
+            response.flattenToBuffer(slice.slice());
+            buf.position(buf.position() + size);
+        }
+        assert(buf.capacity() == buf.position());
+        buf.limit(buf.position());
+    }
+
+    @Override
+    public void initFromBuffer(ByteBuffer buf) throws IOException
+    {
+        m_responses = new InitiateResponseMessage[buf.getInt()];
+        for (int i = 0; i < m_responses.length; i++) {
+            final int size = buf.getInt();
+            ByteBuffer slice = buf.slice();
+            slice.limit(size);
+            buf.position(buf.position() + size);
+            // Skip the message type, it is always an initiate response
+            slice.get();
+            InitiateResponseMessage response = new InitiateResponseMessage();
+            response.initFromBuffer(slice.slice());
+            response.m_sourceHSId = m_sourceHSId;
+            m_responses[i] = response;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("INITIATE_RESPONSE_BATCH (FROM ")
+          .append(CoreUtils.hsIdToString(m_sourceHSId))
+          .append(") ").append(m_responses.length).append(" RESPONSES");
+        return sb.toString();
+    }
+}
@@ -24,6 +24,7 @@ import java.util.Queue;
 import org.voltcore.messaging.Subject;
 import org.voltcore.messaging.VoltMessage;
 import org.voltcore.utils.DBBPool.BBContainer;
+import org.voltdb.rejoin.StreamSnapshotProgress;
 import org.voltdb.utils.FixedDBBPool;
 
 /**
@@ -52,6 +53,7 @@ public class RejoinMessage extends VoltMessage {
     private String m_snapshotNonce = null;
     private Queue<BBContainer> m_dataBufferPool = null;
     private Queue<BBContainer> m_compressedDataBufferPool = null;
+    private StreamSnapshotProgress m_snapshotProgress = null;
     // number of sources sending to this site
     private long m_snapshotSinkHSId = -1;
     private boolean m_schemaHasNoTables = false;
@@ -88,6 +90,15 @@ public class RejoinMessage extends VoltMessage {
         m_schemaHasNoTables = schemaHasNoTables;
     }
 
+    public RejoinMessage(long sourceHSId, Type type, String snapshotNonce,
+                         Queue<BBContainer> dataBufferPool,
+                         Queue<BBContainer> compressedDataBufferPool,
+                         StreamSnapshotProgress snapshotProgress,
+                         boolean schemaHasNoTables) {
+        this(sourceHSId, type, snapshotNonce, dataBufferPool, compressedDataBufferPool, schemaHasNoTables);
+        m_snapshotProgress = snapshotProgress;
+    }
+
     /**
      * For IV2, INITIATION_RESPONSE is used by the local site to inform the
      * Iv2RejoinCoordinator of the HSId of the SnapshotDataSink is has created
@@ -125,6 +136,14 @@ public class RejoinMessage extends VoltMessage {
         return m_compressedDataBufferPool;
     }
 
+    /**
+     * @return the per-site transfer progress shared with the coordinator, may be null
+     */
+    public StreamSnapshotProgress getSnapshotProgress()
+    {
+        return m_snapshotProgress;
+    }
+
     public boolean schemaHasNoTables() {
         return m_schemaHasNoTables;
     }
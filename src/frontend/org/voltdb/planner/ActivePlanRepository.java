@@ -17,60 +17,106 @@
 
 package org.voltdb.planner;
 
-import java.util.HashMap;
-import java.util.Map.Entry;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.voltdb.jni.ExecutionEngine;
 import org.voltdb.jni.Sha1Wrapper;
 
+/**
+ * Registry of the plan fragments currently known to the EEs of this host, shared by all the sites.
+ *
+ * Lookups, loads and decrefs never block. Fragments are refcounted and a fragment whose refcount
+ * drops to zero joins an LRU queue. Once the registry holds more than EE_PLAN_CACHE_SIZE fragments,
+ * whichever thread loads a new one evicts unreferenced fragments from the head of the queue, unless
+ * another thread is already evicting, in which case it leaves the work to that thread.
+ */
 public abstract class ActivePlanRepository {
 
+    /// Reference count of a fragment that has been evicted and can't be referenced again.
+    private static final int EVICTED = -1;
+
     /// A plan fragment entry in the cache.
     private static class FragInfo {
         final Sha1Wrapper hash;
         final long fragId;
         final byte[] plan;
-        int refCount;
-        /// The ticker value current when this fragment was last (dis)used.
-        /// A new FragInfo or any other not in the LRU map because it is being referenced has value 0.
-        /// A non-zero value is either the fragment's current key in the LRU map OR its intended/future
-        /// key, if it has been lazily updated after the fragment was reused.
-        long lastUse;
+        /// Number of users, or EVICTED. Only goes from 0 to EVICTED, and never back.
+        final AtomicInteger refCount = new AtomicInteger();
+        /// The ticker value current when this fragment was last disused.
+        /// If this no longer matches the use recorded by its entry in the LRU queue, the fragment
+        /// has been reused since it was queued and goes to the back of the queue instead of being evicted.
+        volatile long lastUse;
+        /// Whether the fragment has an entry in the LRU queue.
+        final AtomicBoolean queued = new AtomicBoolean();
         /// The statement text for this fragment.  For ad hoc queries this may be null, since
         /// there is no single statement text---ad hoc queries that differ only by their constants
         /// reuse the same plan.
-        String stmtText;
+        volatile String stmtText;
 
         FragInfo(Sha1Wrapper key, byte[] plan, long nextId, String stmtText)
         {
             this.hash = key;
             this.plan = plan;
             this.fragId = nextId;
-            this.refCount = 0;
             this.lastUse = 0;
             this.stmtText = stmtText;
         }
+
+        /**
+         * Take a reference unless the fragment was evicted.
+         * @return false if the fragment was evicted
+         */
+        boolean addRef() {
+            while (true) {
+                final int count = refCount.get();
+                if (count == EVICTED) {
+                    return false;
+                }
+                if (refCount.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
     }
 
-    private static HashMap<Sha1Wrapper, FragInfo> m_plansByHash = new HashMap<Sha1Wrapper, FragInfo>();
-    private static HashMap<Long, FragInfo> m_plansById = new HashMap<Long, FragInfo>();
-    private static TreeMap<Long, FragInfo> m_plansLRU = new TreeMap<Long, FragInfo>();
+    /// An entry in the LRU queue, the fragment and its last use at the time it was queued.
+    private static class LRUEntry {
+        final FragInfo frag;
+        final long use;
+
+        LRUEntry(FragInfo frag, long use) {
+            this.frag = frag;
+            this.use = use;
+        }
+    }
+
+    private static final ConcurrentHashMap<Sha1Wrapper, FragInfo> m_plansByHash = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Long, FragInfo> m_plansById = new ConcurrentHashMap<>();
+    private static final ConcurrentLinkedQueue<LRUEntry> m_plansLRU = new ConcurrentLinkedQueue<>();
+    /// Held by the one thread evicting at a time, the others don't wait for it.
+    private static final ReentrantLock m_evictionLock = new ReentrantLock();
     /// A ticker that provides temporary ids for all cached fragments, for communicating with the EE.
     private static final long INITIAL_FRAG_ID = 5000;
-    private static long m_nextFragId = INITIAL_FRAG_ID;
-    /// A ticker that allows the sequencing of all fragment uses, providing a key to the LRU map.
-    private static long m_nextFragUse = 1;
+    private static final AtomicLong m_nextFragId = new AtomicLong(INITIAL_FRAG_ID);
+    /// A ticker that allows the sequencing of all fragment uses.
+    private static final AtomicLong m_nextFragUse = new AtomicLong(1);
+
+    // Counters reported by @Statistics PLANNER
+    private static final LongAdder m_loads = new LongAdder();
+    private static final LongAdder m_hits = new LongAdder();
+    private static final LongAdder m_evictions = new LongAdder();
 
     /**
      * Get the site-local fragment id for a given plan identified by 20-byte sha-1 hash
      */
     public static long getFragmentIdForPlanHash(byte[] planHash) {
-        Sha1Wrapper key = new Sha1Wrapper(planHash);
-        FragInfo frag = null;
-        synchronized (FragInfo.class) {
-            frag = m_plansByHash.get(key);
-        }
+        FragInfo frag = m_plansByHash.get(new Sha1Wrapper(planHash));
         assert(frag != null);
         return frag.fragId;
     }
@@ -79,11 +125,7 @@ public abstract class ActivePlanRepository {
      * Get the statement text for the fragment identified by its hash
      */
     public static String getStmtTextForPlanHash(byte[] planHash) {
-        Sha1Wrapper key = new Sha1Wrapper(planHash);
-        FragInfo frag = null;
-        synchronized (FragInfo.class) {
-            frag = m_plansByHash.get(key);
-        }
+        FragInfo frag = m_plansByHash.get(new Sha1Wrapper(planHash));
         assert(frag != null);
         // SQL statement text is not stored in the repository for ad hoc statements
         // -- it may be inaccurate because we parameterize the statement on its constants.
@@ -99,15 +141,29 @@ public abstract class ActivePlanRepository {
      */
     public static long loadOrAddRefPlanFragment(byte[] planHash, byte[] plan, String stmtText) {
         Sha1Wrapper key = new Sha1Wrapper(planHash);
-        synchronized (FragInfo.class) {
+        while (true) {
             FragInfo frag = m_plansByHash.get(key);
+            boolean loaded = false;
             if (frag == null) {
-                frag = new FragInfo(key, plan, m_nextFragId++, stmtText);
-                m_plansByHash.put(frag.hash, frag);
-                m_plansById.put(frag.fragId, frag);
-                if (m_plansById.size() > ExecutionEngine.EE_PLAN_CACHE_SIZE) {
-                    evictLRUfragment();
+                FragInfo created = new FragInfo(key, plan, m_nextFragId.getAndIncrement(), stmtText);
+                // Take the reference before publishing so the new fragment can't be evicted
+                created.refCount.set(1);
+                // The id must be resolvable by the time the hash is
+                m_plansById.put(created.fragId, created);
+                frag = m_plansByHash.putIfAbsent(key, created);
+                if (frag == null) {
+                    frag = created;
+                    loaded = true;
                 }
+                else {
+                    // Another site loaded the same plan first, use theirs
+                    m_plansById.remove(created.fragId);
+                }
+            }
+            if (!loaded && !frag.addRef()) {
+                // Evicted between the lookup and the addref, load it again
+                m_plansByHash.remove(key, frag);
+                continue;
             }
 
             // Bit of a hack to work around an issue where a statement-less adhoc
@@ -118,68 +174,71 @@ public abstract class ActivePlanRepository {
                 frag.stmtText = stmtText;
             }
 
-            // The fragment MAY be in the LRU map.
-            // An incremented refCount is a lazy way to keep it safe from eviction
-            // without having to update the map.
-            // This optimizes for popular fragments in a small or stable cache that may be reused
-            // many times before the eviction process needs to take any notice.
-            frag.refCount++;
+            if (loaded) {
+                m_loads.increment();
+                if (m_plansById.size() > ExecutionEngine.EE_PLAN_CACHE_SIZE) {
+                    evictLRUfragments();
+                }
+            }
+            else {
+                m_hits.increment();
+            }
             return frag.fragId;
         }
     }
 
-    private static void evictLRUfragment() {
-        /// Evict the least recently used fragment (if any are currently unused).
-        /// Along the way, update any obsolete entries that were left
+    private static void evictLRUfragments() {
+        /// Evict least recently used fragments (if any are currently unused) until the cache is
+        /// back to its usual size. Along the way, requeue any entries that were left behind
         /// by the laziness of the fragment state changes (fragment reuse).
-        /// In the rare case of a cache bloated beyond its usual limit,
-        /// keep evicting as needed and as entries are available until the bloat is gone.
-
-        while ( ! m_plansLRU.isEmpty()) {
-            // Remove the earliest entry.
-            Entry<Long, FragInfo> lru = m_plansLRU.pollFirstEntry();
-            FragInfo frag = lru.getValue();
-            if (frag.refCount > 0) {
-                // The fragment is being re-used, it is no longer an eviction candidate.
-                // It is only in the map due to the laziness in loadOrAddRefPlanFragment.
-                // It will be re-considered (at a later key) once it is no longer referenced.
-                // Resetting its lastUse to 0, here, restores it to a state identical to that
-                // of a new fragment.
-                // It eventually causes decrefPlanFragmentById to put it back in the map
-                // at its then up-to-date key.
-                // This makes it safe to keep out of the LRU map for now.
-                // See the comment in decrefPlanFragmentById and the one in the next code block.
-                frag.lastUse = 0;
-            }
-            else if (lru.getKey() != frag.lastUse) {
-                // The fragment is not in use but has been re-used more recently than the key reflects.
-                // This is a result of the laziness in decrefPlanFragmentById.
-                // Correct the entry's key in the LRU map to reflect its last use.
-                // This may STILL be the least recently used entry.
-                // If so, it will be picked off in a later iteration of this loop;
-                // its key will now match its lastUse value.
-                m_plansLRU.put(frag.lastUse, frag);
-            }
-            else {
-                // Found and removed the actual up-to-date least recently used entry from the LRU map.
-                // Remove the entry from the other collections.
-                m_plansById.remove(frag.fragId);
-                m_plansByHash.remove(frag.hash);
-                // Normally, one eviction for each new fragment is enough to restore order.
-                // BUT, if a prior call ever failed to find an unused fragment in the cache,
-                // the cache may have grown beyond its normal size. In that rare case,
-                // one eviction is not enough to reduce the cache to the desired size,
-                // so take another bite at the apple.
-                // Otherwise, trading exactly one evicted fragment for each new fragment
-                // would never reduce the cache.
-                if (m_plansById.size() > ExecutionEngine.EE_PLAN_CACHE_SIZE) {
-                     continue;
+        /// Only one thread evicts at a time. Threads that find the lock taken carry on, the
+        /// eviction in progress or the next one catches up with the fragments they added.
+        if (!m_evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            // Bound the work so a cache full of referenced fragments can't spin here,
+            // every queued fragment may need to be requeued once before it can go
+            int budget = 2 * m_plansById.size();
+            LRUEntry lru;
+            while (m_plansById.size() > ExecutionEngine.EE_PLAN_CACHE_SIZE &&
+                   budget-- > 0 && (lru = m_plansLRU.poll()) != null) {
+                FragInfo frag = lru.frag;
+                if (lru.use != frag.lastUse) {
+                    // The fragment was reused and disused again since it was queued.
+                    // Move it to the back of the queue at its up-to-date use instead of evicting it.
+                    // This may STILL be the least recently used entry, it will be picked off later.
+                    m_plansLRU.offer(new LRUEntry(frag, frag.lastUse));
+                }
+                else if (frag.refCount.compareAndSet(0, EVICTED)) {
+                    // Found the least recently used fragment, nobody can reference it any more.
+                    m_plansById.remove(frag.fragId);
+                    m_plansByHash.remove(frag.hash, frag);
+                    m_evictions.increment();
+                }
+                else {
+                    // The fragment is being reused, it is no longer an eviction candidate.
+                    // Take it out of the queue, decrefPlanFragmentById puts it back once it is unused.
+                    // Clear the flag BEFORE rechecking the count so that either this thread or the
+                    // thread dropping the last reference requeues it.
+                    frag.queued.set(false);
+                    if (frag.refCount.get() == 0) {
+                        enqueue(frag);
+                    }
                 }
-                return;
             }
+            // All the remaining fragments may be in use. Let the cache bloat a little
+            // and try again after the next new fragment.
+        }
+        finally {
+            m_evictionLock.unlock();
+        }
+    }
+
+    private static void enqueue(FragInfo frag) {
+        if (frag.queued.compareAndSet(false, true)) {
+            m_plansLRU.offer(new LRUEntry(frag, frag.lastUse));
         }
-        // Strange. All FragInfo entries appear to be in use. There's nothing to evict.
-        // Let the cache bloat a little and try again later after the next new fragment.
     }
 
     /**
@@ -190,37 +249,27 @@ public abstract class ActivePlanRepository {
         // skip dummy/invalid fragment ids
         if (fragmentId <= 0) return;
 
-        FragInfo frag = null;
-        synchronized (FragInfo.class) {
-            frag = m_plansById.get(fragmentId);
-            // The assert that used to be here would fail in TestAdHocQueries when it
-            // re-initialized the RealVoltDB, clearing the m_plansById before
-            // all SQLStmts were finalized. Maybe that's just a "test bug" that would be
-            // better fixed with some kind of test-only cleanup hook?
-            // OR It's possible that this early return is covering for a minor bug.
-            // Maybe SQLStmt.finalize is calling this method when it shouldn't?
-            // Maybe that's because the SQLStmt site member should be null in more cases?
-            //assert(frag != null);
-            if (frag == null) {
-                return;
-            }
-            if (--frag.refCount == 0) {
-                // The disused fragment belongs in the LRU map at the end -- at the current "ticker".
-                // If its lastUse value is 0 like a new entry's, it is not currently in the map.
-                // Put into the map in its proper position.
-                // If it is already in the LRU map (at a "too early" entry), just set its lastUse value
-                // as a cheap way to notify evictLRUfragment that it is not ready for eviction but
-                // should instead be re-ordered further forward in the map.
-                // This re-ordering only needs to happen when the eviction process considers the entry.
-                // For a popular fragment in a small or stable cache, that may be after MANY
-                // re-uses like this.
-                // This prevents thrashing of the LRU map, repositioning recent entries.
-                boolean notInLRUmap = (frag.lastUse == 0); // check this BEFORE updating lastUse
-                frag.lastUse = ++m_nextFragUse;
-                if (notInLRUmap) {
-                    m_plansLRU.put(frag.lastUse, frag);
-                }
-            }
+        FragInfo frag = m_plansById.get(fragmentId);
+        // The assert that used to be here would fail in TestAdHocQueries when it
+        // re-initialized the RealVoltDB, clearing the m_plansById before
+        // all SQLStmts were finalized. Maybe that's just a "test bug" that would be
+        // better fixed with some kind of test-only cleanup hook?
+        // OR It's possible that this early return is covering for a minor bug.
+        // Maybe SQLStmt.finalize is calling this method when it shouldn't?
+        // Maybe that's because the SQLStmt site member should be null in more cases?
+        //assert(frag != null);
+        if (frag == null) {
+            return;
+        }
+        if (frag.refCount.decrementAndGet() == 0) {
+            // The disused fragment belongs at the back of the LRU queue.
+            // If it is already queued (at a "too early" position), just updating its lastUse
+            // is a cheap way to notify the eviction that it is not ready for eviction but
+            // should instead be requeued further back.
+            // For a popular fragment in a small or stable cache, that may be after MANY
+            // re-uses like this. This prevents thrashing of the LRU queue.
+            frag.lastUse = m_nextFragUse.incrementAndGet();
+            enqueue(frag);
         }
     }
 
@@ -231,31 +280,61 @@ public abstract class ActivePlanRepository {
     public static byte[] planForFragmentId(long fragmentId) {
         assert(fragmentId > 0);
 
-        FragInfo frag = null;
-        synchronized (FragInfo.class) {
-            frag = m_plansById.get(fragmentId);
-        }
+        FragInfo frag = m_plansById.get(fragmentId);
         assert(frag != null);
         return frag.plan;
     }
 
+    /**
+     * @return number of fragments currently registered
+     */
+    public static int getFragmentCount() {
+        return m_plansById.size();
+    }
+
+    /**
+     * @return number of fragments loaded since startup
+     */
+    public static long getLoadCount() {
+        return m_loads.sum();
+    }
+
+    /**
+     * @return number of loads of fragments that were already registered since startup
+     */
+    public static long getHitCount() {
+        return m_hits.sum();
+    }
+
+    /**
+     * @return number of fragments evicted since startup
+     */
+    public static long getEvictionCount() {
+        return m_evictions.sum();
+    }
+
     @Deprecated
     public static void addFragmentForTest(long fragmentId, byte[] plan, String stmtText) {
         Sha1Wrapper key = new Sha1Wrapper(new byte[20]);
-        synchronized (FragInfo.class) {
-            FragInfo frag = new FragInfo(key, plan, fragmentId, stmtText);
-            m_plansById.put(frag.fragId, frag);
-            frag.refCount++;
-        }
+        FragInfo frag = new FragInfo(key, plan, fragmentId, stmtText);
+        frag.refCount.incrementAndGet();
+        m_plansById.put(frag.fragId, frag);
     }
 
     public static void clear() {
-        synchronized (FragInfo.class) {
+        m_evictionLock.lock();
+        try {
             m_plansById.clear();
             m_plansByHash.clear();
             m_plansLRU.clear();
-            m_nextFragId = INITIAL_FRAG_ID;
-            m_nextFragUse = 1;
+            m_nextFragId.set(INITIAL_FRAG_ID);
+            m_nextFragUse.set(1);
+            m_loads.reset();
+            m_hits.reset();
+            m_evictions.reset();
+        }
+        finally {
+            m_evictionLock.unlock();
         }
     }
 }
@@ -19,7 +19,6 @@ package org.voltdb.planner;
 
 import java.util.*;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 import org.hsqldb_voltpatches.HSQLInterface;
 import org.hsqldb_voltpatches.HSQLInterface.HSQLParseException;
 import org.hsqldb_voltpatches.VoltXMLElement;
@@ -70,16 +69,18 @@ public class QueryPlanner implements AutoCloseable {
 
     public final static String UPSERT_TAG = "isUpsert";
 
-    private static final Lock PLANNER_LOCK = new ReentrantLock();
+    // Session lock of the HSQL instance, held while parsing
+    private final Lock m_sessionLock;
 
     /**
      * Initialize planner with physical schema info and a reference to HSQLDB parser.
      *
-     * NOTE: Until the planner can handle planning multiple statements in parallel,
-     * creating an instance of this object will lock the global PLANNER_LOCK, which must
-     * be released by calling this class's close method.
+     * NOTE: An HSQL session can only parse one statement at a time, so parsing locks
+     * the session of the given HSQLInterface. Planning from the parsed XML doesn't use
+     * the session, so planners sharing an HSQLInterface only take turns to parse and
+     * otherwise run in parallel. The per-statement planner state is kept per thread.
      *
-     * This class implements AutoCloseable, so the easiest way to achieve this is like so:
+     * This class implements AutoCloseable, use it like so:
      * try (QueryPlanner planner = new QueryPlanner(...)) {
      *     <do all the planning here>
      * }
@@ -110,7 +111,6 @@ public class QueryPlanner implements AutoCloseable {
                         String joinOrder,
                         DeterminismMode detMode,
                         boolean isLargeQuery) {
-        PLANNER_LOCK.lock();
         assert(sql != null);
         assert(stmtName != null);
         assert(procName != null);
@@ -123,6 +123,7 @@ public class QueryPlanner implements AutoCloseable {
         m_stmtName = stmtName;
         m_procName = procName;
         m_HSQL = HSQL;
+        m_sessionLock = HSQL.getSessionLock();
         m_db = catalogDb;
         m_estimates = estimates;
         m_partitioning = partitioning;
@@ -139,7 +140,7 @@ public class QueryPlanner implements AutoCloseable {
 
     @Override
     public void close() {
-        PLANNER_LOCK.unlock();
+        // Nothing to release, the session is only locked while parsing
     }
 
     /**
@@ -172,7 +173,13 @@ public class QueryPlanner implements AutoCloseable {
         try {
             ParameterizationInfo.resetCurrentParamIndex();
 
-            m_xmlSQL = m_HSQL.getXMLCompiledStatement(m_sql);
+            m_sessionLock.lock();
+            try {
+                m_xmlSQL = m_HSQL.getXMLCompiledStatement(m_sql);
+            }
+            finally {
+                m_sessionLock.unlock();
+            }
             //* enable to debug */ System.out.println("DEBUG: HSQL parsed:" + m_xmlSQL);
         }
         catch (HSQLParseException e) {
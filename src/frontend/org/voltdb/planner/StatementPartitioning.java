@@ -590,4 +590,24 @@ public class StatementPartitioning implements Cloneable{
         m_partitionColForDML = null;
     }
 
+    /**
+     * Take over the analysis state of another instance with the same partitioning
+     * context, as if the statement analyzed with it had been analyzed with this one.
+     * Used when a statement was planned on another thread.
+     */
+    public void copyAnalysisState(StatementPartitioning other) {
+        assert(m_forceSP == other.m_forceSP && m_inferPartitioning == other.m_inferPartitioning);
+        m_countOfIndependentlyPartitionedTables = other.m_countOfIndependentlyPartitionedTables;
+        m_countOfPartitionedTables = other.m_countOfPartitionedTables;
+        m_fullColumnName = other.m_fullColumnName;
+        m_inferredExpression.clear();
+        m_inferredExpression.addAll(other.m_inferredExpression);
+        m_inferredParameterIndex = other.m_inferredParameterIndex;
+        m_inferredValue = other.m_inferredValue;
+        m_isDML = other.m_isDML;
+        setJoinValid(other.m_joinValid);
+        setJoinInvalidReason(other.m_recentInvalidReason);
+        m_partitionColForDML = other.m_partitionColForDML;
+    }
+
 }
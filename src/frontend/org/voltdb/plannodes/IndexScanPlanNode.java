@@ -667,7 +667,8 @@ public class IndexScanPlanNode extends AbstractScanPlanNode implements IndexSort
             // Using a factor of 0.1 per FULLY covered (equality-filtered) column,
             // the effective scale factor for a single PARTIALLY covered (range-filtered) column
             // comes to SQRT(0.1) which is just under 32% FTW!
-            tuplesToRead += (int) (tableEstimates.maxTuples * 0.90 * Math.pow(0.10, keyWidth));
+            // A partial index only holds part of the table, which table statistics can tell.
+            tuplesToRead += (int) (tableEstimates.getIndexTuples(m_catalogIndex.getTypeName()) * 0.90 * Math.pow(0.10, keyWidth));
             // "Covering cell" indexes get a special adjustment to make them look more favorable
             // than non-unique range filters in particular.
             // I can't quite justify that rationally, but it "seems reasonable". --paul
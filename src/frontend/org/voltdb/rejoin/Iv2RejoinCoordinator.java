@@ -85,9 +85,15 @@ public class Iv2RejoinCoordinator extends JoinCoordinator {
     // Node-wise stream snapshot receiver buffer pool
     private final Queue<BBContainer> m_snapshotDataBufPool;
     private final Queue<BBContainer> m_snapshotCompressedDataBufPool;
+    // Bytes received by each rejoining site, reported periodically while streaming
+    private final StreamSnapshotProgress m_snapshotProgress = new StreamSnapshotProgress();
+    private static final long PROGRESS_REPORT_INTERVAL_S = 10;
 
     private String m_hostId;
 
+    // number of sites that have not finished receiving their snapshot stream
+    private int m_streamingSites = 0;
+
     private Long m_lowestDestSiteHSId = CoreUtils.getHSIdFromHostAndSite(0, Integer.MAX_VALUE);
     private Long m_lowestSiteSinkHSId = 0L;
 
@@ -138,6 +144,7 @@ public class Iv2RejoinCoordinator extends JoinCoordinator {
                                               nonce,
                                               m_snapshotDataBufPool,
                                               m_snapshotCompressedDataBufPool,
+                                              m_snapshotProgress,
                                               schemaHasNoTables);
         send(com.google_voltpatches.common.primitives.Longs.toArray(HSIds), msg);
 
@@ -260,6 +267,7 @@ public class Iv2RejoinCoordinator extends JoinCoordinator {
             // no snapshot transfer is needed.
             if (dataSinkHSId != Long.MIN_VALUE) {
                 m_srcToDest.put(masterHSId, dataSinkHSId);
+                m_streamingSites++;
             }
             m_rejoiningSites.add(HSId);
             nonce = m_nonces.get(HSId);
@@ -275,11 +283,33 @@ public class Iv2RejoinCoordinator extends JoinCoordinator {
         }
         if (data != null && !schemaHasNoTables) {
             REJOINLOG.debug("Snapshot request: " + data);
+            scheduleProgressReport();
             SnapshotUtil.requestSnapshot(0l, "", nonce, !m_liveRejoin, SnapshotFormat.STREAM, SnapshotPathType.SNAP_NO_PATH, data,
                     SnapshotUtil.fatalSnapshotResponseHandler, true);
         }
     }
 
+    /**
+     * Log the rejoin data throughput of every rejoining site until all of them
+     * have received their snapshot.
+     */
+    private void scheduleProgressReport()
+    {
+        VoltDB.instance().scheduleWork(new Runnable() {
+            @Override
+            public void run() {
+                boolean streaming;
+                synchronized (m_lock) {
+                    streaming = m_streamingSites > 0;
+                }
+                if (streaming) {
+                    REJOINLOG.info(m_snapshotProgress.report());
+                    scheduleProgressReport();
+                }
+            }
+        }, PROGRESS_REPORT_INTERVAL_S, -1, TimeUnit.SECONDS);
+    }
+
     @Override
     public void deliver(VoltMessage message) {
         if (!(message instanceof RejoinMessage)) {
@@ -293,6 +323,13 @@ public class Iv2RejoinCoordinator extends JoinCoordinator {
         if (type == RejoinMessage.Type.SNAPSHOT_FINISHED) {
             REJOINLOG.info("Finished streaming snapshot to site: " +
                            CoreUtils.hsIdToString(rm.m_sourceHSId));
+            boolean allStreamed;
+            synchronized (m_lock) {
+                allStreamed = m_streamingSites > 0 && --m_streamingSites == 0;
+            }
+            if (allStreamed) {
+                REJOINLOG.info(m_snapshotProgress.report());
+            }
         } else if (type == RejoinMessage.Type.REPLAY_FINISHED) {
             assert(m_catalog != null);
             onReplayFinished(rm.m_sourceHSId);
@@ -19,16 +19,20 @@ package org.voltdb.rejoin;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -42,6 +46,7 @@ import org.voltcore.utils.DBBPool.BBContainer;
 import org.voltcore.utils.Pair;
 import org.voltdb.SnapshotDataTarget;
 import org.voltdb.SnapshotFormat;
+import org.voltdb.SnapshotSiteProcessor;
 import org.voltdb.VoltDB;
 import org.voltdb.utils.CompressionService;
 
@@ -324,8 +329,12 @@ implements SnapshotDataTarget, StreamSnapshotAckReceiver.AckCallback {
             long bytesWritten = 0;
             try {
                 bytesWritten = m_sender.m_bytesSent.get(m_targetId).get();
-                rejoinLog.info(String.format("While sending rejoin data to site %s, %d bytes have been sent in the past %s seconds.",
-                        CoreUtils.hsIdToString(m_destHSId), bytesWritten - m_bytesWrittenSinceConstruction, WATCHDOG_PERIOS_S));
+                final long sentBytes = bytesWritten - m_bytesWrittenSinceConstruction;
+                rejoinLog.info(String.format("While sending rejoin data to site %s, %d bytes have been sent in the past %s seconds " +
+                        "(%.2f MB/s, %d blocks in flight).",
+                        CoreUtils.hsIdToString(m_destHSId), sentBytes, WATCHDOG_PERIOS_S,
+                        toMBPerSecond(sentBytes, TimeUnit.SECONDS.toMillis(WATCHDOG_PERIOS_S)),
+                        m_outstandingWorkCount.get()));
 
                 checkTimeout(m_writeTimeout);
                 if (m_writeFailed.get() != null) {
@@ -400,6 +409,11 @@ implements SnapshotDataTarget, StreamSnapshotAckReceiver.AckCallback {
             m_outstandingWorkCount.decrementAndGet();
             m_outstandingWork.remove(blockIndex);
             work.discard();
+            if (work.m_type == StreamSnapshotMessageType.DATA && m_sender.isIdle()) {
+                // Acks are coming back faster than the sites produce blocks,
+                // let them have more blocks in flight
+                SnapshotSiteProcessor.growSnapshotBufferWindow();
+            }
         }
         else {
             rejoinLog.trace("Received ack for targetId " + m_targetId +
@@ -408,13 +422,23 @@ implements SnapshotDataTarget, StreamSnapshotAckReceiver.AckCallback {
     }
 
     /**
-     * Thread that runs send work (sending snapshot blocks). One per node
+     * Sends snapshot blocks for all the data targets on a node. The thread that
+     * runs it starts additional sender threads so that blocks of multiple
+     * streams, and of a single stream, are compressed and sent concurrently.
+     * Only DATA blocks are sent out of order, the data target waits for all
+     * other message types to be sent before producing more work.
      */
     public static class SnapshotSender implements Runnable {
+        // Number of threads sending blocks, including the one that runs this sender
+        public static final int DEFAULT_SENDER_THREADS =
+                Integer.getInteger("REJOIN_SENDER_THREADS", Math.max(1, Math.min(4, CoreUtils.availableProcessors() / 4)));
+
         private final Mailbox m_mb;
         private final MessageFactory m_msgFactory;
         private final LinkedBlockingQueue<SendWork> m_workQueue;
         private final AtomicInteger m_expectedEOFs;
+        private final int m_senderThreads;
+        private volatile boolean m_done = false;
 
         final Map<Long, AtomicLong> m_bytesSent;
         final Map<Long, AtomicLong> m_worksSent;
@@ -426,10 +450,17 @@ implements SnapshotDataTarget, StreamSnapshotAckReceiver.AckCallback {
         }
 
         public SnapshotSender(Mailbox mb, MessageFactory msgFactory)
+        {
+            this(mb, msgFactory, DEFAULT_SENDER_THREADS);
+        }
+
+        public SnapshotSender(Mailbox mb, MessageFactory msgFactory, int senderThreads)
         {
             Preconditions.checkArgument(mb != null);
+            Preconditions.checkArgument(senderThreads > 0);
             m_mb = mb;
             m_msgFactory = msgFactory;
+            m_senderThreads = senderThreads;
             m_workQueue = new LinkedBlockingQueue<SendWork>();
             m_expectedEOFs = new AtomicInteger();
             m_bytesSent = Collections.synchronizedMap(new HashMap<Long, AtomicLong>());
@@ -448,11 +479,56 @@ implements SnapshotDataTarget, StreamSnapshotAckReceiver.AckCallback {
             m_workQueue.offer(work);
         }
 
+        /**
+         * @return true if no block is waiting for a sender thread
+         */
+        boolean isIdle()
+        {
+            return m_workQueue.isEmpty();
+        }
+
         @Override
         public void run() {
             rejoinLog.trace("Starting stream sender thread");
+            final long startTime = System.currentTimeMillis();
+
+            List<Thread> helpers = new ArrayList<Thread>(m_senderThreads - 1);
+            for (int i = 1; i < m_senderThreads; i++) {
+                Thread helper = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        sendLoop();
+                    }
+                }, Thread.currentThread().getName() + " - " + i);
+                helper.setDaemon(true);
+                helper.start();
+                helpers.add(helper);
+            }
 
-            while (true) {
+            sendLoop();
+
+            for (Thread helper : helpers) {
+                try {
+                    helper.join();
+                } catch (InterruptedException e) {}
+            }
+            // The window may have been widened while streaming, give the buffers back
+            SnapshotSiteProcessor.resetSnapshotBufferWindow();
+
+            long totalBytes = 0;
+            synchronized (m_bytesSent) {
+                for (AtomicLong bytes : m_bytesSent.values()) {
+                    totalBytes += bytes.get();
+                }
+            }
+            final long elapsedMs = Math.max(1, System.currentTimeMillis() - startTime);
+            rejoinLog.info(String.format("Stream snapshot sender sent %d bytes to %d targets in %d seconds (%.2f MB/s)",
+                    totalBytes, m_bytesSent.size(), elapsedMs / 1000, toMBPerSecond(totalBytes, elapsedMs)));
+            rejoinLog.trace("Stream sender thread exiting");
+        }
+
+        private void sendLoop() {
+            while (!m_done) {
                 SendWork work;
 
                 try {
@@ -460,14 +536,21 @@ implements SnapshotDataTarget, StreamSnapshotAckReceiver.AckCallback {
                     work = m_workQueue.poll(10, TimeUnit.MINUTES);
 
                     if (work == null) {
-                        rejoinLog.warn("No stream snapshot send work was produced in the past 10 minutes");
+                        if (!m_done) {
+                            rejoinLog.warn("No stream snapshot send work was produced in the past 10 minutes");
+                        }
                         break;
                     } else if (work.m_isEmpty) {
                         // Empty work indicates the end of the queue.
                         // The sender is shared by multiple data targets, each of them will
                         // send an end-of-queue work, must wait until all end-of-queue works
-                        // are received before terminating the thread.
+                        // are received before terminating the threads.
                         if (m_expectedEOFs.decrementAndGet() == 0) {
+                            m_done = true;
+                            // Wake up the other sender threads
+                            for (int i = 1; i < m_senderThreads; i++) {
+                                m_workQueue.offer(new SendWork());
+                            }
                             break;
                         } else {
                             continue;
@@ -483,10 +566,13 @@ implements SnapshotDataTarget, StreamSnapshotAckReceiver.AckCallback {
                 }
             }
             CompressionService.releaseThreadLocal();
-            rejoinLog.trace("Stream sender thread exiting");
         }
     }
 
+    static double toMBPerSecond(long bytes, long elapsedMs) {
+        return (bytes / (1024.0 * 1024.0)) / (Math.max(1, elapsedMs) / 1000.0);
+    }
+
     @Override
     public int getHeaderSize() {
         return contentOffset;
@@ -589,9 +675,32 @@ implements SnapshotDataTarget, StreamSnapshotAckReceiver.AckCallback {
         m_outstandingWork.put(blockIndex, sendWork);
         m_outstandingWorkCount.incrementAndGet();
         m_sender.offer(sendWork);
+        if (type != StreamSnapshotMessageType.DATA) {
+            // Blocks may be sent by any of the sender threads, make sure the schema
+            // and the hashinator config are on the wire before any data that follows
+            awaitSent(sendFuture);
+        }
         return sendFuture;
     }
 
+    private void awaitSent(ListenableFuture<Boolean> sendFuture) {
+        while (m_writeFailed.get() == null) {
+            try {
+                sendFuture.get(WATCHDOG_PERIOS_S, TimeUnit.SECONDS);
+                return;
+            } catch (TimeoutException e) {
+                if (m_sender.m_lastException != null) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                return;
+            }
+        }
+    }
+
     @Override
     public void reportSerializationFailure(IOException ex) {
         m_reportedSerializationFailure = ex;
@@ -0,0 +1,80 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.rejoin;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.voltcore.utils.CoreUtils;
+
+/**
+ * Bytes of snapshot data received by each rejoining site. The sinks bump their
+ * counter as blocks arrive and the rejoin coordinator turns them into a
+ * throughput report.
+ */
+public class StreamSnapshotProgress {
+    private final ConcurrentHashMap<Long, AtomicLong> m_bytesBySite = new ConcurrentHashMap<Long, AtomicLong>();
+
+    // Values at the time of the previous report, guarded by this
+    private final Map<Long, Long> m_lastReportedBytes = new HashMap<Long, Long>();
+    private final long m_startTime = System.currentTimeMillis();
+    private long m_lastReportTime = m_startTime;
+
+    public AtomicLong register(long siteHSId) {
+        AtomicLong counter = new AtomicLong();
+        AtomicLong existing = m_bytesBySite.putIfAbsent(siteHSId, counter);
+        return existing == null ? counter : existing;
+    }
+
+    public long getTotalBytes() {
+        long total = 0;
+        for (AtomicLong bytes : m_bytesBySite.values()) {
+            total += bytes.get();
+        }
+        return total;
+    }
+
+    /**
+     * Describe the throughput of every stream since the previous call and the
+     * overall throughput since the transfer started.
+     */
+    public synchronized String report() {
+        final long now = System.currentTimeMillis();
+        final long interval = now - m_lastReportTime;
+        StringBuilder sb = new StringBuilder();
+        long total = 0;
+        long totalDelta = 0;
+        for (Map.Entry<Long, AtomicLong> e : new TreeMap<Long, AtomicLong>(m_bytesBySite).entrySet()) {
+            final long bytes = e.getValue().get();
+            final Long last = m_lastReportedBytes.put(e.getKey(), bytes);
+            final long delta = bytes - (last == null ? 0 : last);
+            total += bytes;
+            totalDelta += delta;
+            sb.append(String.format(" %s: %.2f MB/s;", CoreUtils.hsIdToString(e.getKey()),
+                    StreamSnapshotDataTarget.toMBPerSecond(delta, interval)));
+        }
+        m_lastReportTime = now;
+        return String.format("Rejoin data received %.2f MB at %.2f MB/s (%.2f MB/s overall).",
+                total / (1024.0 * 1024.0),
+                StreamSnapshotDataTarget.toMBPerSecond(totalDelta, interval),
+                StreamSnapshotDataTarget.toMBPerSecond(total, now - m_startTime)) + sb.toString();
+    }
+}
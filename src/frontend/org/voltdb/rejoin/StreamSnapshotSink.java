@@ -22,6 +22,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.voltcore.logging.VoltLogger;
 import org.voltcore.messaging.Mailbox;
@@ -59,6 +60,8 @@ public class StreamSnapshotSink {
     // Schemas of the tables
     private final Map<Integer, byte[]> m_schemas = new HashMap<Integer, byte[]>();
     private long m_bytesReceived = 0;
+    // Shared with the rejoin coordinator for throughput reporting, may be null
+    private AtomicLong m_progress = null;
 
     /**
      * A piece of work that can be restored on the site receiving the data.
@@ -166,6 +169,13 @@ public class StreamSnapshotSink {
         return m_mb.getHSId();
     }
 
+    /**
+     * Count received bytes in the given counter as well.
+     */
+    public void setProgressCounter(AtomicLong progress) {
+        m_progress = progress;
+    }
+
     public boolean isEOF() {
         return m_EOF;
     }
@@ -311,6 +321,9 @@ public class StreamSnapshotSink {
                 block.position(StreamSnapshotDataTarget.contentOffset);
                 ByteBuffer nextChunk = getNextChunk(m_schemas.get(msg.m_tableId), block, resultBufferAllocator);
                 m_bytesReceived += nextChunk.remaining();
+                if (m_progress != null) {
+                    m_progress.addAndGet(nextChunk.remaining());
+                }
 
                 restoreWork = new TableRestoreWork(msg.m_tableId, nextChunk);
             }
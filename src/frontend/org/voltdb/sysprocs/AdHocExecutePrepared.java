@@ -0,0 +1,64 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.sysprocs;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import org.voltdb.ClientResponseImpl;
+import org.voltdb.ParameterSet;
+import org.voltdb.VoltDB;
+import org.voltdb.VoltTable;
+import org.voltdb.client.ClientResponse;
+import org.voltdb.common.Constants;
+import org.voltdb.compiler.AdHocPreparedStatements;
+import org.voltdb.compiler.AdHocPreparedStatements.PreparedStatement;
+
+/**
+ * Run a statement prepared with @AdHocPrepare. The first parameter is the plan handle,
+ * the others are the values of the statement's parameters.
+ */
+public class AdHocExecutePrepared extends AdHocNTBase {
+
+    public CompletableFuture<ClientResponse> run(ParameterSet params) {
+        if (params.size() == 0 || !(params.getParam(0) instanceof Number)) {
+            return makeQuickResponse(ClientResponse.GRACEFUL_FAILURE,
+                    "@AdHocExecutePrepared requires at least the plan handle parameter.");
+        }
+
+        final long handle = ((Number) params.getParam(0)).longValue();
+        PreparedStatement prepared = AdHocPreparedStatements.instance().get(handle);
+        if (prepared == null) {
+            // Not prepared on this host or evicted, the client prepares it again
+            CompletableFuture<ClientResponse> fut = new CompletableFuture<>();
+            fut.complete(new ClientResponseImpl(ClientResponse.GRACEFUL_FAILURE,
+                                                Constants.UNKNOWN_PLAN_HANDLE,
+                                                null,
+                                                new VoltTable[0],
+                                                "Unknown plan handle " + handle + ", prepare the statement again."));
+            return fut;
+        }
+
+        Object[] userParams = null;
+        if (params.size() > 1) {
+            Object[] paramArray = params.toArray();
+            userParams = Arrays.copyOfRange(paramArray, 1, paramArray.length);
+        }
+        return runPreparedAdHoc(VoltDB.instance().getCatalogContext(), prepared, userParams);
+    }
+}
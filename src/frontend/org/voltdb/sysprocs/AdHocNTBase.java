@@ -40,6 +40,7 @@ import org.voltdb.catalog.Database;
 import org.voltdb.client.ClientResponse;
 import org.voltdb.compiler.AdHocPlannedStatement;
 import org.voltdb.compiler.AdHocPlannedStmtBatch;
+import org.voltdb.compiler.AdHocPreparedStatements.PreparedStatement;
 import org.voltdb.compiler.PlannerTool;
 import org.voltdb.parser.SQLLexer;
 import org.voltdb.planner.StatementPartitioning;
@@ -49,7 +50,8 @@ import org.voltdb.utils.VoltTrace;
 import com.google_voltpatches.common.base.Charsets;
 
 /**
- * Base class for non-transactional sysprocs AdHoc, AdHocSPForTest and SwapTables
+ * Base class for non-transactional sysprocs AdHoc, AdHocSPForTest, AdHocPrepare,
+ * AdHocExecutePrepared and SwapTables
  *
  *
  */
@@ -183,6 +185,30 @@ public abstract class AdHocNTBase extends UpdateApplicationBase {
                                                         boolean isSwapTables,
                                                         Object[] userParamSet)
                                                                 throws AdHocPlanningException
+    {
+        return compileAdHocSQL(plannerTool, sqlStatement, inferPartitioning, userPartitionKey,
+                               explainMode, isLargeQuery, isSwapTables, userParamSet, false);
+    }
+
+    /**
+     * Plan a single DML/DQL statement for @AdHocPrepare, before its parameter values are known.
+     */
+    public static AdHocPlannedStatement prepareAdHocSQL(PlannerTool plannerTool, String sqlStatement)
+            throws AdHocPlanningException
+    {
+        return compileAdHocSQL(plannerTool, sqlStatement, true, null, ExplainMode.NONE, false, false, null, true);
+    }
+
+    private static AdHocPlannedStatement compileAdHocSQL(PlannerTool plannerTool,
+                                                         String sqlStatement,
+                                                         boolean inferPartitioning,
+                                                         Object userPartitionKey,
+                                                         ExplainMode explainMode,
+                                                         boolean isLargeQuery,
+                                                         boolean isSwapTables,
+                                                         Object[] userParamSet,
+                                                         boolean isPrepare)
+                                                                 throws AdHocPlanningException
     {
         assert(plannerTool != null);
         assert(sqlStatement != null);
@@ -203,6 +229,9 @@ public abstract class AdHocNTBase extends UpdateApplicationBase {
         }
 
         try {
+            if (isPrepare) {
+                return ptool.prepareSql(sqlStatement);
+            }
             return ptool.planSql(sqlStatement,
                                  partitioning,
                                  explainMode != ExplainMode.NONE,
@@ -350,6 +379,59 @@ public abstract class AdHocNTBase extends UpdateApplicationBase {
         }
     }
 
+    /**
+     * Execute a statement prepared with @AdHocPrepare. The statement is replanned from its
+     * SQL text first if the catalog changed since it was planned.
+     */
+    protected CompletableFuture<ClientResponse> runPreparedAdHoc(CatalogContext context,
+                                                                 PreparedStatement prepared,
+                                                                 Object[] userParamSet)
+    {
+        if (context == null) {
+            context = VoltDB.instance().getCatalogContext();
+        }
+
+        AdHocPlannedStatement stmt = prepared.getPlan();
+        if (!stmt.core.wasPlannedAgainstHash(context.getCatalogHash())) {
+            try {
+                stmt = prepareAdHocSQL(context.m_ptool, prepared.sql);
+            }
+            catch (AdHocPlanningException e) {
+                return makeQuickResponse(ClientResponse.GRACEFUL_FAILURE, e.getMessage());
+            }
+            prepared.setPlan(stmt);
+        }
+
+        final int paramCount = userParamSet == null ? 0 : userParamSet.length;
+        if (paramCount != prepared.getParameterCount()) {
+            return makeQuickResponse(ClientResponse.GRACEFUL_FAILURE,
+                    String.format("Incorrect number of parameters passed: expected %d, passed %d",
+                                  prepared.getParameterCount(), paramCount));
+        }
+
+        List<AdHocPlannedStatement> stmts = new ArrayList<>(1);
+        stmts.add(stmt);
+        AdHocPlannedStmtBatch plannedStmtBatch =
+                new AdHocPlannedStmtBatch(paramCount == 0 ? null : userParamSet,
+                                          stmts,
+                                          stmt.getPartitioningParameterIndex(),
+                                          stmt.getPartitioningParameterType(),
+                                          stmt.getPartitioningParameterValue(),
+                                          null);
+
+        if (adhocLog.isDebugEnabled()) {
+            logBatch(context, plannedStmtBatch, userParamSet);
+        }
+
+        try {
+            return createAdHocTransaction(plannedStmtBatch, false);
+        }
+        catch (VoltTypeException vte) {
+            String msg = "Unable to execute adhoc sql statement(s): " + vte.getMessage();
+            return makeQuickResponse(ClientResponse.GRACEFUL_FAILURE, msg);
+        }
+    }
+
     static CompletableFuture<ClientResponse> processExplainPlannedStmtBatch(AdHocPlannedStmtBatch planBatch) {
         /**
          * Take the response from the async ad hoc planning process and put the explain
@@ -0,0 +1,95 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.sysprocs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.voltdb.ClientResponseImpl;
+import org.voltdb.ParameterSet;
+import org.voltdb.VoltDB;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltType;
+import org.voltdb.client.ClientResponse;
+import org.voltdb.common.Constants;
+import org.voltdb.compiler.AdHocPlannedStatement;
+import org.voltdb.compiler.AdHocPreparedStatements;
+import org.voltdb.compiler.AdHocPreparedStatements.PreparedStatement;
+
+/**
+ * Plan a single DML/DQL statement, possibly with question mark parameters, and return
+ * a plan handle to run it with @AdHocExecutePrepared.
+ */
+public class AdHocPrepare extends AdHocNTBase {
+
+    public CompletableFuture<ClientResponse> run(ParameterSet params) {
+        if (params.size() != 1 || !(params.getParam(0) instanceof String)) {
+            return makeQuickResponse(ClientResponse.GRACEFUL_FAILURE,
+                    "@AdHocPrepare expects exactly one parameter, the SQL statement.");
+        }
+
+        List<String> sqlStatements = new ArrayList<>();
+        AdHocSQLMix mix = processAdHocSQLStmtTypes((String) params.getParam(0), sqlStatements);
+        if (mix == AdHocSQLMix.EMPTY) {
+            return notPreparable("Failed to plan, no SQL statement provided.");
+        }
+        else if (mix != AdHocSQLMix.ALL_DML_OR_DQL) {
+            return notPreparable("DDL is not supported in @AdHocPrepare.");
+        }
+        if (sqlStatements.size() != 1) {
+            return notPreparable("@AdHocPrepare expects precisely one statement (no batching).");
+        }
+
+        String sql = sqlStatements.get(0);
+        AdHocPlannedStatement stmt;
+        try {
+            stmt = prepareAdHocSQL(VoltDB.instance().getCatalogContext().m_ptool, sql);
+        }
+        catch (AdHocPlanningException e) {
+            return makeQuickResponse(ClientResponse.GRACEFUL_FAILURE, e.getMessage());
+        }
+
+        PreparedStatement prepared = AdHocPreparedStatements.instance().put(sql, stmt);
+        if (prepared == null) {
+            return makeQuickResponse(ClientResponse.GRACEFUL_FAILURE,
+                    "The plan handle of this statement is already used by another statement.");
+        }
+
+        VoltTable result = new VoltTable(new VoltTable.ColumnInfo("HANDLE", VoltType.BIGINT),
+                                         new VoltTable.ColumnInfo("PARAMETER_COUNT", VoltType.INTEGER));
+        result.addRow(prepared.handle, prepared.getParameterCount());
+        CompletableFuture<ClientResponse> fut = new CompletableFuture<>();
+        fut.complete(new ClientResponseImpl(ClientResponseImpl.SUCCESS, new VoltTable[] { result }, null));
+        return fut;
+    }
+
+    /**
+     * SQL text that will never be preparable, whatever the schema. Unlike planning
+     * errors the client doesn't try to prepare it again.
+     */
+    private static CompletableFuture<ClientResponse> notPreparable(String msg) {
+        CompletableFuture<ClientResponse> fut = new CompletableFuture<>();
+        fut.complete(new ClientResponseImpl(ClientResponse.GRACEFUL_FAILURE,
+                                            Constants.NOT_PREPARABLE_STATEMENT,
+                                            null,
+                                            new VoltTable[0],
+                                            msg));
+        return fut;
+    }
+}
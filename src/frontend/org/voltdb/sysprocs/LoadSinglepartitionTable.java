@@ -21,18 +21,22 @@ import java.util.List;
 import java.util.Map;
 
 import org.voltdb.DependencyPair;
+import org.voltdb.DeprecatedProcedureAPIAccess;
 import org.voltdb.ParameterSet;
 import org.voltdb.SQLStmt;
 import org.voltdb.SystemProcedureExecutionContext;
+import org.voltdb.TheHashinator;
 import org.voltdb.VoltDB;
 import org.voltdb.VoltSystemProcedure;
 import org.voltdb.VoltTable;
+import org.voltdb.VoltType;
 import org.voltdb.catalog.Column;
 import org.voltdb.catalog.Constraint;
 import org.voltdb.catalog.Procedure;
 import org.voltdb.catalog.Statement;
 import org.voltdb.catalog.Table;
 import org.voltdb.types.ConstraintType;
+import org.voltdb.utils.CatalogUtil;
 
 /**
  * Given as input a VoltTable with a schema corresponding to a persistent table,
@@ -125,6 +129,25 @@ public class LoadSinglepartitionTable extends VoltSystemProcedure
             }
         }
 
+        // Plain inserts are handed to the EE as a whole table: one call and one undo quantum
+        // for the batch instead of an insert fragment per row.
+        // Streams and views are left to the insert statement to accept or refuse, and tables
+        // with a row limit to the insert statement that runs their row limit delete.
+        if (!isUpsert && table.getRowCount() > 1 && m_runner.getNonVoltDBBackendIfExists() == null
+                && catTable.getMaterializer() == null
+                && catTable.getTuplelimit() == Integer.MAX_VALUE
+                && !CatalogUtil.isTableExportOnly(ctx.getDatabase(), catTable)
+                && matchesSchema(catTable, table)) {
+            checkPartitioning(ctx, catTable, table);
+            DeprecatedProcedureAPIAccess.voltLoadTable(
+                    this,
+                    ctx.getCluster().getTypeName(),
+                    ctx.getDatabase().getTypeName(),
+                    catTable.getTypeName(),
+                    table, false, true, true);
+            return table.getRowCount();
+        }
+
         // action should be either "insert" or "upsert"
         final String action = (isUpsert ? "upsert" :"insert");
 
@@ -201,6 +224,46 @@ public class LoadSinglepartitionTable extends VoltSystemProcedure
         return executed;
     }
 
+    /**
+     * The EE loads the serialized rows as they are, so the bulk path is only taken
+     * when the input has exactly the column types of the table. Anything else goes
+     * through the insert statement, which converts the values or reports the mismatch.
+     */
+    static boolean matchesSchema(Table catTable, VoltTable table) {
+        if (table.getColumnCount() != catTable.getColumns().size()) {
+            return false;
+        }
+        for (Column column : catTable.getColumns()) {
+            if (table.getColumnType(column.getIndex()) != VoltType.get((byte) column.getType())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The insert statement rejects rows that don't belong to this partition, the bulk
+     * load does not, so check them all before loading.
+     */
+    static void checkPartitioning(SystemProcedureExecutionContext ctx, Table catTable, VoltTable table) {
+        final Column partitionColumn = catTable.getPartitioncolumn();
+        final int columnIndex = partitionColumn.getIndex();
+        final VoltType partitionType = VoltType.get((byte) partitionColumn.getType());
+        final TheHashinator hashinator = ctx.getCurrentHashinator();
+        final int partitionId = ctx.getPartitionId();
+
+        table.resetRowPosition();
+        while (table.advanceRow()) {
+            Object value = table.get(columnIndex, partitionType);
+            if (hashinator.getHashedPartitionForParameter(partitionType, value) != partitionId) {
+                throw new VoltAbortException(
+                        String.format("Mispartitioned tuple in single-partition load of table %s.",
+                                catTable.getTypeName()));
+            }
+        }
+        table.resetRowPosition();
+    }
+
     /**
      * Execute a set of queued inserts. Ensure each insert successfully
      * inserts one row. Throw exception if not.
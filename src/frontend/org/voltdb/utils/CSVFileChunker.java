@@ -0,0 +1,224 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Cuts a CSV byte stream into chunks that end on record boundaries so that
+ * several threads can tokenize the file at once.
+ *
+ * Boundaries are found with a byte scan that tracks just enough of the
+ * tokenizer state to tell a record ending newline from one inside a quoted
+ * value: the quote character opens and closes quoted sections (a doubled
+ * quote closes and reopens) and outside of quotes the escape character makes
+ * the next byte literal. That is only valid for charsets where those
+ * characters and the newline are single bytes that never appear inside a
+ * multi-byte sequence, see {@link #canSplit}.
+ *
+ * Chunks also carry the physical line number they start at so errors can be
+ * reported against the line in the file.
+ */
+class CSVFileChunker {
+    private static final byte NEWLINE = '\n';
+
+    static class Chunk {
+        final byte[] m_data;
+        // Number of physical lines in the file before this chunk
+        final long m_lineOffset;
+
+        Chunk(byte[] data, long lineOffset) {
+            m_data = data;
+            m_lineOffset = lineOffset;
+        }
+
+        Reader reader(Charset charset) {
+            return new InputStreamReader(new ByteArrayInputStream(m_data), charset);
+        }
+    }
+
+    private final InputStream m_in;
+    private final byte m_quote;
+    private final byte m_escape;
+    private final int m_chunkSize;
+    private byte[] m_buf;
+    private int m_start = 0;
+    private int m_end = 0;
+    private boolean m_eof = false;
+    private long m_lineCount = 0;
+
+    /**
+     * @return true if files in this charset can be cut at newlines found by a byte scan
+     */
+    static boolean canSplit(Charset charset, char quote, char escape) {
+        if (quote >= 0x80 || escape >= 0x80) {
+            return false;
+        }
+        return charset.equals(StandardCharsets.UTF_8)
+                || charset.equals(StandardCharsets.US_ASCII)
+                || charset.name().startsWith("ISO-8859-")
+                || charset.name().startsWith("windows-125");
+    }
+
+    CSVFileChunker(InputStream in, char quote, char escape, int chunkSize) {
+        m_in = in;
+        m_quote = (byte) quote;
+        m_escape = (byte) escape;
+        m_chunkSize = chunkSize;
+        m_buf = new byte[chunkSize * 2];
+    }
+
+    /**
+     * Skip physical lines the same way the tokenizer does, ignoring quotes.
+     */
+    synchronized void skipLines(long count) throws IOException {
+        int scan = m_start;
+        while (count > 0) {
+            if (scan == m_end) {
+                if (m_eof) {
+                    break;
+                }
+                scan -= fill();
+                continue;
+            }
+            if (m_buf[scan++] == NEWLINE) {
+                m_start = scan;
+                ++m_lineCount;
+                --count;
+            }
+        }
+        if (count > 0 && m_start < m_end) {
+            // Last line without a trailing newline
+            m_start = m_end;
+            ++m_lineCount;
+        }
+    }
+
+    /**
+     * @return the next single record, used for the header, or null at the end of the stream
+     */
+    synchronized Chunk nextRecord() throws IOException {
+        return next(1);
+    }
+
+    /**
+     * @return the next chunk of roughly the configured size, or null at the end of the stream
+     */
+    synchronized Chunk nextChunk() throws IOException {
+        return next(m_chunkSize);
+    }
+
+    /**
+     * @return the number of physical lines consumed so far
+     */
+    synchronized long getLineCount() {
+        return m_lineCount;
+    }
+
+    private Chunk next(int minSize) throws IOException {
+        int scan = m_start;
+        int boundary = -1;
+        boolean quoted = false;
+        boolean escaped = false;
+        while (true) {
+            final byte[] buf = m_buf;
+            for (; scan < m_end; ++scan) {
+                final byte b = buf[scan];
+                if (quoted) {
+                    if (b == m_quote) {
+                        quoted = false;
+                    }
+                } else if (escaped) {
+                    escaped = false;
+                    if (b == NEWLINE) {
+                        boundary = scan + 1;
+                    }
+                } else if (b == m_escape) {
+                    escaped = true;
+                } else if (b == m_quote) {
+                    quoted = true;
+                } else if (b == NEWLINE) {
+                    boundary = scan + 1;
+                    if (boundary - m_start >= minSize) {
+                        break;
+                    }
+                }
+            }
+            if (boundary >= 0 && boundary - m_start >= minSize) {
+                break;
+            }
+            if (m_eof) {
+                if (m_start == m_end) {
+                    return null;
+                }
+                // Whatever is left, an unterminated quote is reported by the tokenizer
+                boundary = m_end;
+                break;
+            }
+            final int shift = fill();
+            scan -= shift;
+            if (boundary >= 0) {
+                boundary -= shift;
+            }
+        }
+
+        final byte[] data = Arrays.copyOfRange(m_buf, m_start, boundary);
+        m_start = boundary;
+        final Chunk chunk = new Chunk(data, m_lineCount);
+        for (byte b : data) {
+            if (b == NEWLINE) {
+                ++m_lineCount;
+            }
+        }
+        if (data.length > 0 && data[data.length - 1] != NEWLINE) {
+            ++m_lineCount;
+        }
+        return chunk;
+    }
+
+    /**
+     * Move the unconsumed bytes to the front of the buffer, growing it if a
+     * single record doesn't fit, and read more.
+     * @return how far the unconsumed bytes moved back
+     */
+    private int fill() throws IOException {
+        final int shift = m_start;
+        if (shift > 0) {
+            System.arraycopy(m_buf, m_start, m_buf, 0, m_end - m_start);
+            m_end -= shift;
+            m_start = 0;
+        }
+        if (m_end == m_buf.length) {
+            m_buf = Arrays.copyOf(m_buf, m_buf.length * 2);
+        }
+        final int read = m_in.read(m_buf, m_end, m_buf.length - m_end);
+        if (read < 0) {
+            m_eof = true;
+        } else {
+            m_end += read;
+        }
+        return shift;
+    }
+}
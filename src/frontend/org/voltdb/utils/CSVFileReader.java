@@ -17,6 +17,7 @@
 package org.voltdb.utils;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
 import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.List;
@@ -27,6 +28,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import org.supercsv.exception.SuperCsvException;
 import org.supercsv.io.ICsvListReader;
 import org.voltcore.logging.VoltLogger;
+import org.voltdb.ParameterConverter;
 import org.voltdb.VoltType;
 import org.voltdb.client.Client;
 import org.voltdb.common.Constants;
@@ -36,8 +38,9 @@ import com.google_voltpatches.common.collect.HashBiMap;
 
 /**
  *
- * This is a single thread reader which feeds the lines after validating syntax
- * to CSVDataLoader.
+ * This reader feeds the lines after validating syntax to CSVDataLoader. It
+ * either reads the whole input on a single thread, or is one of several
+ * workers tokenizing chunks of the file cut by a {@link CSVFileChunker}.
  *
  */
 class CSVFileReader implements Runnable {
@@ -59,6 +62,11 @@ class CSVFileReader implements Runnable {
     static CSVLoader.CSVConfig m_config = null;
     static Client m_csvClient = null;
     static ICsvListReader m_listReader = null;
+    // Rows still allowed by --limitrows, only read on a single thread
+    static final AtomicLong m_rowsRemaining = new AtomicLong(0);
+    // Set by the header check, before any reader thread starts
+    private static int headerlen;
+    private static Integer[] order;
     long m_parsingTime = 0;
     private static final Map<VoltType, String> m_blankStrings = new EnumMap<VoltType, String>(VoltType.class);
     private static final VoltLogger m_log = new VoltLogger("CSVLOADER");
@@ -66,8 +74,10 @@ class CSVFileReader implements Runnable {
     private final BulkLoaderErrorHandler m_errHandler;
     private final VoltType[] m_columnTypes;
     private final int m_columnCount;
-    private int headerlen;
-    private Integer[] order;
+    private final CSVFileChunker m_chunker;
+    private final boolean m_convertValues;
+    private ICsvListReader m_reader;
+    private long m_lineOffset = 0;
 
     static {
         m_blankStrings.put(VoltType.TINYINT, "0");
@@ -85,48 +95,102 @@ class CSVFileReader implements Runnable {
         m_config = config;
         m_csvClient = csvClient;
         m_listReader = reader;
+        m_rowsRemaining.set(config.limitrows);
     }
 
+    /**
+     * Reader for the whole input on a single thread
+     */
     public CSVFileReader(CSVDataLoader loader, BulkLoaderErrorHandler errorHandler)    {
+        this(loader, errorHandler, null);
+    }
+
+    /**
+     * Reader that tokenizes chunks from the chunker until there are none left.
+     * Several of these can run at once on the same loader.
+     */
+    public CSVFileReader(CSVDataLoader loader, BulkLoaderErrorHandler errorHandler, CSVFileChunker chunker) {
         m_loader = loader;
         m_errHandler = errorHandler;
         m_columnTypes = m_loader.getColumnTypes();
         m_columnCount = m_columnTypes.length;
+        m_chunker = chunker;
+        // Table loads get typed values so the conversion runs on the reader threads,
+        // procedure parameters are left for the server to convert
+        m_convertValues = !m_config.useSuppliedProcedure;
+        m_reader = m_listReader;
     }
 
     @Override
     public void run() {
-        List<String> lineList;
-        //if header option is true, check whether csv first line is valid
-        if (m_config.header) {
-            if (!checkHeader()) {
-                m_log.error("In the CSV file " + m_config.file + ", the header "+ m_listReader.getUntokenizedRow() +" does not match "
-                        + "an existing column in the table " + m_config.table + ".");
-                System.exit(-1);
+        if (m_chunker == null) {
+            //if header option is true, check whether csv first line is valid
+            if (m_config.header) {
+                if (!checkHeader(m_reader)) {
+                    m_log.error("In the CSV file " + m_config.file + ", the header "+ m_listReader.getUntokenizedRow() +" does not match "
+                            + "an existing column in the table " + m_config.table + ".");
+                    //In test junit mode we let it continue for reuse
+                    if (!CSVLoader.testMode) {
+                        System.exit(-1);
+                    }
+                    closeLoader(m_loader);
+                    return;
+                }
             }
+            readRows();
+            //Now wait for processors to see endOfData and count down. After that drain to finish all callbacks
+            closeLoader(m_loader);
+            return;
         }
 
-        while ((m_config.limitrows-- > 0)) {
+        try {
+            CSVFileChunker.Chunk chunk;
+            while (!m_errHandler.hasReachedErrorLimit() && (chunk = m_chunker.nextChunk()) != null) {
+                m_reader = CSVLoader.newListReader(chunk.reader(Charset.forName(m_config.charset)), 0, false);
+                m_lineOffset = chunk.m_lineOffset;
+                if (!readRows()) {
+                    break;
+                }
+            }
+        } catch (IOException ex) {
+            m_log.error("Failed to read CSV line from file: " + ex);
+        }
+    }
+
+    /**
+     * Read rows from the current reader until it is exhausted.
+     * @return false if reading has to stop altogether
+     */
+    private boolean readRows() {
+        final boolean chunked = m_chunker != null;
+        List<String> lineList;
+        while (chunked || m_rowsRemaining.getAndDecrement() > 0) {
             if (m_errHandler.hasReachedErrorLimit()) {
-                break;
+                return false;
             }
 
+            long lineNumber = m_lineOffset;
             try {
-                //Initial setting of m_totalLineCount
-                if (m_listReader.getLineNumber() == 0) {
-                    m_totalLineCount.set(m_config.skip);
+                if (chunked) {
+                    lineNumber += m_reader.getLineNumber();
                 } else {
-                    m_totalLineCount.set(m_listReader.getLineNumber());
+                    //Initial setting of m_totalLineCount
+                    if (m_reader.getLineNumber() == 0) {
+                        m_totalLineCount.set(m_config.skip);
+                    } else {
+                        m_totalLineCount.set(m_reader.getLineNumber());
+                    }
+                    lineNumber = m_totalLineCount.get();
                 }
                 long st = System.nanoTime();
-                lineList = m_listReader.read();
+                lineList = m_reader.read();
                 long end = System.nanoTime();
                 m_parsingTime += (end - st);
                 if (lineList == null) {
-                    if (m_totalLineCount.get() > m_listReader.getLineNumber()) {
-                        m_totalLineCount.set(m_listReader.getLineNumber());
+                    if (!chunked && m_totalLineCount.get() > m_reader.getLineNumber()) {
+                        m_totalLineCount.set(m_reader.getLineNumber());
                     }
-                    break;
+                    return true;
                 }
                 m_totalRowCount.incrementAndGet();
 
@@ -139,40 +203,58 @@ class CSVFileReader implements Runnable {
                 String[] reorderValues = new String[m_columnCount];
                 if ((lineCheckResult = checkparams_trimspace_reorder(lineValues, reorderValues)) != null) {
                     final RowWithMetaData metaData
-                            = new RowWithMetaData(m_listReader.getUntokenizedRow(),
-                                    m_totalLineCount.get() + 1);
+                            = new RowWithMetaData(m_reader.getUntokenizedRow(), lineNumber + 1);
                     if (m_errHandler.handleError(metaData, null, lineCheckResult)) {
-                        break;
+                        return false;
                     }
                     continue;
                 }
 
                 RowWithMetaData lineData
-                        = new RowWithMetaData(m_listReader.getUntokenizedRow(),
-                                m_listReader.getLineNumber());
-                m_loader.insertRow(lineData, reorderValues);
+                        = new RowWithMetaData(m_reader.getUntokenizedRow(),
+                                m_lineOffset + m_reader.getLineNumber());
+                m_loader.insertRow(lineData, m_convertValues ? convert(reorderValues) : reorderValues);
             } catch (SuperCsvException e) {
                 //Catch rows that can not be read by superCSV m_listReader.
                 // e.g. items without quotes when strictquotes is enabled.
                 final RowWithMetaData metaData
-                        = new RowWithMetaData(m_listReader.getUntokenizedRow(),
-                                m_totalLineCount.get() + 1);
+                        = new RowWithMetaData(m_reader.getUntokenizedRow(), lineNumber + 1);
                 if (m_errHandler.handleError(metaData, null, e.getMessage())) {
-                    break;
+                    return false;
                 }
             } catch (IOException ex) {
                 m_log.error("Failed to read CSV line from file: " + ex);
-                break;
+                return false;
             } catch (InterruptedException e) {
                 m_log.error("CSVLoader interrupted: " + e);
-                break;
+                return false;
             }
         }
+        return false;
+    }
+
+    /**
+     * Convert the values to the column types. A row that doesn't convert is
+     * passed on as strings so the loader reports the failure like it always has.
+     */
+    private Object[] convert(String[] values) {
+        final Object[] converted = new Object[values.length];
+        try {
+            for (int i = 0; i < values.length; ++i) {
+                if (values[i] != null) {
+                    converted[i] = ParameterConverter.tryToMakeCompatible(m_columnTypes[i].classFromType(), values[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            return values;
+        }
+        return converted;
+    }
 
-        //Now wait for processors to see endOfData and count down. After that drain to finish all callbacks
+    static void closeLoader(CSVDataLoader loader) {
         try {
             m_log.debug("Waiting for CSVDataLoader to finish.");
-            m_loader.close();
+            loader.close();
             m_log.debug("CSVDataLoader Done.");
         } catch (Exception ex) {
             m_log.warn("Stopped processing because of connection error. "
@@ -180,9 +262,13 @@ class CSVFileReader implements Runnable {
         }
     }
 
-    private boolean checkHeader() {
+    /**
+     * Check the header against the table columns and work out the column order
+     * for all the readers. Must be done before they start.
+     */
+    boolean checkHeader(ICsvListReader reader) {
         try {
-            String[] firstline = m_listReader.getHeader(false);
+            String[] firstline = reader.getHeader(false);
             Set<String> firstset = new HashSet<String>();
             BiMap<Integer, String> colNames = HashBiMap.create(m_loader.getColumnNames());
             headerlen = firstline.length;
@@ -25,6 +25,8 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
 import java.util.Properties;
 import java.util.TimeZone;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -123,6 +125,8 @@ public class CSVLoader implements BulkLoaderErrorHandler {
      */
     public static boolean testMode = false;
 
+    private static final VoltLogger m_log = new VoltLogger("CSVLOADER");
+
     private class ErrorInfoItem {
         public long lineNumber;
         public String[] errorInfo;
@@ -133,6 +137,8 @@ public class CSVLoader implements BulkLoaderErrorHandler {
     }
 
     private static final int ERROR_INFO_QUEUE_SIZE = Integer.getInteger("ERROR_INFO_QUEUE_SIZE", 500);
+    // Bytes of the input handed to a parser thread at a time
+    static int parserChunkSize = Integer.getInteger("CSVLOADER_PARSER_CHUNK_SIZE", 4 * 1024 * 1024);
     //Errors we keep track only upto maxerrors
     private final LinkedBlockingQueue<ErrorInfoItem> m_errorInfo = new LinkedBlockingQueue<ErrorInfoItem>(ERROR_INFO_QUEUE_SIZE);
     private volatile long m_errorCount = 0;
@@ -315,6 +321,9 @@ public class CSVLoader implements BulkLoaderErrorHandler {
         @Option(desc = "Batch Size for processing.")
         public int batch = 200;
 
+        @Option(desc = "number of threads parsing the input file (default: 1)")
+        int parsers = 1;
+
         @Option(desc = "First line of csv file is column name.", hasArg = false)
         boolean header = DEFAULT_HEADER;
 
@@ -357,6 +366,9 @@ public class CSVLoader implements BulkLoaderErrorHandler {
             if (batch < 0) {
                 exitWithMessageAndUsage("batch size number must be >= 0");
             }
+            if (parsers < 1) {
+                exitWithMessageAndUsage("parsers must be >= 1");
+            }
             if(!customNullString.isEmpty() && !blank.equals("error")){
                 blank = "empty";
             }
@@ -417,33 +429,31 @@ public class CSVLoader implements BulkLoaderErrorHandler {
         BufferedReader br = null;
         final CSVConfig cfg = new CSVConfig();
         cfg.parse(CSVLoader.class.getName(), args);
-        config = cfg;
-        if (config.noquotechar) {
-            config.quotechar = '\u0000';
-        }
+        configureParsing(cfg);
 
         configuration();
 
-        final Tokenizer tokenizer;
         ICsvListReader listReader = null;
+        CSVFileChunker chunker = null;
         try {
             if (CSVLoader.standin) {
-                tokenizer = new Tokenizer(new BufferedReader(new InputStreamReader(System.in)), csvPreference,
-                        config.strictquotes, config.escape, config.columnsizelimit,
+                listReader = newListReader(new BufferedReader(new InputStreamReader(System.in)),
                         config.skip, config.header);
-                listReader = new CsvListReader(tokenizer, csvPreference);
+            } else if (config.parsers > 1 && config.limitrows == Integer.MAX_VALUE
+                    && CSVFileChunker.canSplit(Charset.forName(config.charset), config.quotechar, config.escape)) {
+                chunker = new CSVFileChunker(new FileInputStream(config.file),
+                        config.quotechar, config.escape, parserChunkSize);
             } else {
+                // --limitrows loads the first rows of the file, which only a single parser knows
+                if (config.parsers > 1 && config.limitrows != Integer.MAX_VALUE) {
+                    System.out.println("--limitrows is used, parsing on a single thread");
+                } else if (config.parsers > 1) {
+                    System.out.println("Input can not be split with charset " + config.charset
+                            + ", parsing on a single thread");
+                }
                 FileInputStream fis = new FileInputStream(config.file);
                 InputStreamReader isr = new InputStreamReader(fis, config.charset);
-                tokenizer = new Tokenizer(isr,
-                          csvPreference,
-                          config.strictquotes,
-                          config.escape,
-                          config.columnsizelimit,
-                          config.skip,
-                          config.header);
-
-                listReader = new CsvListReader(tokenizer, csvPreference);
+                listReader = newListReader(isr, config.skip, config.header);
             }
         } catch (FileNotFoundException e) {
             System.err.println("CSV file '" + config.file + "' could not be found.");
@@ -511,15 +521,21 @@ public class CSVLoader implements BulkLoaderErrorHandler {
 
             CSVFileReader.initializeReader(cfg, csvClient, listReader);
 
-            CSVFileReader csvReader = new CSVFileReader(dataLoader, errHandler);
+            if (chunker == null) {
+                CSVFileReader csvReader = new CSVFileReader(dataLoader, errHandler);
 
-            Thread readerThread = new Thread(csvReader);
-            readerThread.setName("CSVFileReader");
-            readerThread.setDaemon(true);
+                Thread readerThread = new Thread(csvReader);
+                readerThread.setName("CSVFileReader");
+                readerThread.setDaemon(true);
 
-            //Wait for reader to finish.
-            readerThread.start();
-            readerThread.join();
+                //Wait for reader to finish.
+                readerThread.start();
+                readerThread.join();
+                readerTime = csvReader.m_parsingTime;
+            } else {
+                readerTime = readChunked(chunker, dataLoader, errHandler);
+            }
+            config.limitrows = (int) Math.max(-1, CSVFileReader.m_rowsRemaining.get());
 
             insertTimeEnd = System.currentTimeMillis();
 
@@ -527,14 +543,16 @@ public class CSVLoader implements BulkLoaderErrorHandler {
 
             errHandler.waitForErrorFlushComplete();
 
-            readerTime = (csvReader.m_parsingTime) / 1000000;
+            readerTime = readerTime / 1000000;
             insertCount = dataLoader.getProcessedRows();
             ackCount = insertCount - dataLoader.getFailedRows();
             rowsQueued = CSVFileReader.m_totalRowCount.get();
 
             //Close the reader.
             try {
-               listReader.close();
+               if (listReader != null) {
+                   listReader.close();
+               }
             } catch (Exception ex) {
                 //Do nothing here.
             }
@@ -557,8 +575,76 @@ public class CSVLoader implements BulkLoaderErrorHandler {
         }
     }
 
-    private static void configuration() {
+    static ICsvListReader newListReader(Reader reader, long skip, boolean header) {
+        Tokenizer tokenizer = new Tokenizer(reader,
+                csvPreference,
+                config.strictquotes,
+                config.escape,
+                config.columnsizelimit,
+                skip,
+                header);
+        return new CsvListReader(tokenizer, csvPreference);
+    }
+
+    /**
+     * Parse the file on config.parsers threads. The chunker cuts the file at
+     * record boundaries, each thread tokenizes whole chunks and inserts into
+     * the shared loader, which hashes and batches the rows per partition.
+     * @return total nanoseconds spent tokenizing
+     */
+    static long readChunked(CSVFileChunker chunker, CSVDataLoader dataLoader, BulkLoaderErrorHandler errHandler)
+            throws IOException, InterruptedException {
+        final CSVFileReader[] readers = new CSVFileReader[config.parsers];
+        for (int i = 0; i < readers.length; ++i) {
+            readers[i] = new CSVFileReader(dataLoader, errHandler, chunker);
+        }
+        if (config.header) {
+            CSVFileChunker.Chunk header = chunker.nextRecord();
+            ICsvListReader headerReader = header == null ? null
+                    : newListReader(header.reader(Charset.forName(config.charset)), 0, true);
+            if (headerReader == null || !readers[0].checkHeader(headerReader)) {
+                m_log.error("In the CSV file " + config.file + ", the header "
+                        + (headerReader == null ? "" : headerReader.getUntokenizedRow()) + " does not match "
+                        + "an existing column in the table " + config.table + ".");
+                //In test junit mode we let it continue for reuse
+                if (!CSVLoader.testMode) {
+                    System.exit(-1);
+                }
+                CSVFileReader.closeLoader(dataLoader);
+                return 0;
+            }
+        }
+        chunker.skipLines(config.skip);
+
+        final Thread[] threads = new Thread[readers.length];
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i] = new Thread(readers[i]);
+            threads[i].setName("CSVFileReader-" + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+        long parsingTime = 0;
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i].join();
+            parsingTime += readers[i].m_parsingTime;
+        }
+        CSVFileReader.m_totalLineCount.set(chunker.getLineCount());
+        CSVFileReader.closeLoader(dataLoader);
+        return parsingTime;
+    }
+
+    /**
+     * Set the configuration used to tokenize the input
+     */
+    static void configureParsing(CSVConfig cfg) {
+        config = cfg;
+        if (config.noquotechar) {
+            config.quotechar = '\u0000';
+        }
         csvPreference = new CsvPreference.Builder(config.quotechar, config.separator, "\n").build();
+    }
+
+    private static void configuration() {
         if (config.file.equals("")) {
             standin = true;
         }
@@ -0,0 +1,218 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with VoltDB.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.voltdb.utils;
+
+import java.util.EnumMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.voltcore.logging.VoltLogger;
+
+/**
+ * Token bucket shared by everything that writes bulk data to the local disk
+ * (snapshots, export/DR overflow segments and large query blocks).
+ *
+ * Writers are split in two priority classes. Latency sensitive writers are
+ * never delayed, but the bytes they write are charged against the bucket.
+ * Background writers reserve their bytes up front and are parked until the
+ * bucket has paid off its debt, so that together with whatever the latency
+ * sensitive writers are doing they stay under the configured rate.
+ *
+ * The rate is configured with the SNAPSHOT_RATELIMIT_MEGABYTES system property
+ * and can be changed at runtime with {@link #setBackgroundRate(Integer)}.
+ * When no limit is configured bytes are only counted for statistics.
+ */
+public class DiskWriteScheduler {
+    private static final VoltLogger LOG = new VoltLogger("HOST");
+
+    public enum Priority {
+        LATENCY_SENSITIVE,
+        BACKGROUND
+    }
+
+    public enum Writer {
+        SNAPSHOT(Priority.BACKGROUND),
+        // Export and DR overflow (persistent binary deque) segments
+        OVERFLOW(Priority.LATENCY_SENSITIVE),
+        // Large query temp table blocks swapped out by LargeBlockManager
+        LARGE_QUERY(Priority.LATENCY_SENSITIVE);
+
+        public final Priority priority;
+
+        Writer(Priority priority) {
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * Counters kept per writer, read by the DISKWRITE statistics selector.
+     */
+    public static class WriterStats {
+        final AtomicLong m_bytesWritten = new AtomicLong();
+        final AtomicLong m_bytesQueued = new AtomicLong();
+        final AtomicLong m_bytesThrottled = new AtomicLong();
+        final AtomicLong m_throttledNanos = new AtomicLong();
+
+        public long getBytesWritten() {
+            return m_bytesWritten.get();
+        }
+
+        /** Bytes currently parked waiting for the bucket */
+        public long getBytesQueued() {
+            return m_bytesQueued.get();
+        }
+
+        /** Total bytes that had to wait before they could be written */
+        public long getBytesThrottled() {
+            return m_bytesThrottled.get();
+        }
+
+        public long getThrottledMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(m_throttledNanos.get());
+        }
+    }
+
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+    public static final int DEFAULT_RATE_MEGABYTES;
+
+    static {
+        int limit = Integer.getInteger("SNAPSHOT_RATELIMIT_MEGABYTES", UNLIMITED);
+        if (limit < 1) {
+            LOG.warn("Invalid snapshot rate limit " + limit + ", no limit will be applied");
+            limit = UNLIMITED;
+        } else if (limit < UNLIMITED) {
+            LOG.info("Rate limiting background disk writes to " + limit + " megabytes/second");
+        }
+        DEFAULT_RATE_MEGABYTES = limit;
+    }
+
+    private static final DiskWriteScheduler INSTANCE = new DiskWriteScheduler(DEFAULT_RATE_MEGABYTES);
+
+    public static DiskWriteScheduler instance() {
+        return INSTANCE;
+    }
+
+    private final EnumMap<Writer, WriterStats> m_stats = new EnumMap<>(Writer.class);
+
+    // Token bucket state, guarded by this
+    // Volatile so that writers can skip the lock when there is no limit
+    private volatile int m_rateMegabytes;
+    private double m_bytesPerNano;
+    private double m_maxBurstBytes;
+    private double m_availableBytes;
+    private long m_lastRefillNanos;
+
+    // Package visible for unit tests
+    DiskWriteScheduler(int megabytesPerSecond) {
+        for (Writer w : Writer.values()) {
+            m_stats.put(w, new WriterStats());
+        }
+        m_lastRefillNanos = System.nanoTime();
+        setRateInternal(megabytesPerSecond);
+    }
+
+    /**
+     * Change the rate background writers are paced to.
+     * @param megabytesPerSecond new rate, or null to restore the configured default
+     */
+    public void setBackgroundRate(Integer megabytesPerSecond) {
+        setRateInternal(megabytesPerSecond == null ? DEFAULT_RATE_MEGABYTES : megabytesPerSecond);
+    }
+
+    private synchronized void setRateInternal(int megabytesPerSecond) {
+        m_rateMegabytes = megabytesPerSecond < 1 ? UNLIMITED : megabytesPerSecond;
+        if (isLimited()) {
+            refill(System.nanoTime());
+            m_bytesPerNano = m_rateMegabytes * 1024.0 * 1024.0 / TimeUnit.SECONDS.toNanos(1);
+            // Allow up to one second worth of burst after an idle period
+            m_maxBurstBytes = m_rateMegabytes * 1024.0 * 1024.0;
+            m_availableBytes = Math.min(m_availableBytes, m_maxBurstBytes);
+        } else {
+            m_availableBytes = 0;
+        }
+    }
+
+    public synchronized int getRateMegabytes() {
+        return m_rateMegabytes;
+    }
+
+    private boolean isLimited() {
+        return m_rateMegabytes != UNLIMITED;
+    }
+
+    private void refill(long now) {
+        if (now > m_lastRefillNanos) {
+            m_availableBytes = Math.min(m_maxBurstBytes,
+                    m_availableBytes + (now - m_lastRefillNanos) * m_bytesPerNano);
+            m_lastRefillNanos = now;
+        }
+    }
+
+    /**
+     * Reserve disk bandwidth for a write that is about to happen. Background
+     * writers may be parked here, latency sensitive writers only charge the bucket.
+     * The bytes are counted as written once this returns.
+     */
+    public void acquire(Writer writer, int bytes) {
+        final WriterStats stats = m_stats.get(writer);
+        if (bytes > 0 && isLimited()) {
+            long waitNanos = 0;
+            synchronized (this) {
+                if (isLimited()) {
+                    refill(System.nanoTime());
+                    if (writer.priority == Priority.BACKGROUND) {
+                        if (m_availableBytes < 0) {
+                            waitNanos = (long) (-m_availableBytes / m_bytesPerNano);
+                        }
+                        m_availableBytes -= bytes;
+                    } else if (m_availableBytes > -m_maxBurstBytes) {
+                        // Cap the debt so background writers are delayed at most a second
+                        // by a burst of latency sensitive writes
+                        m_availableBytes = Math.max(m_availableBytes - bytes, -m_maxBurstBytes);
+                    }
+                }
+            }
+            if (waitNanos > 0) {
+                park(stats, bytes, waitNanos);
+            }
+        }
+        stats.m_bytesWritten.addAndGet(bytes);
+    }
+
+    private static void park(WriterStats stats, int bytes, long waitNanos) {
+        stats.m_bytesQueued.addAndGet(bytes);
+        try {
+            final long start = System.nanoTime();
+            final long deadline = start + waitNanos;
+            long remaining = waitNanos;
+            while (remaining > 0) {
+                LockSupport.parkNanos(remaining);
+                remaining = deadline - System.nanoTime();
+            }
+            stats.m_bytesThrottled.addAndGet(bytes);
+            stats.m_throttledNanos.addAndGet(System.nanoTime() - start);
+        } finally {
+            stats.m_bytesQueued.addAndGet(-bytes);
+        }
+    }
+
+    public WriterStats getStats(Writer writer) {
+        return m_stats.get(writer);
+    }
+}
@@ -23,9 +23,13 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.sql.SQLException;
 import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.voltcore.logging.VoltLogger;
 import org.voltdb.CLIConfig;
@@ -227,6 +231,15 @@ public class JDBCLoader implements BulkLoaderErrorHandler {
 
         @Option(desc = "Fetch Size for JDBC request (default: 100)")
         int fetchsize = 100;
+
+        @Option(desc = "number of concurrent JDBC source readers (default: 1)")
+        int readers = 1;
+
+        @Option(desc = "numeric or timestamp column of the JDBC table to split the source query into key ranges on")
+        String splitcolumn = "";
+
+        @Option(desc = "comma separated ascending split points of splitcolumn (default: detected from its min and max)")
+        String splits = "";
         /**
          * Batch size for processing batched operations.
          */
@@ -276,6 +289,15 @@ public class JDBCLoader implements BulkLoaderErrorHandler {
             if (batch < 0) {
                 exitWithMessageAndUsage("batch size number must be >= 0");
             }
+            if (readers < 1) {
+                exitWithMessageAndUsage("readers must be >= 1");
+            }
+            if (readers > 1 && splitcolumn.trim().isEmpty()) {
+                exitWithMessageAndUsage("splitcolumn is required to use more than one reader");
+            }
+            if (!splits.trim().isEmpty() && splitcolumn.trim().isEmpty()) {
+                exitWithMessageAndUsage("splits requires a splitcolumn");
+            }
             if ((procedure != null) && (procedure.trim().length() > 0)) {
                 useSuppliedProcedure = true;
             }
@@ -391,14 +413,7 @@ public class JDBCLoader implements BulkLoaderErrorHandler {
             //Created Source reader
             JDBCStatementReader.initializeReader(cfg, csvClient);
 
-            JDBCStatementReader jdbcReader = new JDBCStatementReader(dataLoader, errHandler);
-            Thread readerThread = new Thread(jdbcReader);
-            readerThread.setName("JDBCSourceReader");
-            readerThread.setDaemon(true);
-
-            //Wait for reader to finish.
-            readerThread.start();
-            readerThread.join();
+            readerTime = readRanges(dataLoader, errHandler);
 
             insertTimeEnd = System.currentTimeMillis();
 
@@ -406,7 +421,7 @@ public class JDBCLoader implements BulkLoaderErrorHandler {
 
             errHandler.waitForErrorFlushComplete();
 
-            readerTime = (jdbcReader.m_parsingTime) / 1000000;
+            readerTime = readerTime / 1000000;
             insertCount = dataLoader.getProcessedRows();
             ackCount = insertCount - dataLoader.getFailedRows();
 
@@ -429,6 +444,52 @@ public class JDBCLoader implements BulkLoaderErrorHandler {
         }
     }
 
+    /**
+     * Read the source table on config.readers threads. The source query is split into
+     * key ranges on config.splitcolumn, each reader takes ranges off a shared queue and
+     * inserts into the shared loader, which hashes and batches the rows per partition.
+     * @return total nanoseconds spent reading
+     * @throws SQLException if a reader failed, the rows of its range are not all loaded
+     */
+    static long readRanges(CSVDataLoader dataLoader, BulkLoaderErrorHandler errHandler)
+            throws SQLException, InterruptedException {
+        final Queue<JDBCStatementReader.SourceRange> ranges =
+                new ConcurrentLinkedQueue<>(JDBCStatementReader.planRanges());
+        final JDBCStatementReader[] readers = new JDBCStatementReader[Math.min(m_config.readers, ranges.size())];
+        final Thread[] threads = new Thread[readers.length];
+        // The first failure of any reader, the others stop when they see the ranges cleared
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Thread.UncaughtExceptionHandler failureHandler = new Thread.UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException(Thread t, Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        };
+        for (int i = 0; i < threads.length; ++i) {
+            readers[i] = new JDBCStatementReader(dataLoader, errHandler, ranges);
+            threads[i] = new Thread(readers[i]);
+            threads[i].setName(threads.length == 1 ? "JDBCSourceReader" : "JDBCSourceReader-" + i);
+            threads[i].setDaemon(true);
+            threads[i].setUncaughtExceptionHandler(failureHandler);
+            threads[i].start();
+        }
+        //Wait for readers to finish.
+        long readerTime = 0;
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i].join();
+            readerTime += readers[i].m_parsingTime;
+        }
+        JDBCStatementReader.closeLoader(dataLoader);
+        if (failure.get() != null) {
+            Throwable cause = failure.get();
+            if (cause instanceof RuntimeException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            throw new SQLException("Reading the source table failed: " + cause.getMessage(), cause);
+        }
+        return readerTime;
+    }
+
     private static void configuration() {
         String insertProcedure;
         if (!m_config.table.equals("")) {
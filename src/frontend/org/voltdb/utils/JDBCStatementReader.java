@@ -19,6 +19,8 @@ package org.voltdb.utils;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
@@ -26,9 +28,15 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -47,13 +55,16 @@ import com.google_voltpatches.common.reflect.TypeToken;
 
 /**
  *
- * This is a single thread reader which feeds the lines after validating syntax
- * to CSVDataLoader.
+ * This is a reader which takes key ranges of the source table off a shared
+ * queue and feeds the rows after validating syntax to CSVDataLoader. Several
+ * readers can run concurrently, each with its own connection and cursor.
  *
  */
 class JDBCStatementReader extends SusceptibleRunnable {
 
     static final int MAX_COLUMN_SIZE  = 1 * 1024 * 1024; // 1MB
+    // ranges detected per reader, so readers that finish early can pick up the slack of skewed ranges
+    static final int RANGES_PER_READER = Integer.getInteger("JDBCLOADER_RANGES_PER_READER", 4);
     static AtomicLong m_totalRowCount = new AtomicLong(0);
     static JDBCLoader.JDBCLoaderConfig m_config = null;
     static Client m_csvClient = null;
@@ -61,29 +72,56 @@ class JDBCStatementReader extends SusceptibleRunnable {
     private static final VoltLogger m_log = new VoltLogger("JDBCLOADER");
     private final CSVDataLoader m_loader;
     private final BulkLoaderErrorHandler m_errHandler;
+    private final Queue<SourceRange> m_ranges;
 
     public static void initializeReader(JDBCLoader.JDBCLoaderConfig config, Client csvClient) {
         m_config = config;
         m_csvClient = csvClient;
     }
 
-    public JDBCStatementReader(CSVDataLoader loader, BulkLoaderErrorHandler errorHandler) {
+    public JDBCStatementReader(CSVDataLoader loader, BulkLoaderErrorHandler errorHandler, Queue<SourceRange> ranges) {
         m_loader = loader;
         m_errHandler = errorHandler;
+        m_ranges = ranges;
     }
 
-    private void forceClose(Connection conn, PreparedStatement stmt, ResultSet rslt) {
+    private void forceClose(PreparedStatement stmt, ResultSet rslt) {
         if (rslt != null) try {rslt.close();} catch (Exception ignoreIt) {}
         if (stmt != null) try {stmt.close();} catch (Exception ignoreIt) {}
-        if (conn != null) try {conn.close();} catch (Exception ignoreIt) {}
-        try {m_loader.close();} catch (Exception ignoreIt) {}
+    }
+
+    static void closeLoader(CSVDataLoader loader) {
+        try {loader.close();} catch (Exception ignoreIt) {}
     }
 
     @Override
     public void susceptibleRun() throws SQLException {
+        Connection conn = null;
+        try {
+            conn = DriverManager.getConnection(m_config.jdbcurl, m_config.jdbcuser, m_config.jdbcpassword);
+            SourceRange range;
+            while ((range = m_ranges.poll()) != null) {
+                if (!readRange(conn, range)) {
+                    break;
+                }
+            }
+        } catch (SQLException ex) {
+            m_log.error("database connection failed" , ex);
+            // stop the other readers, the load is incomplete anyway
+            m_ranges.clear();
+            throw ex;
+        } finally {
+            if (conn != null) try {conn.close();} catch (Exception ignoreIt) {}
+        }
+        m_log.debug("JSBCLoader Done.");
+    }
 
+    /**
+     * Query one key range of the source table and insert its rows.
+     * @return false if the reader was interrupted
+     */
+    private boolean readRange(Connection conn, SourceRange range) {
         PreparedStatement stmt = null;
-        Connection conn = null;
         ResultSet rslt = null;
         RowWithMetaData lineData = null;
         int columnCount = 0;
@@ -93,17 +131,17 @@ class JDBCStatementReader extends SusceptibleRunnable {
         String[] stringValues = null;
 
         try {
-            conn = DriverManager.getConnection(m_config.jdbcurl, m_config.jdbcuser, m_config.jdbcpassword);
             DatabaseMetaData dbmd = conn.getMetaData();
             int resultSetType = ResultSet.TYPE_FORWARD_ONLY;
             if (!dbmd.supportsResultSetType(resultSetType)) {
                 resultSetType = ResultSet.TYPE_SCROLL_INSENSITIVE;
             }
             stmt = conn.prepareStatement(
-                    "select * from " + m_config.jdbctable,
+                    "select * from " + m_config.jdbctable + range.whereClause(),
                     resultSetType,
                     ResultSet.CONCUR_READ_ONLY
                     );
+            range.bind(stmt);
             stmt.setFetchSize(m_config.fetchsize);
             rslt = stmt.executeQuery();
             ResultSetMetaData mdata = rslt.getMetaData();
@@ -129,8 +167,9 @@ class JDBCStatementReader extends SusceptibleRunnable {
                 acceptors[i-1] = type.getAcceptorFor(rslt, i);
             }
         } catch (Exception ex) {
-            m_log.error("database query initialization failed" , ex);
-            forceClose(conn,stmt,rslt);
+            m_log.error("database query initialization failed for " + range , ex);
+            forceClose(stmt,rslt);
+            m_ranges.clear();
             Throwables.propagate(ex);
         }
 
@@ -142,6 +181,7 @@ class JDBCStatementReader extends SusceptibleRunnable {
         stringValues = new String[columnCount];
 
         try {
+            long start = System.nanoTime();
             while (rslt.next()) {
                 long rownum = m_totalRowCount.incrementAndGet();
 
@@ -166,12 +206,247 @@ class JDBCStatementReader extends SusceptibleRunnable {
                     m_errHandler.handleError(lineData, null, getExceptionAndCauseMessages(ex));
                 }
             }
+            m_parsingTime += System.nanoTime() - start;
         } catch (InterruptedException ignoreIt) {
+            return false;
+        } catch (SQLException ex) {
+            m_log.error("database query failed for " + range , ex);
+            m_ranges.clear();
+            Throwables.propagate(ex);
         }
         finally {
-           forceClose(conn, stmt, rslt);
+           forceClose(stmt, rslt);
+        }
+        return true;
+    }
+
+    /**
+     * Work out the key ranges the source table is read in. Without a split column
+     * the table is read whole. Split points are either given in the configuration or
+     * interpolated between the min and max of the split column, and rows with a null
+     * key get a range of their own.
+     */
+    static List<SourceRange> planRanges() throws SQLException {
+        final String column = m_config.splitcolumn.trim();
+        if (column.isEmpty()) {
+            return Collections.singletonList(new SourceRange(null, null, null, false));
+        }
+
+        List<Object> points;
+        try (Connection conn = DriverManager.getConnection(m_config.jdbcurl, m_config.jdbcuser, m_config.jdbcpassword)) {
+            if (m_config.splits.trim().isEmpty()) {
+                points = detectSplitPoints(conn, column, m_config.readers * RANGES_PER_READER);
+            }
+            else {
+                points = parseSplitPoints(conn, column, m_config.splits.split(","));
+            }
+        }
+        if (points.isEmpty()) {
+            return Collections.singletonList(new SourceRange(null, null, null, false));
+        }
+
+        List<SourceRange> ranges = new ArrayList<>(points.size() + 2);
+        Object lower = null;
+        for (Object point : points) {
+            ranges.add(new SourceRange(column, lower, point, false));
+            lower = point;
+        }
+        ranges.add(new SourceRange(column, lower, null, false));
+        ranges.add(new SourceRange(column, null, null, true));
+        m_log.info(String.format("Reading %s in %d ranges of %s", m_config.jdbctable, ranges.size(), column));
+        return ranges;
+    }
+
+    private static List<Object> detectSplitPoints(Connection conn, String column, int count) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+                ResultSet rslt = stmt.executeQuery(
+                        "select min(" + column + "), max(" + column + ") from " + m_config.jdbctable)) {
+            if (!rslt.next()) {
+                return Collections.emptyList();
+            }
+            Object min = rslt.getObject(1);
+            Object max = rslt.getObject(2);
+            if (min == null || max == null) {
+                return Collections.emptyList();
+            }
+            return interpolate(min, max, count);
+        }
+    }
+
+    /**
+     * Pick count - 1 distinct split points spread evenly between min and max,
+     * of a type that binds against the column min and max were read from.
+     */
+    static List<Object> interpolate(Object min, Object max, int count) throws SQLException {
+        final BigDecimal low;
+        final BigDecimal high;
+        if (min instanceof Date) {
+            low = BigDecimal.valueOf(((Date) min).getTime());
+            high = BigDecimal.valueOf(((Date) max).getTime());
+        }
+        else if (min instanceof Number) {
+            low = new BigDecimal(min.toString());
+            high = new BigDecimal(max.toString());
+        }
+        else {
+            throw new SQLException(String.format(
+                    "Split column of type %s is not numeric or timestamp, the split points must be supplied",
+                    min.getClass().getName()));
+        }
+
+        List<Object> points = new ArrayList<>(count);
+        BigDecimal span = high.subtract(low);
+        Object previous = null;
+        for (int i = 1; i < count; ++i) {
+            BigDecimal point = low.add(span.multiply(BigDecimal.valueOf(i))
+                    .divide(BigDecimal.valueOf(count), 10, RoundingMode.FLOOR));
+            Object value;
+            if (min instanceof Date) {
+                point = point.setScale(0, RoundingMode.FLOOR);
+                value = new Timestamp(point.longValue());
+            }
+            else if (isIntegral(min)) {
+                point = point.setScale(0, RoundingMode.FLOOR);
+                value = point.longValue();
+            }
+            else if (min instanceof BigDecimal) {
+                value = point;
+            }
+            else {
+                value = point.doubleValue();
+            }
+            // narrow spans repeat points, and a point at min would only yield an empty range
+            if (!value.equals(previous) && point.compareTo(low) > 0) {
+                points.add(value);
+                previous = value;
+            }
+        }
+        return points;
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Byte || value instanceof Short || value instanceof Integer
+                || value instanceof Long || value instanceof BigInteger;
+    }
+
+    private static List<Object> parseSplitPoints(Connection conn, String column, String[] splits) throws SQLException {
+        String className;
+        try (Statement stmt = conn.createStatement();
+                ResultSet rslt = stmt.executeQuery(
+                        "select " + column + " from " + m_config.jdbctable + " where 1 = 0")) {
+            className = rslt.getMetaData().getColumnClassName(1);
+        }
+        Class<?> clazz;
+        try {
+            clazz = Class.forName(className);
+        } catch (ClassNotFoundException e) {
+            throw new SQLException(String.format(
+                    "Split column %s of type %s is not numeric or timestamp", column, className));
+        }
+        return parseSplitPoints(column, clazz, splits);
+    }
+
+    /**
+     * Convert the configured split points to the type of the split column. Only numeric
+     * and timestamp columns can be split: their order is the same here and in the source
+     * database, where strings are ordered by a collation this can't check against.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    static List<Object> parseSplitPoints(String column, Class<?> clazz, String[] splits) throws SQLException {
+        if (!Date.class.isAssignableFrom(clazz) && !Number.class.isAssignableFrom(clazz)) {
+            throw new SQLException(String.format(
+                    "Split column %s of type %s is not numeric or timestamp", column, clazz.getName()));
+        }
+
+        List<Object> points = new ArrayList<>(splits.length);
+        Comparable previous = null;
+        for (String split : splits) {
+            split = split.trim();
+            Comparable value;
+            try {
+                if (Date.class.isAssignableFrom(clazz)) {
+                    value = Timestamp.valueOf(split);
+                }
+                else if (isIntegralClass(clazz)) {
+                    value = Long.valueOf(split);
+                }
+                else if (clazz == Float.class || clazz == Double.class) {
+                    value = Double.valueOf(split);
+                }
+                else {
+                    value = new BigDecimal(split);
+                }
+            } catch (IllegalArgumentException e) {
+                throw new SQLException("Invalid split point " + split + " for column " + column + ": " + e.getMessage());
+            }
+            if (previous != null && previous.compareTo(value) >= 0) {
+                throw new SQLException("Split points for column " + column + " must be in ascending order");
+            }
+            points.add(value);
+            previous = value;
+        }
+        return points;
+    }
+
+    private static boolean isIntegralClass(Class<?> clazz) {
+        return clazz == Byte.class || clazz == Short.class || clazz == Integer.class
+                || clazz == Long.class || clazz == BigInteger.class;
+    }
+
+    /**
+     * A key range of the source table, lower bound inclusive and upper bound
+     * exclusive, either of them open when null. The null key range holds
+     * the rows no comparison on the split column would select.
+     */
+    static class SourceRange {
+        final String m_column;
+        final Object m_lower;
+        final Object m_upper;
+        final boolean m_nullKeys;
+
+        SourceRange(String column, Object lower, Object upper, boolean nullKeys) {
+            m_column = column;
+            m_lower = lower;
+            m_upper = upper;
+            m_nullKeys = nullKeys;
+        }
+
+        String whereClause() {
+            if (m_nullKeys) {
+                return " where " + m_column + " is null";
+            }
+            if (m_lower != null && m_upper != null) {
+                return " where " + m_column + " >= ? and " + m_column + " < ?";
+            }
+            if (m_lower != null) {
+                return " where " + m_column + " >= ?";
+            }
+            if (m_upper != null) {
+                return " where " + m_column + " < ?";
+            }
+            return "";
+        }
+
+        void bind(PreparedStatement stmt) throws SQLException {
+            int idx = 1;
+            if (m_lower != null) {
+                stmt.setObject(idx++, m_lower);
+            }
+            if (m_upper != null) {
+                stmt.setObject(idx++, m_upper);
+            }
+        }
+
+        @Override
+        public String toString() {
+            if (m_column == null) {
+                return "all rows";
+            }
+            if (m_nullKeys) {
+                return "rows with null " + m_column;
+            }
+            return "rows with " + m_column + " in [" + m_lower + ", " + m_upper + ")";
         }
-        m_log.debug("JSBCLoader Done.");
     }
 
     public static String getExceptionAndCauseMessages(Throwable ex) {
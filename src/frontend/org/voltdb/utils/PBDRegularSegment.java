@@ -289,6 +289,8 @@ public class PBDRegularSegment extends PBDSegment {
             }
 
             m_tmpHeaderBuf.b().flip();
+            DiskWriteScheduler.instance().acquire(DiskWriteScheduler.Writer.OVERFLOW,
+                    m_tmpHeaderBuf.b().remaining() + destBuf.b().remaining());
             while (m_tmpHeaderBuf.b().hasRemaining()) {
                 m_fc.write(m_tmpHeaderBuf.b());
             }
@@ -322,6 +324,7 @@ public class PBDRegularSegment extends PBDSegment {
             final int written = PBDUtils.writeDeferredSerialization(destBuf.b(), ds);
             destBuf.b().flip();
 
+            DiskWriteScheduler.instance().acquire(DiskWriteScheduler.Writer.OVERFLOW, destBuf.b().remaining());
             while (destBuf.b().hasRemaining()) {
                 m_fc.write(destBuf.b());
             }
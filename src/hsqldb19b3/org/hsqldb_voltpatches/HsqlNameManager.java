@@ -31,6 +31,8 @@
 
 package org.hsqldb_voltpatches;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.hsqldb_voltpatches.lib.StringConverter;
 import org.hsqldb_voltpatches.rights.Grantee;
 
@@ -67,7 +69,7 @@ public final class HsqlNameManager {
         new HsqlNameManager(null);
 
     static {
-        staticManager.serialNumber = Integer.MIN_VALUE;
+        staticManager.serialNumber.set(Integer.MIN_VALUE);
     }
 
     private static final HsqlName[] autoColumnNames       = new HsqlName[32];
@@ -81,7 +83,8 @@ public final class HsqlNameManager {
         }
     }
 
-    private int      serialNumber = 1;        // 0 is reserved in lookups
+    // The static manager names system objects for every session, planned concurrently
+    private final AtomicInteger serialNumber = new AtomicInteger(1);    // 0 is reserved in lookups
     private int      sysNumber    = 10000;    // avoid name clash in older scripts
     private HsqlName catalogName;
 
@@ -287,7 +290,7 @@ public final class HsqlNameManager {
 
     void resetNumbering() {
         sysNumber    = 0;
-        serialNumber = 0;
+        serialNumber.set(0);
     }
 
     public static SimpleName getSimpleName(String name, boolean isNameQuoted) {
@@ -347,7 +350,7 @@ public final class HsqlNameManager {
 
             manager   = man;
             this.type = type;
-            hashCode  = manager.serialNumber++;
+            hashCode  = manager.serialNumber.getAndIncrement();
         }
 
         private HsqlName(HsqlNameManager man, String name, boolean isquoted,
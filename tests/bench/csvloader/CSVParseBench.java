@@ -0,0 +1,157 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.voltdb.VoltType;
+import org.voltdb.client.ClientResponse;
+
+/**
+ * Measures how fast CSVLoader turns a file into typed rows with 1 to 16
+ * parser threads. Rows go to a loader that only counts them, so this is
+ * the client side ceiling, no server is involved.
+ *
+ * Usage: CSVParseBench [rows]
+ */
+public class CSVParseBench {
+
+    private static final int COLUMNS = 6;
+
+    private static class CountingLoader implements CSVDataLoader {
+        final AtomicLong m_rows = new AtomicLong();
+
+        @Override
+        public VoltType[] getColumnTypes() {
+            return new VoltType[] { VoltType.BIGINT, VoltType.INTEGER, VoltType.STRING,
+                    VoltType.FLOAT, VoltType.STRING, VoltType.DECIMAL };
+        }
+
+        @Override
+        public void insertRow(RowWithMetaData metaData, Object[] values) {
+            m_rows.incrementAndGet();
+        }
+
+        @Override
+        public void close() {}
+
+        @Override
+        public long getProcessedRows() {
+            return m_rows.get();
+        }
+
+        @Override
+        public long getFailedRows() {
+            return 0;
+        }
+
+        @Override
+        public void setFlushInterval(int delay, int seconds) {}
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void resumeLoading() {}
+
+        @Override
+        public Map<Integer, String> getColumnNames() {
+            Map<Integer, String> names = new HashMap<>();
+            for (int i = 0; i < COLUMNS; ++i) {
+                names.put(i, "C" + i);
+            }
+            return names;
+        }
+    }
+
+    private static class FailingErrorHandler implements BulkLoaderErrorHandler {
+        @Override
+        public boolean handleError(RowWithMetaData metaData, ClientResponse response, String error) {
+            throw new IllegalStateException("Line " + metaData.lineNumber + ": " + error);
+        }
+
+        @Override
+        public boolean hasReachedErrorLimit() {
+            return false;
+        }
+    }
+
+    private static File generate(long rows) throws IOException {
+        File file = File.createTempFile("csvparsebench", ".csv");
+        file.deleteOnExit();
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 20)) {
+            StringBuilder sb = new StringBuilder();
+            for (long i = 0; i < rows; ++i) {
+                sb.setLength(0);
+                sb.append(i).append(',').append(i % 100000).append(',');
+                if (i % 50 == 0) {
+                    sb.append("\"quoted, with \"\"comma\"\" and\nnewline ").append(i).append('"');
+                } else {
+                    sb.append("name ").append(i);
+                }
+                sb.append(',').append(i * 0.25).append(",some longer text for row ").append(i)
+                  .append(',').append(i % 1000).append(".125\n");
+                out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return file;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final long rows = args.length > 0 ? Long.parseLong(args[0]) : 2000000;
+        final File file = generate(rows);
+        final double mb = file.length() / (1024.0 * 1024.0);
+        System.out.printf("%d rows, %.1f MB%n", rows, mb);
+
+        for (int parsers : new int[] { 1, 2, 4, 8, 16 }) {
+            CSVLoader.CSVConfig cfg = new CSVLoader.CSVConfig();
+            cfg.file = file.getPath();
+            cfg.table = "BENCH";
+            cfg.parsers = parsers;
+            CSVLoader.configureParsing(cfg);
+            CSVFileReader.initializeReader(cfg, null, null);
+
+            CountingLoader loader = new CountingLoader();
+            long start = System.nanoTime();
+            try (FileInputStream in = new FileInputStream(file)) {
+                CSVFileChunker chunker = new CSVFileChunker(in, cfg.quotechar, cfg.escape, CSVLoader.parserChunkSize);
+                CSVLoader.readChunked(chunker, loader, new FailingErrorHandler());
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            if (loader.m_rows.get() != rows) {
+                throw new IllegalStateException("Expected " + rows + " rows but loaded " + loader.m_rows.get());
+            }
+            System.out.printf("parsers=%-2d %12.0f rows/s %8.1f MB/s%n",
+                    parsers, rows / seconds, mb / seconds);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltcore.utils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class TestMpscChunkedQueue extends TestCase {
+
+    @Test
+    public void testFifoAcrossChunks() {
+        MpscChunkedQueue<Integer> queue = new MpscChunkedQueue<>(0);
+        final int count = MpscChunkedQueue.CHUNK_SIZE * 3 + 7;
+        for (int i = 0; i < count; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertEquals(count, queue.size());
+        assertEquals(Integer.valueOf(0), queue.peek());
+        for (int i = 0; i < count; i++) {
+            assertEquals(Integer.valueOf(i), queue.poll());
+        }
+        assertNull(queue.poll());
+        assertNull(queue.peek());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testDrain() {
+        MpscChunkedQueue<Integer> queue = new MpscChunkedQueue<>(0);
+        Integer[] batch = new Integer[16];
+        assertEquals(0, queue.drain(batch, batch.length));
+
+        final int count = MpscChunkedQueue.CHUNK_SIZE + 10;
+        for (int i = 0; i < count; i++) {
+            queue.offer(i);
+        }
+        int expected = 0;
+        int drained;
+        while ((drained = queue.drain(batch, batch.length)) > 0) {
+            assertTrue(drained <= batch.length);
+            for (int i = 0; i < drained; i++) {
+                assertEquals(Integer.valueOf(expected++), batch[i]);
+            }
+        }
+        assertEquals(count, expected);
+
+        queue.offer(1);
+        queue.offer(2);
+        queue.offer(3);
+        assertEquals(2, queue.drain(batch, 2));
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void testTakeBlocksUntilOffer() throws Exception {
+        final MpscChunkedQueue<Integer> queue = new MpscChunkedQueue<>(TimeUnit.MICROSECONDS.toNanos(50));
+        final CountDownLatch taken = new CountDownLatch(1);
+        Thread consumer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Integer[] batch = new Integer[4];
+                    if (queue.takeBatch(batch, batch.length) > 0 && batch[0] == 42) {
+                        taken.countDown();
+                    }
+                } catch (InterruptedException e) {}
+            }
+        };
+        consumer.start();
+        Thread.sleep(50);
+        assertEquals(1, taken.getCount());
+        queue.offer(42);
+        assertTrue(taken.await(10, TimeUnit.SECONDS));
+        consumer.join();
+    }
+
+    @Test
+    public void testTakeInterrupted() throws Exception {
+        final MpscChunkedQueue<Integer> queue = new MpscChunkedQueue<>(0);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        Thread consumer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    queue.take();
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            }
+        };
+        consumer.start();
+        Thread.sleep(50);
+        consumer.interrupt();
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testMultipleProducers() throws Exception {
+        final MpscChunkedQueue<long[]> queue = new MpscChunkedQueue<>(0);
+        final int producers = 4;
+        final int perProducer = 100000;
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            threads[p] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < perProducer; i++) {
+                        queue.offer(new long[] { producer, i });
+                    }
+                }
+            };
+            threads[p].start();
+        }
+
+        // Every producer's elements must come out in the order they went in
+        long[] next = new long[producers];
+        long[][] batch = new long[32][];
+        int received = 0;
+        while (received < producers * perProducer) {
+            int count = queue.takeBatch(batch, batch.length);
+            for (int i = 0; i < count; i++) {
+                int producer = (int) batch[i][0];
+                assertEquals(next[producer], batch[i][1]);
+                next[producer]++;
+            }
+            received += count;
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertTrue(queue.isEmpty());
+        for (int p = 0; p < producers; p++) {
+            assertEquals(perProducer, next[p]);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb;
+
+import java.lang.reflect.Method;
+import java.util.Date;
+
+/**
+ * Measures the per call overhead of converting the parameters and invoking a
+ * procedure's run method in process, without the client, network and EE costs
+ * that dominate ProcedureCallMicrobench. Compares the reflective path ProcedureRunner
+ * used before (tryToMakeCompatible and Method.invoke for every call) with the
+ * conversions and ProcedureInvoker it now makes when the procedure is loaded.
+ *
+ * Usage: ProcedureInvokerMicrobench [seconds]
+ */
+public class ProcedureInvokerMicrobench {
+
+    interface Caller {
+        Object call(Object[] params) throws Exception;
+    }
+
+    static class Reflective implements Caller {
+        final Object m_procedure;
+        final Method m_method;
+        final Class<?>[] m_paramTypes;
+
+        Reflective(Object procedure, Method method) {
+            m_procedure = procedure;
+            m_method = method;
+            m_paramTypes = method.getParameterTypes();
+        }
+
+        @Override
+        public Object call(Object[] params) throws Exception {
+            for (int i = 0; i < m_paramTypes.length; i++) {
+                params[i] = ParameterConverter.tryToMakeCompatible(m_paramTypes[i], params[i]);
+            }
+            return m_method.invoke(m_procedure, params);
+        }
+    }
+
+    static class Generated implements Caller {
+        final ProcedureInvoker m_invoker;
+        final ParameterConverter.TypedConversion[] m_conversions;
+
+        Generated(Object procedure, Method method) {
+            m_invoker = new ProcedureInvoker(procedure, method);
+            m_conversions = ParameterConverter.conversionsFor(method.getParameterTypes());
+        }
+
+        @Override
+        public Object call(Object[] params) throws Exception {
+            for (int i = 0; i < m_conversions.length; i++) {
+                params[i] = m_conversions[i].convert(params[i]);
+            }
+            return m_invoker.invoke(params);
+        }
+    }
+
+    static Method runMethod(Class<?> clz) {
+        for (Method m : clz.getDeclaredMethods()) {
+            if (m.getName().equals("run")) {
+                return m;
+            }
+        }
+        throw new IllegalArgumentException("No run method in " + clz.getName());
+    }
+
+    static void run(String name, Caller caller, Object[] template, long seconds) throws Exception {
+        final Object[] params = new Object[template.length];
+        long count = 0;
+        final long start = System.nanoTime();
+        final long end = start + seconds * 1_000_000_000L;
+        while (System.nanoTime() < end) {
+            for (int i = 0; i < 10000; i++) {
+                // The runner converts the deserialized parameters in place
+                System.arraycopy(template, 0, params, 0, template.length);
+                caller.call(params);
+            }
+            count += 10000;
+        }
+        final double elapsedNanos = System.nanoTime() - start;
+        System.out.printf("%-50s %8.1f ns/call %12.0f calls/sec%n",
+                name, elapsedNanos / count, count / (elapsedNanos / 1_000_000_000.0));
+    }
+
+    public static void main(String[] args) throws Exception {
+        final long seconds = args.length > 0 ? Long.parseLong(args[0]) : 5;
+
+        final Method empty = runMethod(EmptyProcedure.class);
+        final Object[] emptyParams = new Object[] { 0L };
+        final Method multivariate = runMethod(MultivariateEmptyProcedure.class);
+        // Integer typed values like a client sending ints for long parameters
+        final Object[] multivariateParams = new Object[] { 0L, 0, 0L,
+                "String c_first", "String c_middle", "String c_last", "String c_street_1",
+                "String c_street_2", "String d_city", "String d_state", "String d_zip",
+                "String c_phone", new Date(), "String c_credit", 0.0,
+                0.0, 0.0, 0.0, 0L, 0L, "String c_data" };
+
+        for (int round = 0; round < 3; round++) {
+            System.out.println("Round " + round);
+            run("EmptyProcedure reflective (previous)",
+                    new Reflective(new EmptyProcedure(), empty), emptyParams, seconds);
+            run("EmptyProcedure ProcedureInvoker",
+                    new Generated(new EmptyProcedure(), empty), emptyParams, seconds);
+            run("MultivariateEmptyProcedure reflective (previous)",
+                    new Reflective(new MultivariateEmptyProcedure(), multivariate), multivariateParams, seconds);
+            run("MultivariateEmptyProcedure ProcedureInvoker",
+                    new Generated(new MultivariateEmptyProcedure(), multivariate), multivariateParams, seconds);
+        }
+    }
+}
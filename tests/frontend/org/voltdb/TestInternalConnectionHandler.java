@@ -0,0 +1,293 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.powermock.reflect.Whitebox;
+import org.voltcore.network.Connection;
+import org.voltdb.catalog.Procedure;
+import org.voltdb.client.ClientResponse;
+import org.voltdb.client.ProcedureCallback;
+
+/**
+ * Checks how importer batches are grouped per partition by the handler and how the
+ * adapter accounts for the back pressure permits of a group.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(InvocationDispatcher.class)
+public class TestInternalConnectionHandler {
+
+    private static final String PROC = "Insert";
+    private static final int PARTITIONS = 3;
+
+    private static final InternalConnectionContext CALLER = new InternalConnectionContext() {
+        @Override
+        public String getName() {
+            return "TestImporter";
+        }
+    };
+
+    private static final Function<Integer, Boolean> KEEP_WAITING = new Function<Integer, Boolean>() {
+        @Override
+        public Boolean apply(Integer partition) {
+            return true;
+        }
+    };
+
+    private static final Function<Integer, Boolean> GIVE_UP = new Function<Integer, Boolean>() {
+        @Override
+        public Boolean apply(Integer partition) {
+            return false;
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        VoltDBInterface voltdb = Mockito.mock(VoltDBInterface.class);
+        CatalogContext context = Mockito.mock(CatalogContext.class);
+        Whitebox.setInternalState(context, "authSystem", Mockito.mock(AuthSystem.class));
+        Mockito.when(voltdb.getCatalogContext()).thenReturn(context);
+        VoltDB.replaceVoltDBInstanceForTest(voltdb);
+
+        // The first parameter of each invocation is the partition it goes to
+        final Procedure catProc = Mockito.mock(Procedure.class);
+        PowerMockito.mockStatic(InvocationDispatcher.class);
+        Mockito.when(InvocationDispatcher.getProcedureFromName(Matchers.eq(PROC), Matchers.any(CatalogContext.class)))
+                .thenReturn(catProc);
+        Mockito.when(InvocationDispatcher.getPartitionsForProcedure(Matchers.any(Procedure.class),
+                Matchers.any(StoredProcedureInvocation.class))).thenAnswer(new Answer<int[]>() {
+            @Override
+            public int[] answer(InvocationOnMock invocation) throws Throwable {
+                StoredProcedureInvocation task = (StoredProcedureInvocation) invocation.getArguments()[1];
+                return new int[] { ((Number) task.getParameterAtIndex(0)).intValue() };
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        VoltDB.replaceVoltDBInstanceForTest(null);
+    }
+
+    private static List<Object[]> params(int... partitions) {
+        List<Object[]> paramsList = new ArrayList<>();
+        for (int i = 0; i < partitions.length; i++) {
+            paramsList.add(new Object[] { partitions[i], i });
+        }
+        return paramsList;
+    }
+
+    private static InternalClientResponseAdapter mockAdapter(boolean accepts) {
+        InternalClientResponseAdapter adapter = Mockito.mock(InternalClientResponseAdapter.class);
+        Mockito.when(adapter.createTransactions(Matchers.any(InternalAdapterTaskAttributes.class),
+                Matchers.anyString(), Matchers.any(Procedure.class), Matchers.anyListOf(ProcedureCallback.class),
+                Matchers.any(InternalConnectionStatsCollector.class), Matchers.anyListOf(StoredProcedureInvocation.class),
+                Matchers.any(AuthSystem.AuthUser.class), Matchers.anyListOf(int[].class),
+                Matchers.<Function<Integer, Boolean>>any())).thenReturn(accepts);
+        return adapter;
+    }
+
+    /**
+     * @return the second parameter, the record index, of each task of each group the adapter was given
+     */
+    @SuppressWarnings("unchecked")
+    private static List<List<Integer>> groups(InternalClientResponseAdapter adapter) {
+        ArgumentCaptor<List> tasks = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(adapter, Mockito.atLeast(0)).createTransactions(Matchers.any(InternalAdapterTaskAttributes.class),
+                Matchers.anyString(), Matchers.any(Procedure.class), Matchers.anyListOf(ProcedureCallback.class),
+                Matchers.any(InternalConnectionStatsCollector.class), tasks.capture(),
+                Matchers.any(AuthSystem.AuthUser.class), Matchers.anyListOf(int[].class),
+                Matchers.<Function<Integer, Boolean>>any());
+        List<List<Integer>> groups = new ArrayList<>();
+        for (List<StoredProcedureInvocation> group : tasks.getAllValues()) {
+            List<Integer> indexes = new ArrayList<>();
+            for (StoredProcedureInvocation task : group) {
+                indexes.add(((Number) task.getParameterAtIndex(1)).intValue());
+            }
+            groups.add(indexes);
+        }
+        return groups;
+    }
+
+    @Test
+    public void testBatchGroupedPerPartition() {
+        InternalConnectionHandler handler = new InternalConnectionHandler();
+        InternalClientResponseAdapter[] adapters = new InternalClientResponseAdapter[PARTITIONS];
+        for (int i = 0; i < PARTITIONS; i++) {
+            adapters[i] = mockAdapter(i != 2);
+            handler.addAdapter(i, adapters[i]);
+        }
+
+        boolean[] queued = handler.callProcedureBatch(CALLER, KEEP_WAITING, null, null, PROC,
+                params(0, 1, 0, 2, 1, 0));
+
+        assertEquals(Arrays.asList(Arrays.asList(0, 2, 5)), groups(adapters[0]));
+        assertEquals(Arrays.asList(Arrays.asList(1, 4)), groups(adapters[1]));
+        assertEquals(Arrays.asList(Arrays.asList(3)), groups(adapters[2]));
+        // Only the group the adapter refused is reported as not queued
+        assertTrue(Arrays.equals(new boolean[] { true, true, true, false, true, true }, queued));
+    }
+
+    @Test
+    public void testGroupSplitAtMaxTransactionsPerBatch() {
+        InternalConnectionHandler handler = new InternalConnectionHandler();
+        InternalClientResponseAdapter adapter = mockAdapter(true);
+        handler.addAdapter(0, adapter);
+
+        final int max = InternalClientResponseAdapter.MAX_TRANSACTIONS_PER_BATCH;
+        int[] partitions = new int[2 * max + 1];
+        boolean[] queued = handler.callProcedureBatch(CALLER, KEEP_WAITING, null, null, PROC, params(partitions));
+
+        List<List<Integer>> groups = groups(adapter);
+        assertEquals(3, groups.size());
+        assertEquals(max, groups.get(0).size());
+        assertEquals(max, groups.get(1).size());
+        assertEquals(Arrays.asList(2 * max), groups.get(2));
+        assertEquals(max, (int) groups.get(1).get(0));
+        for (boolean q : queued) {
+            assertTrue(q);
+        }
+    }
+
+    /**
+     * An adapter whose dispatcher answers every transaction at once, counting them down.
+     */
+    private static InternalClientResponseAdapter answeringAdapter(final CountDownLatch answered) {
+        final InvocationDispatcher dispatcher = PowerMockito.mock(InvocationDispatcher.class);
+        Mockito.when(dispatcher.dispatch(Matchers.any(StoredProcedureInvocation.class),
+                Matchers.any(InvocationClientHandler.class), Matchers.any(Connection.class),
+                Matchers.any(AuthSystem.AuthUser.class), Matchers.any(InvocationDispatcher.OverrideCheck.class),
+                Matchers.anyBoolean())).thenAnswer(new Answer<ClientResponseImpl>() {
+            @Override
+            public ClientResponseImpl answer(InvocationOnMock invocation) throws Throwable {
+                answered.countDown();
+                return new ClientResponseImpl(ClientResponse.SUCCESS, new VoltTable[0], null);
+            }
+        });
+        return new InternalClientResponseAdapter(1) {
+            @Override
+            InvocationDispatcher getDispatcher() {
+                return dispatcher;
+            }
+        };
+    }
+
+    private boolean createTransactions(InternalClientResponseAdapter adapter, int count,
+            Function<Integer, Boolean> backPressurePredicate) {
+        List<ProcedureCallback> callbacks = new ArrayList<>();
+        List<StoredProcedureInvocation> tasks = new ArrayList<>();
+        List<int[]> partitions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            StoredProcedureInvocation task = new StoredProcedureInvocation();
+            task.setProcName(PROC);
+            task.setParams(0, i);
+            callbacks.add(null);
+            tasks.add(task);
+            partitions.add(new int[] { 0 });
+        }
+        InternalAdapterTaskAttributes kattrs = new InternalAdapterTaskAttributes(CALLER, adapter.connectionId());
+        return adapter.createTransactions(kattrs, PROC, null, callbacks, null, tasks, null,
+                partitions, backPressurePredicate);
+    }
+
+    private static int maxPermits() {
+        return new InternalClientResponseAdapter(0).m_permits.availablePermits();
+    }
+
+    @Test
+    public void testPermitsReturnedWithResponses() throws Exception {
+        final int count = InternalClientResponseAdapter.MAX_TRANSACTIONS_PER_BATCH;
+        CountDownLatch answered = new CountDownLatch(2 * count);
+        InternalClientResponseAdapter adapter = answeringAdapter(answered);
+
+        assertTrue(createTransactions(adapter, count, KEEP_WAITING));
+        assertTrue(createTransactions(adapter, count, KEEP_WAITING));
+        assertTrue(answered.await(10, TimeUnit.SECONDS));
+        waitForPermits(adapter, maxPermits());
+    }
+
+    @Test
+    public void testPermitsReturnedWhenQueueRejects() throws Exception {
+        InternalClientResponseAdapter adapter = answeringAdapter(new CountDownLatch(1));
+        ExecutorService closed = Executors.newSingleThreadExecutor();
+        closed.shutdown();
+        Whitebox.<Map<Integer, ExecutorService>>getInternalState(adapter, "m_partitionExecutor").put(0, closed);
+
+        assertFalse(createTransactions(adapter, InternalClientResponseAdapter.MAX_TRANSACTIONS_PER_BATCH, KEEP_WAITING));
+        assertEquals(maxPermits(), adapter.m_permits.availablePermits());
+    }
+
+    @Test
+    public void testBackPressureGivingUpTakesNoPermits() throws Exception {
+        final int count = InternalClientResponseAdapter.MAX_TRANSACTIONS_PER_BATCH;
+        CountDownLatch answered = new CountDownLatch(count);
+        InternalClientResponseAdapter adapter = answeringAdapter(answered);
+        // Another group holds all but one of the permits
+        final int held = adapter.m_permits.availablePermits() - 1;
+        adapter.m_permits.acquire(held);
+
+        // The predicate gives up, the group is queued anyway but its responses give nothing back
+        assertTrue(createTransactions(adapter, count, GIVE_UP));
+        assertTrue(answered.await(10, TimeUnit.SECONDS));
+        waitForPermits(adapter, 1);
+
+        adapter.m_permits.release(held);
+        assertEquals(maxPermits(), adapter.m_permits.availablePermits());
+    }
+
+    private static void waitForPermits(InternalClientResponseAdapter adapter, int permits) throws InterruptedException {
+        // The permits are given back after the callbacks, on the partition executor
+        long deadline = System.currentTimeMillis() + 10000;
+        while (adapter.m_permits.availablePermits() != permits && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        assertEquals(permits, adapter.m_permits.availablePermits());
+    }
+}
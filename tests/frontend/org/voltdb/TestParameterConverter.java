@@ -32,6 +32,7 @@ import java.util.Date;
 import java.util.List;
 
 import org.apache.commons.lang.ArrayUtils;
+import org.voltdb.common.Constants;
 import org.voltdb.types.GeographyPointValue;
 import org.voltdb.types.GeographyValue;
 import org.voltdb.types.TimestampType;
@@ -587,4 +588,43 @@ public class TestParameterConverter extends TestCase
                     "String is not properly hex-encoded"));
         }
     }
+
+    public void testTypedConversionsMatchTryToMakeCompatible() throws Exception {
+        Class<?>[] types = new Class<?>[] {
+                long.class, int.class, short.class, byte.class, double.class, String.class,
+                Long.class, Integer.class, Double.class, BigDecimal.class, TimestampType.class, byte[].class };
+        Object[] values = new Object[] {
+                null, 5L, 5, (short) 5, (byte) 5, 5.0, "5", "abc", Constants.CSV_NULL,
+                VoltType.NULL_BIGINT, VoltType.NULL_INTEGER, VoltType.NULL_FLOAT, new BigDecimal(5),
+                new TimestampType(5), new byte[] { 5 }, Long.MAX_VALUE };
+        ParameterConverter.TypedConversion[] conversions = ParameterConverter.conversionsFor(types);
+        for (int t = 0; t < types.length; t++) {
+            for (Object value : values) {
+                Object expected;
+                try {
+                    expected = ParameterConverter.tryToMakeCompatible(types[t], value);
+                }
+                catch (Exception e) {
+                    try {
+                        conversions[t].convert(value);
+                        fail(value + " to " + types[t] + " should not convert");
+                    }
+                    catch (Exception expectedException) {
+                        assertEquals(e.getClass(), expectedException.getClass());
+                    }
+                    continue;
+                }
+                Object converted = conversions[t].convert(value);
+                String msg = value + " to " + types[t];
+                if (expected instanceof byte[]) {
+                    assertTrue(msg, Arrays.equals((byte[]) expected, (byte[]) converted));
+                }
+                else {
+                    assertEquals(msg, expected, converted);
+                    assertEquals(msg, expected == null ? null : expected.getClass(),
+                            converted == null ? null : converted.getClass());
+                }
+            }
+        }
+    }
 }
@@ -537,4 +537,57 @@ public class TestParameterSet extends TestCase {
 
         assertTrue(Arrays.deepEquals(pset1array, pset2array));
     }
+
+    public void testLazyDeserialization() throws IOException {
+        byte[] bigVarbinary = new byte[1024 * 1024];
+        Arrays.fill(bigVarbinary, (byte) 7);
+        ParameterSet pset = ParameterSet.fromArrayNoCopy(1L, "\u00e9t\u00e9", bigVarbinary, null,
+                new String[] { "a", null, "c" }, new long[] { 1, 2, 3 });
+
+        ByteBuffer buf = ByteBuffer.allocate(pset.getSerializedSize() + 4);
+        buf.putInt(42);
+        pset.flattenToBuffer(buf);
+        buf.flip();
+        buf.getInt();
+
+        ParameterSet lazy = ParameterSet.fromByteBufferLazily(buf);
+        assertFalse(buf.hasRemaining());
+        assertEquals(pset.size(), lazy.size());
+        assertEquals(pset.getSerializedSize(), lazy.getSerializedSize());
+
+        // Flattening copies the original bytes without decoding
+        ByteBuffer flattened = ByteBuffer.allocate(lazy.getSerializedSize());
+        lazy.flattenToBuffer(flattened);
+        flattened.flip();
+        buf.position(4);
+        assertEquals(buf, flattened);
+
+        // Decoding yields the same parameters as the eager path
+        ParameterSet eager = ParameterSet.fromByteBuffer(flattened.duplicate());
+        assertTrue(Arrays.deepEquals(eager.toArray(), lazy.toArray()));
+        assertEquals(eager, lazy);
+        assertEquals("\u00e9t\u00e9", lazy.getParam(1));
+
+        // A decoded lazy set still flattens to the same bytes
+        ByteBuffer again = ByteBuffer.allocate(lazy.getSerializedSize());
+        lazy.flattenToBuffer(again);
+        again.flip();
+        assertEquals(flattened, again);
+    }
+
+    public void testLazyDeserializationOfCorruptBuffer() throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(3);
+        buf.putShort((short) 1);
+        buf.put(VoltType.BIGINT.getValue());
+        buf.flip();
+
+        ParameterSet lazy = ParameterSet.fromByteBufferLazily(buf);
+        assertEquals(1, lazy.size());
+        try {
+            lazy.getParam(0);
+            fail("Decoding a truncated parameter set should fail");
+        }
+        catch (RuntimeException expected) {
+        }
+    }
 }
@@ -0,0 +1,81 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb;
+
+import java.lang.reflect.InvocationTargetException;
+
+import junit.framework.TestCase;
+
+public class TestProcedureInvoker extends TestCase {
+
+    public static class Procedure {
+        long m_total = 0;
+
+        public long run(long a, int b, String c) {
+            m_total += a + b + c.length();
+            return m_total;
+        }
+    }
+
+    public static class VoidProcedure {
+        public void run() {
+        }
+    }
+
+    public static class FailingProcedure {
+        public VoltTable[] run(String message) {
+            throw new VoltProcedure.VoltAbortException(message);
+        }
+    }
+
+    public void testInstanceMethod() throws Exception {
+        Procedure procedure = new Procedure();
+        ProcedureInvoker invoker = new ProcedureInvoker(procedure,
+                Procedure.class.getMethod("run", long.class, int.class, String.class));
+        assertEquals(6L, invoker.invoke(new Object[] { 2L, 3, "a" }));
+        assertEquals(12L, invoker.invoke(new Object[] { 2L, 3, "a" }));
+        assertEquals(12L, procedure.m_total);
+    }
+
+    public void testStaticAndVoidMethods() throws Exception {
+        ProcedureInvoker invoker = new ProcedureInvoker(new EmptyProcedure(),
+                EmptyProcedure.class.getMethod("run", long.class));
+        assertEquals(0, ((VoltTable[]) invoker.invoke(new Object[] { 0L })).length);
+
+        invoker = new ProcedureInvoker(new VoidProcedure(), VoidProcedure.class.getMethod("run"));
+        assertNull(invoker.invoke(new Object[0]));
+    }
+
+    public void testExceptionsAreWrapped() throws Exception {
+        ProcedureInvoker invoker = new ProcedureInvoker(new FailingProcedure(),
+                FailingProcedure.class.getMethod("run", String.class));
+        try {
+            invoker.invoke(new Object[] { "boom" });
+            fail();
+        }
+        catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof VoltProcedure.VoltAbortException);
+            assertEquals("boom", e.getCause().getMessage());
+        }
+    }
+}
@@ -0,0 +1,284 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.client.VoltBulkLoader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.voltdb.ClientResponseImpl;
+import org.voltdb.VoltTable;
+import org.voltdb.VoltType;
+import org.voltdb.client.ClientImpl;
+import org.voltdb.client.ClientResponse;
+import org.voltdb.client.ProcedureCallback;
+
+/**
+ * Drives a PerPartitionTable of a replicated table against a mocked client, which records
+ * the rows of each batch sent and either answers at once or holds the callbacks.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(ClientImpl.class)
+public class TestPerPartitionTable {
+
+    private static final String TABLE = "T";
+
+    private ClientImpl m_client;
+    // Row ids of each batch sent, in the order the batches were sent
+    private final List<List<Long>> m_sent = Collections.synchronizedList(new ArrayList<List<Long>>());
+    // Callbacks not answered yet, when responses are held
+    private final List<ProcedureCallback> m_held = Collections.synchronizedList(new ArrayList<ProcedureCallback>());
+    private volatile boolean m_holdResponses = false;
+    private final List<Object> m_failedHandles = Collections.synchronizedList(new ArrayList<Object>());
+    private final AtomicReference<ClientResponse> m_failure = new AtomicReference<>();
+    private VoltBulkLoader m_loader;
+
+    @Before
+    public void setUp() throws Exception {
+        m_client = PowerMockito.mock(ClientImpl.class);
+
+        VoltTable columns = new VoltTable(
+                new VoltTable.ColumnInfo("TABLE_NAME", VoltType.STRING),
+                new VoltTable.ColumnInfo("TYPE_NAME", VoltType.STRING),
+                new VoltTable.ColumnInfo("ORDINAL_POSITION", VoltType.BIGINT),
+                new VoltTable.ColumnInfo("COLUMN_NAME", VoltType.STRING),
+                new VoltTable.ColumnInfo("REMARKS", VoltType.STRING));
+        columns.addRow(TABLE, "BIGINT", 1, "ID", null);
+        columns.addRow(TABLE, "INTEGER", 2, "SRC", null);
+        VoltTable deployment = new VoltTable(
+                new VoltTable.ColumnInfo("PROPERTY", VoltType.STRING),
+                new VoltTable.ColumnInfo("VALUE", VoltType.STRING));
+        Mockito.when(m_client.callProcedure("@SystemCatalog", "COLUMNS")).thenReturn(response(columns));
+        Mockito.when(m_client.callProcedure("@SystemInformation", "deployment")).thenReturn(response(deployment));
+        Mockito.when(m_client.isHashinatorInitialized()).thenReturn(true);
+        Mockito.when(m_client.isAutoReconnectEnabled()).thenReturn(false);
+
+        Mockito.when(m_client.callProcedure(Matchers.any(ProcedureCallback.class), Matchers.eq("@LoadMultipartitionTable"),
+                Matchers.anyVararg())).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                Object[] args = invocation.getArguments();
+                ProcedureCallback callback = (ProcedureCallback) args[0];
+                // The table is cleared once sent, copy its ids out now
+                VoltTable table = (VoltTable) args[args.length - 1];
+                List<Long> ids = new ArrayList<>();
+                table.resetRowPosition();
+                while (table.advanceRow()) {
+                    ids.add(table.getLong(0));
+                }
+                m_sent.add(ids);
+                if (m_holdResponses) {
+                    m_held.add(callback);
+                }
+                else {
+                    callback.clientCallback(response());
+                }
+                return true;
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (m_loader != null) {
+            m_loader.close();
+        }
+    }
+
+    private static ClientResponse response(VoltTable... results) {
+        return new ClientResponseImpl(ClientResponse.SUCCESS, results, null);
+    }
+
+    private VoltBulkLoader createLoader(int batchSize) throws Exception {
+        return new VoltBulkLoader(new BulkLoaderState(m_client), TABLE, batchSize, new BulkLoaderFailureCallBack() {
+            @Override
+            public void failureCallback(Object rowHandle, Object[] fieldList, ClientResponse response) {
+                m_failedHandles.add(rowHandle);
+                m_failure.set(response);
+            }
+        });
+    }
+
+    private PerPartitionTable table() {
+        return m_loader.m_partitionTable[m_loader.m_firstPartitionTable];
+    }
+
+    private List<Long> sentIds() {
+        List<Long> ids = new ArrayList<>();
+        synchronized (m_sent) {
+            for (List<Long> batch : m_sent) {
+                ids.addAll(batch);
+            }
+        }
+        return ids;
+    }
+
+    private void waitForSent(int batches) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (m_sent.size() < batches && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(batches, m_sent.size());
+    }
+
+    @Test
+    public void testConcurrentInsertersKeepOrder() throws Exception {
+        m_loader = createLoader(7);
+        final int threads = 4;
+        final int rows = 2000;
+        List<Thread> inserters = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int src = t;
+            inserters.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (long i = 0; i < rows; i++) {
+                            m_loader.insertRow(null, i * threads + src, src);
+                        }
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+        }
+        for (Thread t : inserters) {
+            t.start();
+        }
+        for (Thread t : inserters) {
+            t.join();
+        }
+        m_loader.drain();
+
+        List<Long> ids = sentIds();
+        assertEquals(threads * rows, ids.size());
+        // Each inserter's rows must arrive in the order it inserted them
+        long[] last = new long[threads];
+        for (int t = 0; t < threads; t++) {
+            last[t] = -1;
+        }
+        for (long id : ids) {
+            int src = (int) (id % threads);
+            assertTrue("row " + id + " sent after row " + last[src], id > last[src]);
+            last[src] = id;
+        }
+        assertEquals(0, m_loader.m_outstandingRowCount.get());
+        assertEquals(threads * rows, m_loader.m_loaderCompletedCnt.get());
+    }
+
+    @Test
+    public void testBackpressureAtMaxOutstandingBatches() throws Exception {
+        m_loader = createLoader(1);
+        m_holdResponses = true;
+        final int max = PerPartitionTable.MAX_OUTSTANDING_BATCHES;
+        for (long i = 0; i < max; i++) {
+            m_loader.insertRow(null, i, 0);
+        }
+        waitForSent(max);
+
+        Thread blocked = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    m_loader.insertRow(null, (long) max, 0);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        blocked.start();
+        blocked.join(500);
+        assertTrue("insert should wait for a response", blocked.isAlive());
+        assertEquals(max, m_sent.size());
+
+        // Answering one batch lets the waiting row through
+        m_held.remove(0).clientCallback(response());
+        blocked.join(10000);
+        assertTrue(!blocked.isAlive());
+        waitForSent(max + 1);
+
+        m_holdResponses = false;
+        synchronized (m_held) {
+            for (ProcedureCallback callback : m_held) {
+                callback.clientCallback(response());
+            }
+            m_held.clear();
+        }
+        m_loader.drain();
+        assertEquals(max + 1, sentIds().size());
+        assertEquals(0, m_loader.m_outstandingRowCount.get());
+    }
+
+    @Test
+    public void testFlushPartialBatch() throws Exception {
+        m_loader = createLoader(4);
+        for (long i = 0; i < 10; i++) {
+            m_loader.insertRow(null, i, 0);
+        }
+        waitForSent(2);
+
+        table().flushAllTableQueues().get();
+        assertEquals(3, m_sent.size());
+        assertEquals(2, m_sent.get(2).size());
+        List<Long> expected = new ArrayList<>();
+        for (long i = 0; i < 10; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, sentIds());
+
+        // Nothing is left to send
+        table().flushAllTableQueues().get();
+        assertEquals(3, m_sent.size());
+        assertEquals(10, m_loader.m_loaderCompletedCnt.get());
+    }
+
+    @Test
+    public void testConversionErrorReportedThroughGenerateError() throws Exception {
+        m_loader = createLoader(4);
+        m_loader.insertRow("good", 1L, 0);
+        m_loader.insertRow("bad", "not a number", 0);
+        m_loader.drain();
+
+        assertEquals(Collections.<Object>singletonList("bad"), m_failedHandles);
+        assertEquals(ClientResponse.GRACEFUL_FAILURE, m_failure.get().getStatus());
+        assertEquals(Collections.singletonList(1L), sentIds());
+        assertEquals(0, m_loader.m_outstandingRowCount.get());
+        assertEquals(2, m_loader.m_loaderCompletedCnt.get());
+    }
+}
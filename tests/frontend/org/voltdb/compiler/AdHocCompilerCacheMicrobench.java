@@ -0,0 +1,170 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb.compiler;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures ad hoc plan cache lookup throughput with many planner threads,
+ * against a single synchronized access-ordered LinkedHashMap like the one
+ * AdHocCompilerCache used before it was segmented.
+ *
+ * Usage: AdHocCompilerCacheMicrobench [threads] [seconds] [statements]
+ * Every lookup misses the literal cache one time in ten and then checks the
+ * parameterized plan cache, like PlannerTool does.
+ */
+public class AdHocCompilerCacheMicrobench {
+
+    interface Lookup {
+        Object getWithSQL(String sql);
+        Object getWithParsedToken(String token);
+    }
+
+    /** The previous cache, one monitor around both LRU maps */
+    static class SynchronizedLru implements Lookup {
+        final Map<String, AdHocPlannedStatement> m_literals;
+        final Map<String, AdHocPlannedStatement> m_cores;
+
+        SynchronizedLru(final int maxEntries) {
+            m_literals = new LinkedHashMap<String, AdHocPlannedStatement>(maxEntries * 2, .75f, true) {
+                private static final long serialVersionUID = 1L;
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, AdHocPlannedStatement> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+            m_cores = new LinkedHashMap<String, AdHocPlannedStatement>(maxEntries * 2, .75f, true) {
+                private static final long serialVersionUID = 1L;
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, AdHocPlannedStatement> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        synchronized void put(String sql, String token, AdHocPlannedStatement stmt) {
+            m_literals.put(sql, stmt);
+            m_cores.put(token, stmt);
+        }
+
+        @Override
+        public synchronized Object getWithSQL(String sql) {
+            return m_literals.get(sql);
+        }
+
+        @Override
+        public synchronized Object getWithParsedToken(String token) {
+            return m_cores.get(token);
+        }
+    }
+
+    static class Segmented implements Lookup {
+        final AdHocCompilerCache m_cache;
+
+        Segmented(int maxEntries) {
+            m_cache = new AdHocCompilerCache(maxEntries, maxEntries);
+        }
+
+        @Override
+        public Object getWithSQL(String sql) {
+            return m_cache.getWithSQL(sql);
+        }
+
+        @Override
+        public Object getWithParsedToken(String token) {
+            return m_cache.getWithParsedToken(token);
+        }
+    }
+
+    static void run(String name, final Lookup lookup, final String[] sqls, final String[] tokens,
+                    int threadCount, final long seconds) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicLong total = new AtomicLong();
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    final ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long count = 0;
+                    try {
+                        start.await();
+                    }
+                    catch (InterruptedException e) {
+                        return;
+                    }
+                    final long end = System.nanoTime() + seconds * 1_000_000_000L;
+                    while (System.nanoTime() < end) {
+                        for (int i = 0; i < 1000; i++) {
+                            int index = random.nextInt(sqls.length);
+                            // One lookup in ten is for a literal that was never cached
+                            if (random.nextInt(10) == 0) {
+                                lookup.getWithSQL("missing " + index);
+                                lookup.getWithParsedToken(tokens[index]);
+                            }
+                            else {
+                                lookup.getWithSQL(sqls[index]);
+                            }
+                        }
+                        count += 1000;
+                    }
+                    total.addAndGet(count);
+                }
+            };
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        System.out.printf("%-32s %d threads %12.0f lookups/sec%n", name, threadCount, total.get() / (double) seconds);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        final int threadCount = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        final long seconds = args.length > 1 ? Long.parseLong(args[1]) : 5;
+        final int statements = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        final String[] sqls = new String[statements];
+        final String[] tokens = new String[statements];
+        SynchronizedLru previous = new SynchronizedLru(statements);
+        Segmented segmented = new Segmented(statements);
+        for (int i = 0; i < statements; i++) {
+            sqls[i] = "select * from t where a = " + i;
+            tokens[i] = "token " + i;
+            AdHocPlannedStatement stmt = TestAdHocCompilerCache.makeStatement(sqls[i], 500);
+            previous.put(sqls[i], tokens[i], stmt);
+            segmented.m_cache.put(sqls[i], tokens[i], stmt, null, false, false);
+        }
+
+        for (int round = 0; round < 3; round++) {
+            System.out.println("Round " + round);
+            run("synchronized LRU (previous)", previous, sqls, tokens, threadCount, seconds);
+            run("AdHocCompilerCache", segmented, sqls, tokens, threadCount, seconds);
+        }
+    }
+}
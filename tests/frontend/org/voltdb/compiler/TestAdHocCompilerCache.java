@@ -0,0 +1,198 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb.compiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.voltdb.ParameterSet;
+import org.voltdb.VoltType;
+import org.voltdb.common.Constants;
+import org.voltdb.planner.BoundPlan;
+import org.voltdb.planner.CorePlan;
+
+import com.google_voltpatches.common.cache.CacheStats;
+
+import junit.framework.TestCase;
+
+public class TestAdHocCompilerCache extends TestCase {
+
+    static AdHocPlannedStatement makeStatement(String sql, int fragmentSize) {
+        byte[] fragment = new byte[fragmentSize];
+        fragment[0] = (byte) sql.hashCode();
+        byte[] hash = new byte[20];
+        hash[0] = (byte) sql.hashCode();
+        hash[1] = (byte) (sql.hashCode() >> 8);
+        CorePlan core = new CorePlan(fragment, null, hash, null, false, true, new VoltType[0], new byte[20]);
+        return new AdHocPlannedStatement(sql.getBytes(Constants.UTF8ENCODING), core,
+                ParameterSet.emptyParameterSet(), null);
+    }
+
+    public void testLookups() {
+        AdHocCompilerCache cache = new AdHocCompilerCache(10, 10);
+        assertNull(cache.getWithSQL("select * from t"));
+        assertNull(cache.getWithParsedToken("token"));
+
+        AdHocPlannedStatement stmt = makeStatement("select * from t", 100);
+        cache.put("select * from t", "token", stmt, null, false, false);
+        assertSame(stmt, cache.getWithSQL("select * from t"));
+        List<BoundPlan> variants = cache.getWithParsedToken("token");
+        assertEquals(1, variants.size());
+        assertSame(stmt.core, variants.get(0).m_core);
+
+        // Putting an equal plan again doesn't add a variant
+        cache.put("select * from t", "token", makeStatement("select * from t", 100), null, false, false);
+        assertEquals(1, cache.getWithParsedToken("token").size());
+        assertEquals(1, cache.getLiteralCacheSize());
+        assertEquals(1, cache.getCoreCacheSize());
+
+        CacheStats literalStats = cache.getLiteralCacheStats();
+        assertEquals(1, literalStats.hitCount());
+        assertEquals(1, literalStats.missCount());
+        CacheStats coreStats = cache.getCoreCacheStats();
+        assertEquals(2, coreStats.hitCount());
+        assertEquals(1, coreStats.missCount());
+    }
+
+    public void testMemoryBoundEviction() {
+        final int planSize = 1000;
+        final long maxMem = 20 * planSize;
+        // The entry bound alone would keep all of them
+        AdHocCompilerCache cache = new AdHocCompilerCache(1000, 1000, maxMem);
+        long planWeight = 0;
+        for (int i = 0; i < 200; i++) {
+            String sql = "select * from t where a = " + i;
+            AdHocPlannedStatement stmt = makeStatement(sql, planSize);
+            planWeight = stmt.getSerializedSize();
+            cache.put(sql, "token" + i, stmt, null, false, false);
+        }
+        assertTrue(cache.getLiteralCacheSize() * planWeight <= maxMem);
+        assertTrue(cache.getLiteralCacheStats().evictionCount() >= 200 - maxMem / planWeight);
+        // The core cache is only bounded by entries
+        assertEquals(200, cache.getCoreCacheSize());
+        assertEquals(0, cache.getCoreCacheStats().evictionCount());
+    }
+
+    public void testEntryBoundEviction() {
+        // Tiny plans against a large memory budget are still bounded by the entry count
+        AdHocCompilerCache cache = new AdHocCompilerCache(10, 5, 1024 * 1024);
+        for (int i = 0; i < 100; i++) {
+            String sql = "select * from t where a = " + i;
+            cache.put(sql, "token" + i, makeStatement(sql, 10), null, false, false);
+        }
+        assertTrue(cache.getLiteralCacheSize() <= 10);
+        assertTrue(cache.getCoreCacheSize() <= 5);
+        assertTrue(cache.getCoreCacheStats().evictionCount() >= 95);
+    }
+
+    public void testConcurrentPut() throws Exception {
+        final AdHocCompilerCache cache = new AdHocCompilerCache(1000, 1000);
+        final int threadCount = 16;
+        final int statementCount = 100;
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < statementCount; i++) {
+                            String sql = "select * from t where a = " + i;
+                            if (cache.getWithSQL(sql) == null) {
+                                cache.put(sql, "token" + (i % 10), makeStatement(sql, 100), null, false, false);
+                            }
+                        }
+                    }
+                    catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+        assertEquals(statementCount, cache.getLiteralCacheSize());
+        assertEquals(10, cache.getCoreCacheSize());
+        // Each token got one variant per distinct plan, no duplicates from racing planners
+        for (int i = 0; i < 10; i++) {
+            assertEquals(statementCount / 10, cache.getWithParsedToken("token" + i).size());
+        }
+    }
+
+    public void testSaveAndPreload() throws Exception {
+        final byte[] catalogHash = new byte[20];
+        AdHocCompilerCache cache = new AdHocCompilerCache(100, 100);
+        for (int i = 0; i < 10; i++) {
+            String sql = "select * from t where a = " + i;
+            AdHocPlannedStatement stmt = makeStatement(sql, 100);
+            stmt.core.setPartitioningParamValue(i);
+            cache.put(sql, "token" + (i % 5), stmt, new String[] { Integer.toString(i) }, false, false);
+        }
+        File file = File.createTempFile("plancache", ".bin");
+        file.deleteOnExit();
+        assertEquals(15, cache.writeTo(file, catalogHash));
+
+        AdHocCompilerCache preloaded = new AdHocCompilerCache(100, 100);
+        assertEquals(15, preloaded.readFrom(file, catalogHash));
+        for (int i = 0; i < 10; i++) {
+            String sql = "select * from t where a = " + i;
+            AdHocPlannedStatement stmt = preloaded.getWithSQL(sql);
+            assertEquals(cache.getWithSQL(sql), stmt);
+            assertEquals(i, stmt.getPartitioningParameterValue());
+        }
+        for (int i = 0; i < 5; i++) {
+            assertEquals(cache.getWithParsedToken("token" + i), preloaded.getWithParsedToken("token" + i));
+        }
+        // Entries already in the cache are kept
+        assertEquals(0, preloaded.readFrom(file, catalogHash));
+
+        // Plans of another catalog aren't loaded
+        byte[] otherHash = new byte[20];
+        otherHash[0] = 1;
+        assertEquals(0, new AdHocCompilerCache(100, 100).readFrom(file, otherHash));
+        assertEquals(0, new AdHocCompilerCache(100, 100).readFrom(new File(file.getPath() + ".missing"), catalogHash));
+
+        // A damaged file is rejected
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length() / 2);
+            int b = raf.read();
+            raf.seek(raf.length() / 2);
+            raf.write(b ^ 0xff);
+        }
+        try {
+            new AdHocCompilerCache(100, 100).readFrom(file, catalogHash);
+            fail();
+        }
+        catch (IOException expected) {}
+    }
+}
@@ -0,0 +1,71 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb.compiler;
+
+import org.voltdb.compiler.AdHocPreparedStatements.PreparedStatement;
+
+import junit.framework.TestCase;
+
+public class TestAdHocPreparedStatements extends TestCase {
+
+    public void testHandles() {
+        final String sql = "select * from t where a = ?";
+        long handle = AdHocPreparedStatements.handleFor(sql);
+        assertTrue(handle > 0);
+        assertEquals(handle, AdHocPreparedStatements.handleFor(new String(sql)));
+        assertFalse(handle == AdHocPreparedStatements.handleFor("select * from t where b = ?"));
+    }
+
+    public void testPrepare() {
+        AdHocPreparedStatements statements = new AdHocPreparedStatements(10);
+        final String sql = "select * from t where a = ?";
+        long handle = AdHocPreparedStatements.handleFor(sql);
+        assertNull(statements.get(handle));
+
+        AdHocPlannedStatement plan = TestAdHocCompilerCache.makeStatement(sql, 100);
+        PreparedStatement prepared = statements.put(sql, plan);
+        assertEquals(handle, prepared.handle);
+        assertEquals(sql, prepared.sql);
+        assertSame(prepared, statements.get(handle));
+        assertSame(plan, prepared.getPlan());
+
+        // Preparing again keeps the statement and swaps the plan
+        AdHocPlannedStatement replanned = TestAdHocCompilerCache.makeStatement(sql, 200);
+        assertSame(prepared, statements.put(sql, replanned));
+        assertSame(replanned, statements.get(handle).getPlan());
+        assertEquals(1, statements.size());
+
+        statements.clear();
+        assertNull(statements.get(handle));
+        assertEquals(0, statements.size());
+    }
+
+    public void testBounded() {
+        AdHocPreparedStatements statements = new AdHocPreparedStatements(10);
+        for (int i = 0; i < 100; i++) {
+            String sql = "select * from t where a = " + i;
+            statements.put(sql, TestAdHocCompilerCache.makeStatement(sql, 100));
+        }
+        assertTrue(statements.size() <= 10);
+    }
+}
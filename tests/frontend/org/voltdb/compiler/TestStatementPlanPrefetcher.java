@@ -0,0 +1,113 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb.compiler;
+
+import java.io.File;
+
+import org.voltdb.catalog.Catalog;
+import org.voltdb.catalog.Database;
+import org.voltdb.compiler.VoltCompiler.Feedback;
+import org.voltdb.utils.InMemoryJarfile;
+
+import junit.framework.TestCase;
+
+public class TestStatementPlanPrefetcher extends TestCase {
+
+    private static final String SCHEMA;
+    static {
+        StringBuilder sb = new StringBuilder();
+        sb.append("CREATE TABLE A (ID INTEGER NOT NULL, V VARCHAR(32), N BIGINT, PRIMARY KEY (ID));\n");
+        sb.append("PARTITION TABLE A ON COLUMN ID;\n");
+        sb.append("CREATE TABLE B (ID INTEGER NOT NULL, A_ID INTEGER NOT NULL, N BIGINT);\n");
+        sb.append("CREATE INDEX B_A_ID ON B (A_ID);\n");
+        for (int i = 0; i < 20; i++) {
+            sb.append("CREATE PROCEDURE AGet" + i + " PARTITION ON TABLE A COLUMN ID AS " +
+                    "SELECT V, N + " + i + " FROM A WHERE ID = ?;\n");
+            sb.append("CREATE PROCEDURE BJoin" + i + " AS " +
+                    "SELECT A.V, B.N FROM A, B WHERE A.ID = B.A_ID AND B.N > " + i + " ORDER BY B.N;\n");
+        }
+        sb.append("CREATE PROCEDURE BMulti AS BEGIN " +
+                "SELECT COUNT(*) FROM B; UPDATE B SET N = ? WHERE ID = ?; END;\n");
+        SCHEMA = sb.toString();
+    }
+
+    private static VoltCompiler newCompiler(int plannerThreads) {
+        VoltCompiler compiler = new VoltCompiler(false);
+        compiler.m_plannerThreads = plannerThreads;
+        return compiler;
+    }
+
+    private static Catalog compile(int plannerThreads, String ddl) throws Exception {
+        File schemaFile = VoltProjectBuilder.writeStringToTempFile(ddl);
+        Catalog catalog = newCompiler(plannerThreads).compileCatalogFromDDL(schemaFile.getPath());
+        assertNotNull(catalog);
+        return catalog;
+    }
+
+    private static Database getDatabase(Catalog catalog) {
+        return catalog.getClusters().get("cluster").getDatabases().get("database");
+    }
+
+    public void testParallelPlansMatchInline() throws Exception {
+        String inline = compile(1, SCHEMA).serialize();
+        String parallel = compile(4, SCHEMA).serialize();
+        assertEquals(inline, parallel);
+    }
+
+    public void testPlanningErrorReported() throws Exception {
+        File schemaFile = VoltProjectBuilder.writeStringToTempFile(SCHEMA +
+                "CREATE PROCEDURE Broken AS SELECT NOSUCHCOLUMN FROM A;\n");
+        File jarOut = new File("prefetcherror.jar");
+        jarOut.deleteOnExit();
+        VoltCompiler compiler = newCompiler(4);
+        assertFalse(compiler.compileFromDDL(jarOut.getPath(), schemaFile.getPath()));
+        boolean found = false;
+        for (Feedback fb : compiler.m_errors) {
+            found |= fb.getStandardFeedbackLine().contains("Failed to plan for statement");
+        }
+        assertTrue(found);
+    }
+
+    public void testTableDependencyHash() throws Exception {
+        Database before = getDatabase(compile(1, SCHEMA));
+        Database after = getDatabase(compile(1, SCHEMA + "CREATE INDEX B_N ON B (N);\n"));
+        assertEquals(VoltCompiler.tableDependencyHash(before, "A"), VoltCompiler.tableDependencyHash(after, "A"));
+        assertFalse(VoltCompiler.tableDependencyHash(before, "B").equals(VoltCompiler.tableDependencyHash(after, "B")));
+        assertNull(VoltCompiler.tableDependencyHash(before, "C"));
+    }
+
+    public void testLiveDDLReusesUnchangedStatements() throws Exception {
+        File schemaFile = VoltProjectBuilder.writeStringToTempFile(SCHEMA);
+        File jarOut = new File("prefetchlive.jar");
+        jarOut.deleteOnExit();
+        VoltCompiler compiler = newCompiler(4);
+        assertTrue(compiler.compileFromDDL(jarOut.getPath(), schemaFile.getPath()));
+        Catalog oldCatalog = compiler.getCatalog();
+
+        // Only the statements of the procedures that don't touch B are reused
+        long hits = VoltCompiler.m_stmtCacheHits;
+        InMemoryJarfile jarfile = new InMemoryJarfile(jarOut);
+        newCompiler(4).compileInMemoryJarfileWithNewDDL(jarfile, "CREATE INDEX B_N ON B (N);", oldCatalog);
+        assertEquals(20, VoltCompiler.m_stmtCacheHits - hits);
+    }
+}
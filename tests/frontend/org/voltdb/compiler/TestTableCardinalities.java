@@ -0,0 +1,99 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb.compiler;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.voltdb.compiler.DatabaseEstimates.TableEstimates;
+
+import com.google_voltpatches.common.collect.ImmutableMap;
+
+import junit.framework.TestCase;
+
+public class TestTableCardinalities extends TestCase {
+
+    private static Map<String, Map<String, Long>> indexes(String table, String index, long entries) {
+        Map<String, Map<String, Long>> indexEntries = new HashMap<>();
+        indexEntries.put(table, ImmutableMap.of(index, entries));
+        return indexEntries;
+    }
+
+    public void testEmpty() {
+        TableCardinalities cardinalities = new TableCardinalities();
+        TableCardinalities.Snapshot snapshot = cardinalities.snapshot();
+        assertTrue(snapshot.isEmpty());
+        assertEquals(0, snapshot.getGeneration());
+        assertEquals(new TableEstimates().maxTuples,
+                snapshot.newEstimates().getEstimatesForTable("T").maxTuples);
+    }
+
+    public void testLargestPartitionAndCoverage() {
+        TableCardinalities cardinalities = new TableCardinalities();
+        cardinalities.update(0, ImmutableMap.of("T", 20000L, "SMALL", 10L),
+                indexes("T", "PARTIAL_IDX", 5000L));
+        cardinalities.update(1, ImmutableMap.of("T", 40000L, "SMALL", 12L),
+                indexes("T", "PARTIAL_IDX", 8000L));
+
+        DatabaseEstimates estimates = cardinalities.snapshot().newEstimates();
+        TableEstimates t = estimates.getEstimatesForTable("T");
+        assertEquals(40000, t.maxTuples);
+        assertEquals(20000, t.minTuples);
+        assertEquals(8000, t.getIndexTuples("PARTIAL_IDX"));
+        assertEquals(40000, t.getIndexTuples("UNKNOWN_IDX"));
+
+        // Tiny tables are floored so that indexes are still preferred
+        TableEstimates small = estimates.getEstimatesForTable("SMALL");
+        assertEquals(TableCardinalities.MIN_TUPLES, small.maxTuples);
+    }
+
+    public void testSnapshotReusedUntilUpdate() {
+        TableCardinalities cardinalities = new TableCardinalities();
+        cardinalities.update(0, ImmutableMap.of("T", 5000L), new HashMap<>());
+        TableCardinalities.Snapshot snapshot = cardinalities.snapshot();
+        assertSame(snapshot, cardinalities.snapshot());
+        cardinalities.update(0, ImmutableMap.of("T", 6000L), new HashMap<>());
+        assertNotSame(snapshot, cardinalities.snapshot());
+    }
+
+    public void testGenerationOnDrift() {
+        TableCardinalities cardinalities = new TableCardinalities();
+        // Far below the default estimate
+        cardinalities.update(0, ImmutableMap.of("T", 10000L), new HashMap<>());
+        long generation = cardinalities.snapshot().getGeneration();
+        assertEquals(1, generation);
+
+        // Small changes keep the cached plans
+        cardinalities.update(0, ImmutableMap.of("T", 20000L), new HashMap<>());
+        assertEquals(generation, cardinalities.snapshot().getGeneration());
+        cardinalities.update(0, ImmutableMap.of("T", 30000L), new HashMap<>());
+        assertEquals(generation, cardinalities.snapshot().getGeneration());
+
+        // Measured against the start of the generation, not the last update
+        cardinalities.update(0, ImmutableMap.of("T", 40000L), new HashMap<>());
+        assertEquals(generation + 1, cardinalities.snapshot().getGeneration());
+
+        cardinalities.clear();
+        assertTrue(cardinalities.snapshot().isEmpty());
+    }
+}
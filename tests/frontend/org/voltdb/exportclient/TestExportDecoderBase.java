@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.List;
@@ -35,10 +36,14 @@ import java.util.TimeZone;
 
 import junit.framework.TestCase;
 
+import org.json_voltpatches.JSONException;
 import org.voltdb.VoltTable;
 import org.voltdb.VoltType;
 import org.voltdb.common.Constants;
 import org.voltdb.export.AdvertisedDataSource;
+import org.voltdb.exportclient.decode.CSVStringDecoder;
+import org.voltdb.exportclient.decode.JsonStringDecoder;
+import org.voltdb.exportclient.decode.StringArrayDecoder;
 import org.voltdb.messaging.FastDeserializer;
 import org.voltdb.types.GeographyPointValue;
 import org.voltdb.types.GeographyValue;
@@ -178,6 +183,7 @@ public class TestExportDecoderBase extends TestCase
     }
 
     public void testExportWriter() throws IOException {
+        vtable.clearRowData();
         long l = System.currentTimeMillis();
         vtable.addRow(l, l, l, 0, l, l, (byte) 1, (short) 2, 3, 4, 5.5, 6, "xx", new BigDecimal(88), GEOG_POINT, GEOG);
         vtable.advanceRow();
@@ -236,6 +242,7 @@ public class TestExportDecoderBase extends TestCase
     }
 
     public void testExportSchemaBlocks() throws IOException {
+        vtable.clearRowData();
         long l = System.currentTimeMillis();
         vtable.addRow(l, l, l, 0, l, l, (byte) 1, (short) 2, 3, 4, 5.5, 6, "xx", new BigDecimal(88), GEOG_POINT, GEOG);
         vtable.addRow(l, l, l, 0, l, l, (byte) 1, (short) 2, 3, 4, 5.5, 6, "xx", new BigDecimal(88), GEOG_POINT, GEOG);
@@ -321,6 +328,84 @@ public class TestExportDecoderBase extends TestCase
     }
 
 
+    private static Object[] decodeBoth(VoltTable table, ExportRowCursor cursor) throws IOException {
+        byte[] rowBytes = ExportEncoder.encodeRow(table, "mytable", 7, 1L);
+        ByteBuffer bb = ByteBuffer.wrap(rowBytes);
+        bb.order(ByteOrder.LITTLE_ENDIAN);
+        int schemaSize = bb.getInt();
+        ExportRow schemaRow = ExportRow.decodeBufferSchema(bb, schemaSize, 1, 0);
+        int rowSize = bb.getInt();
+        int rowStart = bb.position();
+        // Decode in place from a direct copy, the way the export processor hands rows over
+        ByteBuffer direct = ByteBuffer.allocateDirect(rowBytes.length).order(ByteOrder.LITTLE_ENDIAN);
+        direct.put(rowBytes).position(rowStart);
+        cursor.reset(schemaRow, 0, direct, rowSize);
+        assertEquals(rowStart + rowSize, direct.position());
+        return new Object[] { ExportRow.decodeRow(schemaRow, 0, 0L, bb), schemaRow };
+    }
+
+    public void testExportRowCursor() throws IOException, JSONException {
+        vtable.clearRowData();
+        long l = System.currentTimeMillis();
+        vtable.addRow(l, l, l, 0, l, l, (byte) 1, (short) 2, 3, 4, 5.5, 6, "x\"y \u00e9", new BigDecimal(88), GEOG_POINT, GEOG);
+        vtable.advanceRow();
+        ExportRowCursor cursor = new ExportRowCursor();
+        Object[] decoded = decodeBoth(vtable, cursor);
+        ExportRow rowdata = (ExportRow) decoded[0];
+        ExportRow schemaRow = (ExportRow) decoded[1];
+
+        assertEquals(rowdata.values.length, cursor.getColumnCount());
+        Object[] values = cursor.getValues();
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(rowdata.values[i].toString(), values[i].toString());
+            assertEquals(rowdata.values[i].getClass(), values[i].getClass());
+            assertFalse(cursor.isNull(i));
+        }
+        assertEquals(l, cursor.getLong(0));
+        assertEquals(1L, cursor.getLong(6));
+        assertEquals(4L, cursor.getLong(9));
+        assertEquals(5.5, cursor.getDouble(10));
+        assertEquals(6L, cursor.getLong(11));
+        assertEquals("x\"y \u00e9", cursor.getString(12));
+        StringBuilder sb = new StringBuilder();
+        cursor.appendString(12, sb);
+        assertEquals("x\"y \u00e9", sb.toString());
+        assertEquals(rowdata.partitionValue, cursor.getPartitionValue());
+        assertEquals(rowdata.partitionValue, cursor.toExportRow().partitionValue);
+        assertEquals(Arrays.toString(rowdata.values), Arrays.toString(cursor.toExportRow().values));
+
+        // The row decoders must produce exactly what the materializing path does
+        CSVStringDecoder csv = CSVStringDecoder.builder().build();
+        assertEquals(csv.decode(schemaRow.generation, schemaRow.tableName, schemaRow.types, schemaRow.names, null, rowdata.values),
+                csv.decode(cursor, null));
+        assertEquals(csv.decode(cursor, null), new String(csv.decodeToBytes(cursor), StandardCharsets.UTF_8));
+        JsonStringDecoder json = JsonStringDecoder.builder().build();
+        assertEquals(json.decode(schemaRow.generation, schemaRow.tableName, schemaRow.types, schemaRow.names, null, rowdata.values),
+                json.decode(cursor, null));
+        StringArrayDecoder strings = StringArrayDecoder.builder().build();
+        assertTrue(Arrays.equals(
+                strings.decode(schemaRow.generation, schemaRow.tableName, schemaRow.types, schemaRow.names, null, rowdata.values),
+                strings.decode(cursor, null)));
+
+        // Nulls, and reusing the cursor for a second row
+        vtable.clearRowData();
+        vtable.addRow(l, l, l, 0, l, l, (byte) 1, (short) 2, 3, 4, 5.5, 6, null, null, null, null);
+        vtable.advanceRow();
+        decoded = decodeBoth(vtable, cursor);
+        rowdata = (ExportRow) decoded[0];
+        for (int i = 12; i < 16; i++) {
+            assertTrue(cursor.isNull(i));
+            assertNull(cursor.getObject(i));
+        }
+        assertEquals(csv.decode(schemaRow.generation, schemaRow.tableName, schemaRow.types, schemaRow.names, null, rowdata.values),
+                csv.decode(cursor, null));
+        assertEquals(json.decode(schemaRow.generation, schemaRow.tableName, schemaRow.types, schemaRow.names, null, rowdata.values),
+                json.decode(cursor, null));
+        assertTrue(Arrays.equals(
+                strings.decode(schemaRow.generation, schemaRow.tableName, schemaRow.types, schemaRow.names, null, rowdata.values),
+                strings.decode(cursor, null)));
+    }
+
     public void testExportDecoderPartitioning() throws IOException {
         AdvertisedDataSource source = constructTestSource();
 
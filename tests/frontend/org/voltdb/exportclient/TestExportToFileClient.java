@@ -29,10 +29,13 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.math.BigDecimal;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -42,6 +45,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -132,6 +136,19 @@ public class TestExportToFileClient extends ExportClientTestBase {
         props.put("binaryencoding", "base64");
         eclient.configure(props);
 
+        // Invalid compression
+        eclient = new ExportToFileClient();
+        props.put("compression", "zip");
+        try {
+            eclient.configure(props);
+            fail("Invalid compression");
+        } catch (IllegalArgumentException e) {}
+
+        // Valid compression
+        props.put("compression", "snappy");
+        eclient.configure(props);
+        props.remove("compression");
+
         // Invalid directory - can't create
         eclient = new ExportToFileClient();
         props.put("outdir", "/root/thereisnosuchdirectory");
@@ -675,10 +692,78 @@ public class TestExportToFileClient extends ExportClientTestBase {
         assertTrue(validName);
     }
 
+    @Test
+    public void testCompressedPartitionsRollingUnbatched() throws Exception
+    {
+        final long startTs = System.currentTimeMillis();
+        ExportToFileClient client = new ExportToFileClient();
+        Properties props = new Properties();
+        props.put("nonce", Long.toString(System.currentTimeMillis()));
+        props.put("type", "csv");
+        props.put("outdir", m_dir);
+        props.put("period", "1"); // 1 second rolling period
+        props.put("compression", "gzip");
+        props.put("compressionthreads", "2");
+        client.configure(props);
+
+        // two partitions of the same table append their blocks to one file
+        List<String> expected = new ArrayList<>();
+        for (int partition = 0; partition < 2; partition++) {
+            final AdvertisedDataSource source = constructTestSource(false, partition);
+            final ExportToFileClient.ExportToFileDecoder decoder = client.constructExportDecoder(source);
+
+            long l = System.currentTimeMillis() + partition;
+            vtable.addRow(l, l, l, 0, l, l, (byte) 1,
+                    /* partitioning column */ (short) 2,
+                    3, 4, 5.5, 6, "xx", new BigDecimal(88),
+                    GEOG_POINT, GEOG);
+            vtable.advanceRow();
+            byte[] rowBytes = ExportEncoder.encodeRow(vtable, "mytable", 0, 1L);
+            ByteBuffer bb = ByteBuffer.wrap(rowBytes);
+            bb.order(ByteOrder.LITTLE_ENDIAN);
+            int schemaSize = bb.getInt();
+            ExportRow schemaRow = ExportRow.decodeBufferSchema(bb, schemaSize, 1, 0);
+            bb.getInt(); // row size
+            ExportRow row = ExportRow.decodeRow(schemaRow, partition, 0L, bb);
+            decoder.onBlockStart(row);
+            decoder.processRow(row);
+            decoder.onBlockCompletion(row);
+            expected.add(expectedContent(l));
+        }
+
+        // The compressed file should show up after the 1s rollover
+        while (System.currentTimeMillis() - startTs < 60 * 1000) { // timeout after 1 minute
+            final File dir = new File(m_dir);
+            final File[] files = dir.listFiles();
+            int index;
+            if (files != null && files.length > 0 && (index = findFileNotStartWithActive(files)) >= 0) {
+                assertTrue(files[index].getName().endsWith(".csv.gz"));
+                List<String> lines = new ArrayList<>();
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        new GZIPInputStream(new FileInputStream(files[index])), Charsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        lines.add(line);
+                    }
+                }
+                assertEquals(expected, lines);
+                client.shutdown();
+                return;
+            }
+            Thread.sleep(100);
+        }
+        fail("Timed out waiting for file to roll over");
+    }
+
+    String expectedContent(long ts)
+    {
+        return String.format("\"%d\",\"%d\",\"%d\",\"0\",\"%d\",\"%d\",\"1\",\"2\",\"3\",\"4\",\"5.5\",\"1970-01-01 00:00:00.000\",\"xx\",\"88.000000000000\","
+                + "\"" + GEOG_POINT.toWKT() + "\",\"" + GEOG.toWKT() + "\"", ts, ts, ts, ts, ts);
+    }
+
     void verifyContent(File f, long ts) throws IOException
     {
-        assertEquals(String.format("\"%d\",\"%d\",\"%d\",\"0\",\"%d\",\"%d\",\"1\",\"2\",\"3\",\"4\",\"5.5\",\"1970-01-01 00:00:00.000\",\"xx\",\"88.000000000000\","
-                + "\"" + GEOG_POINT.toWKT() + "\",\"" + GEOG.toWKT() + "\"", ts, ts, ts, ts, ts),
+        assertEquals(expectedContent(ts),
                 new String(Files.readAllBytes(f.toPath()), Charsets.UTF_8).trim());
     }
 }
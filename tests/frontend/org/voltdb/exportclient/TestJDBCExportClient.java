@@ -29,9 +29,29 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Driver;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
 
 import org.junit.Test;
+import org.voltdb.VoltType;
+import org.voltdb.exportclient.ExportDecoderBase.RestartBlockException;
 
 public class TestJDBCExportClient extends ExportClientTestBase {
     @Test
@@ -188,6 +208,252 @@ public class TestJDBCExportClient extends ExportClientTestBase {
         assertEquals(JDBCExportClient.m_cpds.get().size(), 0);
     }
 
+    @Test
+    public void testBatchConfig() throws Exception
+    {
+        final JDBCExportClient client = new JDBCExportClient();
+        final Properties config = new Properties();
+        config.setProperty("jdbcurl", "jdbc:postgresql://localhost/fake");
+        config.setProperty("jdbcuser", "fakeuser");
+        config.setProperty("jdbcdriver", "org.voltdb.export.JDBCDriverForTest");
+        config.setProperty("parallelwriters", "4");
+        config.setProperty("maxbatchrows", "50");
+        try {
+            client.configure(config);
+            assertEquals(4, client.m_parallelWriters);
+            assertEquals(50, client.m_maxBatchRows);
+            assertEquals(50, client.m_minBatchRows);
+            assertEquals("reWriteBatchedInserts=true", client.m_poolProperties.getConnectionProperties());
+        } finally {
+            client.shutdown();
+        }
+
+        // Connection properties already set are kept
+        final JDBCExportClient client1 = new JDBCExportClient();
+        client1.m_poolProperties.setConnectionProperties("ssl=true");
+        try {
+            client1.configure(config);
+            assertEquals("ssl=true;reWriteBatchedInserts=true", client1.m_poolProperties.getConnectionProperties());
+        } finally {
+            client1.shutdown();
+        }
+
+        // Nor is the property added again when they already have it
+        final JDBCExportClient client3 = new JDBCExportClient();
+        client3.m_poolProperties.setConnectionProperties("reWriteBatchedInserts=false");
+        try {
+            client3.configure(config);
+            assertEquals("reWriteBatchedInserts=false", client3.m_poolProperties.getConnectionProperties());
+        } finally {
+            client3.shutdown();
+        }
+
+        final JDBCExportClient client2 = new JDBCExportClient();
+        config.setProperty("parallelwriters", "0");
+        try {
+            client2.configure(config);
+            fail("Invalid parallel writers");
+        } catch (IllegalArgumentException e) {}
+        finally {
+            client2.shutdown();
+        }
+    }
+
+    /**
+     * A driver whose connections keep the rows of executed batches until they are committed.
+     */
+    public static class RecordingDriver implements Driver {
+        static final List<Long> committed = Collections.synchronizedList(new ArrayList<Long>());
+        static final Set<String> writerThreads = Collections.synchronizedSet(new HashSet<String>());
+        static final AtomicInteger batchesBeforeFailure = new AtomicInteger(-1);
+
+        static void reset() {
+            committed.clear();
+            writerThreads.clear();
+            batchesBeforeFailure.set(-1);
+        }
+
+        @Override
+        public Connection connect(String url, Properties info) {
+            final List<Long> written = new ArrayList<>();
+            final List<Long> batch = new ArrayList<>();
+            final Long[] row = new Long[1];
+            final PreparedStatement insert = proxy(PreparedStatement.class, (method, args) -> {
+                switch (method.getName()) {
+                case "setLong":
+                    row[0] = (Long) args[1];
+                    return null;
+                case "addBatch":
+                    batch.add(row[0]);
+                    return null;
+                case "executeBatch":
+                    writerThreads.add(Thread.currentThread().getName());
+                    int[] counts = new int[batch.size()];
+                    if (batchesBeforeFailure.getAndDecrement() == 0) {
+                        Arrays.fill(counts, Statement.EXECUTE_FAILED);
+                        batch.clear();
+                        throw new BatchUpdateException("injected failure", counts);
+                    }
+                    Arrays.fill(counts, 1);
+                    written.addAll(batch);
+                    batch.clear();
+                    return counts;
+                default:
+                    return null;
+                }
+            });
+            final DatabaseMetaData metaData = proxy(DatabaseMetaData.class, (method, args) ->
+                "getDatabaseProductName".equals(method.getName()) ? "PostgreSQL" :
+                "supportsBatchUpdates".equals(method.getName()) ? true : null);
+            final Statement statement = proxy(Statement.class, (method, args) -> null);
+            return proxy(Connection.class, (method, args) -> {
+                switch (method.getName()) {
+                case "getMetaData":
+                    return metaData;
+                case "createStatement":
+                    return statement;
+                case "prepareStatement":
+                    return insert;
+                case "commit":
+                    committed.addAll(written);
+                    written.clear();
+                    return null;
+                case "rollback":
+                    written.clear();
+                    return null;
+                case "isValid":
+                    return true;
+                default:
+                    return null;
+                }
+            });
+        }
+
+        private interface Handler {
+            Object handle(Method method, Object[] args) throws Exception;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> clz, Handler handler) {
+            InvocationHandler ih = (p, method, args) -> {
+                Object result = handler.handle(method, args);
+                if (result == null && method.getReturnType().isPrimitive()) {
+                    if (method.getReturnType() == boolean.class) {
+                        return false;
+                    }
+                    if (method.getReturnType() != void.class) {
+                        return method.getReturnType() == long.class ? (Object) 0L : (Object) 0;
+                    }
+                }
+                return result;
+            };
+            return (T) Proxy.newProxyInstance(clz.getClassLoader(), new Class<?>[] { clz }, ih);
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url.startsWith("jdbc:recording");
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() {
+            return null;
+        }
+    }
+
+    private static final List<String> NAMES = Arrays.asList(
+            "VOLT_TRANSACTION_ID", "VOLT_EXPORT_TIMESTAMP", "VOLT_EXPORT_SEQUENCE_NUMBER",
+            "VOLT_PARTITION_ID", "VOLT_OP", "VOLT_SITE_ID", "id");
+    private static final List<VoltType> TYPES = Collections.nCopies(7, VoltType.BIGINT);
+
+    private static void writeBlock(ExportDecoderBase decoder, long first, int count) throws RestartBlockException {
+        ExportRow row = null;
+        for (long id = first; id < first + count; id++) {
+            row = new ExportRow("batched", NAMES, TYPES, Collections.nCopies(7, 0),
+                    new Object[] { 0L, 0L, id, 0L, 1L, 0L, id }, id, 6, 0, 0);
+            if (id == first) {
+                decoder.onBlockStart(row);
+            }
+            decoder.processRow(row);
+        }
+        decoder.onBlockCompletion(row);
+    }
+
+    private void testBlocks(int writers) throws Exception
+    {
+        RecordingDriver.reset();
+        final JDBCExportClient client = new JDBCExportClient();
+        final Properties config = new Properties();
+        config.setProperty("jdbcurl", "jdbc:recording:batched");
+        config.setProperty("jdbcuser", "fakeuser");
+        config.setProperty("jdbcdriver", RecordingDriver.class.getName());
+        config.setProperty("skipinternals", "true");
+        config.setProperty("parallelwriters", Integer.toString(writers));
+        config.setProperty("minbatchrows", "10");
+        config.setProperty("maxbatchrows", "10");
+        ExportDecoderBase decoder = null;
+        try {
+            client.configure(config);
+            decoder = client.constructExportDecoder(constructTestSource(false, 0));
+
+            writeBlock(decoder, 0, 95);
+            assertEquals(95, RecordingDriver.committed.size());
+            assertEquals(writers, RecordingDriver.writerThreads.size());
+
+            // a failed batch rolls back the whole block
+            RecordingDriver.batchesBeforeFailure.set(4);
+            try {
+                writeBlock(decoder, 95, 95);
+                fail("Injected failure");
+            } catch (RestartBlockException expected) {}
+            assertEquals(95, RecordingDriver.committed.size());
+
+            writeBlock(decoder, 95, 95);
+            assertEquals(190, RecordingDriver.committed.size());
+            Set<Long> ids = new HashSet<>(RecordingDriver.committed);
+            for (long id = 0; id < 190; id++) {
+                assertTrue(ids.contains(id));
+            }
+        } finally {
+            if (decoder != null) {
+                decoder.sourceNoLongerAdvertised(null);
+            }
+            client.shutdown();
+        }
+    }
+
+    @Test
+    public void testSingleWriterBlocks() throws Exception
+    {
+        testBlocks(1);
+    }
+
+    @Test
+    public void testParallelWriterBlocks() throws Exception
+    {
+        testBlocks(3);
+    }
+
     @Test
     public void testLowerCaseNames() throws Exception
     {
@@ -23,17 +23,33 @@
 
 package org.voltdb.exportclient.kafka;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 import static junit.framework.Assert.assertFalse;
 
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.junit.Test;
+import org.voltdb.VoltType;
+import org.voltdb.export.AdvertisedDataSource;
 import org.voltdb.exportclient.ExportClientTestBase;
 import org.voltdb.exportclient.ExportDecoderBase.BinaryEncoding;
+import org.voltdb.exportclient.ExportDecoderBase.RestartBlockException;
+import org.voltdb.exportclient.ExportRow;
 
 public class TestKafkaExportClient extends ExportClientTestBase {
     @Test
@@ -59,8 +75,10 @@ public class TestKafkaExportClient extends ExportClientTestBase {
         config.setProperty("metadata.broker.list", "fakehost");
         client.configure(config);
         assertEquals("fakehost", client.m_producerConfig.getProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG));
-        assertEquals(StringSerializer.class.getName(), client.m_producerConfig.getProperty(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG));
-        assertEquals(StringSerializer.class.getName(), client.m_producerConfig.getProperty(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG));
+        assertEquals(ByteArraySerializer.class.getName(), client.m_producerConfig.getProperty(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG));
+        assertEquals(ByteArraySerializer.class.getName(), client.m_producerConfig.getProperty(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG));
+        assertTrue(client.m_byteArrayKeys);
+        assertTrue(client.m_byteArrayValues);
         assertEquals("0", client.m_producerConfig.getProperty(ProducerConfig.ACKS_CONFIG));
         assertEquals("voltdbexport", client.m_topicPrefix);
         assertEquals("voltdb", client.m_producerConfig.getProperty("client.id"));
@@ -94,4 +112,126 @@ public class TestKafkaExportClient extends ExportClientTestBase {
         } catch (IllegalArgumentException e) {
         }
     }
+
+    private static final List<String> NAMES = Arrays.asList(
+            "tid", "ts", "sq", "pid", "site", "op", "value");
+    private static final List<VoltType> TYPES = Arrays.asList(
+            VoltType.BIGINT, VoltType.BIGINT, VoltType.BIGINT, VoltType.BIGINT, VoltType.BIGINT, VoltType.BIGINT,
+            VoltType.STRING);
+
+    private static AdvertisedDataSource source(int partition) {
+        return new AdvertisedDataSource(partition, "foo", "mytable", null, 0, 1,
+                new ArrayList<>(NAMES), new ArrayList<>(TYPES), Arrays.asList(0, 0, 0, 0, 0, 0, 64),
+                AdvertisedDataSource.ExportFormat.SEVENDOTX);
+    }
+
+    private static ExportRow row(int partition, String value) {
+        Object[] values = { 1L, 2L, 3L, (long) partition, 4L, 5L, value };
+        return new ExportRow("mytable", NAMES, TYPES, Arrays.asList(0, 0, 0, 0, 0, 0, 64),
+                values, partition, 3, partition, 1);
+    }
+
+    private static KafkaExportClient mockClient(List<MockProducer> producers, Properties config) throws Exception {
+        final KafkaExportClient client = new KafkaExportClient();
+        client.m_producerFactory = new KafkaProducerPool.ProducerFactory() {
+            @SuppressWarnings({ "unchecked", "rawtypes" })
+            @Override
+            public Producer<Object, Object> create(Properties ignored) {
+                MockProducer producer = new MockProducer(false);
+                producers.add(producer);
+                return (Producer) producer;
+            }
+        };
+        config.setProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "fakehost");
+        client.configure(config);
+        return client;
+    }
+
+    @Test
+    public void testProducerPoolSharedAcrossPartitions() throws Exception
+    {
+        final List<MockProducer> producers = new ArrayList<>();
+        final Properties config = new Properties();
+        config.setProperty("producer.pool.size", "2");
+        final KafkaExportClient client = mockClient(producers, config);
+        assertEquals(2, client.m_producerPool.size());
+        assertFalse(client.m_producerConfig.containsKey("producer.pool.size"));
+
+        KafkaExportClient.KafkaExportDecoder[] decoders = new KafkaExportClient.KafkaExportDecoder[3];
+        for (int p = 0; p < decoders.length; ++p) {
+            decoders[p] = (KafkaExportClient.KafkaExportDecoder) client.constructExportDecoder(source(p));
+            decoders[p].onBlockStart(row(p, "x"));
+        }
+        assertEquals(2, producers.size());
+        assertSame(decoders[0].m_producer, decoders[2].m_producer);
+        assertNotSame(decoders[0].m_producer, decoders[1].m_producer);
+
+        // A producer that was closed under a decoder is replaced in the pool
+        client.m_producerPool.invalidate(decoders[0].m_producer);
+        decoders[0].m_producer = null;
+        decoders[0].onBlockStart(row(0, "x"));
+        assertEquals(3, producers.size());
+        assertSame(producers.get(2), decoders[0].m_producer);
+
+        for (KafkaExportClient.KafkaExportDecoder decoder : decoders) {
+            decoder.sourceNoLongerAdvertised(null);
+        }
+    }
+
+    @Test
+    public void testBlockAckedByCallbacks() throws Exception
+    {
+        final List<MockProducer> producers = new ArrayList<>();
+        final Properties config = new Properties();
+        config.setProperty(ProducerConfig.ACKS_CONFIG, "all");
+        config.setProperty("acks.retry.timeout", "50");
+        final KafkaExportClient client = mockClient(producers, config);
+        final KafkaExportClient.KafkaExportDecoder decoder =
+                (KafkaExportClient.KafkaExportDecoder) client.constructExportDecoder(source(0));
+
+        decoder.onBlockStart(row(0, "a"));
+        for (String value : new String[] { "a", "b", "c" }) {
+            decoder.processRow(row(0, value));
+        }
+        MockProducer producer = producers.get(0);
+        List<ProducerRecord<byte[], byte[]>> sent = producer.history();
+        assertEquals(3, sent.size());
+        assertEquals("voltdbexportmytable", sent.get(0).topic());
+        assertArrayEquals("0".getBytes(StandardCharsets.UTF_8), sent.get(0).key());
+        assertEquals("\"1\",\"2\",\"3\",\"0\",\"4\",\"5\",\"b\"", new String(sent.get(1).value(), StandardCharsets.UTF_8));
+        assertEquals(3, decoder.m_blockAcks.outstanding());
+
+        // Not acked yet, the block has to be restarted
+        try {
+            decoder.onBlockCompletion(row(0, "a"));
+            fail("block completed without acks");
+        } catch (RestartBlockException expected) {}
+
+        // Late acks of the abandoned attempt don't count for the next one
+        while (producer.completeNext()) {}
+
+        // One failed send fails the whole block
+        decoder.onBlockStart(row(0, "a"));
+        decoder.processRow(row(0, "a"));
+        decoder.processRow(row(0, "b"));
+        decoder.processRow(row(0, "c"));
+        assertTrue(producer.completeNext());
+        assertTrue(producer.completeNext());
+        assertTrue(producer.errorNext(new RuntimeException("broker down")));
+        assertEquals(0, decoder.m_blockAcks.outstanding());
+        try {
+            decoder.onBlockCompletion(row(0, "a"));
+            fail("block completed with a failed send");
+        } catch (RestartBlockException expected) {
+            assertEquals("broker down", expected.getCause().getMessage());
+        }
+
+        decoder.onBlockStart(row(0, "a"));
+        decoder.processRow(row(0, "a"));
+        decoder.processRow(row(0, "b"));
+        while (producer.completeNext()) {}
+        decoder.onBlockCompletion(row(0, "a"));
+
+        decoder.sourceNoLongerAdvertised(null);
+    }
 }
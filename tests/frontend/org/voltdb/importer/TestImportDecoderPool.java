@@ -0,0 +1,97 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb.importer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class TestImportDecoderPool {
+
+    private static List<String> records(int count) {
+        List<String> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(i % 10 == 3 ? "bad" : Integer.toString(i));
+        }
+        return records;
+    }
+
+    private static void check(ImportDecoderPool pool, int count, Set<Object> decoders) throws Exception {
+        List<String> records = records(count);
+        Object[][] results = new Object[count][];
+        Exception[] errors = new Exception[count];
+        pool.decode("topic", () -> {
+            Object owner = new Object();
+            decoders.add(owner);
+            return record -> {
+                if ("bad".equals(record)) {
+                    throw new IllegalArgumentException(record);
+                }
+                return new Object[] { Integer.parseInt(record), owner };
+            };
+        }, records, count, results, errors);
+        for (int i = 0; i < count; i++) {
+            if (i % 10 == 3) {
+                assertNull(results[i]);
+                assertTrue(errors[i] instanceof IllegalArgumentException);
+            } else {
+                assertNull(errors[i]);
+                assertNotNull(results[i]);
+                assertEquals(i, results[i][0]);
+            }
+        }
+    }
+
+    @Test
+    public void testInline() throws Exception {
+        ImportDecoderPool pool = new ImportDecoderPool("test decoder", 1);
+        Set<Object> decoders = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        check(pool, 1000, decoders);
+        check(pool, 10, decoders);
+        //the caller keeps its decoder across fetches
+        assertEquals(1, decoders.size());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testParallel() throws Exception {
+        ImportDecoderPool pool = new ImportDecoderPool("test decoder", 4);
+        Set<Object> decoders = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        for (int i = 0; i < 20; i++) {
+            check(pool, 5000, decoders);
+        }
+        check(pool, 7, decoders);
+        //one decoder for every thread decoding
+        assertEquals(4, decoders.size());
+        pool.shutdown();
+    }
+}
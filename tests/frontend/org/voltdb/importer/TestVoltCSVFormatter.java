@@ -39,9 +39,11 @@ import org.osgi.framework.Constants;
 import org.osgi.framework.ServiceReference;
 import org.osgi.framework.launch.Framework;
 import org.osgi.framework.launch.FrameworkFactory;
+import org.voltdb.VoltType;
 import org.voltdb.importer.formatter.AbstractFormatterFactory;
 import org.voltdb.importer.formatter.Formatter;
 import org.voltdb.importer.formatter.FormatterBuilder;
+import org.voltdb.importer.formatter.TypedFormatter;
 
 import com.google_voltpatches.common.base.Function;
 import com.google_voltpatches.common.base.Joiner;
@@ -71,6 +73,7 @@ public class TestVoltCSVFormatter extends TestCase {
         List<String> packages = ImmutableList.<String> builder()
                 .add("org.voltcore.network")
                 .add("org.voltcore.logging")
+                .add("org.voltdb")
                 .add("org.voltdb.importer")
                 .add("org.voltdb.importer.formatter")
                 .add("org.apache.log4j")
@@ -343,6 +346,59 @@ public class TestVoltCSVFormatter extends TestCase {
         assertEquals(results[2], "test");
     }
 
+    @Test
+    public void testTypedParameters() throws Exception {
+        ServiceReference refs[] = m_bundle.getRegisteredServices();
+        ServiceReference<AbstractFormatterFactory> reference = refs[0];
+        AbstractFormatterFactory o = m_bundle.getBundleContext().getService(reference);
+        Properties prop = new Properties();
+        FormatterBuilder builder = new FormatterBuilder("csv", prop);
+        builder.setFormatterFactory(o);
+        Formatter formatter = builder.create();
+        assertTrue(formatter instanceof TypedFormatter);
+        ((TypedFormatter) formatter).setParameterTypes(new VoltType[] {
+                VoltType.INTEGER, VoltType.BIGINT, VoltType.FLOAT, VoltType.VARBINARY, VoltType.STRING, null });
+
+        Object[] results = formatter.transform(ByteBuffer.wrap("12,-34,10.05,0aFf,test,5".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(6, results.length);
+        assertEquals(12L, results[0]);
+        assertEquals(-34L, results[1]);
+        assertEquals("10.05", results[2]);
+        assertTrue(java.util.Arrays.equals(new byte[] { 0x0a, (byte) 0xff }, (byte[]) results[3]));
+        assertEquals("test", results[4]);
+        assertEquals("5", results[5]);
+
+        // values that don't parse cleanly are left to the procedure's parameter conversion
+        results = formatter.transform(ByteBuffer.wrap("1.5,NULL,\\N,abc,\u00e9t\u00e9".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(5, results.length);
+        assertEquals("1.5", results[0]);
+        assertEquals(null, results[1]);
+        assertEquals(null, results[2]);
+        assertEquals("abc", results[3]);
+        assertEquals("\u00e9t\u00e9", results[4]);
+
+        // \N stays on the typed path, the integers are still converted
+        results = formatter.transform(ByteBuffer.wrap("7,\\N,8,\\N".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(4, results.length);
+        assertEquals(7L, results[0]);
+        assertEquals(null, results[1]);
+        assertEquals(8L, results[2]);
+        assertEquals(null, results[3]);
+
+        // any other use of the escape character goes through the parser
+        results = formatter.transform(ByteBuffer.wrap("7,\\Nx".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(2, results.length);
+        assertEquals("7", results[0]);
+
+        // records with quotes go through the parser
+        results = formatter.transform(ByteBuffer.wrap("\"12\",\"a,b\",,".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(4, results.length);
+        assertEquals("12", results[0]);
+        assertEquals("a,b", results[1]);
+        assertEquals("", results[2]);
+        assertEquals("", results[3]);
+    }
+
     @Override
     @After
     public void tearDown() throws Exception {
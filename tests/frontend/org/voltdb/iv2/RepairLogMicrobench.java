@@ -0,0 +1,114 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb.iv2;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.voltdb.StoredProcedureInvocation;
+import org.voltdb.messaging.Iv2InitiateTaskMessage;
+
+/**
+ * Measures deliver/truncate throughput and allocation rate of the repair log
+ * storage on a replica, against the ArrayDeque of Items it used to keep.
+ *
+ * Usage: RepairLogMicrobench [messages] [window]
+ * where window is the number of un-truncated transactions kept in the log.
+ */
+public class RepairLogMicrobench {
+
+    interface Log {
+        void deliver(Iv2InitiateTaskMessage msg);
+    }
+
+    /** The storage RepairLog used before the ring buffer, one Item per logged message */
+    static class DequeLog implements Log {
+        final Deque<RepairLog.Item> m_log = new ArrayDeque<RepairLog.Item>();
+
+        @Override
+        public void deliver(Iv2InitiateTaskMessage msg) {
+            final long truncationHandle = msg.getTruncationHandle();
+            RepairLog.Item item;
+            while ((item = m_log.peek()) != null && item.getHandle() <= truncationHandle) {
+                m_log.poll();
+            }
+            m_log.add(new RepairLog.Item(true, msg, msg.getSpHandle(), msg.getTxnId()));
+        }
+    }
+
+    static class RingLog implements Log {
+        final RepairLog m_log = new RepairLog();
+
+        @Override
+        public void deliver(Iv2InitiateTaskMessage msg) {
+            m_log.deliver(msg);
+        }
+    }
+
+    static final com.sun.management.ThreadMXBean s_threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    static Iv2InitiateTaskMessage[] makeMessages(int count) {
+        StoredProcedureInvocation spi = new StoredProcedureInvocation();
+        spi.setProcName("Insert");
+        spi.setParams(1L, "value");
+        Iv2InitiateTaskMessage[] msgs = new Iv2InitiateTaskMessage[count];
+        for (int i = 0; i < count; i++) {
+            msgs[i] = new Iv2InitiateTaskMessage(0L, 0L, Long.MIN_VALUE, i, i,
+                    false, true, spi, 0L, 0L, false);
+        }
+        return msgs;
+    }
+
+    static void run(String name, Log log, Iv2InitiateTaskMessage[] pool, long messages, int window) {
+        final long threadId = Thread.currentThread().getId();
+        final long startBytes = s_threadBean.getThreadAllocatedBytes(threadId);
+        final long start = System.nanoTime();
+        for (long handle = 1; handle <= messages; handle++) {
+            // Messages are recycled once they must have been truncated
+            Iv2InitiateTaskMessage msg = pool[(int) (handle % pool.length)];
+            msg.setSpHandle(handle);
+            msg.setTxnId(handle);
+            msg.setTruncationHandle(handle - window);
+            log.deliver(msg);
+        }
+        final long elapsed = System.nanoTime() - start;
+        final long bytes = s_threadBean.getThreadAllocatedBytes(threadId) - startBytes;
+        System.out.printf("%-28s %10.0f msgs/sec %8.1f ns/msg %8.2f bytes allocated/msg%n",
+                name, messages * 1e9 / elapsed, (double) elapsed / messages, (double) bytes / messages);
+    }
+
+    public static void main(String[] args) {
+        final long messages = args.length > 0 ? Long.parseLong(args[0]) : 20_000_000L;
+        final int window = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        final Iv2InitiateTaskMessage[] pool = makeMessages(window + 1);
+        s_threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        for (int round = 0; round < 3; round++) {
+            System.out.println("Round " + round + ", " + messages + " messages, window " + window);
+            run("ArrayDeque<Item> (previous)", new DequeLog(), pool, messages, window);
+            run("RepairLog ring buffer", new RingLog(), pool, messages, window);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb.iv2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.voltdb.iv2.MpRoSitePool.PoolSizer;
+
+public class TestMpRoSitePool {
+
+    private static final long MS = 1000 * 1000;
+
+    @Test
+    public void testGrowsWithBacklogUpToMax() {
+        PoolSizer sizer = new PoolSizer(2, 10, 1000 * MS);
+        assertEquals(2, sizer.target());
+        assertFalse(sizer.grow(2, 0, 0));
+        assertTrue(sizer.grow(2, 3, 0));
+        assertEquals(5, sizer.target());
+        // Already enough room for the queued reads
+        assertFalse(sizer.grow(4, 1, 0));
+        assertTrue(sizer.grow(5, 100, 0));
+        assertEquals(10, sizer.target());
+        assertFalse(sizer.grow(10, 100, 0));
+    }
+
+    @Test
+    public void testContentionSlowsGrowth() {
+        PoolSizer sizer = new PoolSizer(1, 50, 1000 * MS);
+        sizer.recordLatency(10 * MS);
+        assertTrue(sizer.grow(1, 4, 0));
+        assertEquals(5, sizer.target());
+
+        // Reads got much slower after growing, only one more site once enough time passed
+        for (int i = 0; i < 100; i++) {
+            sizer.recordLatency(50 * MS);
+        }
+        long avg = sizer.avgLatencyNanos();
+        assertFalse(sizer.grow(5, 10, avg));
+        assertTrue(sizer.grow(5, 10, (PoolSizer.CONTENDED_GROWTH_LATENCIES + 1) * avg));
+        assertEquals(6, sizer.target());
+
+        // Shrinking forgets the contention
+        sizer.shrunk(3);
+        assertEquals(3, sizer.target());
+        assertTrue(sizer.grow(3, 10, (PoolSizer.CONTENDED_GROWTH_LATENCIES + 2) * avg));
+        assertEquals(13, sizer.target());
+    }
+
+    @Test
+    public void testBounds() {
+        PoolSizer sizer = new PoolSizer(0, 0, 1000 * MS);
+        assertEquals(1, sizer.m_minSize);
+        assertEquals(1, sizer.m_maxSize);
+        assertFalse(sizer.grow(1, 5, 0));
+
+        sizer = new PoolSizer(4, 8, 1000 * MS);
+        sizer.grow(4, 4, 0);
+        sizer.shrunk(1);
+        assertEquals(4, sizer.target());
+        assertFalse(sizer.isIdleTooLong(0, 1000 * MS));
+        assertTrue(sizer.isIdleTooLong(0, 1000 * MS + 1));
+    }
+}
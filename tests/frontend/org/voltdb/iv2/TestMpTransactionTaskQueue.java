@@ -150,4 +150,25 @@ public class TestMpTransactionTaskQueue extends TestCase
         verify(m_MPpool).doWork(eq(readtxnid), any(TransactionTask.class));
         verify(m_MPpool).doWork(eq(readtxnid2), any(TransactionTask.class));
     }
+
+    // A full pool is asked to grow with the number of reads waiting for it
+    @Test
+    public void testFullPoolGrowsForBacklog()
+    {
+        when(m_MPpool.canAcceptWork()).thenReturn(false);
+        when(m_MPpool.getMaxSize()).thenReturn(20);
+        TxnEgo txnId = TxnEgo.makeZero(MpInitiator.MP_INIT_PID);
+        txnId = txnId.makeNext();
+        long firstRead = txnId.getTxnId();
+        m_dut.offer(makeTransactionTask(firstRead, true));
+        verify(m_MPpool).growForBacklog(1);
+        verify(m_MPpool, never()).doWork(anyLong(), any(TransactionTask.class));
+
+        txnId = txnId.makeNext();
+        long secondRead = txnId.getTxnId();
+        when(m_MPpool.growForBacklog(2)).thenReturn(true);
+        m_dut.offer(makeTransactionTask(secondRead, true));
+        verify(m_MPpool).doWork(eq(firstRead), any(TransactionTask.class));
+        verify(m_MPpool, never()).doWork(eq(secondRead), any(TransactionTask.class));
+    }
 }
@@ -160,6 +160,34 @@ public class TestRepairLog
 
     }
 
+    @Test
+    public void testWrapAndGrow()
+    {
+        RepairLog rl = new RepairLog();
+        // Keep a window of 100 handles so the log wraps around several times
+        long handle = 1;
+        for (; handle <= 1000; handle++) {
+            rl.deliver(truncInitMsg(handle - 100, handle));
+        }
+        // Stop truncating so the log has to grow while it is wrapped
+        final long truncPt = handle - 100;
+        for (; handle <= 1600; handle++) {
+            rl.deliver(truncInitMsg(truncPt, handle));
+        }
+        List<Iv2RepairLogResponseMessage> contents = rl.contents(1L, false);
+        assertEquals(1600 - truncPt + 1, contents.size());
+        long expected = truncPt + 1;
+        for (int i = 1; i < contents.size(); i++) {
+            assertEquals(expected++, contents.get(i).getHandle());
+        }
+
+        // Truncate everything but the last one
+        rl.deliver(truncMsg(1599));
+        contents = rl.contents(1L, false);
+        assertEquals(2, contents.size());
+        assertEquals(1600L, contents.get(1).getHandle());
+    }
+
     @Test
     public void testOfferUneededMessage()
     {
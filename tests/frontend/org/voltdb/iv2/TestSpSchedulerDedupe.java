@@ -44,6 +44,7 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.voltcore.messaging.HostMessenger;
 import org.voltcore.messaging.Mailbox;
 import org.voltcore.messaging.VoltMessage;
 import org.voltcore.utils.CoreUtils;
@@ -71,6 +72,7 @@ public class TestSpSchedulerDedupe
     SnapshotCompletionMonitor snapMonitor;
     MapCache iv2masters;
     ProcedureRunner runner;
+    SiteTaskerQueue queue;
     Scheduler dut;
     private static MockVoltDB s_mockVoltDB = new MockVoltDB();
 
@@ -111,7 +113,8 @@ public class TestSpSchedulerDedupe
                                                           any(CommandLog.DurabilityListener.class),
                                                           any(TransactionTask.class));
 
-        dut = new SpScheduler(0, getSiteTaskerQueue(), snapMonitor, true);
+        queue = getSiteTaskerQueue();
+        dut = new SpScheduler(0, queue, snapMonitor, true);
         dut.setMailbox(mbox);
         dut.setCommandLog(cl);
         dut.setLock(mbox);
@@ -293,4 +296,33 @@ public class TestSpSchedulerDedupe
         dut.deliver(replresp);
         verify(mbox, times(1)).send(eq(primary_hsid), eq(resp));
     }
+
+    @Test
+    public void testHeldResponseNotDelayedBySlowTask() throws Exception
+    {
+        long txnid = TxnEgo.makeZero(0).getTxnId();
+        long ci_hsid = CoreUtils.getHSIdFromHostAndSite(0, HostMessenger.CLIENT_INTERFACE_SITE_ID);
+
+        createObjs();
+        Iv2InitiateTaskMessage sptask = createMsg(txnid, false, true, ci_hsid);
+        // a user procedure followed by a task that may run for a long time, like snapshot work
+        SiteTasker spProc = new SpProcedureTask(mbox, MockSPName, mock(TransactionTaskQueue.class), sptask);
+        SiteTasker slowTask = mock(SiteTasker.class);
+        queue.offer(spProc);
+        queue.offer(slowTask);
+        SiteTasker[] batch = new SiteTasker[SiteTaskerQueue.MAX_BATCH_SIZE];
+        assertEquals(2, queue.takeBatch(batch));
+
+        // the response of the procedure is held while the batch runs
+        queue.startTask(batch[0]);
+        InitiateResponseMessage resp = new InitiateResponseMessage(sptask);
+        dut.deliver(resp);
+        verify(mbox, times(0)).send(eq(ci_hsid), (VoltMessage)anyObject());
+
+        // but it is sent before the slow task starts, not when the batch finishes
+        queue.startTask(batch[1]);
+        verify(mbox, times(1)).send(eq(ci_hsid), eq(resp));
+        queue.finishBatch();
+        verify(mbox, times(1)).send(eq(ci_hsid), (VoltMessage)anyObject());
+    }
 }
@@ -183,6 +183,42 @@ public class TestVoltMessageSerialization extends TestCase {
         assertEquals(ClientResponse.TXN_RESTART, iresponse2.getClientResponseData().getStatus());
     }
 
+    public void testInitiateResponseBatch() throws IOException {
+        StoredProcedureInvocation spi = new StoredProcedureInvocation();
+        spi.setClientHandle(25);
+        spi.setProcName("elmerfudd");
+        spi.setParams(57, "wrascallywabbit");
+
+        VoltTable table = new VoltTable(
+                new VoltTable.ColumnInfo("foobar", VoltType.STRING)
+        );
+        table.addRow("howmanylicksdoesittaketogettothecenterofatootsiepop");
+
+        InitiateResponseMessage[] responses = new InitiateResponseMessage[3];
+        for (int i = 0; i < responses.length; i++) {
+            Iv2InitiateTaskMessage itask = new Iv2InitiateTaskMessage(23, 8, 10L, 100045 + i, 99 + i, false, true, spi, 2101 + i, 3101, false);
+            responses[i] = new InitiateResponseMessage(itask);
+            responses[i].setResults(new ClientResponseImpl(ClientResponse.SUCCESS,
+                    new VoltTable[] { table }, null));
+        }
+        // A mispartitioned response consumes the rest of its buffer when deserialized
+        responses[1].setMispartitioned(true, spi, Pair.of(3l, new byte[] {1, 2, 3}));
+
+        InitiateResponseBatchMessage batch = new InitiateResponseBatchMessage(responses);
+        batch.m_sourceHSId = 42;
+        InitiateResponseBatchMessage batch2 = (InitiateResponseBatchMessage) checkVoltMessage(batch);
+
+        assertEquals(responses.length, batch2.getResponses().length);
+        for (int i = 0; i < responses.length; i++) {
+            InitiateResponseMessage response2 = batch2.getResponses()[i];
+            assertEquals(responses[i].getTxnId(), response2.getTxnId());
+            assertEquals(responses[i].getClientInterfaceHandle(), response2.getClientInterfaceHandle());
+            assertEquals(responses[i].isMispartitioned(), response2.isMispartitioned());
+        }
+        assertNotNull(batch2.getResponses()[1].getInvocation());
+        assertEquals(ClientResponse.SUCCESS, batch2.getResponses()[2].getClientResponseData().getStatus());
+    }
+
     public void testFragmentTask() throws IOException {
         FragmentTaskMessage ft = new FragmentTaskMessage(9, 70654312, -75, 99, true, true, false, false, TransactionInfoBaseMessage.INITIAL_TIMESTAMP);
         ft.addFragment(new byte[20], 12, ByteBuffer.allocate(0));
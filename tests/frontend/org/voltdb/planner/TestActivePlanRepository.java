@@ -0,0 +1,144 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb.planner;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.voltdb.jni.ExecutionEngine;
+
+import junit.framework.TestCase;
+
+public class TestActivePlanRepository extends TestCase {
+
+    private static final int CACHE_SIZE = ExecutionEngine.EE_PLAN_CACHE_SIZE;
+
+    private static byte[] hash(int i) {
+        return ByteBuffer.allocate(20).putInt(i).array();
+    }
+
+    private static byte[] plan(int i) {
+        return ("plan" + i).getBytes();
+    }
+
+    @Override
+    public void setUp() {
+        ActivePlanRepository.clear();
+    }
+
+    @Override
+    public void tearDown() {
+        ActivePlanRepository.clear();
+    }
+
+    public void testLoadAndAddRef() {
+        long id = ActivePlanRepository.loadOrAddRefPlanFragment(hash(1), plan(1), null);
+        assertEquals(id, ActivePlanRepository.loadOrAddRefPlanFragment(hash(1), plan(1), "select 1"));
+        assertEquals(id, ActivePlanRepository.getFragmentIdForPlanHash(hash(1)));
+        assertEquals("select 1", ActivePlanRepository.getStmtTextForPlanHash(hash(1)));
+        assertEquals("plan1", new String(ActivePlanRepository.planForFragmentId(id)));
+        assertFalse(id == ActivePlanRepository.loadOrAddRefPlanFragment(hash(2), plan(2), null));
+
+        assertEquals(2, ActivePlanRepository.getFragmentCount());
+        assertEquals(2, ActivePlanRepository.getLoadCount());
+        assertEquals(1, ActivePlanRepository.getHitCount());
+        assertEquals(0, ActivePlanRepository.getEvictionCount());
+    }
+
+    public void testEvictsLeastRecentlyUnused() {
+        long[] ids = new long[CACHE_SIZE];
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            ids[i] = ActivePlanRepository.loadOrAddRefPlanFragment(hash(i), plan(i), null);
+        }
+        // Disuse in order, then reuse the first one so that the second becomes the oldest
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            ActivePlanRepository.decrefPlanFragmentById(ids[i]);
+        }
+        assertEquals(ids[0], ActivePlanRepository.loadOrAddRefPlanFragment(hash(0), plan(0), null));
+        ActivePlanRepository.decrefPlanFragmentById(ids[0]);
+
+        ActivePlanRepository.loadOrAddRefPlanFragment(hash(CACHE_SIZE), plan(CACHE_SIZE), null);
+        assertEquals(CACHE_SIZE, ActivePlanRepository.getFragmentCount());
+        assertEquals(1, ActivePlanRepository.getEvictionCount());
+        assertEquals(ids[0], ActivePlanRepository.getFragmentIdForPlanHash(hash(0)));
+        // The evicted fragment gets a new id when it is loaded again
+        long reloaded = ActivePlanRepository.loadOrAddRefPlanFragment(hash(1), plan(1), null);
+        assertFalse(ids[1] == reloaded);
+        assertEquals(2, ActivePlanRepository.getEvictionCount());
+    }
+
+    public void testReferencedFragmentsAreNotEvicted() {
+        for (int i = 0; i < CACHE_SIZE + 10; i++) {
+            ActivePlanRepository.loadOrAddRefPlanFragment(hash(i), plan(i), null);
+        }
+        // Everything is referenced, the cache grows past its limit
+        assertEquals(CACHE_SIZE + 10, ActivePlanRepository.getFragmentCount());
+        assertEquals(0, ActivePlanRepository.getEvictionCount());
+
+        for (int i = 0; i < CACHE_SIZE + 10; i++) {
+            ActivePlanRepository.decrefPlanFragmentById(ActivePlanRepository.getFragmentIdForPlanHash(hash(i)));
+        }
+        // The next load takes the cache back to its limit
+        ActivePlanRepository.loadOrAddRefPlanFragment(hash(-1), plan(-1), null);
+        assertEquals(CACHE_SIZE, ActivePlanRepository.getFragmentCount());
+        assertEquals(11, ActivePlanRepository.getEvictionCount());
+    }
+
+    public void testConcurrentLoadAndDecref() throws Exception {
+        final int threads = 8;
+        final int distinctPlans = CACHE_SIZE * 2;
+        ExecutorService es = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(es.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 20000; i++) {
+                        int p = random.nextInt(distinctPlans);
+                        long id = ActivePlanRepository.loadOrAddRefPlanFragment(hash(p), plan(p), null);
+                        // A referenced fragment must stay resolvable
+                        assertEquals("plan" + p, new String(ActivePlanRepository.planForFragmentId(id)));
+                        ActivePlanRepository.decrefPlanFragmentById(id);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        }
+        finally {
+            es.shutdown();
+        }
+        assertEquals(8 * 20000, ActivePlanRepository.getLoadCount() + ActivePlanRepository.getHitCount());
+        assertTrue(ActivePlanRepository.getEvictionCount() > 0);
+        // Nothing is referenced any more, one more load must bring the cache back to its limit
+        ActivePlanRepository.loadOrAddRefPlanFragment(hash(-1), plan(-1), null);
+        assertEquals(CACHE_SIZE, ActivePlanRepository.getFragmentCount());
+    }
+}
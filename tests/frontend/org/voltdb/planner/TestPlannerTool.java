@@ -27,13 +27,25 @@ import static org.mockito.Mockito.mock;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.voltcore.messaging.HostMessenger;
 import org.voltdb.CatalogContext;
+import org.voltdb.VoltType;
 import org.voltdb.benchmark.tpcc.TPCCProjectBuilder;
 import org.voltdb.catalog.Catalog;
+import org.voltdb.common.Constants;
+import org.voltdb.compiler.AdHocCompilerCache;
 import org.voltdb.compiler.AdHocPlannedStatement;
 import org.voltdb.compiler.PlannerTool;
+import org.voltdb.compiler.TableCardinalities;
 import org.voltdb.compiler.VoltProjectBuilder;
 import org.voltdb.settings.ClusterSettings;
 import org.voltdb.settings.DbSettings;
@@ -139,6 +151,41 @@ public class TestPlannerTool extends TestCase {
         System.out.println(result);
     }
 
+    public void testPrepareSql() throws IOException {
+        TPCCProjectBuilder builder = new TPCCProjectBuilder();
+        builder.addAllDefaults();
+        final File jar = new File("tpcc-prepare-oop.jar");
+        jar.deleteOnExit();
+        builder.compile("tpcc-prepare-oop.jar");
+
+        byte[] bytes = MiscUtils.fileToBytes(jar);
+        String serializedCatalog = CatalogUtil.getSerializedCatalogStringFromJar(CatalogUtil.loadAndUpgradeCatalogFromJar(bytes, false).getFirst());
+        Catalog catalog = new Catalog();
+        catalog.execute(serializedCatalog);
+        DbSettings settings = new DbSettings(ClusterSettings.create().asSupplier(), NodeSettings.create());
+        CatalogContext context = new CatalogContext(catalog, settings, 0, 0, bytes, null, new byte[] {}, mock(HostMessenger.class));
+
+        m_pt = new PlannerTool(context.database, context.getCatalogHash());
+
+        // Question marks become the parameters of the prepared plan, typed by their columns
+        AdHocPlannedStatement result = m_pt.prepareSql("select * from warehouse where w_id = ? and w_name = ?;");
+        assertFalse(result.hasExtractedParams());
+        assertTrue(Arrays.equals(new VoltType[] { VoltType.SMALLINT, VoltType.STRING }, result.core.parameterTypes));
+        assertEquals(0, result.getPartitioningParameterIndex());
+
+        // Constants are left in a plan that has question marks
+        result = m_pt.prepareSql("select * from warehouse where w_id = ? and w_tax > 0.5;");
+        assertFalse(result.hasExtractedParams());
+        assertTrue(Arrays.equals(new VoltType[] { VoltType.SMALLINT }, result.core.parameterTypes));
+
+        // Without question marks the constants are extracted and bound to the plan
+        result = m_pt.prepareSql("select * from warehouse where w_id = 5;");
+        assertTrue(result.hasExtractedParams());
+        assertTrue(Arrays.equals(new VoltType[] { VoltType.INTEGER }, result.core.parameterTypes));
+        assertEquals(1, result.extractedParamArray().length);
+        assertEquals(5, ((Number) result.extractedParamArray()[0]).intValue());
+    }
+
     public void testBadDDL() throws IOException
     {
         // semicolons in in-lined comments are bad
@@ -171,4 +218,146 @@ public class TestPlannerTool extends TestCase {
         // would return a Stream Closed error
         m_pt.planSqlForTest("select * from A;");
     }
+
+    public void testConcurrentPlanning() throws Exception {
+        TPCCProjectBuilder builder = new TPCCProjectBuilder();
+        builder.addAllDefaults();
+        final File jar = new File("tpcc-concurrent-oop.jar");
+        jar.deleteOnExit();
+        builder.compile("tpcc-concurrent-oop.jar");
+
+        byte[] bytes = MiscUtils.fileToBytes(jar);
+        String serializedCatalog = CatalogUtil.getSerializedCatalogStringFromJar(CatalogUtil.loadAndUpgradeCatalogFromJar(bytes, false).getFirst());
+        Catalog catalog = new Catalog();
+        catalog.execute(serializedCatalog);
+        DbSettings settings = new DbSettings(ClusterSettings.create().asSupplier(), NodeSettings.create());
+        CatalogContext context = new CatalogContext(catalog, settings, 0, 0, bytes, null, new byte[] {}, mock(HostMessenger.class));
+
+        // Statements with subqueries, unions and parameters exercise the
+        // statement, plan node and parameter counters of the planner
+        final String[] queries = new String[] {
+                "select * from district where d_w_id = 1 and d_id = 2;",
+                "select c_id, c_last from customer where c_w_id = ? and c_d_id = ? order by c_last;",
+                "select * from district where d_w_id = 1 and d_next_o_id in " +
+                        "(select o_id from orders where o_w_id = 1 and o_c_id > ?);",
+                "select o_id from orders where o_w_id = 1 union select no_o_id from new_order where no_w_id = 1;",
+                "select count(*) from order_line where ol_w_id = 1 and ol_i_id in " +
+                        "(select s_i_id from stock where s_w_id = 1 and s_quantity < ?);",
+                "select d_id, (select max(o_id) from orders where o_d_id = d_id and o_w_id = d_w_id) " +
+                        "from district where d_w_id = 1;",
+                "update stock set s_quantity = ? where s_i_id = ? and s_w_id = ?;",
+        };
+
+        // Reference plans from a single session
+        PlannerTool serial = new PlannerTool(context.database, context.getCatalogHash(), 1);
+        final String[] expected = new String[queries.length];
+        for (int i = 0; i < queries.length; i++) {
+            expected[i] = planJSON(serial, queries[i]);
+        }
+
+        final int poolSize = 4;
+        final PlannerTool pooled = new PlannerTool(context.database, context.getCatalogHash(), poolSize);
+        ExecutorService es = Executors.newFixedThreadPool(poolSize * 2);
+        try {
+            Future<?>[] futures = new Future<?>[poolSize * 2];
+            for (int t = 0; t < futures.length; t++) {
+                futures[t] = es.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (int n = 0; n < 50; n++) {
+                            int i = ThreadLocalRandom.current().nextInt(queries.length);
+                            assertEquals(queries[i], expected[i], planJSON(pooled, queries[i]));
+                        }
+                        return null;
+                    }
+                });
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        }
+        finally {
+            es.shutdownNow();
+        }
+        assertTrue(pooled.getSessionCount() <= poolSize);
+    }
+
+    public void testPreloadPlanCache() throws IOException {
+        TPCCProjectBuilder builder = new TPCCProjectBuilder();
+        builder.addAllDefaults();
+        final File jar = new File("tpcc-preload-oop.jar");
+        jar.deleteOnExit();
+        builder.compile("tpcc-preload-oop.jar");
+
+        byte[] bytes = MiscUtils.fileToBytes(jar);
+        String serializedCatalog = CatalogUtil.getSerializedCatalogStringFromJar(CatalogUtil.loadAndUpgradeCatalogFromJar(bytes, false).getFirst());
+        Catalog catalog = new Catalog();
+        catalog.execute(serializedCatalog);
+        DbSettings settings = new DbSettings(ClusterSettings.create().asSupplier(), NodeSettings.create());
+        CatalogContext context = new CatalogContext(catalog, settings, 0, 0, bytes, null, new byte[] {}, mock(HostMessenger.class));
+
+        final String[] queries = new String[] {
+                "select * from warehouse where w_id = 5;",
+                "select * from district where d_w_id = 1 and d_id = 2;",
+                "select c_id, c_last from customer where c_w_id = 3 and c_d_id = 2 order by c_last;",
+                "select count(*) from stock where s_quantity < 10;",
+        };
+        PlannerTool before = new PlannerTool(context.database, context.getCatalogHash());
+        AdHocPlannedStatement[] expected = new AdHocPlannedStatement[queries.length];
+        for (int i = 0; i < queries.length; i++) {
+            expected[i] = before.planSqlForTest(queries[i]);
+        }
+        File file = File.createTempFile("plancache", ".bin");
+        file.deleteOnExit();
+        assertTrue(before.savePlanCache(file) > 0);
+        // Nothing planned since
+        assertEquals(-1, before.savePlanCache(file));
+
+        // Like a restart, the new planner doesn't share the cache
+        AdHocCompilerCache.clearHashCache();
+        PlannerTool after = new PlannerTool(context.database, context.getCatalogHash());
+        assertTrue(after.preloadPlanCache(file) > 0);
+        AdHocCompilerCache cache = AdHocCompilerCache.getCacheForCatalogHash(context.getCatalogHash());
+        long hits = cache.getLiteralCacheStats().hitCount();
+        for (int i = 0; i < queries.length; i++) {
+            AdHocPlannedStatement plan = after.planSqlForTest(queries[i]);
+            assertEquals(queries[i], expected[i], plan);
+            assertEquals(expected[i].getPartitioningParameterIndex(), plan.getPartitioningParameterIndex());
+            assertEquals(expected[i].getPartitioningParameterValue(), plan.getPartitioningParameterValue());
+        }
+        assertEquals(queries.length, cache.getLiteralCacheStats().hitCount() - hits);
+
+        // Other constants reuse the preloaded parameterized plan
+        hits = cache.getCoreCacheStats().hitCount();
+        AdHocPlannedStatement plan = after.planSqlForTest("select * from warehouse where w_id = 7;");
+        assertEquals(expected[0].core, plan.core);
+        assertEquals(7, ((Number) plan.getPartitioningParameterValue()).intValue());
+        assertEquals(1, cache.getCoreCacheStats().hitCount() - hits);
+
+        // The first row counts reported after the restart don't drop the preloaded plans
+        TableCardinalities stats = TableCardinalities.instance();
+        long generation = stats.snapshot().getGeneration();
+        stats.update(0, Collections.singletonMap("WAREHOUSE", 1_000_000_000L),
+                Collections.<String, Map<String, Long>>emptyMap());
+        try {
+            assertTrue(stats.snapshot().getGeneration() > generation);
+            hits = cache.getLiteralCacheStats().hitCount();
+            after.planSqlForTest(queries[1]);
+            assertEquals(1, cache.getLiteralCacheStats().hitCount() - hits);
+        }
+        finally {
+            stats.clear();
+        }
+    }
+
+    // The JSON includes the plan node ids, so it also catches ids leaking between planners
+    private static String planJSON(PlannerTool pt, String sql) {
+        CompiledPlan plan = pt.planSqlCore(sql, StatementPartitioning.forceSP());
+        CorePlan core = new CorePlan(plan, new byte[20]);
+        String json = new String(core.aggregatorFragment, Constants.UTF8ENCODING);
+        if (core.collectorFragment != null) {
+            json += new String(core.collectorFragment, Constants.UTF8ENCODING);
+        }
+        return json;
+    }
 }
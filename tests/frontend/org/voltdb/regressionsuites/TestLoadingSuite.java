@@ -110,6 +110,83 @@ public class TestLoadingSuite extends RegressionSuite {
         }
     }
 
+    public void testSinglePartitionBulkLoad() throws Exception {
+        // The per-row insert path used by HSQL doesn't check partitioning
+        if (isHSQL()) {
+            System.out.println("Skip testSinglePartitionBulkLoad for HSQL");
+            return;
+        }
+
+        Client client = getClient();
+        VoltTable table; ClientResponse r;
+
+        // a large batch for one partition is loaded in one go
+        table = m_template.clone(1024 * 64);
+        for (int i = 0; i < 500; i++) {
+            table.addRow(i, 1, 1, "row " + i, i * 1.5);
+        }
+        r = client.callProcedure("@LoadSinglepartitionTable", VoltType.valueToBytes(1),
+                "PARTITIONED", upsertMode, table);
+        assertEquals(ClientResponse.SUCCESS, r.getStatus());
+        assertEquals(500, r.getResults()[0].asScalarLong());
+        assertEquals(500, countPartitionedRows(client));
+
+        // rows of other partitions are refused and nothing is loaded
+        table = m_template.clone(1024);
+        for (int i = 0; i < 20; i++) {
+            table.addRow(1000 + i, i, 1, "mixed", 1.0);
+        }
+        try {
+            client.callProcedure("@LoadSinglepartitionTable", VoltType.valueToBytes(1),
+                    "PARTITIONED", upsertMode, table);
+            fail(); // prev stmt should throw exception
+        } catch (ProcCallException e) {
+            assertTrue(e.getMessage().contains("Mispartitioned"));
+        }
+        assertEquals(500, countPartitionedRows(client));
+
+        // a constraint violation in a bulk load rolls back the whole batch
+        table = m_template.clone(1024);
+        table.addRow(2000, 1, 1, "new", 1.0);
+        table.addRow(0, 1, 1, "dup", 1.0);
+        try {
+            client.callProcedure("@LoadSinglepartitionTable", VoltType.valueToBytes(1),
+                    "PARTITIONED", upsertMode, table);
+            fail(); // prev stmt should throw exception
+        } catch (ProcCallException e) {
+        }
+        assertEquals(500, countPartitionedRows(client));
+    }
+
+    public void testSinglePartitionLoadWithRowLimit() throws Exception {
+        // HSQL doesn't enforce row limits
+        if (isHSQL()) {
+            System.out.println("Skip testSinglePartitionLoadWithRowLimit for HSQL");
+            return;
+        }
+
+        Client client = getClient();
+
+        // a batch larger than the row limit makes room through the row limit delete
+        VoltTable table = m_template.clone(1024 * 4);
+        for (int i = 0; i < 25; i++) {
+            table.addRow(i, 1, 1, "row " + i, 1.0);
+        }
+        ClientResponse r = client.callProcedure("@LoadSinglepartitionTable", VoltType.valueToBytes(1),
+                "LIMITED", upsertMode, table);
+        assertEquals(ClientResponse.SUCCESS, r.getStatus());
+        assertEquals(25, r.getResults()[0].asScalarLong());
+
+        r = client.callProcedure("@AdHoc", "select count(*) from LIMITED");
+        assertEquals(ClientResponse.SUCCESS, r.getStatus());
+        long count = r.getResults()[0].asScalarLong();
+        assertTrue("LIMITED has " + count + " rows", count > 0 && count <= 10);
+
+        // the last row loaded is always kept
+        r = client.callProcedure("@AdHoc", "select count(*) from LIMITED where ival = 24");
+        assertEquals(1, r.getResults()[0].asScalarLong());
+    }
+
     public void testMultiPartitionLoad() throws Exception {
         // MockExecutionEngine does not implement loadTable
         if (isHSQL()) {
@@ -214,12 +291,22 @@ public class TestLoadingSuite extends RegressionSuite {
                         "  sval VARCHAR(60) DEFAULT '0' NOT NULL,\n" +
                         "  dval FLOAT DEFAULT '0' NOT NULL,\n" +
                         "  PRIMARY KEY (ival,pval)\n" +
+                        ");\n" +
+                        "CREATE TABLE LIMITED (\n" +
+                        "  ival INTEGER DEFAULT '0' NOT NULL,\n" +
+                        "  pval INTEGER DEFAULT '0' NOT NULL,\n" +
+                        "  bval TINYINT DEFAULT '0' NOT NULL,\n" +
+                        "  sval VARCHAR(60) DEFAULT '0' NOT NULL,\n" +
+                        "  dval FLOAT DEFAULT '0' NOT NULL,\n" +
+                        "  PRIMARY KEY (ival,pval),\n" +
+                        "  LIMIT PARTITION ROWS 10 EXECUTE (DELETE FROM LIMITED WHERE ival < 24)\n" +
                         ");\n";
 
         // build up a project builder for the workload
         VoltProjectBuilder project = new VoltProjectBuilder();
         project.addLiteralSchema(schema);
         project.addPartitionInfo("PARTITIONED", "pval");
+        project.addPartitionInfo("LIMITED", "pval");
         project.addStmtProcedure("dummy", "select * from REPLICATED;");
         boolean success;
 
@@ -48,7 +48,7 @@ public class TestStatisticsSuitePlannerStats extends StatisticsTestSuiteBase {
         System.out.println("\n\nTESTING PLANNER STATS\n\n\n");
         Client client  = getClient();
 
-        ColumnInfo[] expectedSchema = new ColumnInfo[14];
+        ColumnInfo[] expectedSchema = new ColumnInfo[20];
         expectedSchema[0] = new ColumnInfo("TIMESTAMP", VoltType.BIGINT);
         expectedSchema[1] = new ColumnInfo("HOST_ID", VoltType.INTEGER);
         expectedSchema[2] = new ColumnInfo("HOSTNAME", VoltType.STRING);
@@ -63,6 +63,12 @@ public class TestStatisticsSuitePlannerStats extends StatisticsTestSuiteBase {
         expectedSchema[11] = new ColumnInfo("PLAN_TIME_MAX", VoltType.BIGINT);
         expectedSchema[12] = new ColumnInfo("PLAN_TIME_AVG", VoltType.BIGINT);
         expectedSchema[13] = new ColumnInfo("FAILURES", VoltType.BIGINT);
+        expectedSchema[14] = new ColumnInfo("CACHE1_EVICTIONS", VoltType.BIGINT);
+        expectedSchema[15] = new ColumnInfo("CACHE2_EVICTIONS", VoltType.BIGINT);
+        expectedSchema[16] = new ColumnInfo("FRAGMENT_LEVEL", VoltType.INTEGER);
+        expectedSchema[17] = new ColumnInfo("FRAGMENT_LOADS", VoltType.BIGINT);
+        expectedSchema[18] = new ColumnInfo("FRAGMENT_HITS", VoltType.BIGINT);
+        expectedSchema[19] = new ColumnInfo("FRAGMENT_EVICTIONS", VoltType.BIGINT);
         VoltTable expectedTable = new VoltTable(expectedSchema);
 
         VoltTable[] results = null;
@@ -31,6 +31,7 @@ import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -251,6 +252,47 @@ public class TestStreamSnapshotDataTarget {
         closeStream(dut2);
     }
 
+    @Test
+    public void testMultipleSenderThreads() throws IOException, InterruptedException, ExecutionException
+    {
+        StreamSnapshotDataTarget.SnapshotSender sender =
+                new StreamSnapshotDataTarget.SnapshotSender(m_mb, new StreamSnapshotBase.DefaultMessageFactory(), 4);
+        new Thread(sender, "test multi sender").start();
+        StreamSnapshotDataTarget dut = new StreamSnapshotDataTarget(1000, true, new HashSet<Long>(Arrays.asList(1000l)),
+                null, m_schemas, sender, m_ack);
+
+        final int blocks = 20;
+        for (int i = 0; i < blocks; i++) {
+            dut.write(makeTuples(), 0);
+        }
+
+        // The schema must be the first block on the wire, data blocks can come in any order
+        Set<Integer> dataBlocks = new HashSet<Integer>();
+        for (int i = 0; i <= blocks; i++) {
+            while (m_mb.noSentMessages()) {
+                Thread.yield();
+            }
+            RejoinDataMessage msg = (RejoinDataMessage) m_mb.pollMessage();
+            ByteBuffer data = ByteBuffer.wrap(CompressionService.decompressBytes(msg.getData()));
+            if (i == 0) {
+                verifyData(msg, dut.m_targetId, StreamSnapshotMessageType.SCHEMA, 0, 0);
+            } else {
+                assertEquals(StreamSnapshotMessageType.DATA.ordinal(), data.get(StreamSnapshotBase.typeOffset));
+                dataBlocks.add(data.getInt(StreamSnapshotBase.blockIndexOffset));
+            }
+        }
+        assertEquals(blocks, dataBlocks.size());
+
+        for (int i = 0; i <= blocks; i++) {
+            ack(false, dut.m_targetId, i);
+        }
+        while (dut.m_outstandingWorkCount.get() != 0) {
+            Thread.yield();
+        }
+
+        closeStream(dut);
+    }
+
     @Test
     public void testSendHashinatorConfig() throws IOException, ExecutionException, InterruptedException
     {
@@ -0,0 +1,233 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Test;
+import org.supercsv.io.ICsvListReader;
+import org.voltdb.VoltType;
+import org.voltdb.client.ClientResponse;
+
+public class TestCSVFileChunker {
+
+    private static final String CSV =
+            "1,plain,1.5\n" +
+            "2,\"quoted, with comma\",2.5\n" +
+            "3,\"two\nlines\",3.5\n" +
+            "4,\"doubled \"\" quote\nand newline\",4.5\n" +
+            "5,escaped \\\" quote,5.5\n" +
+            "\n" +
+            "6,\"three\n\nlines\",6.5\n" +
+            "7,last,7.5";
+
+    private static CSVLoader.CSVConfig config() {
+        CSVLoader.CSVConfig cfg = new CSVLoader.CSVConfig();
+        cfg.table = "T";
+        CSVLoader.configureParsing(cfg);
+        return cfg;
+    }
+
+    private static List<List<String>> parse(String csv) throws Exception {
+        List<List<String>> rows = new ArrayList<>();
+        ICsvListReader reader = CSVLoader.newListReader(new StringReader(csv), 0, false);
+        List<String> row;
+        while ((row = reader.read()) != null) {
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @Test
+    public void testChunksEndOnRecordBoundaries() throws Exception {
+        config();
+        final List<List<String>> expected = parse(CSV);
+        assertEquals(7, expected.size());
+
+        for (int chunkSize = 1; chunkSize < CSV.length() + 2; ++chunkSize) {
+            CSVFileChunker chunker = new CSVFileChunker(
+                    new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8)), '"', '\\', chunkSize);
+            List<List<String>> rows = new ArrayList<>();
+            StringBuilder all = new StringBuilder();
+            CSVFileChunker.Chunk chunk;
+            while ((chunk = chunker.nextChunk()) != null) {
+                String text = new String(chunk.m_data, StandardCharsets.UTF_8);
+                // The offset is the number of lines before the chunk
+                assertEquals(all.length() - all.toString().replace("\n", "").length(), chunk.m_lineOffset);
+                all.append(text);
+                rows.addAll(parse(text));
+            }
+            assertEquals(CSV, all.toString());
+            assertEquals("chunk size " + chunkSize, expected, rows);
+            assertEquals(CSV.split("\n", -1).length, chunker.getLineCount());
+        }
+    }
+
+    @Test
+    public void testHeaderAndSkip() throws Exception {
+        config();
+        String csv = "ID,\"NAME\nSPLIT\",VALUE\nskipped\nskipped,\"too\"\n" + CSV;
+        CSVFileChunker chunker = new CSVFileChunker(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), '"', '\\', 64);
+        CSVFileChunker.Chunk header = chunker.nextRecord();
+        assertEquals("ID,\"NAME\nSPLIT\",VALUE\n", new String(header.m_data, StandardCharsets.UTF_8));
+        chunker.skipLines(2);
+        assertEquals(4, chunker.getLineCount());
+        CSVFileChunker.Chunk chunk = chunker.nextChunk();
+        assertEquals(4, chunk.m_lineOffset);
+        assertTrue(new String(chunk.m_data, StandardCharsets.UTF_8).startsWith("1,plain"));
+
+        chunker = new CSVFileChunker(new ByteArrayInputStream(new byte[0]), '"', '\\', 64);
+        assertNull(chunker.nextRecord());
+        assertNull(chunker.nextChunk());
+    }
+
+    private static class RecordingLoader implements CSVDataLoader {
+        final Map<Object, Object[]> m_rows = Collections.synchronizedMap(new TreeMap<Object, Object[]>());
+
+        @Override
+        public VoltType[] getColumnTypes() {
+            return new VoltType[] { VoltType.INTEGER, VoltType.STRING, VoltType.FLOAT };
+        }
+
+        @Override
+        public void insertRow(RowWithMetaData metaData, Object[] values) {
+            m_rows.put(values[0], values);
+        }
+
+        @Override
+        public void close() {}
+
+        @Override
+        public long getProcessedRows() {
+            return m_rows.size();
+        }
+
+        @Override
+        public long getFailedRows() {
+            return 0;
+        }
+
+        @Override
+        public void setFlushInterval(int delay, int seconds) {}
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void resumeLoading() {}
+
+        @Override
+        public Map<Integer, String> getColumnNames() {
+            Map<Integer, String> names = new HashMap<>();
+            names.put(0, "ID");
+            names.put(1, "NAME");
+            names.put(2, "VALUE");
+            return names;
+        }
+    }
+
+    private static class RecordingErrors implements BulkLoaderErrorHandler {
+        final Map<Long, String> m_errors = Collections.synchronizedMap(new TreeMap<Long, String>());
+
+        @Override
+        public boolean handleError(RowWithMetaData metaData, ClientResponse response, String error) {
+            m_errors.put(metaData.lineNumber, error);
+            return false;
+        }
+
+        @Override
+        public boolean hasReachedErrorLimit() {
+            return false;
+        }
+    }
+
+    @Test
+    public void testParallelReadersMatchSingleReader() throws Exception {
+        StringBuilder csv = new StringBuilder("ID,NAME,VALUE\n");
+        for (int i = 0; i < 2000; ++i) {
+            if (i % 97 == 1) {
+                csv.append(i).append(",\"multi\nline ").append(i).append("\",").append(i).append(".25\n");
+            } else if (i % 101 == 0) {
+                csv.append(i).append(",missing value\n");
+            } else {
+                csv.append(i).append(",name ").append(i).append(',').append(i).append(".5\n");
+            }
+        }
+        File file = File.createTempFile("chunker", ".csv");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(csv.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        CSVLoader.CSVConfig cfg = config();
+        cfg.file = file.getPath();
+        cfg.header = true;
+        cfg.skip = 1;
+        RecordingLoader single = new RecordingLoader();
+        RecordingErrors singleErrors = new RecordingErrors();
+        CSVFileReader.initializeReader(cfg, null, CSVLoader.newListReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8), cfg.skip, true));
+        new CSVFileReader(single, singleErrors).run();
+
+        cfg = config();
+        cfg.file = file.getPath();
+        cfg.header = true;
+        cfg.skip = 1;
+        cfg.parsers = 4;
+        RecordingLoader parallel = new RecordingLoader();
+        RecordingErrors parallelErrors = new RecordingErrors();
+        CSVFileReader.initializeReader(cfg, null, null);
+        CSVFileChunker chunker = new CSVFileChunker(new FileInputStream(file), '"', '\\', 512);
+        CSVLoader.readChunked(chunker, parallel, parallelErrors);
+
+        assertEquals(1999 - 19, single.m_rows.size());
+        assertEquals(single.m_rows.keySet(), parallel.m_rows.keySet());
+        for (Map.Entry<Object, Object[]> e : single.m_rows.entrySet()) {
+            Object[] values = parallel.m_rows.get(e.getKey());
+            assertEquals(Integer.class, values[0].getClass());
+            assertEquals(Double.class, values[2].getClass());
+            assertEquals(Arrays.asList(e.getValue()), Arrays.asList(values));
+        }
+        // Errors are reported against the same lines of the file
+        assertEquals(singleErrors.m_errors, parallelErrors.m_errors);
+        assertEquals(19, parallelErrors.m_errors.size());
+    }
+}
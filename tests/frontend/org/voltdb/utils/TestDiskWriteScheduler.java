@@ -0,0 +1,96 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package org.voltdb.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.voltdb.utils.DiskWriteScheduler.Writer;
+
+public class TestDiskWriteScheduler {
+    private static final int MB = 1024 * 1024;
+
+    @Test
+    public void testUnlimitedOnlyCounts() throws Exception {
+        DiskWriteScheduler scheduler = new DiskWriteScheduler(DiskWriteScheduler.UNLIMITED);
+        long start = System.nanoTime();
+        for (int ii = 0; ii < 100; ii++) {
+            scheduler.acquire(Writer.SNAPSHOT, 10 * MB);
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(1000L * MB, scheduler.getStats(Writer.SNAPSHOT).getBytesWritten());
+        assertEquals(0, scheduler.getStats(Writer.SNAPSHOT).getBytesThrottled());
+    }
+
+    @Test
+    public void testBackgroundIsPaced() throws Exception {
+        DiskWriteScheduler scheduler = new DiskWriteScheduler(10);
+        long start = System.nanoTime();
+        // The first write goes through on the initial burst, the next two wait 1 second each
+        for (int ii = 0; ii < 3; ii++) {
+            scheduler.acquire(Writer.SNAPSHOT, 10 * MB);
+        }
+        long elapsed = System.nanoTime() - start;
+        assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(1900));
+        assertEquals(30L * MB, scheduler.getStats(Writer.SNAPSHOT).getBytesWritten());
+        assertEquals(20L * MB, scheduler.getStats(Writer.SNAPSHOT).getBytesThrottled());
+        assertEquals(0, scheduler.getStats(Writer.SNAPSHOT).getBytesQueued());
+    }
+
+    @Test
+    public void testLatencySensitiveNotDelayed() throws Exception {
+        DiskWriteScheduler scheduler = new DiskWriteScheduler(10);
+        long start = System.nanoTime();
+        for (int ii = 0; ii < 10; ii++) {
+            scheduler.acquire(Writer.OVERFLOW, 10 * MB);
+            scheduler.acquire(Writer.LARGE_QUERY, 10 * MB);
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(100L * MB, scheduler.getStats(Writer.OVERFLOW).getBytesWritten());
+        assertEquals(0, scheduler.getStats(Writer.OVERFLOW).getBytesThrottled());
+
+        // The bucket is now in debt, so a background writer has to wait for it
+        start = System.nanoTime();
+        scheduler.acquire(Writer.SNAPSHOT, MB);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(900));
+        assertEquals(MB, scheduler.getStats(Writer.SNAPSHOT).getBytesThrottled());
+    }
+
+    @Test
+    public void testSetRate() throws Exception {
+        DiskWriteScheduler scheduler = new DiskWriteScheduler(1);
+        assertEquals(1, scheduler.getRateMegabytes());
+        scheduler.setBackgroundRate(1024 * 10);
+        assertEquals(1024 * 10, scheduler.getRateMegabytes());
+        long start = System.nanoTime();
+        scheduler.acquire(Writer.SNAPSHOT, 10 * MB);
+        scheduler.acquire(Writer.SNAPSHOT, 10 * MB);
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+        scheduler.setBackgroundRate(null);
+        assertEquals(DiskWriteScheduler.DEFAULT_RATE_MEGABYTES, scheduler.getRateMegabytes());
+    }
+}
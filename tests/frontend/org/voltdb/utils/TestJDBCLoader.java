@@ -202,6 +202,103 @@ public class TestJDBCLoader {
         test_Interface(myOptions, jdbcOptions, myData, invalidLineCnt, validLineCnt);
     }
 
+    @Test
+    public void testRangeReaders() throws Exception
+    {
+        String []myOptions = {
+            "-f" + path_csv,
+            "--reportdir=" + reportDir,
+            "--maxerrors=50",
+            "--user=",
+            "--password=",
+            "--port=",
+            "--separator=,",
+            "--quotechar=\"",
+            "--escape=\\",
+            "--skip=1",
+            "BlAh"
+        };
+
+        // ranges detected from the min and max of clm_integer, read concurrently
+        String[] jdbcOptions = {
+            "--jdbcdriver=" + driver_class,
+            "--jdbcurl=" + jdbc_url,
+            "--jdbctable=" + "BlAh",
+            "--reportdir=" + reportDir,
+            "--maxerrors=50",
+            "--user=",
+            "--password=",
+            "--port=",
+            "--readers=3",
+            "--splitcolumn=clm_integer",
+            "--fetchsize=2",
+            "JBlAh"
+        };
+
+        String currentTime = new TimestampType().toString();
+        String []myData = {
+            "1,2,2,222222,second,3.30,NULL," + currentTime,
+            "2,3,3,333333, third ,NULL, 3.33," + currentTime,
+            "3,4,4,444444, NULL ,4.40 ,4.44," + currentTime,
+            "4,5,5,5555555,  \"abcde\"g, 5.50, 5.55," + currentTime,
+            "5,6,NULL,666666, sixth, 6.60, 6.66," + currentTime,
+            "6,7,7,777777, seventh, 7.70, 7.77," + currentTime,
+            "7,8,8,888888, eighth, 8.80, 8.88," + currentTime
+        };
+        int invalidLineCnt = 0;
+        int validLineCnt = 6;
+        test_Interface(myOptions, jdbcOptions, myData, invalidLineCnt, validLineCnt);
+    }
+
+    @Test
+    public void testRangeReadersWithSplits() throws Exception
+    {
+        String []myOptions = {
+            "-f" + path_csv,
+            "--reportdir=" + reportDir,
+            "--maxerrors=50",
+            "--user=",
+            "--password=",
+            "--port=",
+            "--separator=,",
+            "--quotechar=\"",
+            "--escape=\\",
+            "--skip=1",
+            "BlAh"
+        };
+
+        // ranges split at the given points of clm_integer, the outer ranges are open
+        String[] jdbcOptions = {
+            "--jdbcdriver=" + driver_class,
+            "--jdbcurl=" + jdbc_url,
+            "--jdbctable=" + "BlAh",
+            "--reportdir=" + reportDir,
+            "--maxerrors=50",
+            "--user=",
+            "--password=",
+            "--port=",
+            "--readers=2",
+            "--splitcolumn=clm_integer",
+            "--splits=3,5",
+            "--fetchsize=2",
+            "JBlAh"
+        };
+
+        String currentTime = new TimestampType().toString();
+        String []myData = {
+            "1,2,2,222222,second,3.30,NULL," + currentTime,
+            "2,3,3,333333, third ,NULL, 3.33," + currentTime,
+            "3,4,4,444444, NULL ,4.40 ,4.44," + currentTime,
+            "4,5,5,5555555,  \"abcde\"g, 5.50, 5.55," + currentTime,
+            "5,6,NULL,666666, sixth, 6.60, 6.66," + currentTime,
+            "6,7,7,777777, seventh, 7.70, 7.77," + currentTime,
+            "7,8,8,888888, eighth, 8.80, 8.88," + currentTime
+        };
+        int invalidLineCnt = 0;
+        int validLineCnt = 6;
+        test_Interface(myOptions, jdbcOptions, myData, invalidLineCnt, validLineCnt);
+    }
+
     @Test
     public void testColumnSizeFailure() throws Exception
     {
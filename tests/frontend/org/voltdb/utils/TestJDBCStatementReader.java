@@ -0,0 +1,120 @@
+/* This file is part of VoltDB.
+ * Copyright (C) 2008-2018 VoltDB Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.voltdb.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TestJDBCStatementReader {
+
+    @Test
+    public void testInterpolateIntegers() throws Exception {
+        assertEquals(Arrays.<Object>asList(25L, 50L, 75L), JDBCStatementReader.interpolate(0, 100, 4));
+        assertEquals(Arrays.<Object>asList(-5L, 0L, 5L), JDBCStatementReader.interpolate(-10L, 10L, 4));
+    }
+
+    @Test
+    public void testInterpolateNarrowSpan() throws Exception {
+        // more ranges than keys: no repeated points and none at min
+        assertEquals(Arrays.<Object>asList(1L, 2L), JDBCStatementReader.interpolate(0, 3, 8));
+        assertTrue(JDBCStatementReader.interpolate(7, 7, 4).isEmpty());
+    }
+
+    @Test
+    public void testInterpolateDecimals() throws Exception {
+        List<Object> points = JDBCStatementReader.interpolate(0.0, 1.0, 4);
+        assertEquals(Arrays.<Object>asList(0.25, 0.5, 0.75), points);
+
+        points = JDBCStatementReader.interpolate(new BigDecimal("1.0"), new BigDecimal("2.0"), 2);
+        assertEquals(1, points.size());
+        assertEquals(0, new BigDecimal("1.5").compareTo((BigDecimal) points.get(0)));
+    }
+
+    @Test
+    public void testInterpolateTimestamps() throws Exception {
+        List<Object> points = JDBCStatementReader.interpolate(new Timestamp(1000), new Timestamp(5000), 4);
+        assertEquals(Arrays.<Object>asList(new Timestamp(2000), new Timestamp(3000), new Timestamp(4000)), points);
+    }
+
+    @Test
+    public void testInterpolateStrings() {
+        try {
+            JDBCStatementReader.interpolate("a", "z", 4);
+            fail();
+        } catch (SQLException e) {
+            assertTrue(e.getMessage().contains("not numeric or timestamp"));
+        }
+    }
+
+    @Test
+    public void testParseSplitPoints() throws Exception {
+        assertEquals(Arrays.<Object>asList(10L, 20L, 30L),
+                JDBCStatementReader.parseSplitPoints("ID", Integer.class, new String[] { "10", " 20", "30 " }));
+        assertEquals(Arrays.<Object>asList(0.5, 1.5),
+                JDBCStatementReader.parseSplitPoints("VAL", Double.class, new String[] { "0.5", "1.5" }));
+        assertEquals(Arrays.<Object>asList(Timestamp.valueOf("2018-01-01 00:00:00")),
+                JDBCStatementReader.parseSplitPoints("TS", Timestamp.class, new String[] { "2018-01-01 00:00:00" }));
+    }
+
+    @Test
+    public void testParseSplitPointsOrder() {
+        try {
+            JDBCStatementReader.parseSplitPoints("ID", Long.class, new String[] { "10", "10" });
+            fail();
+        } catch (SQLException e) {
+            assertTrue(e.getMessage().contains("ascending order"));
+        }
+        try {
+            JDBCStatementReader.parseSplitPoints("ID", Long.class, new String[] { "20", "10" });
+            fail();
+        } catch (SQLException e) {
+            assertTrue(e.getMessage().contains("ascending order"));
+        }
+    }
+
+    @Test
+    public void testParseSplitPointsInvalid() {
+        try {
+            JDBCStatementReader.parseSplitPoints("ID", Long.class, new String[] { "ten" });
+            fail();
+        } catch (SQLException e) {
+            assertTrue(e.getMessage().contains("Invalid split point"));
+        }
+        // the source database orders strings by its own collation
+        try {
+            JDBCStatementReader.parseSplitPoints("NAME", String.class, new String[] { "a", "b" });
+            fail();
+        } catch (SQLException e) {
+            assertTrue(e.getMessage().contains("not numeric or timestamp"));
+        }
+    }
+}